@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.appengine.eclipse.wtp.server;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.util.ModuleFile;
+import org.eclipse.wst.server.core.util.ModuleFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Tests incremental publishing with {@link ModulePublisher}.
+ */
+public class ModulePublisherTest extends TestCase {
+
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
+  private File dir;
+
+  private File manifestFile;
+
+  private File sourceDir;
+
+  private File targetDir;
+
+  public void testAddedFileIsCopied() throws Exception {
+    writeSource("index.html", "index");
+    publish(0, 1, 0, "index.html");
+
+    writeSource("WEB-INF/web.xml", "web");
+    publish(1, 1, 0, "index.html", "WEB-INF/web.xml");
+    assertTarget("WEB-INF/web.xml", "web");
+  }
+
+  public void testChangedFileIsCopied() throws Exception {
+    writeSource("index.html", "index");
+    writeSource("WEB-INF/web.xml", "web");
+    publish(0, 2, 0, "index.html", "WEB-INF/web.xml");
+
+    writeSource("index.html", "changed index");
+    publish(1, 1, 0, "index.html", "WEB-INF/web.xml");
+    assertTarget("index.html", "changed index");
+  }
+
+  public void testFirstPublishCopiesEverything() throws Exception {
+    writeSource("index.html", "index");
+    writeSource("WEB-INF/web.xml", "web");
+    publish(0, 2, 0, "index.html", "WEB-INF/web.xml");
+    assertTarget("index.html", "index");
+    assertTarget("WEB-INF/web.xml", "web");
+    assertTrue(manifestFile.isFile());
+  }
+
+  public void testPublishWithoutManifestCleansTarget() throws Exception {
+    // Left behind by an earlier version, which kept no manifest
+    writeFile(new File(targetDir, "WEB-INF/classes/Stale.class"), "stale");
+
+    writeSource("index.html", "index");
+    publish(0, 1, 0, "index.html");
+    assertFalse(new File(targetDir, "WEB-INF").exists());
+  }
+
+  public void testRemovedFileIsDeleted() throws Exception {
+    writeSource("index.html", "index");
+    writeSource("WEB-INF/lib/library.jar", "library");
+    publish(0, 2, 0, "index.html", "WEB-INF/lib/library.jar");
+
+    // Generated by the running server, so not in the manifest
+    writeFile(new File(targetDir, "WEB-INF/appengine-generated/local_db.bin"), "db");
+
+    publish(1, 0, 1, "index.html");
+    assertFalse(new File(targetDir, "WEB-INF/lib").exists());
+    assertTrue(new File(targetDir, "WEB-INF/appengine-generated/local_db.bin").isFile());
+  }
+
+  public void testTouchedFileWithSameContentsIsNotCopied() throws Exception {
+    writeSource("index.html", "index");
+    publish(0, 1, 0, "index.html");
+
+    File source = new File(sourceDir, "index.html");
+    assertTrue(source.setLastModified(source.lastModified() + 2000));
+    publish(1, 0, 0, "index.html");
+  }
+
+  public void testUnchangedFilesAreSkipped() throws Exception {
+    writeSource("index.html", "index");
+    writeSource("WEB-INF/web.xml", "web");
+    publish(0, 2, 0, "index.html", "WEB-INF/web.xml");
+    publish(2, 0, 0, "index.html", "WEB-INF/web.xml");
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    dir = Files.createTempDir();
+    sourceDir = new File(dir, "source");
+    targetDir = new File(dir, "target");
+    manifestFile = new File(dir, "publish.manifest");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    deleteRecursively(dir);
+    super.tearDown();
+  }
+
+  private void assertTarget(String relativePath, String contents) throws IOException {
+    assertEquals(contents, Files.toString(new File(targetDir, relativePath), Charsets.UTF_8));
+  }
+
+  /**
+   * Publishes the given source files, nesting those under WEB-INF in a module folder, and checks
+   * the statistics of the publish.
+   */
+  private void publish(int skipped, int copied, int deleted, String... relativePaths) {
+    List<IModuleResource> resources = Lists.newArrayList();
+    List<IModuleResource> webInfMembers = Lists.newArrayList();
+    for (String relativePath : relativePaths) {
+      IPath path = new Path(relativePath);
+      ModuleFile moduleFile = new ModuleFile(new File(sourceDir, relativePath),
+          path.lastSegment(), path.removeLastSegments(1));
+      if (path.segment(0).equals("WEB-INF")) {
+        webInfMembers.add(moduleFile);
+      } else {
+        resources.add(moduleFile);
+      }
+    }
+    ModuleFolder webInf = new ModuleFolder(null, "WEB-INF", Path.EMPTY);
+    webInf.setMembers(webInfMembers.toArray(new IModuleResource[webInfMembers.size()]));
+    resources.add(webInf);
+
+    List<IStatus> statusList = Lists.newArrayList();
+    ModulePublisher publisher = new ModulePublisher(targetDir, manifestFile);
+    publisher.publish(resources.toArray(new IModuleResource[resources.size()]), statusList,
+        new NullProgressMonitor());
+
+    assertEquals(statusList.toString(), 0, statusList.size());
+    ModulePublisher.PublishStats stats = publisher.getStats();
+    assertEquals(skipped, stats.getFilesSkipped());
+    assertEquals(copied, stats.getFilesCopied());
+    assertEquals(deleted, stats.getFilesDeleted());
+  }
+
+  private void writeFile(File file, String contents) throws IOException {
+    Files.createParentDirs(file);
+    Files.write(contents, file, Charsets.UTF_8);
+  }
+
+  private void writeSource(String relativePath, String contents) throws IOException {
+    File source = new File(sourceDir, relativePath);
+    // Make sure a rewrite changes the modification time
+    long modified = source.exists() ? source.lastModified() + 2000 : 1400000000000L;
+    writeFile(source, contents);
+    assertTrue(source.setLastModified(modified));
+  }
+}
@@ -55,6 +55,16 @@ public final class AppEnginePlugin extends AbstractUIPlugin {
     logMessage(null, e);
   }
 
+  /**
+   * Logs an informational message if debugging is enabled for this plug-in.
+   */
+  public static void logTrace(String msg) {
+    AppEnginePlugin plugin = getInstance();
+    if (plugin != null && plugin.isDebugging()) {
+      plugin.getLog().log(new Status(IStatus.INFO, PLUGIN_ID, msg));
+    }
+  }
+
   public AppEnginePlugin() {
     INSTANCE = this;
   }
@@ -25,6 +25,7 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.jst.server.core.IJ2EEModule;
 import org.eclipse.jst.server.core.IWebModule;
 import org.eclipse.wst.server.core.IModule;
@@ -141,6 +142,21 @@ public final class GaePublishOperation extends PublishOperation {
     return 0;
   }
 
+  private ModulePublisher newModulePublisher(IPath path) {
+    return new ModulePublisher(path.toFile(), server.getPublishManifestFile(path));
+  }
+
+  /**
+   * Publishes the module resources using the given publisher.
+   */
+  private void publish(ModulePublisher publisher, List<IStatus> statusList,
+      IProgressMonitor monitor) {
+    IModuleResource[] resources = server.getResources(module);
+    publisher.publish(resources, statusList, monitor);
+    AppEnginePlugin.logTrace("Published " + module[module.length - 1].getName() + ": "
+        + publisher.getStats());
+  }
+
   /**
    * Publish as binary module.
    */
@@ -193,31 +209,25 @@ public final class GaePublishOperation extends PublishOperation {
    */
   private void publishDir(IPath path, List<IStatus> statusList, IProgressMonitor monitor)
       throws CoreException {
+    ModulePublisher publisher = newModulePublisher(path);
     // delete if needed
     if (kind == IServer.PUBLISH_CLEAN || deltaKind == ServerBehaviourDelegate.REMOVED) {
-      File file = path.toFile();
-      if (file.exists()) {
-        IStatus[] status = PublishHelper.deleteDirectory(file, monitor);
-        statusList.addAll(Arrays.asList(status));
-      }
+      publisher.clean(statusList, monitor);
       // request for remove
       if (deltaKind == ServerBehaviourDelegate.REMOVED) {
         return;
       }
     }
-    // republish or publish fully
-    if (kind == IServer.PUBLISH_CLEAN || kind == IServer.PUBLISH_FULL) {
-      IModuleResource[] resources = server.getResources(module);
-      IStatus[] publishStatus = helper.publishFull(resources, path, monitor);
-      statusList.addAll(Arrays.asList(publishStatus));
-      return;
-    }
-    // publish changes only
-    IModuleResourceDelta[] deltas = server.getPublishedResourceDelta(module);
-    for (IModuleResourceDelta delta : deltas) {
-      IStatus[] publishStatus = helper.publishDelta(delta, path, monitor);
-      statusList.addAll(Arrays.asList(publishStatus));
+    // nothing changed since the last publish
+    if (kind != IServer.PUBLISH_CLEAN && kind != IServer.PUBLISH_FULL
+        && path.toFile().exists()) {
+      IModuleResourceDelta[] deltas = server.getPublishedResourceDelta(module);
+      if (deltas == null || deltas.length == 0) {
+        return;
+      }
     }
+    // copy changed files only
+    publish(publisher, statusList, monitor);
   }
 
   /**
@@ -237,11 +247,7 @@ public final class GaePublishOperation extends PublishOperation {
     // remove if needed
     if (isMoving || kind == IServer.PUBLISH_CLEAN || deltaKind == ServerBehaviourDelegate.REMOVED) {
       if (oldURI != null) {
-        File file = new File(oldURI);
-        if (file.exists()) {
-          IStatus[] status = PublishHelper.deleteDirectory(file, monitor);
-          statusList.addAll(Arrays.asList(status));
-        }
+        newModulePublisher(new Path(oldURI)).clean(statusList, monitor);
       }
       mapping.remove(childModule.getId());
       if (deltaKind == ServerBehaviourDelegate.REMOVED) {
@@ -259,20 +265,8 @@ public final class GaePublishOperation extends PublishOperation {
     if (!dirPath.toFile().exists()) {
       dirPath.toFile().mkdirs();
     }
-    // do publish resources
-    // republish or publish fully
-    if (kind == IServer.PUBLISH_CLEAN || kind == IServer.PUBLISH_FULL) {
-      IModuleResource[] resources = server.getResources(module);
-      IStatus[] publishStatus = helper.publishFull(resources, dirPath, monitor);
-      statusList.addAll(Arrays.asList(publishStatus));
-    } else {
-      // publish changes only
-      IModuleResourceDelta[] deltas = server.getPublishedResourceDelta(module);
-      for (IModuleResourceDelta delta : deltas) {
-        IStatus[] publishStatus = helper.publishDelta(delta, dirPath, monitor);
-        statusList.addAll(Arrays.asList(publishStatus));
-      }
-    }
+    // do publish resources, copying changed files only
+    publish(newModulePublisher(dirPath), statusList, monitor);
     // store into mapping
     mapping.put(childModule.getId(), dirURI);
   }
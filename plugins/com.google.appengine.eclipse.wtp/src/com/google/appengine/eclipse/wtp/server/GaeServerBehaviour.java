@@ -18,8 +18,12 @@ import com.google.appengine.eclipse.wtp.runtime.GaeRuntime;
 import com.google.appengine.eclipse.wtp.runtime.RuntimeUtils;
 import com.google.appengine.eclipse.wtp.utils.IOUtils;
 import com.google.appengine.eclipse.wtp.utils.ProjectUtils;
+import com.google.common.base.Charsets;
 import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
 import com.google.gdt.eclipse.core.StatusUtilities;
+import com.google.gdt.eclipse.core.launch.ServerReadinessDetector;
+import com.google.gdt.eclipse.core.launch.ServerReadinessDetector.StartupTimings;
 import com.google.gdt.eclipse.core.sdk.SdkUtils;
 
 import org.eclipse.core.runtime.CoreException;
@@ -47,6 +51,7 @@ import org.eclipse.wst.server.core.model.IModuleResourceDelta;
 import org.eclipse.wst.server.core.model.ServerBehaviourDelegate;
 import org.eclipse.wst.server.core.util.SocketUtil;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -54,6 +59,7 @@ import java.net.Socket;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.regex.Pattern;
 
 /**
  * Controls Google App Engine Server state.
@@ -66,6 +72,8 @@ public final class GaeServerBehaviour extends ServerBehaviourDelegate {
   private static final String ARG_ENABLE_AUTO_RELOAD = "-Dappengine.fullscan.seconds=";
   private static final String ARG_UNAPPLIED_JOB_PCT = "-Ddatastore.default_high_rep_job_policy_unapplied_job_pct=";
   private static final String GAE_DEV_SERVER_MAIN = "com.google.appengine.tools.development.DevAppServerMain";
+  private static final Pattern GAE_DEV_SERVER_READY_MARKER = Pattern.compile(
+      "Dev App Server is now running");
 
   private static boolean isPortAvailable(int port) {
     Socket socket = null;
@@ -86,7 +94,7 @@ public final class GaeServerBehaviour extends ServerBehaviourDelegate {
   }
 
   private IDebugEventSetListener processListener;
-  private PingThread pingThread;
+  private ServerReadinessDetector readinessDetector;
 
   @Override
   public IStatus canStart(String launchMode) {
@@ -140,6 +148,14 @@ public final class GaeServerBehaviour extends ServerBehaviourDelegate {
     return getRuntimeBaseDirectory().append(module.getName());
   }
 
+  /**
+   * @return the file keeping the manifest of the files published into the given directory.
+   */
+  public File getPublishManifestFile(IPath deployPath) {
+    String name = Hashing.sha1().hashString(deployPath.toPortableString(), Charsets.UTF_8).toString();
+    return getTempDirectory().append("manifests").append(name + ".properties").toFile();
+  }
+
   /**
    * Returns runtime base directory. Uses temp directory.
    */
@@ -252,6 +268,9 @@ public final class GaeServerBehaviour extends ServerBehaviourDelegate {
     if (processListener != null || newProcess == null) {
       return;
     }
+    if (readinessDetector != null) {
+      readinessDetector.watch(newProcess);
+    }
 
     processListener = new IDebugEventSetListener() {
       @Override
@@ -346,26 +365,36 @@ public final class GaeServerBehaviour extends ServerBehaviourDelegate {
     setServerRestartState(false);
     setServerState(IServer.STATE_STARTING);
     setMode(launchMode);
-    // ping server to check for startup
+    // watch the server output and port for startup
     try {
-      String url = "http://" + getServer().getHost();
       int port = gaeServer.getMainPort().getPort();
-      if (port != 80) {
-        url += ":" + port;
-      }
-      pingThread = new PingThread(getServer(), url, -1, this);
+      readinessDetector = new ServerReadinessDetector("App Engine Server Readiness Detector",
+          getServer().getHost(), port, GAE_DEV_SERVER_READY_MARKER, 0,
+          new ServerReadinessDetector.Listener() {
+            @Override
+            public void serverNotReady(StartupTimings timings) {
+              stop(false);
+            }
+
+            @Override
+            public void serverReady(StartupTimings timings) {
+              AppEnginePlugin.logTrace("App Engine Server " + timings);
+              setServerStarted();
+            }
+          });
+      readinessDetector.start();
     } catch (Throwable e) {
-      AppEnginePlugin.logMessage("Can't ping for GAE Server startup.", e);
+      AppEnginePlugin.logMessage("Can't detect GAE Server startup.", e);
     }
   }
 
   /**
-   * Stops the ping thread and removes debug listener.
+   * Stops the readiness detection and removes debug listener.
    */
   protected void stopImpl() {
-    if (pingThread != null) {
-      pingThread.stop();
-      pingThread = null;
+    if (readinessDetector != null) {
+      readinessDetector.stop();
+      readinessDetector = null;
     }
     if (processListener != null) {
       DebugPlugin.getDefault().removeDebugEventListener(processListener);
@@ -0,0 +1,371 @@
+/*******************************************************************************
+ * Copyright 2013 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.appengine.eclipse.wtp.server;
+
+import com.google.appengine.eclipse.wtp.AppEnginePlugin;
+import com.google.appengine.eclipse.wtp.utils.IOUtils;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.util.PublishHelper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Publishes module resources into a directory, copying only the files which changed since the
+ * previous publish.
+ *
+ * A manifest of size, modification time and content hash of every published file is kept next to
+ * the server's publish data. Files whose size and modification time are unchanged are skipped
+ * without being read, files whose content hash is unchanged are skipped without being copied, and
+ * files recorded in the manifest which are no longer part of the module are deleted. Files not
+ * recorded in the manifest (for example, those generated by the running server) are left alone.
+ * Without a manifest, as on the first publish after an upgrade from a version which kept none, the
+ * target directory is cleaned first, since there is no telling which of its files are stale.
+ * Hashing and copying run on a bounded pool of I/O threads.
+ */
+final class ModulePublisher {
+
+  /**
+   * Statistics of a single publish.
+   */
+  static final class PublishStats {
+    private int filesCopied;
+    private long bytesCopied;
+    private int filesSkipped;
+    private int filesDeleted;
+    private long wallTimeMillis;
+
+    public long getBytesCopied() {
+      return bytesCopied;
+    }
+
+    public int getFilesCopied() {
+      return filesCopied;
+    }
+
+    public int getFilesDeleted() {
+      return filesDeleted;
+    }
+
+    public int getFilesSkipped() {
+      return filesSkipped;
+    }
+
+    public long getWallTimeMillis() {
+      return wallTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+      return filesCopied + " files copied (" + bytesCopied + " bytes), " + filesSkipped
+          + " skipped, " + filesDeleted + " deleted in " + wallTimeMillis + " ms";
+    }
+  }
+
+  /**
+   * Manifest entry of a published file.
+   */
+  private static final class Entry {
+    static Entry parse(String value) {
+      String[] parts = value.split(":", 3);
+      if (parts.length != 3) {
+        return null;
+      }
+      try {
+        return new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    final long size;
+    final long modified;
+    final String hash;
+
+    Entry(long size, long modified, String hash) {
+      this.size = size;
+      this.modified = modified;
+      this.hash = hash;
+    }
+
+    @Override
+    public String toString() {
+      return size + ":" + modified + ":" + hash;
+    }
+  }
+
+  /**
+   * Outcome of publishing a single file.
+   */
+  private static final class Result {
+    final String relativePath;
+    final Entry entry;
+    final boolean copied;
+
+    Result(String relativePath, Entry entry, boolean copied) {
+      this.relativePath = relativePath;
+      this.entry = entry;
+      this.copied = copied;
+    }
+  }
+
+  /**
+   * The maximum number of concurrent I/O threads used by a publish.
+   */
+  private static final int MAX_IO_THREADS = 4;
+
+  private static final String MANIFEST_COMMENT = "Google App Engine publish manifest";
+
+  /**
+   * Deletes the file and its parent directories up to (not including) the root, as long as they
+   * are empty.
+   */
+  private static boolean deleteAndPrune(File file, File root) {
+    if (!file.delete()) {
+      return false;
+    }
+    File parent = file.getParentFile();
+    while (parent != null && !parent.equals(root) && parent.delete()) {
+      parent = parent.getParentFile();
+    }
+    return true;
+  }
+
+  /**
+   * Returns the file system file backing the module file, or <code>null</code> if there is none.
+   */
+  private static File getSourceFile(IModuleFile moduleFile) {
+    IFile file = (IFile) moduleFile.getAdapter(IFile.class);
+    if (file != null) {
+      IPath location = file.getLocation();
+      return location != null ? location.toFile() : null;
+    }
+    return (File) moduleFile.getAdapter(File.class);
+  }
+
+  private static Properties loadManifest(File manifestFile) {
+    Properties properties = new Properties();
+    if (!manifestFile.exists()) {
+      return properties;
+    }
+    FileInputStream stream = null;
+    try {
+      stream = new FileInputStream(manifestFile);
+      properties.load(stream);
+    } catch (IOException e) {
+      // treat as if nothing was published yet
+      properties.clear();
+    } finally {
+      IOUtils.closeQuietly(stream);
+    }
+    return properties;
+  }
+
+  private final File targetDir;
+  private final File manifestFile;
+  private final PublishStats stats = new PublishStats();
+
+  /**
+   * @param targetDir the directory into which the module is published
+   * @param manifestFile the file keeping the manifest of the published files
+   */
+  ModulePublisher(File targetDir, File manifestFile) {
+    this.targetDir = targetDir;
+    this.manifestFile = manifestFile;
+  }
+
+  /**
+   * Deletes the published directory together with its manifest.
+   */
+  void clean(List<IStatus> statusList, IProgressMonitor monitor) {
+    if (targetDir.exists()) {
+      for (IStatus status : PublishHelper.deleteDirectory(targetDir, monitor)) {
+        statusList.add(status);
+      }
+    }
+    manifestFile.delete();
+  }
+
+  /**
+   * @return the statistics of the last {@link #publish(IModuleResource[], List, IProgressMonitor)}
+   */
+  PublishStats getStats() {
+    return stats;
+  }
+
+  /**
+   * Brings the target directory up to date with the given module resources.
+   */
+  void publish(IModuleResource[] resources, List<IStatus> statusList, IProgressMonitor monitor) {
+    if (monitor == null) {
+      monitor = new NullProgressMonitor();
+    }
+    long start = System.currentTimeMillis();
+    Map<String, IModuleFile> files = Maps.newLinkedHashMap();
+    collectFiles(resources, files);
+
+    monitor.beginTask("Publishing", files.size() + 2);
+    if (!manifestFile.exists() && targetDir.exists()) {
+      clean(statusList, new SubProgressMonitor(monitor, 1));
+    } else {
+      monitor.worked(1);
+    }
+
+    Properties oldManifest = loadManifest(manifestFile);
+    Properties newManifest = new Properties();
+
+    int threads = Math.max(1, Math.min(MAX_IO_THREADS, Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Result>> futures = Lists.newArrayListWithCapacity(files.size());
+      for (Map.Entry<String, IModuleFile> file : files.entrySet()) {
+        String relativePath = file.getKey();
+        String oldValue = oldManifest.getProperty(relativePath);
+        Entry oldEntry = oldValue != null ? Entry.parse(oldValue) : null;
+        futures.add(executor.submit(newTask(relativePath, file.getValue(), oldEntry)));
+      }
+      for (Future<Result> future : futures) {
+        if (monitor.isCanceled()) {
+          future.cancel(true);
+          continue;
+        }
+        try {
+          Result result = future.get();
+          newManifest.setProperty(result.relativePath, result.entry.toString());
+          if (result.copied) {
+            stats.filesCopied++;
+            stats.bytesCopied += result.entry.size;
+          } else {
+            stats.filesSkipped++;
+          }
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          statusList.add(AppEnginePlugin.createErrorStatus(cause.getMessage(),
+              cause instanceof Exception ? (Exception) cause : e));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          monitor.setCanceled(true);
+        }
+        monitor.worked(1);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    if (!monitor.isCanceled()) {
+      // remove the files which are no longer part of the module
+      for (String relativePath : oldManifest.stringPropertyNames()) {
+        if (!files.containsKey(relativePath)) {
+          File target = new File(targetDir, relativePath);
+          if (!target.exists() || deleteAndPrune(target, targetDir)) {
+            stats.filesDeleted++;
+          } else {
+            statusList.add(AppEnginePlugin.createErrorStatus("Cannot delete " + target, null));
+            newManifest.setProperty(relativePath, oldManifest.getProperty(relativePath));
+          }
+        }
+      }
+    } else {
+      // keep track of what may still be published from the previous run
+      for (String relativePath : oldManifest.stringPropertyNames()) {
+        if (!newManifest.containsKey(relativePath)) {
+          newManifest.setProperty(relativePath, oldManifest.getProperty(relativePath));
+        }
+      }
+    }
+    saveManifest(newManifest, statusList);
+    monitor.worked(1);
+    monitor.done();
+    stats.wallTimeMillis = System.currentTimeMillis() - start;
+  }
+
+  private void collectFiles(IModuleResource[] resources, Map<String, IModuleFile> files) {
+    for (IModuleResource resource : resources) {
+      if (resource instanceof IModuleFolder) {
+        collectFiles(((IModuleFolder) resource).members(), files);
+      } else if (resource instanceof IModuleFile) {
+        IPath relativePath = resource.getModuleRelativePath().append(resource.getName());
+        files.put(relativePath.toPortableString(), (IModuleFile) resource);
+      }
+    }
+  }
+
+  private Callable<Result> newTask(final String relativePath, final IModuleFile moduleFile,
+      final Entry oldEntry) {
+    return new Callable<Result>() {
+      @Override
+      public Result call() throws IOException {
+        File source = getSourceFile(moduleFile);
+        if (source == null || !source.isFile()) {
+          throw new IOException("Cannot find source of " + relativePath);
+        }
+        File target = new File(targetDir, relativePath);
+        long size = source.length();
+        long modified = source.lastModified();
+        boolean targetCurrent = oldEntry != null && target.isFile() && target.length() == size;
+        if (targetCurrent && oldEntry.size == size && oldEntry.modified == modified) {
+          return new Result(relativePath, oldEntry, false);
+        }
+        String hash = Files.hash(source, Hashing.sha1()).toString();
+        Entry entry = new Entry(size, modified, hash);
+        if (targetCurrent && hash.equals(oldEntry.hash)) {
+          return new Result(relativePath, entry, false);
+        }
+        Files.createParentDirs(target);
+        Files.copy(source, target);
+        target.setLastModified(modified);
+        return new Result(relativePath, entry, true);
+      }
+    };
+  }
+
+  private void saveManifest(Properties manifest, List<IStatus> statusList) {
+    FileOutputStream stream = null;
+    try {
+      Files.createParentDirs(manifestFile);
+      stream = new FileOutputStream(manifestFile);
+      manifest.store(stream, MANIFEST_COMMENT);
+    } catch (IOException e) {
+      // without a manifest the next publish starts over from a clean directory
+      manifestFile.delete();
+      statusList.add(AppEnginePlugin.createErrorStatus("Cannot save publish manifest", e));
+    } finally {
+      IOUtils.closeQuietly(stream);
+    }
+  }
+}
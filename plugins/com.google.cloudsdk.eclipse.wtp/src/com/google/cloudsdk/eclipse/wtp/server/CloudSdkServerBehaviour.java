@@ -14,6 +14,8 @@ package com.google.cloudsdk.eclipse.wtp.server;
 
 import com.google.cloudsdk.eclipse.wtp.CloudSdkPlugin;
 import com.google.common.io.ByteStreams;
+import com.google.gdt.eclipse.core.launch.ServerReadinessDetector;
+import com.google.gdt.eclipse.core.launch.ServerReadinessDetector.StartupTimings;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -32,12 +34,16 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.Socket;
 import java.net.URL;
+import java.util.regex.Pattern;
 
 /**
  * A {@link ServerBehaviourDelegate} for Google Cloud SDK.
  */
 public class CloudSdkServerBehaviour extends ServerBehaviourDelegate {
-  private PingThread pingThread;
+  private static final Pattern ADMIN_SERVER_READY_MARKER = Pattern.compile(
+      "Starting admin server at");
+
+  private ServerReadinessDetector readinessDetector;
   private IDebugEventSetListener processListener;
 
   @Override
@@ -76,15 +82,26 @@ public class CloudSdkServerBehaviour extends ServerBehaviourDelegate {
     setServerRestartState(false);
     setServerState(IServer.STATE_STARTING);
     setMode(launchMode);
-    String adminHost = CloudSdkServer.getCloudSdkServer(getServer()).getApiHost();
+    CloudSdkServer server = CloudSdkServer.getCloudSdkServer(getServer());
 
-    // ping server to check for startup
+    // watch the server output and admin port for startup
     try {
-      String url = "http://" + adminHost;
-      pingThread = new PingThread(getServer(), url, -1, this);
-      pingThread.start();
+      readinessDetector = new ServerReadinessDetector("Cloud SDK Server Readiness Detector",
+          CloudSdkServer.DEFAULT_HOST, server.getApiPort(), ADMIN_SERVER_READY_MARKER, 0,
+          new ServerReadinessDetector.Listener() {
+            @Override
+            public void serverNotReady(StartupTimings timings) {
+              stop(false);
+            }
+
+            @Override
+            public void serverReady(StartupTimings timings) {
+              setServerStarted();
+            }
+          });
+      readinessDetector.start();
     } catch (Throwable e) {
-      CloudSdkPlugin.logError("Can't ping for GAE Server startup.", e);
+      CloudSdkPlugin.logError("Can't detect GAE Server startup.", e);
     }
   }
 
@@ -105,9 +122,9 @@ public class CloudSdkServerBehaviour extends ServerBehaviourDelegate {
         launch.terminate();
       }
 
-      if (pingThread != null) {
-        pingThread.stop();
-        pingThread = null;
+      if (readinessDetector != null) {
+        readinessDetector.stop();
+        readinessDetector = null;
       }
 
       if (processListener != null) {
@@ -148,6 +165,9 @@ public class CloudSdkServerBehaviour extends ServerBehaviourDelegate {
     if (processListener != null || newProcess == null) {
       return;
     }
+    if (readinessDetector != null) {
+      readinessDetector.watch(newProcess);
+    }
 
     processListener = new IDebugEventSetListener() {
       @Override
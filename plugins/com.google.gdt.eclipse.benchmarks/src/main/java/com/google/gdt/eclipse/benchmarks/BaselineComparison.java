@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.benchmarks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Compares JMH results, in the JSON format written by <code>-rf json</code>,
+ * against a baseline run and reports the benchmarks whose score got worse by
+ * more than a threshold.
+ *
+ * Benchmarks are matched by name and parameters. Throughput scores regress
+ * when they drop, while the time-based modes (average, sample and single shot)
+ * regress when they grow. Benchmarks missing from the baseline, or measured in
+ * a different mode or unit, are not compared.
+ */
+public class BaselineComparison {
+
+  /**
+   * A benchmark whose score regressed beyond the threshold.
+   */
+  public static class Regression {
+    private final String benchmark;
+    private final Score baseline;
+    private final Score current;
+
+    Regression(String benchmark, Score baseline, Score current) {
+      this.benchmark = benchmark;
+      this.baseline = baseline;
+      this.current = current;
+    }
+
+    public String getBenchmark() {
+      return benchmark;
+    }
+
+    /**
+     * Returns the change from the baseline score, in percent.
+     */
+    public double getChange() {
+      return (current.value - baseline.value) * 100.0 / baseline.value;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %.3f -> %.3f %s (%+.1f%%)", benchmark,
+          baseline.value, current.value, current.unit, getChange());
+    }
+  }
+
+  /**
+   * The primary score of one benchmark.
+   */
+  public static class Score {
+    private final String mode;
+    private final String unit;
+    private final double value;
+
+    public Score(String mode, double value, String unit) {
+      this.mode = mode;
+      this.value = value;
+      this.unit = unit;
+    }
+
+    boolean isHigherBetter() {
+      return "thrpt".equals(mode);
+    }
+  }
+
+  /**
+   * Reads the primary scores from a JMH JSON result, keyed by the benchmark
+   * name followed by its parameters.
+   */
+  public static Map<String, Score> readResults(Reader reader) {
+    Map<String, Score> results = new LinkedHashMap<String, Score>();
+    for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray()) {
+      JsonObject result = element.getAsJsonObject();
+      JsonObject primaryMetric = result.getAsJsonObject("primaryMetric");
+      results.put(getKey(result), new Score(
+          result.get("mode").getAsString(),
+          primaryMetric.get("score").getAsDouble(),
+          primaryMetric.get("scoreUnit").getAsString()));
+    }
+    return results;
+  }
+
+  private static String getKey(JsonObject result) {
+    StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+    JsonObject params = result.getAsJsonObject("params");
+    if (params != null) {
+      // Sort the parameters so the key does not depend on their order
+      Map<String, String> sortedParams = new TreeMap<String, String>();
+      for (Entry<String, JsonElement> param : params.entrySet()) {
+        sortedParams.put(param.getKey(), param.getValue().getAsString());
+      }
+      key.append(sortedParams);
+    }
+    return key.toString();
+  }
+
+  private final Map<String, Score> baseline;
+
+  private final double thresholdPercent;
+
+  public BaselineComparison(Map<String, Score> baseline,
+      double thresholdPercent) {
+    this.baseline = baseline;
+    this.thresholdPercent = thresholdPercent;
+  }
+
+  /**
+   * Returns the benchmarks in <code>current</code> that regressed against the
+   * baseline by more than the threshold.
+   */
+  public List<Regression> compare(Map<String, Score> current) {
+    List<Regression> regressions = new ArrayList<Regression>();
+    for (Entry<String, Score> entry : current.entrySet()) {
+      Score baselineScore = baseline.get(entry.getKey());
+      Score currentScore = entry.getValue();
+      if (baselineScore == null || baselineScore.value == 0
+          || !baselineScore.mode.equals(currentScore.mode)
+          || !baselineScore.unit.equals(currentScore.unit)) {
+        continue;
+      }
+
+      Regression candidate = new Regression(entry.getKey(), baselineScore,
+          currentScore);
+      double change = candidate.getChange();
+      if (currentScore.isHigherBetter() ? change < -thresholdPercent
+          : change > thresholdPercent) {
+        regressions.add(candidate);
+      }
+    }
+    return regressions;
+  }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Closeables;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the benchmarks and optionally compares them against a baseline.
+ *
+ * Usage: <code>java -jar benchmarks.jar [-result file] [-baseline file]
+ * [-threshold percent] [include-regexp...]</code>
+ *
+ * The results of the run are written as JMH JSON to the result file (by
+ * default <code>benchmark-result.json</code>), which can serve as the baseline
+ * of a later run. When a baseline is given, the process exits with status 1 if
+ * any benchmark regressed by more than the threshold (by default 10%).
+ */
+public class BenchmarkMain {
+
+  private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+  public static void main(String[] args) throws Exception {
+    String resultPath = "benchmark-result.json";
+    String baselinePath = "";
+    double thresholdPercent = DEFAULT_THRESHOLD_PERCENT;
+    List<String> includes = new ArrayList<String>();
+
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-result") && i + 1 < args.length) {
+        resultPath = args[++i];
+      } else if (args[i].equals("-baseline") && i + 1 < args.length) {
+        baselinePath = args[++i];
+      } else if (args[i].equals("-threshold") && i + 1 < args.length) {
+        thresholdPercent = Double.parseDouble(args[++i]);
+      } else {
+        includes.add(args[i]);
+      }
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder().resultFormat(
+        ResultFormatType.JSON).result(resultPath);
+    for (String include : includes) {
+      options.include(include);
+    }
+    new Runner(options.build()).run();
+
+    // An empty path stands for no baseline, as passed by the Maven build
+    if (baselinePath.length() == 0) {
+      return;
+    }
+
+    BaselineComparison comparison = new BaselineComparison(
+        readResults(new File(baselinePath)), thresholdPercent);
+    List<BaselineComparison.Regression> regressions = comparison.compare(
+        readResults(new File(resultPath)));
+    if (regressions.isEmpty()) {
+      System.out.println(String.format(
+          "No benchmark regressed by more than %.1f%% against %s",
+          thresholdPercent, baselinePath));
+      return;
+    }
+
+    System.err.println(String.format(
+        "%d benchmark(s) regressed by more than %.1f%% against %s:",
+        regressions.size(), thresholdPercent, baselinePath));
+    for (BaselineComparison.Regression regression : regressions) {
+      System.err.println("  " + regression);
+    }
+    System.exit(1);
+  }
+
+  private static Map<String, BaselineComparison.Score> readResults(File file)
+      throws IOException {
+    Reader reader = new InputStreamReader(new FileInputStream(file),
+        Charsets.UTF_8);
+    try {
+      return BaselineComparison.readResults(reader);
+    } finally {
+      Closeables.closeQuietly(reader);
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.benchmarks;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory stand-ins for workspace resources, so code written against the
+ * resources API can be benchmarked without a running workspace, and the
+ * clean-up of the files benchmarks write to disk.
+ *
+ * Only the handful of methods the benchmarked code calls are implemented
+ * (names, paths, types, parents, members and visitors); the rest throw
+ * {@link UnsupportedOperationException}. Two stand-ins are equal when they have
+ * the same type and full path, like workspace resource handles.
+ */
+public final class Fixtures {
+
+  private static class ResourceHandler implements InvocationHandler {
+
+    private final List<IResource> members = new ArrayList<IResource>();
+    private final String name;
+    private final IContainer parent;
+    private final IPath path;
+    private final int type;
+
+    ResourceHandler(int type, IContainer parent, String name) {
+      this.type = type;
+      this.parent = parent;
+      this.name = name;
+      this.path = parent != null ? parent.getFullPath().append(name)
+          : Path.ROOT.append(name);
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args)
+        throws Throwable {
+      String methodName = method.getName();
+      if (methodName.equals("equals")) {
+        ResourceHandler other = getHandler(args[0]);
+        return other != null && other.type == type && other.path.equals(path);
+      } else if (methodName.equals("hashCode")) {
+        return path.hashCode();
+      } else if (methodName.equals("toString")) {
+        return path.toString();
+      } else if (methodName.equals("getName")) {
+        return name;
+      } else if (methodName.equals("getFullPath")) {
+        return path;
+      } else if (methodName.equals("getType")) {
+        return type;
+      } else if (methodName.equals("getParent")) {
+        return parent;
+      } else if (methodName.equals("getProject")) {
+        return parent != null ? parent.getProject() : proxy;
+      } else if (methodName.equals("exists")
+          || methodName.equals("isAccessible")
+          || methodName.equals("isOpen")) {
+        return true;
+      } else if (methodName.equals("members")) {
+        return members.toArray(new IResource[members.size()]);
+      } else if (methodName.equals("getAdapter")) {
+        Class<?> adapter = (Class<?>) args[0];
+        return adapter.isInstance(proxy) ? proxy : null;
+      } else if (methodName.equals("accept") && args.length > 0
+          && args[0] instanceof IResourceVisitor) {
+        int depth = args.length > 1 ? (Integer) args[1]
+            : IResource.DEPTH_INFINITE;
+        accept((IResource) proxy, (IResourceVisitor) args[0], depth);
+        return null;
+      }
+
+      throw new UnsupportedOperationException(method.toString());
+    }
+
+    private void accept(IResource self, IResourceVisitor visitor, int depth)
+        throws Exception {
+      if (!visitor.visit(self) || depth == IResource.DEPTH_ZERO) {
+        return;
+      }
+
+      for (IResource member : members) {
+        if (depth == IResource.DEPTH_ONE) {
+          visitor.visit(member);
+        } else {
+          getHandler(member).accept(member, visitor, depth);
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes a file or directory tree. Unlike ResourceUtils, this needs no
+   * workbench classes on the classpath.
+   */
+  public static void deleteRecursively(File fileOrDir) {
+    File[] children = fileOrDir.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    fileOrDir.delete();
+  }
+
+  public static IFile file(IContainer parent, String name) {
+    return create(IFile.class, IResource.FILE, parent, name);
+  }
+
+  public static IFolder folder(IContainer parent, String name) {
+    return create(IFolder.class, IResource.FOLDER, parent, name);
+  }
+
+  public static IProject project(String name) {
+    return create(IProject.class, IResource.PROJECT, null, name);
+  }
+
+  private static <T extends IResource> T create(Class<T> resourceClass,
+      int type, IContainer parent, String name) {
+    T resource = resourceClass.cast(Proxy.newProxyInstance(
+        Fixtures.class.getClassLoader(), new Class<?>[] {resourceClass},
+        new ResourceHandler(type, parent, name)));
+    if (parent != null) {
+      getHandler(parent).members.add(resource);
+    }
+    return resource;
+  }
+
+  private static ResourceHandler getHandler(Object resource) {
+    if (resource == null || !Proxy.isProxyClass(resource.getClass())) {
+      return null;
+    }
+
+    InvocationHandler handler = Proxy.getInvocationHandler(resource);
+    return handler instanceof ResourceHandler ? (ResourceHandler) handler
+        : null;
+  }
+
+  private Fixtures() {
+  }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core;
+
+import com.google.common.io.Files;
+import com.google.gdt.eclipse.benchmarks.Fixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FileEquality} on a pair of identical jar-sized files, once
+ * reading both files and once with their digests cached.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FileEqualityBenchmark {
+
+  @Param({"33554432"})
+  public int fileSize;
+
+  private FileEquality cached;
+
+  private File copy;
+
+  private File dir;
+
+  private File file;
+
+  @Benchmark
+  public boolean areContentsEqual() throws IOException {
+    return new FileEquality().areContentsEqual(file, copy);
+  }
+
+  @Benchmark
+  public boolean areContentsEqualCached() throws IOException {
+    return cached.areContentsEqual(file, copy);
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    dir = Files.createTempDir();
+    byte[] contents = new byte[fileSize];
+    new Random(0).nextBytes(contents);
+    file = new File(dir, "library.jar");
+    Files.write(contents, file);
+    copy = new File(dir, "copy.jar");
+    Files.write(contents, copy);
+
+    // Digests are only cached for files that have not changed recently
+    long modified = System.currentTimeMillis() - 60000;
+    file.setLastModified(modified);
+    copy.setLastModified(modified);
+
+    cached = new FileEquality();
+    cached.areContentsEqual(file, copy);
+  }
+
+  @TearDown
+  public void tearDown() {
+    Fixtures.deleteRecursively(dir);
+  }
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures lookups, updates and copies of a {@link ManyToManyIndex} shaped like
+ * the resource dependency indices: many left objects each linked to a handful
+ * of a smaller set of right objects.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ManyToManyIndexBenchmark {
+
+  private static final int LINKS_PER_LEFT = 10;
+
+  @Param({"10000"})
+  public int lefts;
+
+  @Param({"HASHED", "INTERNED"})
+  public IndexFactory.Storage storage;
+
+  private ManyToManyIndex<String, String> index;
+
+  private String[] leftNames;
+
+  private Random random;
+
+  private String[] rightNames;
+
+  /**
+   * Builds the index from scratch, as the resource dependency indices do when
+   * their partitions are loaded.
+   */
+  @Benchmark
+  public ManyToManyIndex<String, String> build() {
+    ManyToManyIndex<String, String> built = new ManyToManyIndex<String, String>(
+        storage);
+    for (int i = 0; i < lefts; i++) {
+      Random links = new Random(i);
+      for (int j = 0; j < LINKS_PER_LEFT; j++) {
+        built.addLeftToRight(leftNames[i],
+            rightNames[links.nextInt(rightNames.length)]);
+      }
+    }
+    return built;
+  }
+
+  @Benchmark
+  public ManyToManyIndex<String, String> copy() {
+    return new ManyToManyIndex<String, String>(index);
+  }
+
+  @Benchmark
+  public Set<String> getLeftElements() {
+    return index.getLeftElements(rightNames[random.nextInt(rightNames.length)]);
+  }
+
+  @Benchmark
+  public Set<String> getRightElements() {
+    return index.getRightElements(leftNames[random.nextInt(leftNames.length)]);
+  }
+
+  /**
+   * Replaces the links of one left object, as the indices do when a file that
+   * references resources is rebuilt.
+   */
+  @Benchmark
+  public void relinkLeftElement() {
+    int left = random.nextInt(leftNames.length);
+    index.removeLeftElement(leftNames[left]);
+    link(left);
+  }
+
+  @Setup
+  public void setUp() {
+    random = new Random(0);
+    leftNames = new String[lefts];
+    for (int i = 0; i < lefts; i++) {
+      leftNames[i] = "/project/src/com/example/client/Type" + i + ".java";
+    }
+    rightNames = new String[lefts / 5];
+    for (int i = 0; i < rightNames.length; i++) {
+      rightNames[i] = "/project/src/com/example/client/resource" + i + ".css";
+    }
+
+    index = new ManyToManyIndex<String, String>(storage);
+    for (int i = 0; i < lefts; i++) {
+      link(i);
+    }
+  }
+
+  private void link(int left) {
+    // Derive the links from the index so relinking restores the same shape
+    Random links = new Random(left);
+    for (int i = 0; i < LINKS_PER_LEFT; i++) {
+      index.addLeftToRight(leftNames[left],
+          rightNames[links.nextInt(rightNames.length)]);
+    }
+  }
+}
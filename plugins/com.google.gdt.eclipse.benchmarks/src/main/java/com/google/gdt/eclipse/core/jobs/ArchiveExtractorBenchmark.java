@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.jobs;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.gdt.eclipse.benchmarks.Fixtures;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Measures {@link ArchiveExtractor} on an archive shaped like an SDK download:
+ * a few large jars and a few thousand small sources.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ArchiveExtractorBenchmark {
+
+  private static final int JARS = 4;
+
+  private static final int JAR_SIZE = 8 * 1024 * 1024;
+
+  private static final int SMALL_FILES = 2000;
+
+  private static final int SMALL_FILE_SIZE = 6 * 1024;
+
+  private static final int TAR_BLOCK_SIZE = 512;
+
+  private static Map<String, byte[]> createSdkEntries() {
+    Random random = new Random(0);
+    Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+    for (int i = 0; i < JARS; i++) {
+      // Jars are already compressed, so their contents barely deflate
+      byte[] jar = new byte[JAR_SIZE];
+      random.nextBytes(jar);
+      entries.put("sdk/lib/library" + i + ".jar", jar);
+    }
+
+    StringBuilder source = new StringBuilder();
+    while (source.length() < SMALL_FILE_SIZE) {
+      source.append("  public void method").append(source.length()).append(
+          "() {\n    return;\n  }\n");
+    }
+    byte[] sourceBytes = source.toString().getBytes(Charsets.UTF_8);
+    for (int i = 0; i < SMALL_FILES; i++) {
+      entries.put("sdk/samples/src/com/example/package" + (i / 50)
+          + "/Type" + i + ".java", sourceBytes);
+    }
+    return entries;
+  }
+
+  private static void putOctal(byte[] header, int offset, int length,
+      long value) {
+    String octal = Long.toOctalString(value);
+    int start = offset + length - 1 - octal.length();
+    for (int i = offset; i < start; i++) {
+      header[i] = '0';
+    }
+    byte[] digits = octal.getBytes(Charsets.US_ASCII);
+    System.arraycopy(digits, 0, header, start, digits.length);
+  }
+
+  /**
+   * Writes a gzipped tar archive. All entry names fit in the header, so no
+   * long name entries are needed.
+   */
+  private static void writeTarGz(File file, Map<String, byte[]> entries)
+      throws IOException {
+    OutputStream out = new GZIPOutputStream(new BufferedOutputStream(
+        new FileOutputStream(file)));
+    try {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        byte[] data = entry.getValue();
+        byte[] header = new byte[TAR_BLOCK_SIZE];
+        byte[] name = entry.getKey().getBytes(Charsets.UTF_8);
+        System.arraycopy(name, 0, header, 0, name.length);
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, data.length);
+        putOctal(header, 136, 12, 1400000000L);
+        header[156] = '0';
+        System.arraycopy("ustar\0".getBytes(Charsets.US_ASCII), 0, header,
+            257, 6);
+        header[263] = '0';
+        header[264] = '0';
+
+        for (int i = 148; i < 156; i++) {
+          header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+          checksum += b & 0xff;
+        }
+        putOctal(header, 148, 7, checksum);
+
+        out.write(header);
+        out.write(data);
+        out.write(new byte[(TAR_BLOCK_SIZE - data.length % TAR_BLOCK_SIZE)
+            % TAR_BLOCK_SIZE]);
+      }
+      out.write(new byte[2 * TAR_BLOCK_SIZE]);
+    } finally {
+      out.close();
+    }
+  }
+
+  private static void writeZip(File file, Map<String, byte[]> entries)
+      throws IOException {
+    ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(
+        new FileOutputStream(file)));
+    try {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        out.putNextEntry(new ZipEntry(entry.getKey()));
+        out.write(entry.getValue());
+        out.closeEntry();
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  // A name rather than the enum, since the extractor is package-private and
+  // the code JMH generates lives in another package
+  @Param({"ZIP", "TAR_GZIP"})
+  public String formatName;
+
+  private File archive;
+
+  private File dir;
+
+  private ArchiveExtractor.Format format;
+
+  private File targetDir;
+
+  @Benchmark
+  public boolean extract() throws IOException {
+    return new ArchiveExtractor(archive, targetDir, format).extract(new NullProgressMonitor());
+  }
+
+  @Setup(Level.Invocation)
+  public void clearTargetDir() throws IOException {
+    Fixtures.deleteRecursively(targetDir);
+    if (!targetDir.mkdir()) {
+      throw new IOException("Could not create " + targetDir);
+    }
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    format = ArchiveExtractor.Format.valueOf(formatName);
+    dir = Files.createTempDir();
+    targetDir = new File(dir, "extracted");
+    Map<String, byte[]> entries = createSdkEntries();
+    if (format == ArchiveExtractor.Format.ZIP) {
+      archive = new File(dir, "sdk.zip");
+      writeZip(archive, entries);
+    } else {
+      archive = new File(dir, "sdk.tar.gz");
+      writeTarGz(archive, entries);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    Fixtures.deleteRecursively(dir);
+  }
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.reference;
+
+import com.google.gdt.eclipse.benchmarks.Fixtures;
+import com.google.gdt.eclipse.core.reference.location.AbstractReferenceLocation;
+import com.google.gdt.eclipse.core.reference.location.IMatchable;
+import com.google.gdt.eclipse.core.reference.location.ReferenceLocationType;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reference lookups in a {@link ReferenceManager} holding references
+ * between in-memory resources, such as the ui.xml and ClientBundle references
+ * the GWT plug-in tracks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ReferenceManagerBenchmark {
+
+  /**
+   * Locates one end of a reference at a resource.
+   */
+  private static class ResourceLocation extends AbstractReferenceLocation
+      implements IMatchable {
+    private final IResource resource;
+
+    ResourceLocation(IResource resource) {
+      this.resource = resource;
+    }
+
+    public boolean matches(Object obj) {
+      return resource.equals(obj);
+    }
+  }
+
+  private static final EnumSet<ReferenceLocationType> TARGET_LOCATIONS = EnumSet.of(ReferenceLocationType.TARGET);
+
+  @Param({"1000", "10000"})
+  public int references;
+
+  private ReferenceManager manager;
+
+  private IProject project;
+
+  private Random random;
+
+  private IFile[] sources;
+
+  private IFile[] targets;
+
+  @Benchmark
+  public void addAndRemoveReference() {
+    Reference reference = new Reference(new ResourceLocation(
+        sources[random.nextInt(sources.length)]), new ResourceLocation(
+        targets[random.nextInt(targets.length)]), project);
+    manager.addReference(reference);
+    manager.removeReference(reference);
+  }
+
+  @Benchmark
+  public Set<IReference> getReferencesWithMatchingResource() {
+    return manager.getReferencesWithMatchingResource(
+        targets[random.nextInt(targets.length)], TARGET_LOCATIONS);
+  }
+
+  @Setup
+  public void setUp() {
+    random = new Random(0);
+    project = Fixtures.project("benchmark");
+    IFolder folder = Fixtures.folder(Fixtures.folder(project, "src"),
+        "client");
+
+    sources = new IFile[references];
+    for (int i = 0; i < references; i++) {
+      sources[i] = Fixtures.file(folder, "View" + i + ".ui.xml");
+    }
+    targets = new IFile[Math.max(1, references / 10)];
+    for (int i = 0; i < targets.length; i++) {
+      targets[i] = Fixtures.file(folder, "View" + i + ".java");
+    }
+
+    manager = new ReferenceManager();
+    for (int i = 0; i < references; i++) {
+      manager.addReference(new Reference(new ResourceLocation(sources[i]),
+          new ResourceLocation(targets[i % targets.length]), project));
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.modules;
+
+import com.google.gdt.eclipse.benchmarks.Fixtures;
+
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.runtime.IStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link ModuleUtils} operations that need no Java model: finding
+ * the modules in a folder of in-memory resources, and validating module names
+ * as the new module wizard does on every keystroke.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ModuleUtilsBenchmark {
+
+  private static final String[] MODULE_NAMES = {
+      "com.example.Example", "com.example.client.Widgets",
+      "com.example.Bad-Name", "Example", "com.example.lowercase"};
+
+  @Param({"100", "1000"})
+  public int files;
+
+  private IFolder folder;
+
+  private int nextName;
+
+  @Benchmark
+  public IModule[] findChildModules() {
+    return ModuleUtils.findChildModules(folder);
+  }
+
+  @Setup
+  public void setUp() {
+    folder = Fixtures.folder(Fixtures.folder(Fixtures.project("benchmark"),
+        "src"), "example");
+    for (int i = 0; i < files; i++) {
+      // One module descriptor per ten files
+      String name = (i % 10 == 0) ? "Module" + i + ".gwt.xml"
+          : "Type" + i + ".java";
+      Fixtures.file(folder, name);
+    }
+  }
+
+  @Benchmark
+  public IStatus validateQualifiedModuleName() {
+    nextName = (nextName + 1) % MODULE_NAMES.length;
+    return ModuleUtils.validateQualifiedModuleName(MODULE_NAMES[nextName]);
+  }
+}
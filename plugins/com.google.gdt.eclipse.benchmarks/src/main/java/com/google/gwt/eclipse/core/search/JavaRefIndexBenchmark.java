@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.search;
+
+import com.google.gwt.eclipse.core.validators.java.JsniJavaRef;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IJavaElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures searches and per-file updates of a {@link JavaRefIndex} filled with
+ * synthetic JSNI references, as reindexed on every reconcile and searched by
+ * Java Search and refactorings.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class JavaRefIndexBenchmark {
+
+  private static final int REFS_PER_FILE = 10;
+
+  @Param({"1000", "10000"})
+  public int files;
+
+  private Set<IIndexedJavaRef>[] fileRefs;
+
+  private IPath[] filePaths;
+
+  private JavaRefIndex index;
+
+  private Random random;
+
+  private int types;
+
+  @Benchmark
+  public Set<IIndexedJavaRef> findMethodReferences() {
+    return index.findMethodReferences("method" + random.nextInt(REFS_PER_FILE));
+  }
+
+  @Benchmark
+  public Set<IIndexedJavaRef> findTypeReferences() {
+    return index.findTypeReferences(getTypeName(random.nextInt(types)));
+  }
+
+  /**
+   * Searches with a wildcard pattern, which scans every indexed element.
+   */
+  @Benchmark
+  public Set<IIndexedJavaRef> findTypeReferencesByPattern() {
+    return index.findElementReferences("Type" + random.nextInt(10) + "*",
+        IJavaElement.TYPE, false);
+  }
+
+  /**
+   * Replaces the references of one file, as a reconcile of that file does.
+   */
+  @Benchmark
+  public void reindexFile() {
+    int file = random.nextInt(files);
+    // The index takes ownership of the set, and clears it on the next update
+    index.add(filePaths[file], new HashSet<IIndexedJavaRef>(fileRefs[file]));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Setup
+  public void setUp() {
+    random = new Random(0);
+    types = Math.max(1, files / 5);
+    index = JavaRefIndex.createDetachedIndex();
+
+    fileRefs = new Set[files];
+    filePaths = new IPath[files];
+    for (int file = 0; file < files; file++) {
+      filePaths[file] = new Path("/benchmark/src/com/example/client/Widget"
+          + file + ".java");
+      fileRefs[file] = new HashSet<IIndexedJavaRef>();
+      for (int i = 0; i < REFS_PER_FILE; i++) {
+        JsniJavaRef ref = JsniJavaRef.parse("@"
+            + getTypeName((file * 7 + i) % types) + "::method" + i
+            + "(Ljava/lang/String;I)");
+        ref.setSource(filePaths[file]);
+        ref.setOffset(i * 80);
+        fileRefs[file].add(new IndexedJsniJavaRef(ref));
+      }
+
+      index.add(filePaths[file], new HashSet<IIndexedJavaRef>(fileRefs[file]));
+    }
+  }
+
+  private String getTypeName(int type) {
+    return "com.example.client.Type" + type;
+  }
+}
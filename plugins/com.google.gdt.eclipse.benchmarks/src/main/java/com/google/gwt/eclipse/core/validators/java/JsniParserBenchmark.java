@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.validators.java;
+
+import com.google.gwt.dev.js.ast.JsBlock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a JSNI method and extracting its Java references, the work
+ * behind every uncached JSNI validation on reconcile and build.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class JsniParserBenchmark {
+
+  @Param({"5", "50"})
+  public int statements;
+
+  private String jsniMethod;
+
+  @Benchmark
+  public List<JsniJavaRef> findJavaRefs() throws Exception {
+    return JsniParser.findJavaRefs(jsniMethod);
+  }
+
+  @Benchmark
+  public JsBlock parse() throws Exception {
+    return JsniParser.parse(jsniMethod);
+  }
+
+  @Setup
+  public void setUp() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("public native void update(Object o) /*-{\n");
+    for (int i = 0; i < statements; i++) {
+      sb.append("  var x").append(i).append(
+          " = o.@com.example.client.Type").append(i % 5).append("::field").append(
+          i).append(";\n");
+      sb.append(
+          "  this.@com.example.client.Widget::setValue(Ljava/lang/String;I)(x").append(
+          i).append(", ").append(i).append(");\n");
+    }
+    sb.append("}-*/;");
+    jsniMethod = sb.toString();
+  }
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.oophm.model;
+
+import com.google.gwt.eclipse.oophm.model.BrowserTab.ModuleHandle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures appending dev mode log entries to a {@link Log}, including the
+ * attention propagation for errors, with the entries of several modules
+ * interleaved under the root as they are in a browser tab.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class LogEntryBenchmark {
+
+  /**
+   * A model node which never needs attention, standing in for a browser tab.
+   */
+  private static class Node implements IModelNode {
+    public List<? extends IModelNode> getChildren() {
+      return Collections.emptyList();
+    }
+
+    public int getId() {
+      return 0;
+    }
+
+    public String getName() {
+      return "benchmark";
+    }
+
+    public String getNeedsAttentionLevel() {
+      return null;
+    }
+
+    public IModelNode getParent() {
+      return null;
+    }
+
+    public boolean isTerminated() {
+      return false;
+    }
+  }
+
+  private static final int ENTRIES = 1000;
+
+  @Param({"1", "8"})
+  public int modules;
+
+  private ModuleHandle[] moduleHandles;
+
+  private Log<Node> populatedLog;
+
+  /**
+   * Appends {@link #ENTRIES} entries to a new log. Every tenth entry gets a
+   * nested child and every fiftieth is an error.
+   */
+  @Benchmark
+  @OperationsPerInvocation(ENTRIES)
+  public Log<Node> addChild() {
+    return populate();
+  }
+
+  @Benchmark
+  public LogEntry<Node> getFirstDeeplyNestedChildWithMaxAttn() {
+    return populatedLog.getFirstDeeplyNestedChildWithMaxAttn();
+  }
+
+  @Setup
+  public void setUp() {
+    moduleHandles = new ModuleHandle[modules];
+    for (int i = 0; i < modules; i++) {
+      moduleHandles[i] = new ModuleHandle("com.example.Module" + i,
+          "session" + i);
+    }
+    populatedLog = populate();
+  }
+
+  private Log<Node> populate() {
+    Log<Node> log = new Log<Node>(new Node());
+    LogEntry<Node> root = log.getRootLogEntry();
+    for (int i = 0; i < ENTRIES; i++) {
+      ModuleHandle moduleHandle = moduleHandles[i % modules];
+      boolean error = i % 50 == 0;
+      LogEntry<Node> entry = new LogEntry<Node>(new LogEntry.Data("Message "
+          + i, null, error ? "ERROR" : "INFO", null, null, i, error),
+          i / modules, moduleHandle);
+      root.addChild(entry);
+
+      if (i % 10 == 0) {
+        entry.addChild(new LogEntry<Node>(new LogEntry.Data("Detail " + i,
+            null, "DEBUG", null, null, i, false), 0, moduleHandle));
+      }
+    }
+    return log;
+  }
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.benchmarks;
+
+import junit.framework.TestCase;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the {@link BaselineComparison} class.
+ */
+public class BaselineComparisonTest extends TestCase {
+
+  private static String result(String benchmark, String mode, double score,
+      String unit, String params) {
+    return "{\"benchmark\":\"" + benchmark + "\",\"mode\":\"" + mode
+        + "\",\"params\":" + params + ",\"primaryMetric\":{\"score\":" + score
+        + ",\"scoreUnit\":\"" + unit + "\"}}";
+  }
+
+  private static Map<String, BaselineComparison.Score> results(
+      String... results) {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < results.length; i++) {
+      json.append(i > 0 ? "," : "").append(results[i]);
+    }
+    return BaselineComparison.readResults(new StringReader(
+        json.append("]").toString()));
+  }
+
+  public void testIgnoresBenchmarksMissingFromBaseline() {
+    BaselineComparison comparison = new BaselineComparison(results(), 10);
+    assertTrue(comparison.compare(
+        results(result("a.B.c", "thrpt", 100, "ops/s", "{}"))).isEmpty());
+  }
+
+  public void testMatchesParametersRegardlessOfOrder() {
+    BaselineComparison comparison = new BaselineComparison(results(result(
+        "a.B.c", "thrpt", 100, "ops/s", "{\"x\":\"1\",\"y\":\"2\"}")), 10);
+
+    List<BaselineComparison.Regression> regressions = comparison.compare(results(result(
+        "a.B.c", "thrpt", 50, "ops/s", "{\"y\":\"2\",\"x\":\"1\"}")));
+    assertEquals(1, regressions.size());
+  }
+
+  public void testThroughputRegressesWhenItDrops() {
+    BaselineComparison comparison = new BaselineComparison(results(
+        result("a.B.slower", "thrpt", 100, "ops/s", "{}"),
+        result("a.B.noisy", "thrpt", 100, "ops/s", "{}"),
+        result("a.B.faster", "thrpt", 100, "ops/s", "{}")), 10);
+
+    List<BaselineComparison.Regression> regressions = comparison.compare(results(
+        result("a.B.slower", "thrpt", 80, "ops/s", "{}"),
+        result("a.B.noisy", "thrpt", 95, "ops/s", "{}"),
+        result("a.B.faster", "thrpt", 200, "ops/s", "{}")));
+    assertEquals(1, regressions.size());
+    assertEquals("a.B.slower{}", regressions.get(0).getBenchmark());
+    assertEquals(-20.0, regressions.get(0).getChange(), 1e-9);
+  }
+
+  public void testTimeRegressesWhenItGrows() {
+    BaselineComparison comparison = new BaselineComparison(results(
+        result("a.B.slower", "avgt", 100, "us/op", "{}"),
+        result("a.B.faster", "avgt", 100, "us/op", "{}"),
+        result("a.B.otherUnit", "avgt", 100, "us/op", "{}")), 10);
+
+    List<BaselineComparison.Regression> regressions = comparison.compare(results(
+        result("a.B.slower", "avgt", 120, "us/op", "{}"),
+        result("a.B.faster", "avgt", 50, "us/op", "{}"),
+        result("a.B.otherUnit", "avgt", 1, "ms/op", "{}")));
+    assertEquals(1, regressions.size());
+    assertEquals("a.B.slower{}", regressions.get(0).getBenchmark());
+  }
+}
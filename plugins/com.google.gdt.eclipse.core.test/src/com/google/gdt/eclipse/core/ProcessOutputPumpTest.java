@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core;
+
+import com.google.gdt.eclipse.core.ProcessOutputPump.OverflowPolicy;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests the {@link ProcessOutputPump} class.
+ */
+public class ProcessOutputPumpTest extends TestCase {
+
+  /**
+   * A destination which holds its first write until it is released, like a
+   * console which cannot keep up.
+   */
+  private static class BlockedOutputStream extends ByteArrayOutputStream {
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      try {
+        released.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      super.write(b, off, len);
+    }
+  }
+
+  /**
+   * A process which has already exited.
+   */
+  private static class ExitedProcess extends Process {
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public int exitValue() {
+      return 0;
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+      return null;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      return null;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+      return null;
+    }
+
+    @Override
+    public int waitFor() {
+      return 0;
+    }
+  }
+
+  private static final int BUFFER_SIZE = 4096;
+
+  private static final int LINES = 100000;
+
+  private static byte[] lines(int count) {
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      lines.append("line ").append(i).append('\n');
+    }
+    return lines.toString().getBytes();
+  }
+
+  public void testBlockCopiesAllOutput() throws InterruptedException {
+    byte[] output = lines(LINES);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProcessOutputPump pump = new ProcessOutputPump(new ExitedProcess(),
+        new ByteArrayInputStream(output), out, OverflowPolicy.BLOCK,
+        BUFFER_SIZE).start();
+    pump.join();
+
+    assertEquals(new String(output), out.toString());
+    assertEquals(0, pump.getOmittedLineCount());
+  }
+
+  public void testDropNewestKeepsFirstLines() throws Exception {
+    BlockedOutputStream out = new BlockedOutputStream();
+    ProcessOutputPump pump = startAndDrain(OverflowPolicy.DROP_NEWEST, out);
+
+    String output = out.toString();
+    assertTrue(output.startsWith("line 0\n"));
+    assertFalse(output.contains("line " + (LINES - 1) + "\n"));
+    assertTrue(output.contains("of output omitted ...]\n"));
+    // At most the batch held by the destination and a full buffer
+    assertTrue(output.length() < 3 * BUFFER_SIZE);
+    assertTrue(pump.getOmittedLineCount() > 0);
+  }
+
+  public void testDropOldestKeepsLastLines() throws Exception {
+    BlockedOutputStream out = new BlockedOutputStream();
+    ProcessOutputPump pump = startAndDrain(OverflowPolicy.DROP_OLDEST, out);
+
+    String output = out.toString();
+    assertTrue(output.endsWith("line " + (LINES - 1) + "\n"));
+    assertTrue(output.contains("of output omitted ...]\n"));
+    // At most the batch held by the destination and a full buffer
+    assertTrue(output.length() < 3 * BUFFER_SIZE);
+    assertTrue(pump.getOmittedLineCount() > 0);
+  }
+
+  public void testDropOldestDropsWholeLines() {
+    ProcessOutputPump pump = new ProcessOutputPump(new ExitedProcess(),
+        new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(),
+        OverflowPolicy.DROP_OLDEST, 16);
+    byte[] lines = "aaaa\nbbbb\ncccc\n".getBytes();
+    pump.append(lines, 0, lines.length);
+    assertEquals(0, pump.getOmittedLineCount());
+
+    // Makes room by dropping the first line, even though two bytes would do
+    byte[] line = "ddd\n".getBytes();
+    pump.append(line, 0, line.length);
+    assertEquals(1, pump.getOmittedLineCount());
+  }
+
+  public void testOutputAfterExitIsReadToTheEnd() throws Exception {
+    // Like a grandchild which still holds the pipe after the process exited
+    final PipedOutputStream grandchild = new PipedOutputStream();
+    PipedInputStream in = new PipedInputStream(grandchild, BUFFER_SIZE);
+    final byte[] output = lines(1000);
+    Thread writer = new Thread() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(100);
+          grandchild.write(output);
+          grandchild.close();
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    writer.start();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProcessOutputPump pump = new ProcessOutputPump(new ExitedProcess(), in,
+        out, OverflowPolicy.BLOCK, BUFFER_SIZE).start();
+    pump.join();
+    writer.join();
+
+    assertEquals(new String(output), out.toString());
+  }
+
+  public void testFailingDestinationIsDrained() throws Exception {
+    InputStream in = new ByteArrayInputStream(lines(LINES));
+    OutputStream out = new OutputStream() {
+      @Override
+      public void write(int b) {
+        throw new IllegalStateException("console disposed");
+      }
+    };
+    ProcessOutputPump pump = new ProcessOutputPump(new ExitedProcess(), in,
+        out, OverflowPolicy.BLOCK, BUFFER_SIZE).start();
+
+    // The buffer only has room for a fraction of the output, so it is all read
+    // only if the failed writes keep emptying it
+    long deadline = System.currentTimeMillis() + 10000;
+    while (in.available() > 0) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+    }
+    pump.join();
+  }
+
+  public void testFailingSourceFinishes() throws Exception {
+    InputStream in = new ByteArrayInputStream(lines(10)) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        throw new IllegalStateException("stream corrupted");
+      }
+    };
+    ProcessOutputPump pump = new ProcessOutputPump(new ExitedProcess(), in,
+        new ByteArrayOutputStream(), OverflowPolicy.BLOCK, BUFFER_SIZE).start();
+    pump.join();
+  }
+
+  /**
+   * Pumps {@link #LINES} lines to a destination which blocks until all of them
+   * have been read, and then releases it.
+   */
+  private ProcessOutputPump startAndDrain(OverflowPolicy policy,
+      BlockedOutputStream out) throws IOException, InterruptedException {
+    InputStream in = new ByteArrayInputStream(lines(LINES));
+    ProcessOutputPump pump = new ProcessOutputPump(new ExitedProcess(), in,
+        out, policy, BUFFER_SIZE).start();
+
+    // Reading goes on while the destination is blocked
+    long deadline = System.currentTimeMillis() + 10000;
+    while (in.available() > 0) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+    }
+
+    out.released.countDown();
+    pump.join();
+    return pump;
+  }
+}
@@ -21,6 +21,7 @@ import junit.framework.TestCase;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -41,6 +42,17 @@ public class ResourceUtilsFileEqualityTest extends TestCase {
     dir.delete();
   }
 
+  private static File copy(File file, File dir) throws IOException {
+    File copy = new File(dir, file.getName());
+    Files.createParentDirs(copy);
+    Files.copy(file, copy);
+    return copy;
+  }
+
+  private static void setUnchangedFor(File file, long millis) {
+    assertTrue(file.setLastModified(System.currentTimeMillis() - millis));
+  }
+
   private final List<File> files = new ArrayList<File>();
 
   private final List<File> copiedFiles = new ArrayList<File>();
@@ -90,6 +102,78 @@ public class ResourceUtilsFileEqualityTest extends TestCase {
     ResourceUtils.areFileContentsEqual(files.get(0), tmpFile);
   }
 
+  public void testAreLargeFilesEqual() throws Exception {
+    File dir = Files.createTempDir();
+    try {
+      File file = createLargeFile(dir);
+      File copy = copy(file, new File(dir, "copy"));
+      assertTrue(ResourceUtils.areFileContentsEqual(file, copy));
+
+      // Differences in the unaligned tail and in the middle
+      byte[] contents = Files.toByteArray(copy);
+      contents[contents.length - 1]++;
+      Files.write(contents, copy);
+      assertFalse(ResourceUtils.areFileContentsEqual(file, copy));
+
+      contents[contents.length - 1]--;
+      contents[contents.length / 3]++;
+      Files.write(contents, copy);
+      assertFalse(ResourceUtils.areFileContentsEqual(file, copy));
+    } finally {
+      ResourceUtils.deleteFileRecursively(dir);
+    }
+  }
+
+  public void testCachedDigestsAreDroppedWhenFilesChange() throws Exception {
+    File dir = Files.createTempDir();
+    try {
+      File file = createLargeFile(dir);
+      File copy = copy(file, new File(dir, "copy"));
+      setUnchangedFor(file, 60000);
+      setUnchangedFor(copy, 60000);
+
+      FileEquality equality = new FileEquality();
+      assertTrue(equality.areContentsEqual(file, copy));
+      assertNotNull(equality.getCachedDigest(file));
+      assertEquals(equality.getCachedDigest(file),
+          equality.getCachedDigest(copy));
+
+      // Same size, different contents and modification time
+      byte[] contents = Files.toByteArray(copy);
+      contents[contents.length / 2]++;
+      Files.write(contents, copy);
+      setUnchangedFor(copy, 30000);
+      assertNull(equality.getCachedDigest(copy));
+      assertFalse(equality.areContentsEqual(file, copy));
+    } finally {
+      ResourceUtils.deleteFileRecursively(dir);
+    }
+  }
+
+  public void testCachedDigestsArePersisted() throws Exception {
+    File dir = Files.createTempDir();
+    try {
+      File file = createLargeFile(dir);
+      File copy = copy(file, new File(dir, "copy"));
+      setUnchangedFor(file, 60000);
+      setUnchangedFor(copy, 60000);
+      File digestsFile = new File(dir, "digests.properties");
+
+      FileEquality equality = new FileEquality();
+      equality.loadDigests(digestsFile);
+      assertTrue(equality.areContentsEqual(file, copy));
+      equality.saveDigests();
+
+      FileEquality reloaded = new FileEquality();
+      reloaded.loadDigests(digestsFile);
+      assertEquals(equality.getCachedDigest(file),
+          reloaded.getCachedDigest(copy));
+      assertTrue(reloaded.areContentsEqual(copy, file));
+    } finally {
+      ResourceUtils.deleteFileRecursively(dir);
+    }
+  }
+
   @Override
   protected void setUp() throws Exception {
     File tmpDir1 = Files.createTempDir();
@@ -135,6 +219,18 @@ public class ResourceUtilsFileEqualityTest extends TestCase {
     copiedFiles.clear();
   }
 
+  /**
+   * Creates a file large enough to be compared through regions rather than in
+   * memory, with a size that is not a multiple of eight.
+   */
+  private File createLargeFile(File dir) throws IOException {
+    byte[] contents = new byte[3 * 1024 * 1024 + 5];
+    RANDOM.nextBytes(contents);
+    File file = new File(dir, "large.jar");
+    Files.write(contents, file);
+    return file;
+  }
+
   private byte[] generateTempData() {
     byte[] tmpData = new byte[RANDOM.nextInt(10000)];
     RANDOM.nextBytes(tmpData);
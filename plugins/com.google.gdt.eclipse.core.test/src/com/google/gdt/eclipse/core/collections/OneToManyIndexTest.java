@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.collections;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests {@link OneToManyIndex} with each kind of storage.
+ */
+public class OneToManyIndexTest extends TestCase {
+
+  private static Set<String> setOf(String... values) {
+    return new HashSet<String>(Arrays.asList(values));
+  }
+
+  public void testCopyIsIndependent() {
+    for (IndexFactory.Storage storage : IndexFactory.Storage.values()) {
+      OneToManyIndex<String, String> index = new OneToManyIndex<String, String>(
+          storage);
+      index.putElements("a", setOf("1", "2"));
+
+      OneToManyIndex<String, String> copy = new OneToManyIndex<String, String>(
+          index);
+      assertEquals(storage, copy.getStorageType());
+      copy.addElement("a", "3");
+      copy.removeKey("b");
+      index.removeElement("1");
+
+      assertEquals(setOf("2"), index.getElements("a"));
+      assertEquals(setOf("1", "2", "3"), copy.getElements("a"));
+      assertEquals(setOf("a"), copy.getKeys("1"));
+    }
+  }
+
+  public void testLinksStaySortedAsTheyGrowAndShrink() {
+    InternedOneToManyStorage.Interner<String> interner = new InternedOneToManyStorage.Interner<String>();
+    int id = interner.intern("a");
+    for (int value : new int[] {5, 1, 3, 5, 9, 0}) {
+      interner.addLink(id, value);
+    }
+    assertTrue(Arrays.equals(new int[] {0, 1, 3, 5, 9}, interner.getLinks(id)));
+
+    interner.removeLink(id, 3);
+    interner.removeLink(id, 4);
+    assertTrue(Arrays.equals(new int[] {0, 1, 5, 9}, interner.getLinks(id)));
+
+    // Grow well past the initial capacity, then shrink back
+    for (int value = 100; value > 10; value--) {
+      interner.addLink(id, value);
+    }
+    for (int value = 11; value <= 100; value++) {
+      interner.removeLink(id, value);
+    }
+    assertTrue(Arrays.equals(new int[] {0, 1, 5, 9}, interner.getLinks(id)));
+
+    InternedOneToManyStorage.Interner<String> copy = new InternedOneToManyStorage.Interner<String>(
+        interner);
+    copy.removeLink(id, 0);
+    interner.addLink(id, 7);
+    assertTrue(Arrays.equals(new int[] {1, 5, 9}, copy.getLinks(id)));
+    assertTrue(Arrays.equals(new int[] {0, 1, 5, 7, 9}, interner.getLinks(id)));
+  }
+
+  public void testRemovalsLeaveEmptyEntries() {
+    for (IndexFactory.Storage storage : IndexFactory.Storage.values()) {
+      OneToManyIndex<String, String> index = new OneToManyIndex<String, String>(
+          storage);
+      index.addElement("a", "1");
+
+      index.removeElement("1");
+      assertTrue(index.hasKey("a"));
+      assertEquals(Collections.emptySet(), index.getElements("a"));
+      assertFalse(index.hasElement("1"));
+
+      index.addElement("a", "1");
+      index.removeKey("a");
+      assertTrue(index.hasElement("1"));
+      assertEquals(Collections.emptySet(), index.getKeys("1"));
+      assertFalse(index.hasKey("a"));
+    }
+  }
+
+  /**
+   * Applies the same random operations to both kinds of storage, and checks
+   * that they always agree.
+   */
+  public void testStoragesAgree() {
+    OneToManyIndex<Integer, Integer> hashed = new OneToManyIndex<Integer, Integer>(
+        IndexFactory.Storage.HASHED);
+    OneToManyIndex<Integer, Integer> interned = new OneToManyIndex<Integer, Integer>(
+        IndexFactory.Storage.INTERNED);
+
+    Random random = new Random(42);
+    for (int i = 0; i < 20000; i++) {
+      Integer key = random.nextInt(50);
+      Integer element = random.nextInt(200);
+      switch (random.nextInt(10)) {
+        case 0:
+          hashed.removeKey(key);
+          interned.removeKey(key);
+          break;
+        case 1:
+          hashed.removeElement(element);
+          interned.removeElement(element);
+          break;
+        case 2:
+          Set<Integer> elements = new HashSet<Integer>();
+          for (int j = random.nextInt(5); j > 0; j--) {
+            elements.add(random.nextInt(200));
+          }
+          hashed.putElements(key, elements);
+          interned.putElements(key, elements);
+          break;
+        default:
+          hashed.addElement(key, element);
+          interned.addElement(key, element);
+          break;
+      }
+
+      assertEquals(hashed.getElements(key), interned.getElements(key));
+      assertEquals(hashed.getKeys(element), interned.getKeys(element));
+    }
+
+    assertEquals(hashed.keys(), interned.keys());
+    assertEquals(hashed.elements(), interned.elements());
+    for (Integer key : hashed.keys()) {
+      assertEquals(hashed.getElements(key), interned.getElements(key));
+    }
+    for (Integer element : hashed.elements()) {
+      assertEquals(hashed.getKeys(element), interned.getKeys(element));
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.jobs;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.gdt.eclipse.core.ResourceUtils;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link ArchiveExtractor}.
+ */
+public class ArchiveExtractorTest extends TestCase {
+
+  private static final String LONG_NAME = "com/google/gwt/user/client/ui/impl/"
+      + "a/very/deeply/nested/package/for/testing/long/tar/entry/names/"
+      + "LongFileName.java";
+
+  private File dir;
+
+  private File targetDir;
+
+  private Map<String, byte[]> entries;
+
+  public void testEntriesOutsideTargetAreRejected() throws Exception {
+    entries.put("../escaped.txt", "escaped".getBytes(Charsets.UTF_8));
+    File zip = new File(dir, "archive.zip");
+    TestArchives.writeZip(zip, entries);
+
+    try {
+      new ArchiveExtractor(zip, targetDir, ArchiveExtractor.Format.ZIP).extract(
+          new NullProgressMonitor());
+      fail("Expected the entry to be rejected");
+    } catch (IOException e) {
+      // Expected
+    }
+    assertFalse(new File(dir, "escaped.txt").exists());
+  }
+
+  public void testExtractGzippedTar() throws Exception {
+    File tar = new File(dir, "archive.tar.gz");
+    TestArchives.writeTar(tar, entries, true);
+    assertTrue(new ArchiveExtractor(tar, targetDir,
+        ArchiveExtractor.Format.TAR_GZIP).extract(new NullProgressMonitor()));
+    assertExtracted();
+  }
+
+  public void testExtractGnuTar() throws Exception {
+    // Access and change times take the place of the POSIX name prefix
+    File tar = new File(dir, "archive.tar");
+    TestArchives.writeGnuTar(tar, entries);
+    assertTrue(new ArchiveExtractor(tar, targetDir,
+        ArchiveExtractor.Format.TAR).extract(new NullProgressMonitor()));
+    assertExtracted();
+    assertEquals(Arrays.asList("README", "com", "lib"),
+        sorted(targetDir.list()));
+  }
+
+  public void testExtractTar() throws Exception {
+    File tar = new File(dir, "archive.tar");
+    TestArchives.writeTar(tar, entries, false);
+    assertTrue(new ArchiveExtractor(tar, targetDir,
+        ArchiveExtractor.Format.TAR).extract(new NullProgressMonitor()));
+    assertExtracted();
+  }
+
+  public void testExtractZip() throws Exception {
+    File zip = new File(dir, "archive.zip");
+    TestArchives.writeZip(zip, entries);
+    assertTrue(new ArchiveExtractor(zip, targetDir,
+        ArchiveExtractor.Format.ZIP).extract(new NullProgressMonitor()));
+    assertExtracted();
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    dir = Files.createTempDir();
+    targetDir = new File(dir, "target");
+    assertTrue(targetDir.mkdir());
+
+    byte[] large = new byte[9 * 1024 * 1024 + 17];
+    for (int i = 0; i < large.length; i++) {
+      large[i] = (byte) (i * 31);
+    }
+
+    entries = new LinkedHashMap<String, byte[]>();
+    entries.put("README", "readme".getBytes(Charsets.UTF_8));
+    entries.put("lib/empty.txt", new byte[0]);
+    entries.put("lib/gwt-user.jar", large);
+    entries.put(LONG_NAME, "class LongFileName {}".getBytes(Charsets.UTF_8));
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    ResourceUtils.deleteFileRecursively(dir);
+  }
+
+  private static List<String> sorted(String[] names) {
+    Arrays.sort(names);
+    return Arrays.asList(names);
+  }
+
+  private void assertExtracted() throws IOException {
+    for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+      File file = new File(targetDir, entry.getKey());
+      assertTrue(entry.getKey(), file.isFile());
+      assertTrue(entry.getKey(), Arrays.equals(entry.getValue(),
+          Files.toByteArray(file)));
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.jobs;
+
+import com.google.common.base.Charsets;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes zip and tar archives for the extraction tests.
+ */
+final class TestArchives {
+
+  private static final int BLOCK_SIZE = 512;
+
+  /**
+   * Writes a GNU tar archive of the given entries, using long name entries for
+   * names that do not fit in the header. The headers record access and change
+   * times where POSIX headers have the name prefix.
+   */
+  static void writeGnuTar(File file, Map<String, byte[]> entries)
+      throws IOException {
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+    try {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        byte[] name = entry.getKey().getBytes(Charsets.UTF_8);
+        if (name.length > 100) {
+          writeTarEntry(out, "././@LongLink".getBytes(Charsets.UTF_8), null,
+              'L', name, true);
+        }
+        writeTarEntry(out, name, null, '0', entry.getValue(), true);
+      }
+      out.write(new byte[2 * BLOCK_SIZE]);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Writes a POSIX tar archive of the given entries, splitting names that do
+   * not fit in the header into a prefix and a name, or using GNU long name
+   * entries for names that cannot be split.
+   */
+  static void writeTar(File file, Map<String, byte[]> entries, boolean gzip)
+      throws IOException {
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+    try {
+      if (gzip) {
+        out = new GZIPOutputStream(out);
+      }
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        String path = entry.getKey();
+        byte[] name = path.getBytes(Charsets.UTF_8);
+        byte[] prefix = null;
+        if (name.length > 100) {
+          // The test names are ASCII, so characters and bytes line up
+          int slash = path.indexOf('/', path.length() - 101);
+          if (slash > 0 && slash <= 155) {
+            prefix = path.substring(0, slash).getBytes(Charsets.UTF_8);
+            name = path.substring(slash + 1).getBytes(Charsets.UTF_8);
+          } else {
+            writeTarEntry(out, "././@LongLink".getBytes(Charsets.UTF_8), null,
+                'L', name, false);
+          }
+        }
+        writeTarEntry(out, name, prefix, '0', entry.getValue(), false);
+      }
+      out.write(new byte[2 * BLOCK_SIZE]);
+    } finally {
+      out.close();
+    }
+  }
+
+  static void writeZip(File file, Map<String, byte[]> entries)
+      throws IOException {
+    ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(
+        new FileOutputStream(file)));
+    try {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        out.putNextEntry(new ZipEntry(entry.getKey()));
+        out.write(entry.getValue());
+        out.closeEntry();
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  private static void putOctal(byte[] header, int offset, int length,
+      long value) {
+    String octal = Long.toOctalString(value);
+    int start = offset + length - 1 - octal.length();
+    for (int i = offset; i < start; i++) {
+      header[i] = '0';
+    }
+    byte[] digits = octal.getBytes(Charsets.US_ASCII);
+    System.arraycopy(digits, 0, header, start, digits.length);
+  }
+
+  private static void writeTarEntry(OutputStream out, byte[] name,
+      byte[] prefix, char type, byte[] data, boolean gnu) throws IOException {
+    byte[] header = new byte[BLOCK_SIZE];
+    System.arraycopy(name, 0, header, 0, Math.min(name.length, 100));
+    putOctal(header, 100, 8, 0644);
+    putOctal(header, 108, 8, 0);
+    putOctal(header, 116, 8, 0);
+    putOctal(header, 124, 12, data.length);
+    putOctal(header, 136, 12, 1400000000L);
+    header[156] = (byte) type;
+    if (gnu) {
+      System.arraycopy("ustar  \0".getBytes(Charsets.US_ASCII), 0, header,
+          257, 8);
+      putOctal(header, 345, 12, 1400000001L);
+      putOctal(header, 357, 12, 1400000002L);
+    } else {
+      System.arraycopy("ustar\0".getBytes(Charsets.US_ASCII), 0, header, 257,
+          6);
+      header[263] = '0';
+      header[264] = '0';
+      if (prefix != null) {
+        System.arraycopy(prefix, 0, header, 345, prefix.length);
+      }
+    }
+
+    for (int i = 148; i < 156; i++) {
+      header[i] = ' ';
+    }
+    long checksum = 0;
+    for (byte b : header) {
+      checksum += b & 0xff;
+    }
+    putOctal(header, 148, 7, checksum);
+
+    out.write(header);
+    out.write(data);
+    out.write(new byte[(BLOCK_SIZE - data.length % BLOCK_SIZE) % BLOCK_SIZE]);
+  }
+
+  private TestArchives() {
+  }
+}
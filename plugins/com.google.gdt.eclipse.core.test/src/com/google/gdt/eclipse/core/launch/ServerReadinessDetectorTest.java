@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.launch;
+
+import com.google.gdt.eclipse.core.launch.ServerReadinessDetector.Signal;
+import com.google.gdt.eclipse.core.launch.ServerReadinessDetector.StartupTimings;
+
+import junit.framework.TestCase;
+
+import java.net.ServerSocket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Tests the {@link ServerReadinessDetector} against a local stub server.
+ */
+public class ServerReadinessDetectorTest extends TestCase {
+
+  private static class RecordingListener implements ServerReadinessDetector.Listener {
+    final CountDownLatch latch = new CountDownLatch(1);
+    volatile StartupTimings timings;
+    volatile boolean ready;
+    volatile int calls;
+
+    @Override
+    public void serverNotReady(StartupTimings timings) {
+      record(timings, false);
+    }
+
+    @Override
+    public void serverReady(StartupTimings timings) {
+      record(timings, true);
+    }
+
+    boolean await() throws InterruptedException {
+      return latch.await(5, TimeUnit.SECONDS);
+    }
+
+    private void record(StartupTimings timings, boolean ready) {
+      this.timings = timings;
+      this.ready = ready;
+      calls++;
+      latch.countDown();
+    }
+  }
+
+  private static final Pattern MARKER = Pattern.compile("Dev App Server is now running");
+
+  private ServerSocket stubServer;
+
+  public void testMarkerSplitAcrossChunks() throws Exception {
+    RecordingListener listener = new RecordingListener();
+    ServerReadinessDetector detector = newDetector(-1, 0, listener);
+    detector.start();
+    detector.processOutput("INFO: Dev App Ser");
+    assertFalse(detector.isDone());
+    detector.processOutput("ver is now running\n");
+    assertTrue(listener.await());
+    assertTrue(listener.ready);
+    assertEquals(Signal.OUTPUT, listener.timings.getSignal());
+    assertTrue(listener.timings.getMillisToFirstOutput() >= 0);
+  }
+
+  public void testMarkerOnlyFiresOnce() throws Exception {
+    stubServer = new ServerSocket(0);
+    RecordingListener listener = new RecordingListener();
+    ServerReadinessDetector detector = newDetector(stubServer.getLocalPort(), 0, listener);
+    detector.processOutput("Dev App Server is now running\n");
+    detector.start();
+    detector.processOutput("Dev App Server is now running\n");
+    assertTrue(listener.await());
+    Thread.sleep(3 * ServerReadinessDetector.INITIAL_PROBE_DELAY);
+    assertEquals(1, listener.calls);
+    assertEquals(Signal.OUTPUT, listener.timings.getSignal());
+  }
+
+  public void testProbeFallback() throws Exception {
+    stubServer = new ServerSocket(0);
+    RecordingListener listener = new RecordingListener();
+    ServerReadinessDetector detector = newDetector(stubServer.getLocalPort(), 0, listener);
+    detector.start();
+    detector.processOutput("some unrelated output\n");
+    assertTrue(listener.await());
+    assertTrue(listener.ready);
+    assertEquals(Signal.PROBE, listener.timings.getSignal());
+    assertTrue(listener.timings.getProbeAttempts() >= 1);
+  }
+
+  public void testStopDoesNotNotify() throws Exception {
+    RecordingListener listener = new RecordingListener();
+    ServerReadinessDetector detector = newDetector(-1, 0, listener);
+    detector.start();
+    detector.stop();
+    detector.processOutput("Dev App Server is now running\n");
+    assertFalse(listener.latch.await(3 * ServerReadinessDetector.INITIAL_PROBE_DELAY,
+        TimeUnit.MILLISECONDS));
+  }
+
+  public void testTimeout() throws Exception {
+    // grab a free port, then release it so nothing is listening there
+    ServerSocket socket = new ServerSocket(0);
+    int port = socket.getLocalPort();
+    socket.close();
+    RecordingListener listener = new RecordingListener();
+    ServerReadinessDetector detector = newDetector(port, 200, listener);
+    detector.start();
+    assertTrue(listener.await());
+    assertFalse(listener.ready);
+    assertEquals(Signal.NONE, listener.timings.getSignal());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    if (stubServer != null) {
+      stubServer.close();
+      stubServer = null;
+    }
+    super.tearDown();
+  }
+
+  private ServerReadinessDetector newDetector(int port, long timeout, RecordingListener listener) {
+    return new ServerReadinessDetector("Test Readiness Detector", "localhost", port, MARKER,
+        timeout, listener);
+  }
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.perf;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * Tests for {@link Instrumentation} and {@link InstrumentationSnapshot}.
+ */
+public class InstrumentationTest extends TestCase {
+
+  private static InstrumentationSnapshot.Measurement find(
+      InstrumentationSnapshot snapshot, String name) {
+    for (InstrumentationSnapshot.Measurement measurement : snapshot.getMeasurements()) {
+      if (measurement.getName().equals(name)) {
+        return measurement;
+      }
+    }
+    return null;
+  }
+
+  public void testCountersAndHistograms() {
+    Instrumentation.count("units");
+    Instrumentation.count("units", 4);
+    for (int i = 1; i <= 100; i++) {
+      Instrumentation.record("sizes", i);
+    }
+
+    InstrumentationSnapshot snapshot = Instrumentation.snapshot();
+    InstrumentationSnapshot.Measurement units = find(snapshot, "units");
+    assertEquals(Instrumentation.Kind.COUNTER, units.getKind());
+    assertEquals(2, units.getCount());
+    assertEquals(5, units.getTotal());
+
+    InstrumentationSnapshot.Measurement sizes = find(snapshot, "sizes");
+    assertEquals(100, sizes.getCount());
+    assertEquals(5050, sizes.getTotal());
+    assertEquals(100, sizes.getMax());
+    // 50 falls in the bucket of values below 64
+    assertEquals(63, sizes.getPercentile(50));
+    assertEquals(100, sizes.getPercentile(99));
+  }
+
+  public void testDeadThreadBuffersAreFolded() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          Instrumentation.count("units", 2);
+          Instrumentation.record("sizes", 7);
+        }
+      };
+      thread.start();
+      thread.join();
+    }
+    Instrumentation.count("units");
+    assertEquals(11, Instrumentation.getBufferCount());
+
+    for (int i = 0; i < 2; i++) {
+      // Folded buffers must be counted exactly once
+      InstrumentationSnapshot snapshot = Instrumentation.snapshot();
+      assertEquals(1, Instrumentation.getBufferCount());
+      InstrumentationSnapshot.Measurement units = find(snapshot, "units");
+      assertEquals(11, units.getCount());
+      assertEquals(21, units.getTotal());
+      InstrumentationSnapshot.Measurement sizes = find(snapshot, "sizes");
+      assertEquals(10, sizes.getCount());
+      assertEquals(70, sizes.getTotal());
+      assertEquals(7, sizes.getMax());
+    }
+
+    Instrumentation.reset();
+    assertTrue(Instrumentation.snapshot().getMeasurements().isEmpty());
+  }
+
+  public void testDisabledRecordsNothing() {
+    Instrumentation.setEnabled(false);
+    long start = Instrumentation.start();
+    assertEquals(0, start);
+    Instrumentation.stop("phase", start);
+    Instrumentation.count("counter");
+    Instrumentation.record("histogram", 1);
+    assertTrue(Instrumentation.snapshot().getMeasurements().isEmpty());
+  }
+
+  public void testExport() {
+    Instrumentation.count("a \"quoted\" counter");
+    Instrumentation.stop("phase", Instrumentation.start());
+
+    InstrumentationSnapshot snapshot = Instrumentation.snapshot();
+    String csv = snapshot.toCsv();
+    assertTrue(csv.startsWith("name,kind,count,total,mean,max,p50,p90,p99\n"));
+    assertTrue(csv.contains("\nphase,TIMER,1,"));
+    String json = snapshot.toJson();
+    assertTrue(json.contains("{\"name\": \"a \\\"quoted\\\" counter\", "
+        + "\"kind\": \"COUNTER\", \"count\": 1, \"total\": 1}"));
+    assertTrue(json.contains("{\"name\": \"phase\", \"kind\": \"TIMER\""));
+  }
+
+  public void testTimersAreMergedAcrossThreads() throws Exception {
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 1000; j++) {
+            long start = Instrumentation.start();
+            Instrumentation.stop("fast", start);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    long start = Instrumentation.start();
+    Thread.sleep(20);
+    Instrumentation.stop("slow", start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    InstrumentationSnapshot snapshot = Instrumentation.snapshot();
+    assertEquals(4000, find(snapshot, "fast").getCount());
+    List<InstrumentationSnapshot.Measurement> slowest = snapshot.getSlowestTimers(1);
+    assertEquals(1, slowest.size());
+    assertEquals("slow", slowest.get(0).getName());
+    assertTrue(slowest.get(0).getTotal() >= 20000000L);
+
+    Instrumentation.reset();
+    assertTrue(Instrumentation.snapshot().getMeasurements().isEmpty());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    Instrumentation.reset();
+    Instrumentation.setEnabled(true);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    Instrumentation.setEnabled(false);
+    Instrumentation.reset();
+  }
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.projects;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests for {@link OutputLocationMatcher}.
+ */
+public class OutputLocationMatcherTest extends TestCase {
+
+  public void testAbsoluteLocationPrefix() {
+    OutputLocationMatcher matcher = new OutputLocationMatcher(
+        Collections.<IPath> emptyList(), new Path("/tmp/war"));
+
+    assertTrue(matcher.isInOutputLocation(new Path("/p/war/a.html"),
+        new Path("/tmp/war/a.html")));
+    assertFalse(matcher.isInOutputLocation(new Path("/p/src/A.java"),
+        new Path("/workspace/p/src/A.java")));
+    assertFalse(matcher.isInOutputLocation(new Path("/p/src/A.java"), null));
+  }
+
+  public void testOutputPathPrefixes() {
+    OutputLocationMatcher matcher = new OutputLocationMatcher(Arrays.<IPath> asList(
+        new Path("/p/bin"), new Path("/p/war/WEB-INF/classes"),
+        new Path("/p/war")), null);
+
+    assertTrue(matcher.isInOutputLocation(new Path("/p/bin"), null));
+    assertTrue(matcher.isInOutputLocation(new Path("/p/bin/a/B.class"), null));
+    assertTrue(matcher.isInOutputLocation(new Path("/p/war/index.html"), null));
+    assertTrue(matcher.isInOutputLocation(
+        new Path("/p/war/WEB-INF/classes/a/B.class"), null));
+
+    assertFalse(matcher.isInOutputLocation(new Path("/p"), null));
+    assertFalse(matcher.isInOutputLocation(new Path("/p/binaries/x"), null));
+    assertFalse(matcher.isInOutputLocation(new Path("/p/src/a/B.java"), null));
+    assertFalse(matcher.isInOutputLocation(new Path("/q/bin/a/B.class"), null));
+  }
+}
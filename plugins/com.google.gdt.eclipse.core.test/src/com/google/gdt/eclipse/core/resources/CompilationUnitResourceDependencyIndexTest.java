@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.resources;
+
+import com.google.common.io.Files;
+import com.google.gdt.eclipse.core.JavaProjectTestUtilities;
+import com.google.gdt.eclipse.core.ProjectTestUtilities;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.ui.IMemento;
+import org.eclipse.ui.XMLMemento;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests the persistence of {@link CompilationUnitResourceDependencyIndex}.
+ */
+public class CompilationUnitResourceDependencyIndexTest extends TestCase {
+
+  private static class TestIndex extends CompilationUnitResourceDependencyIndex {
+    TestIndex() {
+      super(INDEX_NAME);
+    }
+
+    @Override
+    protected IPath getIndexFileLocation() {
+      // Called from the superclass constructor, so it cannot use a field
+      return new Path(indexDir.getAbsolutePath());
+    }
+  }
+
+  private static final String INDEX_NAME = "testResources";
+
+  private static final String PROJECT_NAME = "CuResourceDependencyIndexTest";
+
+  private static File indexDir;
+
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
+  private ICompilationUnit bar;
+
+  private ICompilationUnit foo;
+
+  private IJavaProject javaProject;
+
+  public void testFindDependentsAfterRemove() {
+    TestIndex index = new TestIndex();
+    index.putResourcesForCompilationUnit(foo,
+        Collections.<IPath> singleton(new Path("/p/a.css")));
+    index.remove(foo);
+    index.remove(bar);
+
+    assertTrue(index.findDependentCompilationUnits(new Path("/p/a.css")).isEmpty());
+  }
+
+  public void testLegacyIndexIsMigrated() throws Exception {
+    XMLMemento memento = XMLMemento.createWriteRoot("index");
+    IMemento cuNode = memento.createChild("deps");
+    cuNode.putString("cu", foo.getHandleIdentifier());
+    cuNode.createChild("res").putString("path", "/p/a.css");
+    cuNode.createChild("res").putString("path", "/p/b.png");
+    cuNode = memento.createChild("deps");
+    cuNode.putString("cu", bar.getHandleIdentifier());
+    cuNode.createChild("res").putString("path", "/p/a.css");
+
+    File legacyIndexFile = new File(indexDir, INDEX_NAME);
+    FileWriter writer = new FileWriter(legacyIndexFile);
+    try {
+      memento.save(writer);
+    } finally {
+      writer.close();
+    }
+
+    TestIndex index = new TestIndex();
+    assertFalse(legacyIndexFile.exists());
+    assertDependents(index, "/p/a.css", foo, bar);
+    assertDependents(index, "/p/b.png", foo);
+
+    // The migrated entries were written to the new format
+    assertDependents(new TestIndex(), "/p/a.css", foo, bar);
+    assertDependents(new TestIndex(), "/p/b.png", foo);
+  }
+
+  public void testPartitionRoundTrip() {
+    TestIndex index = new TestIndex();
+    index.putResourcesForCompilationUnit(foo, paths("/p/a.css", "/p/b.png"));
+    index.putResourcesForCompilationUnit(bar, paths("/p/a.css", "/q/c.txt"));
+    index.saveIndex();
+
+    TestIndex reloaded = new TestIndex();
+    assertDependents(reloaded, "/p/a.css", foo, bar);
+    assertDependents(reloaded, "/p/b.png", foo);
+    assertDependents(reloaded, "/q/c.txt", bar);
+    assertDependents(reloaded, "/q/d.txt");
+  }
+
+  public void testPartitionRoundTripDropsDeletedCompilationUnits()
+      throws Exception {
+    TestIndex index = new TestIndex();
+    index.putResourcesForCompilationUnit(foo, paths("/p/a.css"));
+    index.putResourcesForCompilationUnit(bar, paths("/p/a.css"));
+    index.saveIndex();
+
+    bar.delete(true, new NullProgressMonitor());
+    assertDependents(new TestIndex(), "/p/a.css", foo);
+  }
+
+  public void testProjectOpenedAfterLookupIsSearched() throws Exception {
+    TestIndex index = new TestIndex();
+    index.putResourcesForCompilationUnit(foo, paths("/p/a.css"));
+    index.saveIndex();
+
+    javaProject.getProject().close(new NullProgressMonitor());
+    TestIndex reloaded = new TestIndex();
+    assertDependents(reloaded, "/p/a.css");
+
+    javaProject.getProject().open(new NullProgressMonitor());
+    assertDependents(reloaded, "/p/a.css", foo);
+  }
+
+  public void testSaveAfterRemovingEverything() {
+    TestIndex index = new TestIndex();
+    index.putResourcesForCompilationUnit(foo, paths("/p/a.css"));
+    index.saveIndex();
+
+    index.remove(foo);
+    index.saveIndex();
+    assertDependents(new TestIndex(), "/p/a.css");
+  }
+
+  public void testSaveReplacesPartitionFile() {
+    TestIndex index = new TestIndex();
+    index.putResourcesForCompilationUnit(foo, paths("/p/a.css"));
+    index.saveIndex();
+    index.putResourcesForCompilationUnit(foo, paths("/p/b.png"));
+    index.saveIndex();
+
+    File partitionsDir = new File(indexDir, INDEX_NAME + "Partitions");
+    assertEquals(Collections.singletonList(PROJECT_NAME + ".bin"),
+        Arrays.asList(partitionsDir.list()));
+    assertDependents(new TestIndex(), "/p/a.css");
+    assertDependents(new TestIndex(), "/p/b.png", foo);
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    indexDir = Files.createTempDir();
+    javaProject = JavaProjectTestUtilities.createJavaProject(PROJECT_NAME);
+    foo = JavaProjectTestUtilities.createCompilationUnit(javaProject,
+        "com.example.Foo", "package com.example;\npublic class Foo {}\n");
+    bar = JavaProjectTestUtilities.createCompilationUnit(javaProject,
+        "com.example.Bar", "package com.example;\npublic class Bar {}\n");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    ProjectTestUtilities.deleteProject(PROJECT_NAME);
+    deleteRecursively(indexDir);
+    super.tearDown();
+  }
+
+  private void assertDependents(CompilationUnitResourceDependencyIndex index,
+      String resourcePath, ICompilationUnit... expected) {
+    Set<ICompilationUnit> expectedSet = new HashSet<ICompilationUnit>();
+    Collections.addAll(expectedSet, expected);
+    assertEquals(expectedSet,
+        index.findDependentCompilationUnits(new Path(resourcePath)));
+  }
+
+  private Set<IPath> paths(String... paths) {
+    Set<IPath> set = new HashSet<IPath>();
+    for (String path : paths) {
+      set.add(new Path(path));
+    }
+    return set;
+  }
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.sdk;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.Collections;
+
+/**
+ * Tests for {@link WebInfLibManifest}.
+ */
+public class WebInfLibManifestTest extends TestCase {
+
+  private File dir;
+
+  private File manifestFile;
+
+  private File source;
+
+  private File destination;
+
+  public void testContentEqual() throws Exception {
+    WebInfLibManifest manifest = WebInfLibManifest.load(manifestFile);
+    assertTrue(manifest.isContentEqual(source, destination));
+
+    Files.write("other", destination, Charsets.UTF_8);
+    assertFalse(manifest.isContentEqual(source, destination));
+
+    Files.write("jar!", destination, Charsets.UTF_8);
+    assertFalse(manifest.isContentEqual(source, destination));
+
+    assertTrue(destination.delete());
+    assertFalse(manifest.isContentEqual(source, destination));
+  }
+
+  public void testRecordedFilesAreUpToDate() throws Exception {
+    WebInfLibManifest manifest = WebInfLibManifest.load(manifestFile);
+    assertFalse(manifest.isUpToDate(source, destination));
+
+    manifest.record(source, destination);
+    assertTrue(manifest.isUpToDate(source, destination));
+
+    manifest.save();
+    assertTrue(WebInfLibManifest.load(manifestFile).isUpToDate(source,
+        destination));
+  }
+
+  public void testRetainAll() throws Exception {
+    WebInfLibManifest manifest = WebInfLibManifest.load(manifestFile);
+    manifest.record(source, destination);
+
+    manifest.retainAll(Collections.singleton(destination.getName()));
+    assertTrue(manifest.isUpToDate(source, destination));
+
+    manifest.retainAll(Collections.<String> emptySet());
+    assertFalse(manifest.isUpToDate(source, destination));
+  }
+
+  public void testTouchedFilesAreNotUpToDate() throws Exception {
+    WebInfLibManifest manifest = WebInfLibManifest.load(manifestFile);
+    manifest.record(source, destination);
+
+    assertTrue(destination.setLastModified(destination.lastModified() - 10000));
+    assertFalse(manifest.isUpToDate(source, destination));
+    // The contents did not change
+    assertTrue(manifest.isContentEqual(source, destination));
+
+    manifest.record(source, destination);
+    assertTrue(manifest.isUpToDate(source, destination));
+
+    Files.write("a different jar", source, Charsets.UTF_8);
+    assertFalse(manifest.isUpToDate(source, destination));
+    assertFalse(manifest.isContentEqual(source, destination));
+  }
+
+  public void testUnreadableManifestIsEmpty() throws Exception {
+    Files.write("not a manifest entry", manifestFile, Charsets.UTF_8);
+    WebInfLibManifest manifest = WebInfLibManifest.load(manifestFile);
+    assertFalse(manifest.isUpToDate(source, destination));
+    assertTrue(manifest.isContentEqual(source, destination));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    dir = Files.createTempDir();
+    manifestFile = new File(dir, "manifest.properties");
+    source = new File(dir, "sdk.jar");
+    destination = new File(new File(dir, "lib"), "sdk.jar");
+
+    Files.write("jar", source, Charsets.UTF_8);
+    Files.createParentDirs(destination);
+    Files.copy(source, destination);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    source.delete();
+    destination.delete();
+    destination.getParentFile().delete();
+    manifestFile.delete();
+    dir.delete();
+  }
+}
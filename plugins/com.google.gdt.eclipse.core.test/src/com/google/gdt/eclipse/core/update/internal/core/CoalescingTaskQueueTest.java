@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.update.internal.core;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link CoalescingTaskQueue}.
+ */
+public class CoalescingTaskQueueTest extends TestCase {
+
+  private CoalescingTaskQueue queue;
+
+  public void testCoalescesPendingTasksWithSameKey() throws Exception {
+    final CountDownLatch blocker = new CountDownLatch(1);
+    final List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+
+    // Keep the background thread busy so the keyed tasks stay pending
+    queue.execute(new Runnable() {
+      public void run() {
+        try {
+          blocker.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    assertTrue(queue.execute("check", newRecordingTask(ran, "first")));
+    assertFalse(queue.execute("check", newRecordingTask(ran, "second")));
+    assertTrue(queue.execute("other", newRecordingTask(ran, "other")));
+
+    blocker.countDown();
+    assertTrue(queue.awaitIdle(5, TimeUnit.SECONDS));
+    assertEquals(2, ran.size());
+    assertEquals("first", ran.get(0));
+    assertEquals("other", ran.get(1));
+
+    // Once the keyed task has run, the key can be queued again
+    assertTrue(queue.execute("check", newRecordingTask(ran, "third")));
+    assertTrue(queue.awaitIdle(5, TimeUnit.SECONDS));
+    assertEquals("third", ran.get(2));
+  }
+
+  public void testRejectsAfterShutdown() {
+    queue.shutdown();
+    assertFalse(queue.execute(newRecordingTask(new ArrayList<String>(), "x")));
+    assertFalse(queue.execute("key", newRecordingTask(new ArrayList<String>(), "y")));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    queue = new CoalescingTaskQueue("Test Task Queue");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    queue.shutdown();
+    super.tearDown();
+  }
+
+  private Runnable newRecordingTask(final List<String> ran, final String name) {
+    return new Runnable() {
+      public void run() {
+        ran.add(name);
+      }
+    };
+  }
+}
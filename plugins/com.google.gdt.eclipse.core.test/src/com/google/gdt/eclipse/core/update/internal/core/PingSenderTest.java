@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.update.internal.core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+/**
+ * Tests the {@link PingSender} against a local HTTP stub.
+ */
+@SuppressWarnings("restriction")
+public class PingSenderTest extends TestCase {
+
+  private HttpServer server;
+
+  private volatile String receivedMethod;
+
+  private volatile String receivedBody;
+
+  public void testPost() throws Exception {
+    URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/collect");
+    String response = PingSender.post(url, "v=1&t=event&ea=DEPLOY_GAE");
+
+    assertEquals("POST", receivedMethod);
+    assertEquals("v=1&t=event&ea=DEPLOY_GAE", receivedBody);
+    assertTrue(response, response.startsWith("200: OK"));
+    assertTrue(response, response.endsWith("pong"));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/collect", new HttpHandler() {
+      public void handle(HttpExchange exchange) throws IOException {
+        receivedMethod = exchange.getRequestMethod();
+        receivedBody = readFully(exchange.getRequestBody());
+        byte[] responseBody = "pong".getBytes("UTF-8");
+        exchange.sendResponseHeaders(200, responseBody.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(responseBody);
+        out.close();
+      }
+    });
+    server.start();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    server.stop(0);
+    super.tearDown();
+  }
+
+  private static String readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[1024];
+    int read;
+    while ((read = in.read(buf)) >= 0) {
+      out.write(buf, 0, read);
+    }
+    return out.toString("UTF-8");
+  }
+}
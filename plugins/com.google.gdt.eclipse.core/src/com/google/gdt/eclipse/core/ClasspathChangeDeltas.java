@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+
+/**
+ * Recognizes the Java element deltas which may change which classpath entries
+ * a project resolves to, for the caches of classpath-derived data that have to
+ * be dropped when that happens.
+ */
+public final class ClasspathChangeDeltas {
+
+  /**
+   * The flags of a project delta which indicate a change of its raw or
+   * resolved classpath.
+   */
+  public static final int CLASSPATH_CHANGE_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+      | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED;
+
+  /**
+   * The classpath change flags, and those of the project being opened or
+   * closed, which makes its classpath (un)available.
+   */
+  private static final int CLASSPATH_AFFECTING_FLAGS = CLASSPATH_CHANGE_FLAGS
+      | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+
+  /**
+   * Returns whether the delta is that of a Java project which was added,
+   * removed, opened, closed or had its classpath changed.
+   */
+  public static boolean affectsClasspath(IJavaElementDelta projectDelta) {
+    return projectDelta.getElement().getElementType() == IJavaElement.JAVA_PROJECT
+        && (projectDelta.getKind() != IJavaElementDelta.CHANGED
+            || (projectDelta.getFlags() & CLASSPATH_AFFECTING_FLAGS) != 0);
+  }
+
+  /**
+   * Returns whether the Java model delta affects the classpath of any project
+   * (see {@link #affectsClasspath(IJavaElementDelta)}).
+   */
+  public static boolean affectsClasspaths(IJavaElementDelta javaModelDelta) {
+    for (IJavaElementDelta projectDelta : javaModelDelta.getAffectedChildren()) {
+      if (affectsClasspath(projectDelta)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private ClasspathChangeDeltas() {
+  }
+}
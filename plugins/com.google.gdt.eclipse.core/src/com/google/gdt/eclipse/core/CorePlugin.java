@@ -16,6 +16,8 @@ package com.google.gdt.eclipse.core;
 
 import com.google.gdt.eclipse.core.markers.GdtProblemSeverities;
 import com.google.gdt.eclipse.core.markers.ProjectStructureOrSdkProblemType;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
+import com.google.gdt.eclipse.core.perf.InstrumentationSnapshot;
 import com.google.gdt.eclipse.core.projects.ProjectChangeTimestampTracker;
 import com.google.gdt.eclipse.core.resources.CoreImages;
 
@@ -34,11 +36,18 @@ import org.eclipse.ui.progress.UIJob;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Version;
 
+import java.io.IOException;
+
 /**
  */
 public class CorePlugin extends AbstractGooglePlugin {
   public static final String PLUGIN_ID = CorePlugin.class.getPackage().getName();
   
+  private static final String FILE_DIGESTS_FILE_NAME = "fileDigests.properties";
+
+  private static final String[] INSTRUMENTATION_FILE_NAMES = {
+      "instrumentation.json", "instrumentation.csv"};
+
   private static final Version MIN_GPE_JAVA_VERSION = new Version(1, 7, 0);
 
   private static CorePlugin plugin;
@@ -98,6 +107,9 @@ public class CorePlugin extends AbstractGooglePlugin {
         new Class<?>[] {ProjectStructureOrSdkProblemType.class});
 
     ProjectChangeTimestampTracker.INSTANCE.startTracking();
+
+    FileEquality.getInstance().loadDigests(
+        getStateLocation().append(FILE_DIGESTS_FILE_NAME).toFile());
   }
   
   private static void checkVersion(String key, Version minVersion) throws GpeVersionException {
@@ -131,6 +143,23 @@ public class CorePlugin extends AbstractGooglePlugin {
   public void stop(BundleContext context) throws Exception {
     ProjectChangeTimestampTracker.INSTANCE.stopTracking();
 
+    try {
+      FileEquality.getInstance().saveDigests();
+    } catch (IOException e) {
+      CorePluginLog.logWarning(e, "Could not save the file digest cache");
+    }
+
+    if (Instrumentation.isEnabled()) {
+      InstrumentationSnapshot snapshot = Instrumentation.snapshot();
+      for (String fileName : INSTRUMENTATION_FILE_NAMES) {
+        try {
+          snapshot.writeTo(getStateLocation().append(fileName).toFile());
+        } catch (IOException e) {
+          CorePluginLog.logWarning(e, "Could not write " + fileName);
+        }
+      }
+    }
+
     plugin = null;
     super.stop(context);
   }
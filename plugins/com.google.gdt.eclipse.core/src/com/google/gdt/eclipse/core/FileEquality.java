@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core;
+
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Compares the contents of files, such as SDK jars and their copies in
+ * WEB-INF/lib.
+ * <p>
+ * Files of different sizes are never read. Larger files are compared through
+ * memory-mapped regions, a long at a time, and the digest of files found equal
+ * is cached by path, size and modification time, so comparing them again only
+ * reads a file whose digest is not known. The cache can be persisted with
+ * {@link #loadDigests} and {@link #saveDigests}.
+ */
+public class FileEquality {
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+
+  private static final FileEquality INSTANCE = new FileEquality();
+
+  /**
+   * The most digests kept; the least recently used are dropped beyond this.
+   */
+  private static final int MAX_DIGESTS = 4096;
+
+  /**
+   * Files smaller than this are compared in memory and their digests are not
+   * cached.
+   */
+  private static final int MIN_DIGEST_SIZE = 64 * 1024;
+
+  /**
+   * Files modified more recently than this may still change without their
+   * size or modification time changing, so their digests are not cached.
+   */
+  private static final long MODIFICATION_GRACE_MILLIS = 2000;
+
+  /**
+   * Mapped files cannot be replaced on Windows until their mapping is garbage
+   * collected, so they are read into buffers there instead.
+   */
+  private static final boolean MAP_FILES = !OSUtilities.isWindows();
+
+  private static final int READ_REGION_SIZE = 1024 * 1024;
+
+  private static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
+  public static FileEquality getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns whether the buffers have the same remaining bytes, comparing a long
+   * at a time.
+   */
+  static boolean regionsEqual(ByteBuffer region1, ByteBuffer region2) {
+    int length = region1.remaining();
+    if (length != region2.remaining()) {
+      return false;
+    }
+
+    int longBytes = length & ~7;
+    if (!region1.asLongBuffer().equals(region2.asLongBuffer())) {
+      return false;
+    }
+    for (int i = longBytes; i < length; i++) {
+      if (region1.get(region1.position() + i) != region2.get(region2.position()
+          + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(
+          Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // Every JRE is required to provide SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the next region of the channel, either mapped or read into the
+   * buffer.
+   */
+  private static ByteBuffer readRegion(FileChannel channel, long position,
+      int length, ByteBuffer buffer) throws IOException {
+    if (buffer == null) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    buffer.clear();
+    buffer.limit(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        // The file was truncated while being read
+        break;
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Absolute paths to entries of the form <code>size|modified|digest</code>,
+   * in access order.
+   */
+  private final LinkedHashMap<String, String> digests = new LinkedHashMap<String, String>(
+      16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+      return size() > MAX_DIGESTS;
+    }
+  };
+
+  private File digestsFile;
+
+  private boolean digestsChanged;
+
+  FileEquality() {
+  }
+
+  /**
+   * @return true if both files have the same contents, false if not or if a
+   *         file does not exist
+   */
+  public boolean areContentsEqual(File f1, File f2) throws IOException {
+    if (!f1.isFile() || !f2.isFile()) {
+      return false;
+    }
+
+    long size = f1.length();
+    if (size != f2.length()) {
+      return false;
+    }
+    if (f1.getAbsoluteFile().equals(f2.getAbsoluteFile())) {
+      return true;
+    }
+
+    if (size < MIN_DIGEST_SIZE) {
+      return Arrays.equals(Files.toByteArray(f1), Files.toByteArray(f2));
+    }
+
+    String digest1 = getCachedDigest(f1);
+    String digest2 = getCachedDigest(f2);
+    if (digest1 == null && digest2 == null) {
+      String digest = compareContents(f1, f2, size);
+      if (digest == null) {
+        return false;
+      }
+      cacheDigest(f1, digest);
+      cacheDigest(f2, digest);
+      return true;
+    }
+
+    // Only read the file whose digest is not known
+    if (digest1 == null) {
+      digest1 = computeDigest(f1);
+    } else if (digest2 == null) {
+      digest2 = computeDigest(f2);
+    }
+    return digest1.equals(digest2);
+  }
+
+  /**
+   * Replaces the cached digests with those stored in the given file, and saves
+   * them back to it on {@link #saveDigests}. A missing or unreadable file
+   * leaves the cache empty.
+   */
+  public synchronized void loadDigests(File file) {
+    digestsFile = file;
+    digests.clear();
+    digestsChanged = false;
+    if (!file.exists()) {
+      return;
+    }
+
+    Properties properties = new Properties();
+    FileInputStream stream = null;
+    try {
+      stream = new FileInputStream(file);
+      properties.load(stream);
+    } catch (IOException e) {
+      CorePluginLog.logWarning(e, "Could not load the file digest cache");
+      return;
+    } finally {
+      Closeables.closeQuietly(stream);
+    }
+    for (String path : properties.stringPropertyNames()) {
+      digests.put(path, properties.getProperty(path));
+    }
+  }
+
+  /**
+   * Saves the cached digests to the file they were loaded from, if they
+   * changed.
+   */
+  public synchronized void saveDigests() throws IOException {
+    if (digestsFile == null || !digestsChanged) {
+      return;
+    }
+
+    Properties properties = new Properties();
+    properties.putAll(digests);
+    Files.createParentDirs(digestsFile);
+    FileOutputStream stream = new FileOutputStream(digestsFile);
+    try {
+      properties.store(stream, "File digests");
+    } finally {
+      stream.close();
+    }
+    digestsChanged = false;
+  }
+
+  /**
+   * Returns the cached digest of the file, or <code>null</code> if none is
+   * cached or the file changed since.
+   */
+  synchronized String getCachedDigest(File file) {
+    String path = file.getAbsolutePath();
+    String entry = digests.get(path);
+    if (entry == null) {
+      return null;
+    }
+
+    String[] parts = entry.split("\\|", 3);
+    if (parts.length == 3 && parts[0].equals(String.valueOf(file.length()))
+        && parts[1].equals(String.valueOf(file.lastModified()))) {
+      return parts[2];
+    }
+    digests.remove(path);
+    digestsChanged = true;
+    return null;
+  }
+
+  private synchronized void cacheDigest(File file, String digest) {
+    long lastModified = file.lastModified();
+    if (System.currentTimeMillis() - lastModified < MODIFICATION_GRACE_MILLIS) {
+      return;
+    }
+    digests.put(file.getAbsolutePath(), file.length() + "|" + lastModified
+        + '|' + digest);
+    digestsChanged = true;
+  }
+
+  /**
+   * Compares the contents of two files of the given size, digesting them along
+   * the way.
+   * 
+   * @return the digest of the files if they are equal, otherwise
+   *         <code>null</code>
+   */
+  private String compareContents(File f1, File f2, long size)
+      throws IOException {
+    MessageDigest digest = newDigest();
+    RandomAccessFile file1 = new RandomAccessFile(f1, "r");
+    try {
+      RandomAccessFile file2 = new RandomAccessFile(f2, "r");
+      try {
+        FileChannel channel1 = file1.getChannel();
+        FileChannel channel2 = file2.getChannel();
+        ByteBuffer buffer1 = MAP_FILES ? null
+            : ByteBuffer.allocate(READ_REGION_SIZE);
+        ByteBuffer buffer2 = MAP_FILES ? null
+            : ByteBuffer.allocate(READ_REGION_SIZE);
+        int regionSize = MAP_FILES ? MAPPED_REGION_SIZE : READ_REGION_SIZE;
+
+        for (long position = 0; position < size; position += regionSize) {
+          int length = (int) Math.min(regionSize, size - position);
+          ByteBuffer region1 = readRegion(channel1, position, length, buffer1);
+          ByteBuffer region2 = readRegion(channel2, position, length, buffer2);
+          if (!regionsEqual(region1, region2)) {
+            return null;
+          }
+          digest.update(region1);
+        }
+      } finally {
+        file2.close();
+      }
+    } finally {
+      file1.close();
+    }
+    return toHex(digest.digest());
+  }
+
+  private String computeDigest(File file) throws IOException {
+    MessageDigest digest = newDigest();
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      ByteBuffer buffer = MAP_FILES ? null
+          : ByteBuffer.allocate(READ_REGION_SIZE);
+      int regionSize = MAP_FILES ? MAPPED_REGION_SIZE : READ_REGION_SIZE;
+      long size = channel.size();
+      for (long position = 0; position < size; position += regionSize) {
+        int length = (int) Math.min(regionSize, size - position);
+        digest.update(readRegion(channel, position, length, buffer));
+      }
+    } finally {
+      randomAccessFile.close();
+    }
+
+    String hex = toHex(digest.digest());
+    cacheDigest(file, hex);
+    return hex;
+  }
+}
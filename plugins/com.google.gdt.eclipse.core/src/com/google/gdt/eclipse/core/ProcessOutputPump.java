@@ -0,0 +1,674 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies one output stream of a child process to a destination stream, using a
+ * small thread pool shared by all child processes.
+ *
+ * While the child runs, the pool never blocks on its pipe: it polls the pipe
+ * and reads whatever is available in large blocks into a bounded ring buffer,
+ * and separately writes the buffered output to the destination in batches.
+ * Once the child has exited, the rest of the pipe is read to its end on a
+ * thread of its own. When the destination cannot keep up, for example a
+ * console applying back-pressure, the {@link OverflowPolicy} decides whether
+ * to stop reading, which eventually pauses the child, or to discard whole
+ * lines, which are summarized in the output. Lines are written whole where
+ * possible, the way they would have been written one at a time.
+ */
+class ProcessOutputPump {
+
+  /**
+   * What to do with output that does not fit in the buffer.
+   */
+  enum OverflowPolicy {
+    /**
+     * Stops reading until the destination catches up, so no output is lost.
+     */
+    BLOCK,
+
+    /**
+     * Discards the oldest buffered lines, keeping the most recent output.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Discards incoming lines until the buffer has room again.
+     */
+    DROP_NEWEST
+  }
+
+  static final int BUFFER_SIZE = 256 * 1024;
+
+  /**
+   * How long output is collected before it is written, so the destination
+   * sees a few large writes instead of one per line.
+   */
+  private static final long BATCH_MILLIS = 100;
+
+  private static final long MAX_POLL_MILLIS = 50;
+
+  /**
+   * The most a single poll reads before giving other pumps a turn.
+   */
+  private static final int MAX_READ_PER_POLL = 1024 * 1024;
+
+  private static final long MIN_POLL_MILLIS = 5;
+
+  private static final int POOL_SIZE = 3;
+
+  private static final int READ_BLOCK_SIZE = 32 * 1024;
+
+  /**
+   * Writes may block on their destination, so they hold a permit which keeps
+   * at least one pool thread free for reading.
+   */
+  private static final Semaphore WRITE_PERMITS = new Semaphore(POOL_SIZE - 1);
+
+  private static ScheduledExecutorService executor;
+
+  /**
+   * Starts copying <code>in</code>, an output stream of <code>process</code>,
+   * to <code>out</code>. Copying stops at the end of <code>in</code>, which is
+   * read to its end once the process has exited, or once <code>in</code> is
+   * closed.
+   */
+  static ProcessOutputPump start(Process process, InputStream in,
+      OutputStream out, OverflowPolicy policy) {
+    return new ProcessOutputPump(process, in, out, policy, BUFFER_SIZE).start();
+  }
+
+  private static synchronized ScheduledExecutorService getExecutor() {
+    if (executor == null) {
+      ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(
+          POOL_SIZE, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+              Thread thread = new Thread(r, "Process Output Pump");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+      pool.setKeepAliveTime(30, TimeUnit.SECONDS);
+      pool.allowCoreThreadTimeOut(true);
+      executor = pool;
+    }
+    return executor;
+  }
+
+  private static boolean hasExited(Process process) {
+    try {
+      process.exitValue();
+      return true;
+    } catch (IllegalThreadStateException e) {
+      return false;
+    }
+  }
+
+  private final byte[] buffer;
+
+  /**
+   * The number of buffered bytes.
+   */
+  private int count;
+
+  private final CountDownLatch done = new CountDownLatch(1);
+
+  /**
+   * The index of the oldest buffered byte.
+   */
+  private int head;
+
+  /**
+   * The length of the incomplete line held back by the last write.
+   */
+  private int heldBack;
+
+  private final InputStream in;
+
+  private boolean lastWrittenByteWasNewline = true;
+
+  /**
+   * Lines discarded since the last write, and where in the buffered output
+   * their summary goes, or -1 if nothing was discarded.
+   */
+  private int omittedAt = -1;
+
+  private int omittedLines;
+
+  private final OutputStream out;
+
+  /**
+   * Whether writing to the destination failed, after which output is only
+   * drained.
+   */
+  private boolean outputFailed;
+
+  private final OverflowPolicy policy;
+
+  private long pollMillis;
+
+  private final Process process;
+
+  private final byte[] readBuffer;
+
+  private boolean readingDone;
+
+  /**
+   * Whether incoming bytes are discarded up to the next line terminator, after
+   * a line was cut short by an overflow.
+   */
+  private boolean skippingToLineEnd;
+
+  private long totalOmittedLines;
+
+  private final byte[] writeBuffer;
+
+  private int lastScheduledWrite;
+
+  /**
+   * Identifies the write which is scheduled to run next, or 0 if none is. A
+   * write which has been superseded by one due sooner does nothing.
+   */
+  private int scheduledWrite;
+
+  private long scheduledWriteDue;
+
+  /**
+   * Whether a write is running. At most one runs at a time, so batches reach
+   * the destination in order.
+   */
+  private boolean writing;
+
+  ProcessOutputPump(Process process, InputStream in, OutputStream out,
+      OverflowPolicy policy, int bufferSize) {
+    this.process = process;
+    this.in = in;
+    this.out = out;
+    this.policy = policy;
+    this.buffer = new byte[bufferSize];
+    this.writeBuffer = new byte[bufferSize];
+    this.readBuffer = new byte[Math.min(READ_BLOCK_SIZE, bufferSize)];
+  }
+
+  /**
+   * Returns the number of lines discarded so far because of overflows.
+   */
+  synchronized long getOmittedLineCount() {
+    return totalOmittedLines;
+  }
+
+  /**
+   * Starts copying the process output.
+   */
+  ProcessOutputPump start() {
+    scheduleRead(0);
+    return this;
+  }
+
+  /**
+   * Waits until all of the process output has been read and written.
+   */
+  void join() throws InterruptedException {
+    done.await();
+  }
+
+  /**
+   * Buffers the given bytes, applying the overflow policy if they do not fit.
+   */
+  synchronized void append(byte[] b, int off, int len) {
+    if (skippingToLineEnd) {
+      int newline = indexOfNewline(b, off, len);
+      if (newline == -1) {
+        return;
+      }
+      skippingToLineEnd = false;
+      len -= newline + 1 - off;
+      off = newline + 1;
+    }
+
+    int free = buffer.length - count;
+    int droppedLines = 0;
+    if (len > free) {
+      if (policy == OverflowPolicy.DROP_OLDEST) {
+        int kept = dropOldest(b, off, len, len - free);
+        off += len - kept;
+        len = kept;
+      } else {
+        // Keep the whole lines that fit, and drop the rest of the block
+        int fits = Math.max(
+            lastIndexOfNewline(b, off, Math.min(len, free)) + 1 - off, 0);
+        skippingToLineEnd = b[off + len - 1] != '\n';
+        droppedLines = countNewlines(b, off + fits, len - fits)
+            + (skippingToLineEnd ? 1 : 0);
+        len = fits;
+        if (fits == 0) {
+          // The line being dropped may have started in the buffer
+          dropIncompleteLastLine();
+        }
+      }
+    }
+
+    int tail = (head + count) % buffer.length;
+    int firstPart = Math.min(len, buffer.length - tail);
+    System.arraycopy(b, off, buffer, tail, firstPart);
+    System.arraycopy(b, off + firstPart, buffer, 0, len - firstPart);
+    count += len;
+
+    if (droppedLines > 0) {
+      // The dropped lines follow the ones kept
+      omit(droppedLines);
+    }
+  }
+
+  private int countNewlines(byte[] b, int off, int len) {
+    int newlines = 0;
+    for (int i = off; i < off + len; i++) {
+      if (b[i] == '\n') {
+        newlines++;
+      }
+    }
+    return newlines;
+  }
+
+  /**
+   * Drops at least <code>excess</code> bytes from the start of the buffered
+   * output followed by the incoming block, extended to the next line start.
+   *
+   * @return the number of bytes at the end of the incoming block to keep
+   */
+  private int dropOldest(byte[] b, int off, int len, int excess) {
+    int total = count + len;
+    int dropped = excess;
+    int newlines = 0;
+    for (int i = 0; i < excess; i++) {
+      if (byteAt(b, off, i) == '\n') {
+        newlines++;
+      }
+    }
+    // Continue to the end of the line that was cut
+    while (dropped < total && byteAt(b, off, dropped - 1) != '\n') {
+      if (byteAt(b, off, dropped) == '\n') {
+        newlines++;
+      }
+      dropped++;
+    }
+
+    if (dropped == total && byteAt(b, off, total - 1) != '\n') {
+      // The last line is still incomplete, so drop its remainder as well
+      skippingToLineEnd = true;
+      newlines++;
+    }
+    omittedAt = 0;
+    omit(newlines);
+
+    if (dropped >= count) {
+      int droppedFromBlock = dropped - count;
+      head = 0;
+      count = 0;
+      return len - droppedFromBlock;
+    }
+
+    head = (head + dropped) % buffer.length;
+    count -= dropped;
+    return len;
+  }
+
+  /**
+   * Drops the buffered bytes after the last line terminator, but none before
+   * the position of an earlier drop.
+   */
+  private void dropIncompleteLastLine() {
+    int start = Math.max(omittedAt, 0);
+    while (count > start
+        && buffer[(head + count - 1) % buffer.length] != '\n') {
+      count--;
+    }
+  }
+
+  /**
+   * Returns the byte at <code>index</code> of the buffered output followed by
+   * the incoming block.
+   */
+  private byte byteAt(byte[] b, int off, int index) {
+    if (index < count) {
+      return buffer[(head + index) % buffer.length];
+    }
+    return b[off + index - count];
+  }
+
+  /**
+   * Reads the rest of the output after the process has exited, until the end
+   * of the stream. Output may still arrive after the exit, for example from a
+   * grandchild which inherited the pipe, so this blocks in read() on a thread
+   * of its own rather than tying up a pool thread.
+   */
+  private void drainToEnd() {
+    Thread thread = new Thread("Process Output Drain") {
+      @Override
+      public void run() {
+        try {
+          while (true) {
+            int length = readBuffer.length;
+            if (policy == OverflowPolicy.BLOCK) {
+              synchronized (ProcessOutputPump.this) {
+                // Wait for the destination to catch up
+                while (count == buffer.length) {
+                  ProcessOutputPump.this.wait();
+                }
+                length = Math.min(length, buffer.length - count);
+              }
+            }
+            int n = in.read(readBuffer, 0, length);
+            if (n < 0) {
+              break;
+            }
+            append(readBuffer, 0, n);
+            scheduleWrite(writeDelay());
+          }
+        } catch (InterruptedException e) {
+          CorePluginLog.logError(e);
+        } catch (IOException e) {
+          String message = e.getMessage();
+          if (message == null || !message.contains("Stream closed")) {
+            CorePluginLog.logError(e);
+          }
+        } catch (Throwable e) {
+          CorePluginLog.logError(e);
+        }
+        finishReading();
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void finishReading() {
+    synchronized (this) {
+      readingDone = true;
+    }
+    scheduleWrite(0);
+  }
+
+  private int indexOfNewline(byte[] b, int off, int len) {
+    for (int i = off; i < off + len; i++) {
+      if (b[i] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int lastIndexOfNewline(byte[] b, int off, int len) {
+    for (int i = off + len - 1; i >= off; i--) {
+      if (b[i] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Records that lines were dropped at the end of the buffered output, unless
+   * an earlier drop since the last write already determined where the summary
+   * goes.
+   */
+  private void omit(int lines) {
+    if (omittedAt == -1) {
+      omittedAt = count;
+    }
+    // The rest of a line whose start was already written counts as a line
+    omittedLines += Math.max(lines, 1);
+    totalOmittedLines += Math.max(lines, 1);
+  }
+
+  /**
+   * Reads whatever the process has written so far, without blocking.
+   */
+  private void poll() {
+    int read = 0;
+    boolean full = false;
+    try {
+      while (read < MAX_READ_PER_POLL) {
+        int free;
+        synchronized (this) {
+          free = buffer.length - count;
+        }
+        if (policy == OverflowPolicy.BLOCK && free == 0) {
+          // Wait for the destination to catch up
+          full = true;
+          break;
+        }
+
+        int available = in.available();
+        if (available <= 0) {
+          if (!hasExited(process)) {
+            break;
+          }
+          drainToEnd();
+          return;
+        }
+
+        int length = Math.min(available, readBuffer.length);
+        if (policy == OverflowPolicy.BLOCK) {
+          length = Math.min(length, free);
+        }
+        int n = in.read(readBuffer, 0, length);
+        if (n < 0) {
+          finishReading();
+          return;
+        }
+        append(readBuffer, 0, n);
+        read += n;
+      }
+    } catch (IOException e) {
+      // The streams are closed when the process is destroyed
+      String message = e.getMessage();
+      if (message == null || !message.contains("Stream closed")) {
+        CorePluginLog.logError(e);
+      }
+      finishReading();
+      return;
+    } catch (Throwable e) {
+      // Nothing else would schedule the next read or finish the pump, and
+      // join() would wait forever
+      CorePluginLog.logError(e);
+      finishReading();
+      return;
+    }
+
+    if (full) {
+      scheduleWrite(writeDelay());
+      pollMillis = MIN_POLL_MILLIS;
+    } else if (read > 0) {
+      scheduleWrite(writeDelay());
+      // A busy child refills its pipe within milliseconds
+      pollMillis = 0;
+    } else {
+      pollMillis = Math.min(Math.max(pollMillis * 2, 1), MAX_POLL_MILLIS);
+    }
+    scheduleRead(pollMillis);
+  }
+
+  private void scheduleRead(long delayMillis) {
+    getExecutor().schedule(new Runnable() {
+      public void run() {
+        poll();
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Schedules a write, unless one is running or due sooner.
+   */
+  private synchronized void scheduleWrite(long delayMillis) {
+    if (writing) {
+      // The running write schedules the next one when it is done
+      return;
+    }
+    long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    if (scheduledWrite != 0 && due - scheduledWriteDue >= 0) {
+      return;
+    }
+
+    final int write = ++lastScheduledWrite == 0 ? ++lastScheduledWrite
+        : lastScheduledWrite;
+    scheduledWrite = write;
+    scheduledWriteDue = due;
+    getExecutor().schedule(new Runnable() {
+      public void run() {
+        write(write);
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns how long to wait before writing the buffered output.
+   */
+  private synchronized long writeDelay() {
+    if (readingDone || count > buffer.length / 2) {
+      // Write a filling buffer right away rather than waiting for the batch
+      return 0;
+    }
+    return BATCH_MILLIS;
+  }
+
+  /**
+   * Writes the buffered output to the destination.
+   *
+   * @param write identifies the scheduled write; nothing is written if another
+   *          write has been scheduled to run sooner
+   */
+  private void write(int write) {
+    synchronized (this) {
+      if (write != scheduledWrite) {
+        return;
+      }
+      scheduledWrite = 0;
+      writing = true;
+    }
+
+    if (!WRITE_PERMITS.tryAcquire()) {
+      // Other pumps are busy writing; try again shortly
+      synchronized (this) {
+        writing = false;
+      }
+      scheduleWrite(MIN_POLL_MILLIS);
+      return;
+    }
+
+    int length;
+    int summaryAt;
+    int summaryLines;
+    try {
+      synchronized (this) {
+        length = count;
+        if (!readingDone && count != heldBack && count < buffer.length) {
+          // Hold back an incomplete last line while the process is still
+          // writing it, so lines are not split between writes
+          while (length > 0
+              && buffer[(head + length - 1) % buffer.length] != '\n') {
+            length--;
+          }
+        }
+        heldBack = count - length;
+
+        int firstPart = Math.min(length, buffer.length - head);
+        System.arraycopy(buffer, head, writeBuffer, 0, firstPart);
+        System.arraycopy(buffer, 0, writeBuffer, firstPart, length - firstPart);
+        head = (head + length) % buffer.length;
+        count -= length;
+        // The drain may be waiting for room
+        notifyAll();
+
+        if (omittedAt > length) {
+          summaryAt = -1;
+          summaryLines = 0;
+          omittedAt -= length;
+        } else {
+          summaryAt = omittedAt;
+          summaryLines = omittedLines;
+          omittedAt = -1;
+          omittedLines = 0;
+        }
+      }
+
+      if (!outputFailed) {
+        try {
+          if (summaryAt >= 0) {
+            writeOutput(writeBuffer, 0, summaryAt);
+            writeSummary(summaryLines);
+            writeOutput(writeBuffer, summaryAt, length - summaryAt);
+          } else {
+            writeOutput(writeBuffer, 0, length);
+          }
+          out.flush();
+        } catch (IOException e) {
+          // Keep draining the process, so it does not block on a full pipe
+          outputFailed = true;
+          CorePluginLog.logError(e);
+        }
+      }
+    } catch (Throwable e) {
+      // Treat it like a failed write; the write state is still cleared below,
+      // so the process keeps being drained and the pump finishes
+      outputFailed = true;
+      CorePluginLog.logError(e);
+    } finally {
+      WRITE_PERMITS.release();
+    }
+
+    boolean finished;
+    boolean pending;
+    synchronized (this) {
+      writing = false;
+      pending = count > 0 || omittedAt >= 0;
+      finished = readingDone && !pending;
+    }
+
+    if (finished) {
+      done.countDown();
+    } else if (pending) {
+      scheduleWrite(writeDelay());
+    }
+  }
+
+  private void writeOutput(byte[] b, int off, int len) throws IOException {
+    if (len > 0) {
+      out.write(b, off, len);
+      lastWrittenByteWasNewline = b[off + len - 1] == '\n';
+    }
+  }
+
+  private void writeSummary(int lines) throws IOException {
+    StringBuilder summary = new StringBuilder();
+    if (!lastWrittenByteWasNewline) {
+      summary.append('\n');
+    }
+    summary.append("[... ").append(lines).append(
+        lines == 1 ? " line" : " lines").append(" of output omitted ...]\n");
+    byte[] bytes = summary.toString().getBytes();
+    writeOutput(bytes, 0, bytes.length);
+  }
+}
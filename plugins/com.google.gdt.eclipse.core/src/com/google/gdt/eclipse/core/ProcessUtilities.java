@@ -14,6 +14,8 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.core;
 
+import com.google.gdt.eclipse.core.ProcessOutputPump.OverflowPolicy;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
@@ -29,13 +31,9 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.console.MessageConsole;
 import org.eclipse.ui.console.MessageConsoleStream;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.util.List;
 import java.util.Map;
 
@@ -268,8 +266,8 @@ public class ProcessUtilities {
     moveClasspathArgToEnvironmentVariable(commands, pb);
 
     Process process = null;
-    Thread outputThread = null;
-    Thread errorThread = null;
+    ProcessOutputPump outputPump = null;
+    ProcessOutputPump errorPump = null;
     final MessageConsoleStream outStream = messageConsole.newMessageStream();
     final MessageConsoleStream errStream = messageConsole.newMessageStream();
 
@@ -279,31 +277,6 @@ public class ProcessUtilities {
       pb.redirectErrorStream(false);
       process = pb.start();
 
-      class ConsoleOutputPump implements Runnable {
-        private InputStream inputStream;
-        private OutputStream outputStream;
-
-        ConsoleOutputPump(InputStream inputStream, OutputStream outputStream) {
-          this.inputStream = inputStream;
-          this.outputStream = outputStream;
-        }
-
-        public void run() {
-          BufferedReader processReader = new BufferedReader(
-              new InputStreamReader(inputStream));
-
-          PrintWriter outputWriter = new PrintWriter(outputStream, true);
-          try {
-            String line = null;
-            while ((line = processReader.readLine()) != null) {
-              outputWriter.println(line);
-            }
-          } catch (IOException e) {
-            CorePluginLog.logError(e);
-          }
-        }
-      }
-
       ConsoleColorProvider ccp = new ConsoleColorProvider();
       outStream.setActivateOnWrite(false);
       errStream.setActivateOnWrite(true);
@@ -318,13 +291,12 @@ public class ProcessUtilities {
         }
       });
 
-      outputThread = new Thread(new ConsoleOutputPump(process.getInputStream(),
-          outStream), "Process Output Pump");
-      outputThread.start();
-
-      errorThread = new Thread(new ConsoleOutputPump(process.getErrorStream(),
-          errStream), "Process Output Pump");
-      errorThread.start();
+      // The console only needs the most recent output of a chatty process, but
+      // every error line, since errors are what the console is activated for
+      outputPump = ProcessOutputPump.start(process, process.getInputStream(),
+          outStream, OverflowPolicy.DROP_OLDEST);
+      errorPump = ProcessOutputPump.start(process, process.getErrorStream(),
+          errStream, OverflowPolicy.BLOCK);
       processExitCode = process.waitFor();
     } catch (InterruptedException ie) {
       cleanupProcess(process);
@@ -332,11 +304,11 @@ public class ProcessUtilities {
       throw ie;
     } finally {
       try {
-        if (outputThread != null) {
-          outputThread.join();
+        if (outputPump != null) {
+          outputPump.join();
         }
-        if (errorThread != null) {
-          errorThread.join();
+        if (errorPump != null) {
+          errorPump.join();
         }
       } catch (InterruptedException e) {
         CorePluginLog.logError(e);
@@ -411,7 +383,7 @@ public class ProcessUtilities {
     }
 
     Process process = null;
-    Thread t = null;
+    ProcessOutputPump pump = null;
     int processExitCode = -1;
 
     try {
@@ -420,36 +392,9 @@ public class ProcessUtilities {
         processReceiver.setProcess(process);
       }
 
-      // Local class to read the output of the process and write it to the
-      // output stream
-      class OutputPump implements Runnable {
-
-        Process process;
-
-        OutputPump(Process p) {
-          process = p;
-        }
-
-        public void run() {
-          BufferedReader processReader = new BufferedReader(
-              new InputStreamReader(process.getInputStream()));
-          PrintWriter outputWriter = new PrintWriter(outputStream, true);
-          try {
-            String line = null;
-            while ((line = processReader.readLine()) != null) {
-              outputWriter.println(line);
-            }
-          } catch (IOException e) {
-            // The "Stream closed" exception is common when we destroy the
-            // process (e.g. when the user requests to terminate a GWT compile)
-            if (!e.getMessage().contains("Stream closed")) {
-              CorePluginLog.logError(e);
-            }
-          }
-        }
-      }
-      t = new Thread(new OutputPump(process), "Process Output Pump");
-      t.start();
+      // Callers parse the output, so none of it may be dropped
+      pump = ProcessOutputPump.start(process, process.getInputStream(),
+          outputStream, OverflowPolicy.BLOCK);
 
       // Wait for process to complete
       processExitCode = process.waitFor();
@@ -464,10 +409,10 @@ public class ProcessUtilities {
       // Rethrow the original exception
       throw ie;
     } finally {
-      if (t != null) {
-        // Wait for this thread to complete before returning from the method.
+      if (pump != null) {
+        // Wait for the output to be copied before returning from the method.
         try {
-          t.join();
+          pump.join();
           // Close all of the process' streams, and destroy the process
           cleanupProcess(process);
         } catch (InterruptedException e) {
@@ -39,7 +39,6 @@ import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.ide.IDE;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -52,6 +51,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -77,50 +77,7 @@ public class ResourceUtils {
    */
   public static boolean areFileContentsEqual(File f1, File f2)
       throws IOException {
-
-    if (!f1.exists() || !f2.exists()) {
-      return false;
-    }
-
-    BufferedInputStream bis1 = null;
-    BufferedInputStream bis2 = null;
-
-    try {
-      bis1 = new BufferedInputStream(new FileInputStream(f1));
-      bis2 = new BufferedInputStream(new FileInputStream(f2));
-
-      byte[] buf1 = new byte[4096];
-      byte[] buf2 = new byte[4096];
-
-      int numRead1 = 0;
-      int numRead2 = 0;
-
-      while (numRead1 >= 0 && numRead2 >= 0) {
-        numRead1 = bis1.read(buf1);
-        numRead2 = bis2.read(buf2);
-
-        if (numRead1 == numRead2) {
-          for (int i = 0; i < numRead1; i++) {
-            if (buf1[i] != buf2[i]) {
-              return false;
-            }
-          }
-        } else {
-          return false;
-        }
-      }
-
-      return numRead1 == -1 && numRead2 == -1;
-
-    } finally {
-      if (bis1 != null) {
-        bis1.close();
-      }
-
-      if (bis2 != null) {
-        bis2.close();
-      }
-    }
+    return FileEquality.getInstance().areContentsEqual(f1, f2);
   }
 
   /**
@@ -130,20 +87,36 @@ public class ResourceUtils {
    */
   public static boolean areFileListsEqual(List<File> set1, List<File> set2)
       throws IOException {
-    List<File> set1Copy = new ArrayList<File>(set1);
+    if (set1.size() != set2.size()) {
+      return false;
+    }
 
-    for (File f2 : set2) {
-      String f2Name = f2.getName();
+    boolean caseSensitive = isFilesystemCaseSensitive();
+    Map<String, File> set1ByName = new HashMap<String, File>();
+    for (File f1 : set1) {
+      String name = caseSensitive ? f1.getName() : f1.getName().toLowerCase();
+      if (!set1ByName.containsKey(name)) {
+        set1ByName.put(name, f1);
+      }
+    }
 
-      File f1 = findFileWithName(set1, f2Name);
-      if (f1 == null || !areFileContentsEqual(f1, f2)) {
+    // Match every file by name and size before reading any contents
+    List<File> matches = new ArrayList<File>(set2.size());
+    for (File f2 : set2) {
+      String name = caseSensitive ? f2.getName() : f2.getName().toLowerCase();
+      File f1 = set1ByName.remove(name);
+      if (f1 == null || f1.length() != f2.length()) {
         return false;
       }
-
-      set1Copy.remove(f1);
+      matches.add(f1);
     }
 
-    return set1Copy.isEmpty();
+    for (int i = 0; i < matches.size(); i++) {
+      if (!areFileContentsEqual(matches.get(i), set2.get(i))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -703,24 +676,6 @@ public class ResourceUtils {
     fos.close();
   }
 
-  private static File findFileWithName(List<File> files, String fileName) {
-    for (File file : files) {
-      String curFileName = file.getName();
-
-      if (isFilesystemCaseSensitive()) {
-        if (curFileName.equals(fileName)) {
-          return file;
-        }
-      } else {
-        if (curFileName.equalsIgnoreCase(fileName)) {
-          return file;
-        }
-      }
-    }
-
-    return null;
-  }
-
   private static String getResourceAsString(URL resource) throws CoreException {
     if (resource == null) {
       return null;
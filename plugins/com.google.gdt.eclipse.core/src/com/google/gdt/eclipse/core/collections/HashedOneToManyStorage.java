@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.collections;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores a {@link OneToManyIndex} as a pair of maps from each object to the
+ * set of objects it is linked to.
+ */
+class HashedOneToManyStorage<K, E> implements OneToManyStorage<K, E> {
+
+  private final Map<K, Set<E>> index = new HashMap<K, Set<E>>();
+
+  private final Map<E, Set<K>> reverseIndex = new HashMap<E, Set<K>>();
+
+  public void addElement(K key, E element) {
+    // If the key is already indexed, just add this element to its set
+    if (index.containsKey(key)) {
+      index.get(key).add(element);
+    } else {
+      // Otherwise, insert a new key in the index with this element
+      Set<E> elements = new HashSet<E>(Collections.singleton(element));
+      index.put(key, elements);
+    }
+
+    // Update the reverse index in the same way
+    if (reverseIndex.containsKey(element)) {
+      reverseIndex.get(element).add(key);
+    } else {
+      Set<K> keys = new HashSet<K>(Collections.singleton(key));
+      reverseIndex.put(element, keys);
+    }
+  }
+
+  public void clear() {
+    index.clear();
+    reverseIndex.clear();
+  }
+
+  public OneToManyStorage<K, E> copy() {
+    HashedOneToManyStorage<K, E> copy = new HashedOneToManyStorage<K, E>();
+    for (Map.Entry<K, Set<E>> entry : index.entrySet()) {
+      copy.index.put(entry.getKey(), new HashSet<E>(entry.getValue()));
+    }
+    for (Map.Entry<E, Set<K>> entry : reverseIndex.entrySet()) {
+      copy.reverseIndex.put(entry.getKey(), new HashSet<K>(entry.getValue()));
+    }
+    return copy;
+  }
+
+  public Set<E> elements() {
+    return new HashSet<E>(reverseIndex.keySet());
+  }
+
+  public Set<E> getElements(K key) {
+    Set<E> elements = index.get(key);
+    if (elements != null) {
+      return new HashSet<E>(elements);
+    }
+    return Collections.emptySet();
+  }
+
+  public Set<K> getKeys(E element) {
+    Set<K> keys = reverseIndex.get(element);
+    if (keys != null) {
+      return new HashSet<K>(keys);
+    }
+    return Collections.emptySet();
+  }
+
+  public boolean hasElement(E element) {
+    return reverseIndex.containsKey(element);
+  }
+
+  public boolean hasKey(K key) {
+    return index.containsKey(key);
+  }
+
+  public Set<K> keys() {
+    return new HashSet<K>(index.keySet());
+  }
+
+  public void removeElement(E element) {
+    // Remove from the main index
+    for (Set<E> elements : index.values()) {
+      elements.remove(element);
+    }
+
+    // Remove from the reverse index
+    reverseIndex.remove(element);
+  }
+
+  public void removeKey(K key) {
+    // Remove from the main index
+    index.remove(key);
+
+    // Remove from the reverse index
+    for (Set<K> keys : reverseIndex.values()) {
+      keys.remove(key);
+    }
+  }
+}
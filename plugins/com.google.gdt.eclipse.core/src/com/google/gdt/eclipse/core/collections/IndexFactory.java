@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.collections;
+
+/**
+ * Creates {@link OneToManyIndex} and {@link ManyToManyIndex} instances with the
+ * storage configured for this workspace.
+ * 
+ * The storage can be chosen with the system property named by
+ * {@link #STORAGE_PROPERTY}, set to either <code>hashed</code> or
+ * <code>interned</code> (the default).
+ */
+public final class IndexFactory {
+
+  /**
+   * How an index stores its links.
+   */
+  public enum Storage {
+    /**
+     * A hash set per object. Fastest to update, but costs a few hundred bytes
+     * per link.
+     */
+    HASHED {
+      @Override
+      <K, E> OneToManyStorage<K, E> create() {
+        return new HashedOneToManyStorage<K, E>();
+      }
+    },
+
+    /**
+     * Integer-interned objects with a sorted <code>int[]</code> of links each.
+     * Much smaller, at the cost of copying on every update.
+     */
+    INTERNED {
+      @Override
+      <K, E> OneToManyStorage<K, E> create() {
+        return new InternedOneToManyStorage<K, E>();
+      }
+    };
+
+    abstract <K, E> OneToManyStorage<K, E> create();
+  }
+
+  public static final String STORAGE_PROPERTY = "com.google.gdt.eclipse.core.collections.indexStorage";
+
+  /**
+   * Returns the storage that indices created by this factory use.
+   */
+  public static Storage getDefaultStorage() {
+    String storage = System.getProperty(STORAGE_PROPERTY);
+    if (storage != null) {
+      for (Storage candidate : Storage.values()) {
+        if (candidate.name().equalsIgnoreCase(storage.trim())) {
+          return candidate;
+        }
+      }
+    }
+    return Storage.INTERNED;
+  }
+
+  public static <L, R> ManyToManyIndex<L, R> newManyToManyIndex() {
+    return new ManyToManyIndex<L, R>(getDefaultStorage());
+  }
+
+  public static <K, E> OneToManyIndex<K, E> newOneToManyIndex() {
+    return new OneToManyIndex<K, E>(getDefaultStorage());
+  }
+
+  private IndexFactory() {
+  }
+}
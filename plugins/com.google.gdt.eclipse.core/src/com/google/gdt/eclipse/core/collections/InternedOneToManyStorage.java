@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.collections;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores a {@link OneToManyIndex} compactly: every key and element is interned
+ * to a small integer, and the links of each one are kept as a sorted
+ * <code>int[]</code> of the other side's ids. The arrays grow by doubling, so
+ * adding a link is amortized constant time apart from shifting the larger ids,
+ * and lookups are binary searches.
+ */
+class InternedOneToManyStorage<K, E> implements OneToManyStorage<K, E> {
+
+  /**
+   * Assigns each distinct object a small, reusable integer id.
+   */
+  static class Interner<T> {
+
+    private int[] freeIds = new int[8];
+
+    private int freeIdCount;
+
+    private final Map<T, Integer> ids = new HashMap<T, Integer>();
+
+    /**
+     * The linked ids of each interned object, indexed by its id. Only the first
+     * {@link #linkCounts} entries of each array are in use.
+     */
+    private int[][] links = new int[16][];
+
+    private int[] linkCounts = new int[16];
+
+    private int nextId;
+
+    private Object[] values = new Object[16];
+
+    Interner() {
+    }
+
+    /**
+     * Copies the interner. The link arrays are copied as well, since they are
+     * modified in place.
+     */
+    Interner(Interner<T> original) {
+      freeIds = original.freeIds.clone();
+      freeIdCount = original.freeIdCount;
+      ids.putAll(original.ids);
+      links = new int[original.links.length][];
+      for (int id = 0; id < original.nextId; id++) {
+        int[] originalLinks = original.links[id];
+        if (originalLinks != null) {
+          links[id] = original.linkCounts[id] == 0 ? EMPTY : Arrays.copyOf(
+              originalLinks, original.linkCounts[id]);
+        }
+      }
+      linkCounts = original.linkCounts.clone();
+      nextId = original.nextId;
+      values = original.values.clone();
+    }
+
+    /**
+     * Adds a link to the object with the given id, unless it is already there.
+     */
+    void addLink(int id, int linkedId) {
+      int[] idLinks = links[id];
+      int count = linkCounts[id];
+      int pos = Arrays.binarySearch(idLinks, 0, count, linkedId);
+      if (pos >= 0) {
+        return;
+      }
+
+      pos = -(pos + 1);
+      if (count == idLinks.length) {
+        idLinks = Arrays.copyOf(idLinks,
+            Math.max(MIN_LINKS_CAPACITY, count * 2));
+        links[id] = idLinks;
+      }
+      System.arraycopy(idLinks, pos, idLinks, pos + 1, count - pos);
+      idLinks[pos] = linkedId;
+      linkCounts[id] = count + 1;
+    }
+
+    void clear() {
+      ids.clear();
+      Arrays.fill(values, null);
+      Arrays.fill(links, null);
+      Arrays.fill(linkCounts, 0);
+      freeIdCount = 0;
+      nextId = 0;
+    }
+
+    int getId(T value) {
+      Integer id = ids.get(value);
+      return id != null ? id.intValue() : -1;
+    }
+
+    /**
+     * Returns a new array of the ids linked to the object with the given id, in
+     * ascending order.
+     */
+    int[] getLinks(int id) {
+      return Arrays.copyOf(links[id], linkCounts[id]);
+    }
+
+    @SuppressWarnings("unchecked")
+    T getValue(int id) {
+      return (T) values[id];
+    }
+
+    int intern(T value) {
+      Integer existingId = ids.get(value);
+      if (existingId != null) {
+        return existingId.intValue();
+      }
+
+      int id = freeIdCount > 0 ? freeIds[--freeIdCount] : nextId++;
+      if (id >= values.length) {
+        int capacity = Math.max(values.length * 2, id + 1);
+        values = Arrays.copyOf(values, capacity);
+        links = Arrays.copyOf(links, capacity);
+        linkCounts = Arrays.copyOf(linkCounts, capacity);
+      }
+      values[id] = value;
+      links[id] = EMPTY;
+      linkCounts[id] = 0;
+      ids.put(value, id);
+      return id;
+    }
+
+    /**
+     * Forgets the object, returning the links it had.
+     */
+    int[] remove(int id) {
+      int[] removedLinks = getLinks(id);
+      ids.remove(values[id]);
+      values[id] = null;
+      links[id] = null;
+      linkCounts[id] = 0;
+
+      if (freeIdCount == freeIds.length) {
+        freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+      }
+      freeIds[freeIdCount++] = id;
+      return removedLinks;
+    }
+
+    /**
+     * Removes a link from the object with the given id, if it is there. The
+     * array is halved once it is a quarter full, so that objects which lost
+     * most of their links do not keep the memory.
+     */
+    void removeLink(int id, int linkedId) {
+      int[] idLinks = links[id];
+      int count = linkCounts[id];
+      int pos = Arrays.binarySearch(idLinks, 0, count, linkedId);
+      if (pos < 0) {
+        return;
+      }
+
+      count--;
+      System.arraycopy(idLinks, pos + 1, idLinks, pos, count - pos);
+      linkCounts[id] = count;
+      if (count == 0) {
+        links[id] = EMPTY;
+      } else if (count <= idLinks.length / 4
+          && idLinks.length > MIN_LINKS_CAPACITY) {
+        links[id] = Arrays.copyOf(idLinks, Math.max(MIN_LINKS_CAPACITY,
+            idLinks.length / 2));
+      }
+    }
+
+    Set<T> values() {
+      return new HashSet<T>(ids.keySet());
+    }
+
+    /**
+     * Returns a new set of the objects linked to the object with the given id
+     * of the other interner.
+     */
+    Set<T> values(Interner<?> other, int otherId) {
+      int[] valueIds = other.links[otherId];
+      int count = other.linkCounts[otherId];
+      Set<T> result = new HashSet<T>(count * 2);
+      for (int i = 0; i < count; i++) {
+        result.add(getValue(valueIds[i]));
+      }
+      return result;
+    }
+  }
+
+  private static final int[] EMPTY = new int[0];
+
+  private static final int MIN_LINKS_CAPACITY = 4;
+
+  private final Interner<E> elements;
+
+  private final Interner<K> keys;
+
+  InternedOneToManyStorage() {
+    this.elements = new Interner<E>();
+    this.keys = new Interner<K>();
+  }
+
+  private InternedOneToManyStorage(InternedOneToManyStorage<K, E> original) {
+    this.elements = new Interner<E>(original.elements);
+    this.keys = new Interner<K>(original.keys);
+  }
+
+  public void addElement(K key, E element) {
+    int keyId = keys.intern(key);
+    int elementId = elements.intern(element);
+    keys.addLink(keyId, elementId);
+    elements.addLink(elementId, keyId);
+  }
+
+  public void clear() {
+    keys.clear();
+    elements.clear();
+  }
+
+  public OneToManyStorage<K, E> copy() {
+    return new InternedOneToManyStorage<K, E>(this);
+  }
+
+  public Set<E> elements() {
+    return elements.values();
+  }
+
+  public Set<E> getElements(K key) {
+    int keyId = keys.getId(key);
+    if (keyId < 0) {
+      return Collections.emptySet();
+    }
+    return elements.values(keys, keyId);
+  }
+
+  public Set<K> getKeys(E element) {
+    int elementId = elements.getId(element);
+    if (elementId < 0) {
+      return Collections.emptySet();
+    }
+    return keys.values(elements, elementId);
+  }
+
+  public boolean hasElement(E element) {
+    return elements.getId(element) >= 0;
+  }
+
+  public boolean hasKey(K key) {
+    return keys.getId(key) >= 0;
+  }
+
+  public Set<K> keys() {
+    return keys.values();
+  }
+
+  public void removeElement(E element) {
+    int elementId = elements.getId(element);
+    if (elementId < 0) {
+      return;
+    }
+
+    // Keys left without elements stay in the index, as they do in the hashed
+    // storage
+    for (int keyId : elements.remove(elementId)) {
+      keys.removeLink(keyId, elementId);
+    }
+  }
+
+  public void removeKey(K key) {
+    int keyId = keys.getId(key);
+    if (keyId < 0) {
+      return;
+    }
+
+    for (int elementId : keys.remove(keyId)) {
+      elements.removeLink(elementId, keyId);
+    }
+  }
+}
@@ -33,9 +33,17 @@ public class ManyToManyIndex<L, R> {
 
   private final OneToManyIndex<R, L> rightIndex;
 
+  /**
+   * Creates an index backed by hash sets. Use {@link IndexFactory} to get an
+   * index with the workspace's configured storage.
+   */
   public ManyToManyIndex() {
-    this.leftIndex = new OneToManyIndex<L, R>();
-    this.rightIndex = new OneToManyIndex<R, L>();
+    this(IndexFactory.Storage.HASHED);
+  }
+
+  public ManyToManyIndex(IndexFactory.Storage storageType) {
+    this.leftIndex = new OneToManyIndex<L, R>(storageType);
+    this.rightIndex = new OneToManyIndex<R, L>(storageType);
   }
 
   public ManyToManyIndex(ManyToManyIndex<L, R> original) {
@@ -58,6 +66,14 @@ public class ManyToManyIndex<L, R> {
     rightIndex.clear();
   }
 
+  public boolean containsLeftElement(L key) {
+    return leftIndex.hasKey(key);
+  }
+
+  public boolean containsRightElement(R key) {
+    return rightIndex.hasKey(key);
+  }
+
   public Set<L> getAllLeftElements() {
     return Collections.unmodifiableSet(leftIndex.keys());
   }
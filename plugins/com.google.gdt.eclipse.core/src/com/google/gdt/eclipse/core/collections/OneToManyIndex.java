@@ -14,16 +14,12 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.core.collections;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 /*
- * Since we need to keep modifications to index and reverseIndex atomic,
- * synchronize on the current instance of this class when touching either index
- * or reverseIndex. Those individual maps have not been made thread-safe since
+ * Since we need to keep modifications to both directions of the storage
+ * atomic, synchronize on the current instance of this class when touching the
+ * storage. The storage implementations have not been made thread-safe since
  * they are not exposed to anything outside of this class, and this class has
  * its own mechanism for thread-safety.
  */
@@ -33,6 +29,9 @@ import java.util.Set;
  * if an element is added which already exists, it is a no-op. Lookup is equally
  * fast from either direction (i.e. key to elements vs. element to keys).
  * <p>
+ * How the links are stored is chosen at construction; see
+ * {@link IndexFactory}.
+ * <p>
  * This class is fully thread-safe.
  * 
  * @param <K> the type of the key objects
@@ -40,18 +39,30 @@ import java.util.Set;
  */
 public class OneToManyIndex<K, E> {
 
-  private final Map<K, Set<E>> index = new HashMap<K, Set<E>>();
+  private final OneToManyStorage<K, E> storage;
 
-  private final Map<E, Set<K>> reverseIndex = new HashMap<E, Set<K>>();
+  private final IndexFactory.Storage storageType;
 
+  /**
+   * Creates an index backed by hash sets. Use {@link IndexFactory} to get an
+   * index with the workspace's configured storage.
+   */
   public OneToManyIndex() {
+    this(IndexFactory.Storage.HASHED);
+  }
+
+  public OneToManyIndex(IndexFactory.Storage storageType) {
+    this.storageType = storageType;
+    this.storage = storageType.create();
   }
 
+  /**
+   * Creates a copy of the index, with the same kind of storage.
+   */
   public OneToManyIndex(OneToManyIndex<K, E> original) {
-    synchronized (this) {
-      for (K key : original.keys()) {
-        putElements(key, original.getElements(key));
-      }
+    synchronized (original) {
+      this.storageType = original.storageType;
+      this.storage = original.storage.copy();
     }
   }
 
@@ -60,29 +71,13 @@ public class OneToManyIndex<K, E> {
    */
   public void addElement(K key, E element) {
     synchronized (this) {
-      // If the key is already indexed, just add this element to its set
-      if (index.containsKey(key)) {
-        index.get(key).add(element);
-      } else {
-        // Otherwise, insert a new key in the index with this element
-        Set<E> elements = new HashSet<E>(Collections.singleton(element));
-        index.put(key, elements);
-      }
-
-      // Update the reverse index in the same way
-      if (reverseIndex.containsKey(element)) {
-        reverseIndex.get(element).add(key);
-      } else {
-        Set<K> keys = new HashSet<K>(Collections.singleton(key));
-        reverseIndex.put(element, keys);
-      }
+      storage.addElement(key, element);
     }
   }
 
   public void clear() {
     synchronized (this) {
-      index.clear();
-      reverseIndex.clear();
+      storage.clear();
     }
   }
 
@@ -91,7 +86,7 @@ public class OneToManyIndex<K, E> {
    */
   public Set<E> elements() {
     synchronized (this) {
-      return new HashSet<E>(reverseIndex.keySet());
+      return storage.elements();
     }
   }
 
@@ -103,11 +98,7 @@ public class OneToManyIndex<K, E> {
    */
   public Set<E> getElements(K key) {
     synchronized (this) {
-      Set<E> elements = index.get(key);
-      if (elements != null) {
-        return new HashSet<E>(elements);
-      }
-      return Collections.emptySet();
+      return storage.getElements(key);
     }
   }
 
@@ -116,23 +107,23 @@ public class OneToManyIndex<K, E> {
    */
   public Set<K> getKeys(E element) {
     synchronized (this) {
-      Set<K> keys = reverseIndex.get(element);
-      if (keys != null) {
-        return new HashSet<K>(keys);
-      }
-      return Collections.emptySet();
+      return storage.getKeys(element);
     }
   }
 
+  public IndexFactory.Storage getStorageType() {
+    return storageType;
+  }
+
   public boolean hasElement(E element) {
     synchronized (this) {
-      return reverseIndex.containsKey(element);
+      return storage.hasElement(element);
     }
   }
 
   public boolean hasKey(K key) {
     synchronized (this) {
-      return index.containsKey(key);
+      return storage.hasKey(key);
     }
   }
 
@@ -141,7 +132,7 @@ public class OneToManyIndex<K, E> {
    */
   public Set<K> keys() {
     synchronized (this) {
-      return new HashSet<K>(index.keySet());
+      return storage.keys();
     }
   }
 
@@ -166,25 +157,13 @@ public class OneToManyIndex<K, E> {
 
   public void removeElement(E element) {
     synchronized (this) {
-      // Remove from the main index
-      for (Set<E> elements : index.values()) {
-        elements.remove(element);
-      }
-
-      // Remove from the reverse index
-      reverseIndex.remove(element);
+      storage.removeElement(element);
     }
   }
 
   public void removeKey(K key) {
     synchronized (this) {
-      // Remove from the main index
-      index.remove(key);
-
-      // Remove from the reverse index
-      for (Set<K> keys : reverseIndex.values()) {
-        keys.remove(key);
-      }
+      storage.removeKey(key);
     }
   }
 
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.collections;
+
+import java.util.Set;
+
+/**
+ * Backing store for a {@link OneToManyIndex}. Implementations need not be
+ * thread-safe, since the index synchronizes all access to its storage.
+ * 
+ * @param <K> the type of the key objects
+ * @param <E> the type of the element objects
+ */
+interface OneToManyStorage<K, E> {
+
+  void addElement(K key, E element);
+
+  void clear();
+
+  /**
+   * Returns an independent copy of this storage.
+   */
+  OneToManyStorage<K, E> copy();
+
+  /**
+   * Returns a new set of all elements.
+   */
+  Set<E> elements();
+
+  /**
+   * Returns a new set of the elements for the given key.
+   */
+  Set<E> getElements(K key);
+
+  /**
+   * Returns a new set of the keys which map to the given element.
+   */
+  Set<K> getKeys(E element);
+
+  boolean hasElement(E element);
+
+  boolean hasKey(K key);
+
+  /**
+   * Returns a new set of all keys.
+   */
+  Set<K> keys();
+
+  void removeElement(E element);
+
+  void removeKey(K key);
+}
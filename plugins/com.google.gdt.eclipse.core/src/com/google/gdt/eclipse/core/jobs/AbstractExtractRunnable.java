@@ -14,9 +14,17 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.core.jobs;
 
+import com.google.gdt.eclipse.core.CorePlugin;
+import com.google.gdt.eclipse.core.CorePluginLog;
+
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
+import java.util.zip.ZipException;
 
 /**
  * Parent of extract runnables. This type provides common functionality between
@@ -51,4 +59,45 @@ public abstract class AbstractExtractRunnable implements IRunnableWithProgressAn
     }
     this.archive = archive;
   }
+
+  /**
+   * Convenience method creates readable error message with the given
+   * explanation, which may be <code>null</code>.
+   */
+  protected String errorMessage(String explanation) {
+    String out = "Error extracting " + archive.getAbsolutePath() + " into directory "
+        + targetDir.getAbsolutePath();
+
+    if (explanation != null) {
+      out += ". " + explanation;
+    }
+    return out;
+  }
+
+  /**
+   * Extracts the archive into the target directory and sets the job status
+   * accordingly. The done() method on the monitor is not called.
+   */
+  IStatus extract(ArchiveExtractor.Format format, IProgressMonitor monitor) {
+    try {
+      if (new ArchiveExtractor(archive, targetDir, format).extract(monitor)) {
+        jobStatus = Status.OK_STATUS;
+      } else {
+        jobStatus = Status.CANCEL_STATUS;
+      }
+    } catch (ZipException e) {
+      jobStatus = errorStatus(e, "It may be corrupted?");
+    } catch (EOFException e) {
+      jobStatus = errorStatus(e, "It may be corrupted?");
+    } catch (IOException e) {
+      jobStatus = errorStatus(e, null);
+    }
+    return jobStatus;
+  }
+
+  private IStatus errorStatus(IOException e, String explanation) {
+    String errormsg = errorMessage(explanation);
+    CorePluginLog.logError(e, errormsg);
+    return new Status(IStatus.ERROR, CorePlugin.PLUGIN_ID, errormsg);
+  }
 }
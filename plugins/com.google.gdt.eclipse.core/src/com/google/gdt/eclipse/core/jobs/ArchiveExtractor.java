@@ -0,0 +1,572 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.jobs;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts zip, tar and gzipped tar archives into a directory.
+ * <p>
+ * Entries are written through {@link FileChannel}s with large buffers, and
+ * independent entries are written in parallel: zip entries are inflated on
+ * the writer threads, while tar entries are read sequentially and handed to
+ * the writers up to a bounded number of buffered bytes. Entry names that would
+ * escape the target directory are rejected.
+ */
+class ArchiveExtractor {
+
+  /**
+   * The archive formats supported by the extractor.
+   */
+  public enum Format {
+    ZIP, TAR, TAR_GZIP
+  }
+
+  static final int BUFFER_SIZE = 256 * 1024;
+
+  private static final int BLOCK_SIZE = 512;
+
+  private static final Charset HEADER_CHARSET = Charset.forName("UTF-8");
+
+  /**
+   * Tar entries larger than this are written by the reading thread instead of
+   * being buffered for a writer.
+   */
+  private static final int MAX_BUFFERED_ENTRY_SIZE = 8 * 1024 * 1024;
+
+  /**
+   * The most tar entry bytes buffered for the writers at any time, in KB.
+   */
+  private static final int MAX_PENDING_KB = 64 * 1024;
+
+  /**
+   * The magic ("ustar" and a NUL) and version ("00") of POSIX tar headers.
+   */
+  private static final byte[] POSIX_USTAR_MAGIC = {
+      'u', 's', 't', 'a', 'r', 0, '0', '0'};
+
+  private static final int WRITER_COUNT = Math.max(1, Math.min(4,
+      Runtime.getRuntime().availableProcessors()));
+
+  private static final ThreadFactory WRITER_THREAD_FACTORY = new ThreadFactory() {
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, "Archive extraction writer");
+      thread.setDaemon(true);
+      return thread;
+    }
+  };
+
+  private static int getKilobytes(int bytes) {
+    return bytes / 1024 + 1;
+  }
+
+  private static long parseOctal(byte[] header, int offset, int length)
+      throws IOException {
+    if ((header[offset] & 0x80) != 0) {
+      // GNU base-256 encoding for large values
+      long value = header[offset] & 0x7f;
+      for (int i = 1; i < length; i++) {
+        value = (value << 8) | (header[offset + i] & 0xff);
+      }
+      return value;
+    }
+
+    long value = 0;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      byte b = header[i];
+      if (b == 0 || b == ' ') {
+        if (value != 0) {
+          break;
+        }
+        continue;
+      }
+      if (b < '0' || b > '7') {
+        throw new IOException("Invalid tar header");
+      }
+      value = (value << 3) + (b - '0');
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value of the <code>path</code> record of a pax extended
+   * header, or <code>null</code>.
+   */
+  private static String parsePaxPath(byte[] data) {
+    int offset = 0;
+    while (offset < data.length) {
+      int space = offset;
+      while (space < data.length && data[space] != ' ') {
+        space++;
+      }
+      if (space == data.length) {
+        break;
+      }
+      int length;
+      try {
+        length = Integer.parseInt(new String(data, offset, space - offset,
+            HEADER_CHARSET));
+      } catch (NumberFormatException e) {
+        break;
+      }
+      if (length <= 0 || offset + length > data.length) {
+        break;
+      }
+      String record = new String(data, space + 1, offset + length - space - 2,
+          HEADER_CHARSET);
+      if (record.startsWith("path=")) {
+        return record.substring("path=".length());
+      }
+      offset += length;
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether a tar header has the POSIX ustar magic and version, and so
+   * a name prefix at offset 345. GNU headers have the magic "ustar  " and
+   * keep access and change times there instead.
+   */
+  private static boolean isPosixUstarHeader(byte[] header) {
+    for (int i = 0; i < POSIX_USTAR_MAGIC.length; i++) {
+      if (header[257 + i] != POSIX_USTAR_MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String parseString(byte[] header, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && header[end] != 0) {
+      end++;
+    }
+    return new String(header, offset, end - offset, HEADER_CHARSET);
+  }
+
+  private static void readFully(InputStream in, byte[] bytes, int offset,
+      int length) throws IOException {
+    while (length > 0) {
+      int read = in.read(bytes, offset, length);
+      if (read < 0) {
+        throw new EOFException("Unexpected end of archive");
+      }
+      offset += read;
+      length -= read;
+    }
+  }
+
+  private static void skipFully(InputStream in, long count) throws IOException {
+    while (count > 0) {
+      long skipped = in.skip(count);
+      if (skipped <= 0) {
+        if (in.read() < 0) {
+          throw new EOFException("Unexpected end of archive");
+        }
+        skipped = 1;
+      }
+      count -= skipped;
+    }
+  }
+
+  /**
+   * Writes the remaining bytes of the stream, or the given number of them, to
+   * the file.
+   * 
+   * @param count the number of bytes to write, or -1 to write until the end of
+   *          the stream
+   */
+  private static void write(InputStream in, long count, File file,
+      byte[] buffer) throws IOException {
+    FileChannel out = new FileOutputStream(file).getChannel();
+    try {
+      ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+      while (count != 0) {
+        int read = in.read(buffer, 0, count < 0 ? buffer.length
+            : (int) Math.min(buffer.length, count));
+        if (read < 0) {
+          if (count > 0) {
+            throw new EOFException("Unexpected end of archive");
+          }
+          break;
+        }
+        byteBuffer.limit(read).position(0);
+        while (byteBuffer.hasRemaining()) {
+          out.write(byteBuffer);
+        }
+        if (count > 0) {
+          count -= read;
+        }
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  private final File archive;
+
+  private final Format format;
+
+  private final File targetDir;
+
+  /**
+   * Directories known to exist, so each is created once.
+   */
+  private final Set<File> createdDirs = new HashSet<File>();
+
+  /**
+   * Write buffers, one for each writer and one for the reading thread.
+   */
+  private final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(
+      WRITER_COUNT + 1);
+
+  public ArchiveExtractor(File archive, File targetDir, Format format) {
+    this.archive = archive;
+    this.targetDir = targetDir;
+    this.format = format;
+  }
+
+  /**
+   * Extracts the archive, reporting one unit of work per entry. This calls
+   * {@link IProgressMonitor#beginTask} but not {@link IProgressMonitor#done}.
+   * 
+   * @return <code>false</code> if the monitor was canceled before all entries
+   *         were extracted
+   */
+  public boolean extract(IProgressMonitor monitor) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(WRITER_COUNT,
+        WRITER_THREAD_FACTORY);
+    try {
+      CompletionService<Void> writes = new ExecutorCompletionService<Void>(
+          executor);
+      if (format == Format.ZIP) {
+        return extractZip(writes, monitor);
+      } else {
+        return extractTar(writes, monitor);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void awaitWrites(CompletionService<Void> writes, int pendingWrites,
+      IProgressMonitor monitor) throws IOException {
+    for (int i = 0; i < pendingWrites; i++) {
+      try {
+        writes.take().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while extracting " + archive);
+      } catch (ExecutionException e) {
+        throw toIOException(e);
+      }
+      monitor.worked(1);
+    }
+  }
+
+  /**
+   * Reports the completed writes without waiting.
+   * 
+   * @return the number of completed writes
+   */
+  private int collectWrites(CompletionService<Void> writes,
+      IProgressMonitor monitor) throws IOException {
+    int completed = 0;
+    for (Future<Void> write = writes.poll(); write != null; write = writes.poll()) {
+      try {
+        write.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while extracting " + archive);
+      } catch (ExecutionException e) {
+        throw toIOException(e);
+      }
+      monitor.worked(1);
+      completed++;
+    }
+    return completed;
+  }
+
+  private void ensureDirectory(File dir) throws IOException {
+    if (createdDirs.add(dir) && !dir.mkdirs() && !dir.isDirectory()) {
+      throw new IOException("Could not create directory " + dir);
+    }
+  }
+
+  private boolean extractTar(CompletionService<Void> writes,
+      IProgressMonitor monitor) throws IOException {
+    monitor.beginTask("Uncompressing " + archive.getName(),
+        IProgressMonitor.UNKNOWN);
+
+    InputStream in = new BufferedInputStream(new FileInputStream(archive),
+        BUFFER_SIZE);
+    try {
+      if (format == Format.TAR_GZIP) {
+        in = new GZIPInputStream(in, BUFFER_SIZE);
+      }
+      return extractTarEntries(in, writes, monitor);
+    } finally {
+      in.close();
+    }
+  }
+
+  private boolean extractTarEntries(InputStream in,
+      CompletionService<Void> writes, IProgressMonitor monitor)
+      throws IOException {
+    final Semaphore pendingKilobytes = new Semaphore(MAX_PENDING_KB);
+    byte[] header = new byte[BLOCK_SIZE];
+    String longName = null;
+    int pendingWrites = 0;
+
+    while (true) {
+      pendingWrites -= collectWrites(writes, monitor);
+      if (monitor.isCanceled()) {
+        awaitWrites(writes, pendingWrites, monitor);
+        return false;
+      }
+
+      readFully(in, header, 0, BLOCK_SIZE);
+      if (isZeroBlock(header)) {
+        break;
+      }
+
+      byte type = header[156];
+      long size = parseOctal(header, 124, 12);
+      long padding = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+
+      if (type == 'L' || type == 'x') {
+        // GNU long name or pax extended header for the next entry
+        if (size > MAX_BUFFERED_ENTRY_SIZE) {
+          throw new IOException("Invalid tar header");
+        }
+        byte[] data = new byte[(int) size];
+        readFully(in, data, 0, data.length);
+        skipFully(in, padding);
+        String name = type == 'L' ? parseString(data, 0, data.length)
+            : parsePaxPath(data);
+        if (name != null) {
+          longName = name;
+        }
+        continue;
+      }
+
+      String name = longName;
+      longName = null;
+      if (name == null) {
+        name = parseString(header, 0, 100);
+        if (isPosixUstarHeader(header)) {
+          String prefix = parseString(header, 345, 155);
+          if (prefix.length() > 0) {
+            name = prefix + "/" + name;
+          }
+        }
+      }
+      final long lastModified = parseOctal(header, 136, 12) * 1000;
+
+      if (type == '5') {
+        ensureDirectory(resolve(name));
+        skipFully(in, size + padding);
+        monitor.worked(1);
+        continue;
+      }
+      if (type != '0' && type != 0 && type != '7') {
+        // Links, devices and global headers are not extracted
+        skipFully(in, size + padding);
+        continue;
+      }
+
+      final File file = resolve(name);
+      ensureDirectory(file.getParentFile());
+
+      if (size > MAX_BUFFERED_ENTRY_SIZE) {
+        byte[] buffer = takeBuffer();
+        try {
+          write(in, size, file, buffer);
+        } finally {
+          buffers.add(buffer);
+        }
+        setLastModified(file, lastModified);
+        monitor.worked(1);
+      } else {
+        final byte[] data = new byte[(int) size];
+        readFully(in, data, 0, data.length);
+        final int permits = getKilobytes(data.length);
+        acquire(pendingKilobytes, permits);
+        writes.submit(new Callable<Void>() {
+          public Void call() throws IOException {
+            try {
+              FileChannel out = new FileOutputStream(file).getChannel();
+              try {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(data);
+                while (byteBuffer.hasRemaining()) {
+                  out.write(byteBuffer);
+                }
+              } finally {
+                out.close();
+              }
+              setLastModified(file, lastModified);
+              return null;
+            } finally {
+              pendingKilobytes.release(permits);
+            }
+          }
+        });
+        pendingWrites++;
+      }
+      skipFully(in, padding);
+    }
+
+    awaitWrites(writes, pendingWrites, monitor);
+    return true;
+  }
+
+  private boolean extractZip(CompletionService<Void> writes,
+      IProgressMonitor monitor) throws IOException {
+    final ZipFile zipFile = new ZipFile(archive);
+    try {
+      monitor.beginTask("Uncompressing " + archive.getName(), zipFile.size());
+
+      int pendingWrites = 0;
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        final ZipEntry zipEntry = entries.nextElement();
+        final File file = resolve(zipEntry.getName());
+
+        if (zipEntry.isDirectory()) {
+          ensureDirectory(file);
+          monitor.worked(1);
+        } else {
+          ensureDirectory(file.getParentFile());
+          writes.submit(new Callable<Void>() {
+            public Void call() throws IOException, InterruptedException {
+              byte[] buffer = buffers.poll();
+              if (buffer == null) {
+                buffer = new byte[BUFFER_SIZE];
+              }
+              try {
+                InputStream in = zipFile.getInputStream(zipEntry);
+                try {
+                  write(in, -1, file, buffer);
+                } finally {
+                  in.close();
+                }
+              } finally {
+                buffers.offer(buffer);
+              }
+              return null;
+            }
+          });
+          pendingWrites++;
+        }
+
+        pendingWrites -= collectWrites(writes, monitor);
+        if (monitor.isCanceled()) {
+          awaitWrites(writes, pendingWrites, monitor);
+          return false;
+        }
+      }
+
+      awaitWrites(writes, pendingWrites, monitor);
+      return true;
+    } finally {
+      zipFile.close();
+    }
+  }
+
+  private void acquire(Semaphore semaphore, int permits) throws IOException {
+    try {
+      semaphore.acquire(Math.min(permits, MAX_PENDING_KB));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while extracting " + archive);
+    }
+  }
+
+  private boolean isZeroBlock(byte[] block) {
+    for (byte b : block) {
+      if (b != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the file for the entry name.
+   * 
+   * @throws IOException if the name refers to a location outside the target
+   *           directory
+   */
+  private File resolve(String entryName) throws IOException {
+    File file = targetDir;
+    for (String segment : entryName.split("[/\\\\]")) {
+      if (segment.equals("..")) {
+        throw new IOException("Archive entry " + entryName
+            + " is outside of the target directory");
+      }
+      if (segment.length() > 0 && !segment.equals(".")) {
+        file = new File(file, segment);
+      }
+    }
+    return file;
+  }
+
+  private void setLastModified(File file, long lastModified) {
+    if (lastModified > 0) {
+      file.setLastModified(lastModified);
+    }
+  }
+
+  private byte[] takeBuffer() {
+    byte[] buffer = buffers.poll();
+    return buffer != null ? buffer : new byte[BUFFER_SIZE];
+  }
+
+  private IOException toIOException(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    }
+    return new IOException("Could not extract " + archive, cause);
+  }
+}
@@ -79,6 +79,14 @@ public class UntarRunnable extends AbstractExtractRunnable {
    *         severity of ERROR.
    */
   public IStatus run(IProgressMonitor monitor) throws InvocationTargetException {
+    UntarCompressionMethod compression = compressionMethod(archive);
+    if ("gzip".equals(compression.getValue())) {
+      return extract(ArchiveExtractor.Format.TAR_GZIP, monitor);
+    } else if ("none".equals(compression.getValue())) {
+      return extract(ArchiveExtractor.Format.TAR, monitor);
+    }
+
+    // The JRE has no bzip2 support, so leave those to Ant
     jobStatus = Status.OK_STATUS;
 
     monitor.beginTask("Uncompressing " + archive.getName(), 1);
@@ -86,7 +94,7 @@ public class UntarRunnable extends AbstractExtractRunnable {
     untar.setDest(targetDir);
     untar.setSrc(archive);
 
-    untar.setCompression(compressionMethod(archive));
+    untar.setCompression(compression);
 
     try {
       untar.execute();
@@ -14,21 +14,12 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.core.jobs;
 
-import com.google.gdt.eclipse.core.CorePlugin;
-import com.google.gdt.eclipse.core.CorePluginLog;
-
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Enumeration;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
@@ -40,8 +31,6 @@ import java.util.zip.ZipFile;
 public class UnzipRunnable extends AbstractExtractRunnable implements
     IRunnableWithProgressAndStatus {
 
-  private static final int BUFSIZE = 2048;
-
   /**
    * Convenience method testing the provided file to determine whether is
    * appears to be a valid zip archive.
@@ -90,102 +79,6 @@ public class UnzipRunnable extends AbstractExtractRunnable implements
    *         severity of ERROR.
    */
   public IStatus run(IProgressMonitor monitor) throws InvocationTargetException {
-    ZipFile zipFile = null;
-    FileOutputStream fos = null;
-    BufferedOutputStream dest = null;
-    BufferedInputStream is = null;
-    jobStatus = Status.OK_STATUS;
-
-    try {
-      zipFile = new ZipFile(archive);
-      monitor.beginTask("Uncompressing " + archive.getName(), zipFile.size());
-
-      Enumeration<? extends ZipEntry> entries = zipFile.entries();
-
-      while (entries.hasMoreElements()) {
-        ZipEntry zipEntry = entries.nextElement();
-
-        String currentEntry = zipEntry.getName();
-        File destFile = new File(targetDir, currentEntry);
-        File destinationParent = destFile.getParentFile();
-
-        // write the current file to disk
-        if (!zipEntry.isDirectory()) {
-          destinationParent.mkdirs();
-
-          is = new BufferedInputStream(zipFile.getInputStream(zipEntry));
-
-          int numBytesRead;
-          byte bytes[] = new byte[BUFSIZE];
-
-          fos = new FileOutputStream(destFile);
-          dest = new BufferedOutputStream(fos, BUFSIZE);
-
-          while ((numBytesRead = is.read(bytes, 0, BUFSIZE)) != -1) {
-            dest.write(bytes, 0, numBytesRead);
-          }
-          dest.flush();
-        } else {
-          // If it's a directory, build all the directories up to that point.
-          destFile.mkdirs();
-        }
-        monitor.worked(1);
-        if (monitor.isCanceled()) {
-          jobStatus = Status.CANCEL_STATUS;
-          break;
-        }
-      }
-
-      if (!monitor.isCanceled()) {
-        jobStatus = Status.OK_STATUS;
-      }
-    } catch (ZipException ze) {
-      String errormsg = errorMessage("It may be corrupted?");
-      jobStatus = new Status(Status.ERROR, CorePlugin.PLUGIN_ID, errormsg);
-      CorePluginLog.logError(ze, errormsg);
-    } catch (IOException ioe) {
-      String errormsg = errorMessage();
-      jobStatus = new Status(Status.ERROR, CorePlugin.PLUGIN_ID, errormsg);
-      CorePluginLog.logError(ioe, errormsg);
-    } finally {
-      try {
-        if (zipFile != null) {
-          zipFile.close();
-        }
-        if (is != null) {
-          is.close();
-        }
-        if (dest != null) {
-          dest.close();
-        }
-      } catch (IOException ioe) {
-        String errormsg = errorMessage();
-        jobStatus = new Status(Status.ERROR, CorePlugin.PLUGIN_ID, errormsg);
-        CorePluginLog.logError(ioe, errormsg);
-      }
-    }
-    return jobStatus;
-  }
-
-  /**
-   * Convenience method creates readable error message with no explanation.
-   */
-  private String errorMessage() {
-    return errorMessage(null);
+    return extract(ArchiveExtractor.Format.ZIP, monitor);
   }
-
-  /**
-   * Convenience method creates readable error message with the given
-   * explanation.
-   */
-  private String errorMessage(String explanation) {
-    String out = "Error extracting zip file " + archive.getAbsolutePath() + " into directory "
-        + targetDir.getAbsolutePath();
-
-    if (explanation != null) {
-      out += ". " + explanation;
-    }
-    return out;
-  }
-
 }
@@ -20,7 +20,12 @@ import com.google.gdt.eclipse.core.ResourceUtils;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -91,18 +96,49 @@ public class UnzipToIFilesRunnable implements IRunnableWithProgressAndStatus {
     }
   }
 
-  public IStatus run(IProgressMonitor monitor) throws InvocationTargetException {
-    ZipFile zipFile = null;
+  /**
+   * Extracts the archive in a single workspace operation. When the target
+   * folder is on the local file system, the archive is extracted there directly
+   * and the folder is refreshed once afterwards; otherwise the files are
+   * created through the workspace.
+   */
+  public IStatus run(final IProgressMonitor monitor)
+      throws InvocationTargetException {
     jobStatus = Status.OK_STATUS;
-    IProgressMonitor nullProgressMonitor = new NullProgressMonitor();
 
     try {
-      zipFile = new ZipFile(archive);
+      ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+        public void run(IProgressMonitor runMonitor) throws CoreException {
+          try {
+            IPath location = targetDir.getLocation();
+            boolean completed = location != null
+                ? extractToLocation(location.toFile(), monitor)
+                : extractToFiles(monitor);
+            if (!completed) {
+              jobStatus = Status.CANCEL_STATUS;
+            }
+          } catch (IOException ioe) {
+            String errormsg = errorMessage();
+            jobStatus = new Status(Status.ERROR, CorePlugin.PLUGIN_ID, errormsg);
+          }
+        }
+      }, targetDir, IWorkspace.AVOID_UPDATE, null);
+    } catch (CoreException ce) {
+      String errormsg = errorMessage();
+      jobStatus = new Status(Status.ERROR, CorePlugin.PLUGIN_ID, errormsg);
+    }
+    return jobStatus;
+  }
+
+  private boolean extractToFiles(IProgressMonitor monitor) throws IOException,
+      CoreException {
+    IProgressMonitor nullProgressMonitor = new NullProgressMonitor();
+    ZipFile zipFile = new ZipFile(archive);
+    try {
       // size is the number of entries
       monitor.beginTask("Extracting " + archive.getName(), zipFile.size());
 
       Enumeration<? extends ZipEntry> entries = zipFile.entries();
-
       while (entries.hasMoreElements()) {
         ZipEntry zipEntry = entries.nextElement();
         if (zipEntry.isDirectory()) {
@@ -116,32 +152,26 @@ public class UnzipToIFilesRunnable implements IRunnableWithProgressAndStatus {
         }
         monitor.worked(1);
         if (monitor.isCanceled()) {
-          jobStatus = Status.CANCEL_STATUS;
-          break;
+          return false;
         }
       }
-
-      if (!monitor.isCanceled()) {
-        jobStatus = Status.OK_STATUS;
-      }
-    } catch (IOException ioe) {
-      String errormsg = errorMessage();
-      jobStatus = new Status(Status.ERROR, CorePlugin.PLUGIN_ID, errormsg);
-    } catch (CoreException ce) {
-      String errormsg = errorMessage();
-      jobStatus = new Status(Status.ERROR, CorePlugin.PLUGIN_ID, errormsg);
+      return true;
     } finally {
       try {
-        if (zipFile != null) {
-          zipFile.close();
-        }
+        zipFile.close();
       } catch (IOException ioe) {
-        String errormsg = errorMessage("Failed to close file");
-        jobStatus = new Status(Status.ERROR, CorePlugin.PLUGIN_ID, errormsg);
-        CorePluginLog.logError(ioe, errormsg);
+        CorePluginLog.logError(ioe, errorMessage("Failed to close file"));
       }
     }
-    return jobStatus;
+  }
+
+  private boolean extractToLocation(File location, IProgressMonitor monitor)
+      throws IOException, CoreException {
+    boolean completed = new ArchiveExtractor(archive, location,
+        ArchiveExtractor.Format.ZIP).extract(monitor);
+    // Pick up whatever was written, even if the extraction was canceled
+    targetDir.refreshLocal(IResource.DEPTH_INFINITE, null);
+    return completed;
   }
 
   /**
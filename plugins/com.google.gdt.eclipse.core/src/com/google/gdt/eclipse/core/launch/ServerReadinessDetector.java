@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.launch;
+
+import org.eclipse.debug.core.IStreamListener;
+import org.eclipse.debug.core.model.IProcess;
+import org.eclipse.debug.core.model.IStreamMonitor;
+import org.eclipse.debug.core.model.IStreamsProxy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Detects when a launched server is ready to accept requests.
+ *
+ * The primary signal is the server's own output: as soon as a line matching the "started" marker is
+ * written to the process' output or error stream, the server is considered ready. As a fallback
+ * (for example when the marker changes between SDK versions), the server's port is probed with TCP
+ * connects, backing off exponentially while the server is quiet and probing again right away
+ * whenever it writes output. Whichever signal comes first notifies the {@link Listener}, exactly
+ * once.
+ */
+public final class ServerReadinessDetector {
+
+  /**
+   * Receives the outcome of the detection. Called on the thread which observed the signal.
+   */
+  public interface Listener {
+    /**
+     * The server is ready to accept requests.
+     */
+    void serverReady(StartupTimings timings);
+
+    /**
+     * The server did not become ready within the timeout.
+     */
+    void serverNotReady(StartupTimings timings);
+  }
+
+  /**
+   * The signal which detected the server as ready.
+   */
+  public enum Signal {
+    OUTPUT, PROBE, NONE
+  }
+
+  /**
+   * Breakdown of the time it took the server to start.
+   */
+  public static final class StartupTimings {
+    private final Signal signal;
+    private final long millisToFirstOutput;
+    private final long millisToReady;
+    private final int probeAttempts;
+
+    StartupTimings(Signal signal, long millisToFirstOutput, long millisToReady, int probeAttempts) {
+      this.signal = signal;
+      this.millisToFirstOutput = millisToFirstOutput;
+      this.millisToReady = millisToReady;
+      this.probeAttempts = probeAttempts;
+    }
+
+    /**
+     * @return milliseconds from {@link ServerReadinessDetector#start()} to the first output of the
+     *         server, or -1 if there was none
+     */
+    public long getMillisToFirstOutput() {
+      return millisToFirstOutput;
+    }
+
+    /**
+     * @return milliseconds from {@link ServerReadinessDetector#start()} to the detection
+     */
+    public long getMillisToReady() {
+      return millisToReady;
+    }
+
+    /**
+     * @return the number of TCP connects attempted
+     */
+    public int getProbeAttempts() {
+      return probeAttempts;
+    }
+
+    public Signal getSignal() {
+      return signal;
+    }
+
+    @Override
+    public String toString() {
+      return "ready after " + millisToReady + " ms by " + signal + " (first output after "
+          + millisToFirstOutput + " ms, " + probeAttempts + " probes)";
+    }
+  }
+
+  /**
+   * Delay before the first probe, and after any output of the server.
+   */
+  static final long INITIAL_PROBE_DELAY = 50;
+
+  /**
+   * Upper bound of the delay between probes.
+   */
+  static final long MAX_PROBE_DELAY = 1000;
+
+  private static final int CONNECT_TIMEOUT = 250;
+
+  /**
+   * The longest incomplete line kept while waiting for its end.
+   */
+  private static final int MAX_PENDING_OUTPUT = 4096;
+
+  private final String name;
+  private final String host;
+  private final int port;
+  private final Pattern readyMarker;
+  private final long timeoutMillis;
+  private final Listener listener;
+
+  private final AtomicBoolean done = new AtomicBoolean();
+  private final Object probeLock = new Object();
+  private final StringBuilder pendingOutput = new StringBuilder();
+  private final List<IStreamMonitor> watchedMonitors = new ArrayList<IStreamMonitor>();
+  private final IStreamListener streamListener = new IStreamListener() {
+    @Override
+    public void streamAppended(String text, IStreamMonitor monitor) {
+      processOutput(text);
+    }
+  };
+
+  private volatile long startTime;
+  private volatile long firstOutputTime = -1;
+  private volatile int probeAttempts;
+  private boolean outputSinceLastProbe;
+
+  /**
+   * @param name the name of the probing thread
+   * @param host the host the server listens on
+   * @param port the port the server listens on, or -1 to rely on the output only
+   * @param readyMarker the pattern of the output written by the server once it is ready
+   * @param timeoutMillis time after which {@link Listener#serverNotReady(StartupTimings)} is called,
+   *          or 0 to wait forever
+   * @param listener notified of the outcome
+   */
+  public ServerReadinessDetector(String name, String host, int port, Pattern readyMarker,
+      long timeoutMillis, Listener listener) {
+    this.name = name;
+    this.host = host;
+    this.port = port;
+    this.readyMarker = readyMarker;
+    this.timeoutMillis = timeoutMillis;
+    this.listener = listener;
+  }
+
+  public boolean isDone() {
+    return done.get();
+  }
+
+  /**
+   * Feeds output of the server to the detector. Output may arrive in arbitrary chunks.
+   */
+  public void processOutput(CharSequence text) {
+    if (text == null || text.length() == 0 || done.get()) {
+      return;
+    }
+    boolean ready;
+    synchronized (pendingOutput) {
+      if (firstOutputTime < 0) {
+        firstOutputTime = System.currentTimeMillis();
+      }
+      pendingOutput.append(text);
+      ready = readyMarker.matcher(pendingOutput).find();
+      if (!ready) {
+        // only the last, incomplete line may still be part of a match
+        int lineEnd = pendingOutput.lastIndexOf("\n");
+        int keepFrom = Math.max(lineEnd + 1, pendingOutput.length() - MAX_PENDING_OUTPUT);
+        pendingOutput.delete(0, keepFrom);
+      }
+    }
+    if (ready) {
+      finish(Signal.OUTPUT);
+      return;
+    }
+    // the server is busy, so it's worth probing again soon
+    synchronized (probeLock) {
+      outputSinceLastProbe = true;
+      probeLock.notifyAll();
+    }
+  }
+
+  /**
+   * Starts the detection. The fallback probing runs on a daemon thread.
+   */
+  public void start() {
+    startTime = System.currentTimeMillis();
+    Thread thread = new Thread(name) {
+      @Override
+      public void run() {
+        probe();
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops the detection without notifying the listener.
+   */
+  public void stop() {
+    done.set(true);
+    unwatch();
+    synchronized (probeLock) {
+      probeLock.notifyAll();
+    }
+  }
+
+  /**
+   * Watches the output and error streams of the given process for the ready marker.
+   */
+  public void watch(IProcess process) {
+    IStreamsProxy streamsProxy = process.getStreamsProxy();
+    if (streamsProxy == null) {
+      return;
+    }
+    for (IStreamMonitor monitor : new IStreamMonitor[] {
+        streamsProxy.getOutputStreamMonitor(), streamsProxy.getErrorStreamMonitor()}) {
+      if (monitor == null) {
+        continue;
+      }
+      synchronized (watchedMonitors) {
+        watchedMonitors.add(monitor);
+      }
+      monitor.addListener(streamListener);
+      // pick up anything written before the listener was added
+      processOutput(monitor.getContents());
+    }
+    if (done.get()) {
+      unwatch();
+    }
+  }
+
+  /**
+   * Attempts a single TCP connect to the server.
+   */
+  boolean connect() {
+    Socket socket = new Socket();
+    try {
+      socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+      return true;
+    } catch (IOException e) {
+      return false;
+    } finally {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // ignore close exceptions
+      }
+    }
+  }
+
+  private void finish(Signal signal) {
+    if (!done.compareAndSet(false, true)) {
+      return;
+    }
+    unwatch();
+    synchronized (probeLock) {
+      probeLock.notifyAll();
+    }
+    long now = System.currentTimeMillis();
+    long firstOutput = firstOutputTime;
+    StartupTimings timings = new StartupTimings(signal,
+        firstOutput < 0 ? -1 : firstOutput - startTime, now - startTime, probeAttempts);
+    if (signal == Signal.NONE) {
+      listener.serverNotReady(timings);
+    } else {
+      listener.serverReady(timings);
+    }
+  }
+
+  private void probe() {
+    long delay = INITIAL_PROBE_DELAY;
+    long lastProbe = startTime;
+    while (!done.get()) {
+      boolean active;
+      synchronized (probeLock) {
+        try {
+          while (!done.get()) {
+            // probe no more often than the initial delay, even while the server writes output
+            long next = lastProbe + (outputSinceLastProbe ? INITIAL_PROBE_DELAY : delay);
+            long now = System.currentTimeMillis();
+            if (now >= next) {
+              break;
+            }
+            probeLock.wait(next - now);
+          }
+        } catch (InterruptedException e) {
+          return;
+        }
+        active = outputSinceLastProbe;
+        outputSinceLastProbe = false;
+      }
+      if (done.get()) {
+        return;
+      }
+      lastProbe = System.currentTimeMillis();
+      if (timeoutMillis > 0 && lastProbe - startTime > timeoutMillis) {
+        finish(Signal.NONE);
+        return;
+      }
+      delay = active ? INITIAL_PROBE_DELAY : Math.min(delay * 2, MAX_PROBE_DELAY);
+      if (port < 0) {
+        continue;
+      }
+      probeAttempts++;
+      if (connect()) {
+        finish(Signal.PROBE);
+        return;
+      }
+    }
+  }
+
+  private void unwatch() {
+    synchronized (watchedMonitors) {
+      for (IStreamMonitor monitor : watchedMonitors) {
+        monitor.removeListener(streamListener);
+      }
+      watchedMonitors.clear();
+    }
+  }
+}
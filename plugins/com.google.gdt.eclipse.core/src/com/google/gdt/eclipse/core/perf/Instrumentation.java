@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.perf;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lightweight timers, counters and histograms for finding out where reconcile
+ * and build time goes.
+ * <p>
+ * Instrumentation is off unless the
+ * <code>com.google.gdt.eclipse.core.instrumentation</code> system property is
+ * <code>true</code> or {@link #setEnabled} is called. When off, every method
+ * returns after reading a single volatile field. When on, measurements go to a
+ * buffer owned by the recording thread, so recording never locks or contends;
+ * {@link #snapshot} merges the buffers of all threads, and folds the buffers of
+ * threads that have died into a single one so they do not accumulate.
+ * <p>
+ * A phase is timed like this:
+ * 
+ * <pre>
+ * long start = Instrumentation.start();
+ * try {
+ *   ...
+ * } finally {
+ *   Instrumentation.stop("gwt.validate.rpc", start);
+ * }
+ * </pre>
+ * 
+ * Names are dotted, starting with the plugin area, e.g.
+ * <code>gwt.reconcile</code> or <code>gdt.reference.resourceChanged</code>.
+ */
+public final class Instrumentation {
+
+  /**
+   * The kinds of measurement.
+   */
+  public enum Kind {
+    /**
+     * Durations of a phase, in nanoseconds.
+     */
+    TIMER,
+
+    /**
+     * Occurrences of an event; the total is the sum of the increments.
+     */
+    COUNTER,
+
+    /**
+     * Arbitrary non-negative values, such as the number of units in a build.
+     */
+    HISTOGRAM
+  }
+
+  /**
+   * The statistics of one measurement, written only by the thread owning
+   * them. Values are published with ordered stores so that snapshots taken by
+   * other threads see consistent, if slightly stale, numbers.
+   */
+  static final class Stats {
+    static final int COUNT = 0;
+    static final int TOTAL = 1;
+    static final int MAX = 2;
+    static final int FIRST_BUCKET = 3;
+
+    /**
+     * Bucket <code>i</code> counts values below <code>2^i</code>, and at
+     * least <code>2^(i-1)</code> for <code>i > 0</code>.
+     */
+    static final int BUCKET_COUNT = 48;
+
+    final Kind kind;
+    final AtomicLongArray values = new AtomicLongArray(FIRST_BUCKET
+        + BUCKET_COUNT);
+
+    Stats(Kind kind) {
+      this.kind = kind;
+    }
+
+    static int getBucket(long value) {
+      int bucket = 64 - Long.numberOfLeadingZeros(value);
+      return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    void add(long value) {
+      increment(COUNT, 1);
+      increment(TOTAL, value);
+      if (value > values.get(MAX)) {
+        values.lazySet(MAX, value);
+      }
+      increment(FIRST_BUCKET + getBucket(value), 1);
+    }
+
+    void count(long delta) {
+      increment(COUNT, 1);
+      increment(TOTAL, delta);
+    }
+
+    void merge(Stats other) {
+      for (int i = 0; i < values.length(); i++) {
+        long value = other.values.get(i);
+        values.lazySet(i, i == MAX ? Math.max(values.get(i), value)
+            : values.get(i) + value);
+      }
+    }
+
+    private void increment(int index, long delta) {
+      values.lazySet(index, values.get(index) + delta);
+    }
+  }
+
+  /**
+   * The measurements recorded by one thread.
+   */
+  private static final class ThreadBuffer {
+    final int generation;
+    final WeakReference<Thread> owner;
+    final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<String, Stats>();
+
+    ThreadBuffer(int generation, Thread owner) {
+      this.generation = generation;
+      this.owner = new WeakReference<Thread>(owner);
+    }
+
+    /**
+     * Adds the measurements of a buffer whose thread has died. Must be called
+     * with the {@link Instrumentation} lock held.
+     */
+    void fold(ThreadBuffer buffer) {
+      for (Map.Entry<String, Stats> entry : buffer.stats.entrySet()) {
+        get(entry.getKey(), entry.getValue().kind).merge(entry.getValue());
+      }
+    }
+
+    Stats get(String name, Kind kind) {
+      Stats s = stats.get(name);
+      if (s == null) {
+        // Only this thread (or the lock holder, for the buffer of dead
+        // threads) adds to the map, so there is no race
+        s = new Stats(kind);
+        stats.put(name, s);
+      }
+      return s;
+    }
+
+    boolean isOwnerDead() {
+      Thread thread = owner.get();
+      return thread == null || !thread.isAlive();
+    }
+  }
+
+  public static final String ENABLED_PROPERTY = "com.google.gdt.eclipse.core.instrumentation";
+
+  private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+  /**
+   * Incremented by {@link #reset}, so threads start new buffers lazily instead
+   * of having their buffers cleared under them.
+   */
+  private static volatile int generation;
+
+  private static final List<ThreadBuffer> buffers = new CopyOnWriteArrayList<ThreadBuffer>();
+
+  private static final ThreadLocal<ThreadBuffer> threadBuffer = new ThreadLocal<ThreadBuffer>();
+
+  /**
+   * The measurements of threads that have died, guarded by the class lock.
+   */
+  private static ThreadBuffer deadThreadsBuffer = new ThreadBuffer(0, null);
+
+  /**
+   * Increments a counter.
+   */
+  public static void count(String counter) {
+    count(counter, 1);
+  }
+
+  /**
+   * Adds to a counter.
+   */
+  public static void count(String counter, long delta) {
+    if (enabled) {
+      getBuffer().get(counter, Kind.COUNTER).count(delta);
+    }
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Records a value in a histogram.
+   */
+  public static void record(String histogram, long value) {
+    if (enabled) {
+      getBuffer().get(histogram, Kind.HISTOGRAM).add(Math.max(0, value));
+    }
+  }
+
+  /**
+   * Discards all measurements.
+   */
+  public static synchronized void reset() {
+    generation++;
+    buffers.clear();
+    deadThreadsBuffer = new ThreadBuffer(0, null);
+  }
+
+  public static void setEnabled(boolean enabled) {
+    Instrumentation.enabled = enabled;
+  }
+
+  /**
+   * Returns the merged measurements of all threads.
+   */
+  public static synchronized InstrumentationSnapshot snapshot() {
+    // A dead thread's buffer is no longer written, so it can be folded exactly
+    for (ThreadBuffer buffer : buffers) {
+      if (buffer.isOwnerDead()) {
+        deadThreadsBuffer.fold(buffer);
+        buffers.remove(buffer);
+      }
+    }
+
+    Map<String, long[]> merged = new TreeMap<String, long[]>();
+    Map<String, Kind> kinds = new HashMap<String, Kind>();
+    List<ThreadBuffer> allBuffers = new ArrayList<ThreadBuffer>(buffers);
+    allBuffers.add(deadThreadsBuffer);
+    for (ThreadBuffer buffer : allBuffers) {
+      for (Map.Entry<String, Stats> entry : buffer.stats.entrySet()) {
+        Stats stats = entry.getValue();
+        long[] values = merged.get(entry.getKey());
+        if (values == null) {
+          values = new long[stats.values.length()];
+          merged.put(entry.getKey(), values);
+          kinds.put(entry.getKey(), stats.kind);
+        }
+        for (int i = 0; i < values.length; i++) {
+          long value = stats.values.get(i);
+          values[i] = i == Stats.MAX ? Math.max(values[i], value) : values[i]
+              + value;
+        }
+      }
+    }
+
+    List<InstrumentationSnapshot.Measurement> measurements = new ArrayList<InstrumentationSnapshot.Measurement>(
+        merged.size());
+    for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+      long[] values = entry.getValue();
+      long[] buckets = new long[Stats.BUCKET_COUNT];
+      System.arraycopy(values, Stats.FIRST_BUCKET, buckets, 0, buckets.length);
+      measurements.add(new InstrumentationSnapshot.Measurement(entry.getKey(),
+          kinds.get(entry.getKey()), values[Stats.COUNT], values[Stats.TOTAL],
+          values[Stats.MAX], buckets));
+    }
+    return new InstrumentationSnapshot(measurements);
+  }
+
+  /**
+   * Starts timing a phase.
+   * 
+   * @return the value to pass to {@link #stop}, which is 0 if instrumentation
+   *         is disabled
+   */
+  public static long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Stops timing a phase started with {@link #start}.
+   */
+  public static void stop(String phase, long start) {
+    if (start != 0 && enabled) {
+      long duration = System.nanoTime() - start;
+      getBuffer().get(phase, Kind.TIMER).add(Math.max(0, duration));
+    }
+  }
+
+  private static ThreadBuffer getBuffer() {
+    ThreadBuffer buffer = threadBuffer.get();
+    if (buffer == null || buffer.generation != generation) {
+      synchronized (Instrumentation.class) {
+        buffer = new ThreadBuffer(generation, Thread.currentThread());
+        buffers.add(buffer);
+      }
+      threadBuffer.set(buffer);
+    }
+    return buffer;
+  }
+
+  /**
+   * Returns the number of per-thread buffers that have not been folded.
+   */
+  static int getBufferCount() {
+    return buffers.size();
+  }
+
+  private Instrumentation() {
+  }
+}
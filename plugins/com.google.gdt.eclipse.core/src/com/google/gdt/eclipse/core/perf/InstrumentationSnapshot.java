@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.perf;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The measurements recorded by {@link Instrumentation} at one point in time,
+ * exportable as CSV or JSON.
+ * <p>
+ * Timer values are exported in microseconds; the percentiles are the upper
+ * bounds of the power-of-two histogram buckets they fall in.
+ */
+public class InstrumentationSnapshot {
+
+  /**
+   * The merged statistics of one timer, counter or histogram.
+   */
+  public static class Measurement {
+    private final String name;
+    private final Instrumentation.Kind kind;
+    private final long count;
+    private final long total;
+    private final long max;
+    private final long[] buckets;
+
+    Measurement(String name, Instrumentation.Kind kind, long count,
+        long total, long max, long[] buckets) {
+      this.name = name;
+      this.kind = kind;
+      this.count = count;
+      this.total = total;
+      this.max = max;
+      this.buckets = buckets;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public Instrumentation.Kind getKind() {
+      return kind;
+    }
+
+    /**
+     * Returns the largest value, or 0 for counters.
+     */
+    public long getMax() {
+      return max;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of the values, or 0 for
+     * counters.
+     * 
+     * @param percentile a percentile between 0 and 100
+     */
+    public long getPercentile(double percentile) {
+      long rank = (long) Math.ceil(count * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen >= rank && seen > 0) {
+          // Bucket i holds values below 2^i
+          return Math.min(max, i == 0 ? 0 : (1L << i) - 1);
+        }
+      }
+      return max;
+    }
+
+    /**
+     * Returns the sum of the values; for timers, the total time spent in
+     * nanoseconds.
+     */
+    public long getTotal() {
+      return total;
+    }
+  }
+
+  private static String formatValue(Measurement measurement, long value) {
+    if (measurement.kind == Instrumentation.Kind.TIMER) {
+      return String.valueOf(TimeUnit.NANOSECONDS.toMicros(value));
+    }
+    return String.valueOf(value);
+  }
+
+  private static String quoteJson(String string) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (char c : string.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < ' ') {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  private final List<Measurement> measurements;
+
+  InstrumentationSnapshot(List<Measurement> measurements) {
+    this.measurements = Collections.unmodifiableList(measurements);
+  }
+
+  /**
+   * Returns the measurements, sorted by name.
+   */
+  public List<Measurement> getMeasurements() {
+    return measurements;
+  }
+
+  /**
+   * Returns the timers with the most total time, slowest first.
+   */
+  public List<Measurement> getSlowestTimers(int limit) {
+    List<Measurement> timers = new ArrayList<Measurement>();
+    for (Measurement measurement : measurements) {
+      if (measurement.kind == Instrumentation.Kind.TIMER) {
+        timers.add(measurement);
+      }
+    }
+    Collections.sort(timers, new Comparator<Measurement>() {
+      public int compare(Measurement m1, Measurement m2) {
+        return m1.total < m2.total ? 1 : m1.total > m2.total ? -1 : 0;
+      }
+    });
+    return timers.subList(0, Math.min(limit, timers.size()));
+  }
+
+  public String toCsv() {
+    StringBuilder sb = new StringBuilder(
+        "name,kind,count,total,mean,max,p50,p90,p99\n");
+    for (Measurement m : measurements) {
+      sb.append(m.name).append(',').append(m.kind).append(',').append(m.count);
+      sb.append(',').append(formatValue(m, m.total));
+      sb.append(',').append(formatValue(m, m.count > 0 ? m.total / m.count : 0));
+      if (m.kind == Instrumentation.Kind.COUNTER) {
+        sb.append(",,,,\n");
+        continue;
+      }
+      sb.append(',').append(formatValue(m, m.max));
+      sb.append(',').append(formatValue(m, m.getPercentile(50)));
+      sb.append(',').append(formatValue(m, m.getPercentile(90)));
+      sb.append(',').append(formatValue(m, m.getPercentile(99)));
+      sb.append('\n');
+    }
+    return sb.toString();
+  }
+
+  public String toJson() {
+    StringBuilder sb = new StringBuilder("{\n  \"measurements\": [");
+    for (int i = 0; i < measurements.size(); i++) {
+      Measurement m = measurements.get(i);
+      sb.append(i == 0 ? "\n" : ",\n");
+      sb.append("    {\"name\": ").append(quoteJson(m.name));
+      sb.append(", \"kind\": \"").append(m.kind).append('"');
+      sb.append(", \"count\": ").append(m.count);
+      sb.append(", \"total\": ").append(formatValue(m, m.total));
+      if (m.kind != Instrumentation.Kind.COUNTER) {
+        sb.append(", \"max\": ").append(formatValue(m, m.max));
+        sb.append(", \"p50\": ").append(formatValue(m, m.getPercentile(50)));
+        sb.append(", \"p90\": ").append(formatValue(m, m.getPercentile(90)));
+        sb.append(", \"p99\": ").append(formatValue(m, m.getPercentile(99)));
+      }
+      sb.append('}');
+    }
+    return sb.append("\n  ]\n}\n").toString();
+  }
+
+  /**
+   * Writes the snapshot to a file, as JSON if its name ends with
+   * <code>.json</code> and as CSV otherwise.
+   */
+  public void writeTo(File file) throws IOException {
+    Files.createParentDirs(file);
+    Files.write(file.getName().endsWith(".json") ? toJson() : toCsv(), file,
+        Charsets.UTF_8);
+  }
+}
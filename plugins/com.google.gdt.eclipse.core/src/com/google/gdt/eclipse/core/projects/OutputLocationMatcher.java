@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.projects;
+
+import com.google.gdt.eclipse.core.WebAppUtilities;
+import com.google.gdt.eclipse.core.properties.WebAppProjectProperties;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches resources against a project's output locations: the Java output
+ * folders, the managed WAR output folder, and the last-used WAR output
+ * location. The workspace paths are kept in a segment trie so a lookup costs
+ * one map probe per path segment, regardless of how many output locations the
+ * project has.
+ * 
+ * Instances are immutable snapshots of the project's configuration; callers
+ * must build a new matcher when the classpath or WAR settings change.
+ */
+class OutputLocationMatcher {
+
+  private static class Node {
+    private final Map<String, Node> children = new HashMap<String, Node>();
+    private boolean terminal;
+  }
+
+  /**
+   * Builds a matcher from the project's current configuration.
+   */
+  public static OutputLocationMatcher create(IProject project)
+      throws JavaModelException {
+    List<IPath> outputPaths = new ArrayList<IPath>();
+    IPath previousWarOutAbsPath = null;
+
+    if (WebAppUtilities.isWebApp(project)) {
+      if (WebAppUtilities.hasManagedWarOut(project)) {
+        outputPaths.add(WebAppUtilities.getManagedWarOut(project).getFullPath());
+      }
+      previousWarOutAbsPath = WebAppProjectProperties.getLastUsedWarOutLocation(project);
+    }
+
+    IJavaProject javaProject = JavaCore.create(project);
+    outputPaths.add(javaProject.getOutputLocation());
+    for (IClasspathEntry classpathEntry : javaProject.getResolvedClasspath(false)) {
+      IPath outputLocation = classpathEntry.getOutputLocation();
+      if (outputLocation != null) {
+        outputPaths.add(outputLocation);
+      }
+    }
+
+    return new OutputLocationMatcher(outputPaths, previousWarOutAbsPath);
+  }
+
+  private final Node root = new Node();
+
+  private final IPath absoluteLocationPrefix;
+
+  /**
+   * @param outputPaths workspace-relative full paths of output folders
+   * @param absoluteLocationPrefix a file system location whose contents are
+   *          also considered output, or <code>null</code>
+   */
+  OutputLocationMatcher(List<IPath> outputPaths, IPath absoluteLocationPrefix) {
+    for (IPath outputPath : outputPaths) {
+      Node node = root;
+      for (String segment : outputPath.segments()) {
+        Node child = node.children.get(segment);
+        if (child == null) {
+          child = new Node();
+          node.children.put(segment, child);
+        }
+        node = child;
+      }
+      node.terminal = true;
+    }
+    this.absoluteLocationPrefix = absoluteLocationPrefix;
+  }
+
+  public boolean isInOutputLocation(IResource resource) {
+    return isInOutputLocation(resource.getFullPath(), resource.getLocation());
+  }
+
+  /**
+   * @param fullPath the workspace-relative full path of the resource
+   * @param location the file system location of the resource, may be
+   *          <code>null</code>
+   */
+  boolean isInOutputLocation(IPath fullPath, IPath location) {
+    if (hasOutputPathPrefix(fullPath)) {
+      return true;
+    }
+
+    return absoluteLocationPrefix != null && location != null
+        && absoluteLocationPrefix.isPrefixOf(location);
+  }
+
+  private boolean hasOutputPathPrefix(IPath fullPath) {
+    Node node = root;
+    for (String segment : fullPath.segments()) {
+      if (node.terminal) {
+        return true;
+      }
+      node = node.children.get(segment);
+      if (node == null) {
+        return false;
+      }
+    }
+    return node.terminal;
+  }
+}
@@ -14,27 +14,33 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.core.projects;
 
+import com.google.gdt.eclipse.core.ClasspathChangeDeltas;
+import com.google.gdt.eclipse.core.CorePlugin;
 import com.google.gdt.eclipse.core.CorePluginLog;
 import com.google.gdt.eclipse.core.ResourceUtils;
-import com.google.gdt.eclipse.core.WebAppUtilities;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
 import com.google.gdt.eclipse.core.properties.WebAppProjectProperties;
+import com.google.gdt.eclipse.core.properties.WebAppProjectProperties.IWarOutLocationChangedListener;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.QualifiedName;
-import org.eclipse.jdt.core.IClasspathEntry;
-import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Tracks timestamps of changes to projects determined by addition,
@@ -48,6 +54,10 @@ import java.util.Set;
  * 
  * This only tracks changes to GPE projects (see
  * {@link ProjectUtilities#isGpeProject(org.eclipse.core.resources.IProject)}.)
+ * 
+ * Timestamps are held in memory and written to the projects' persistent
+ * properties when the workspace is saved, so a crash loses at most the changes
+ * since the last workspace snapshot.
  */
 public enum ProjectChangeTimestampTracker implements IResourceChangeListener {
   INSTANCE;
@@ -63,6 +73,10 @@ public enum ProjectChangeTimestampTracker implements IResourceChangeListener {
    * @throws CoreException
    */
   public static long getProjectTimestamp(IProject project) throws CoreException {
+    Long pendingTimestamp = INSTANCE.pendingTimestamps.get(project);
+    if (pendingTimestamp != null) {
+      return pendingTimestamp;
+    }
     return getTimestampFromKey(project, KEY);
   }
 
@@ -92,105 +106,174 @@ public enum ProjectChangeTimestampTracker implements IResourceChangeListener {
     return false;
   }
 
-  private static boolean isResourceInAnOutputPath(IResource resource)
-      throws JavaModelException {
-    IProject project = resource.getProject();
-    IJavaProject javaProject = JavaCore.create(project);
-
-    if (javaProject != null) {
-      IPath resourcePath = resource.getFullPath();
-
-      if (WebAppUtilities.isWebApp(project)) {
-        if (WebAppUtilities.hasManagedWarOut(project)
-            && WebAppUtilities.getManagedWarOut(project).getFullPath().isPrefixOf(
-                resourcePath)) {
-          return true;
-        }
+  /**
+   * Returns whether the project delta may have changed the project's output
+   * locations: the project was added, removed, opened or closed, or its
+   * classpath or settings files changed.
+   */
+  private static boolean affectsOutputLocations(IResourceDelta projectDelta) {
+    if (projectDelta.getKind() != IResourceDelta.CHANGED
+        || (projectDelta.getFlags() & IResourceDelta.OPEN) != 0) {
+      return true;
+    }
+    return projectDelta.findMember(new Path(".classpath")) != null
+        || projectDelta.findMember(new Path(".settings")) != null;
+  }
 
-        IPath previousWarOutAbsPath = WebAppProjectProperties.getLastUsedWarOutLocation(project);
-        if (previousWarOutAbsPath != null
-            && previousWarOutAbsPath.isPrefixOf(resource.getLocation())) {
-          return true;
-        }
-      }
+  /**
+   * Timestamps which have not yet been written to the projects' persistent
+   * properties.
+   */
+  private final Map<IProject, Long> pendingTimestamps = new ConcurrentHashMap<IProject, Long>();
 
-      if (javaProject.getOutputLocation().isPrefixOf(resourcePath)) {
-        return true;
-      }
+  /**
+   * Output location matchers, built on demand and discarded when a project's
+   * classpath or WAR output settings change.
+   */
+  private final Map<IProject, OutputLocationMatcher> outputLocationMatchers = new ConcurrentHashMap<IProject, OutputLocationMatcher>();
 
-      IClasspathEntry[] resolvedClasspath = javaProject.getResolvedClasspath(false);
-      for (IClasspathEntry classpathEntry : resolvedClasspath) {
-        IPath outputLocation = classpathEntry.getOutputLocation();
-        if (outputLocation != null && outputLocation.isPrefixOf(resourcePath)) {
-          return true;
+  private final IElementChangedListener classpathChangeListener = new IElementChangedListener() {
+    public void elementChanged(ElementChangedEvent event) {
+      for (IJavaElementDelta projectDelta : event.getDelta().getAffectedChildren()) {
+        if (ClasspathChangeDeltas.affectsClasspath(projectDelta)) {
+          outputLocationMatchers.remove(projectDelta.getElement().getJavaProject().getProject());
         }
       }
     }
+  };
 
-    return false;
-  }
-
-  private static void markProjectAsChanged(IProject project,
-      Set<IProject> projectsMarkedAsChanged) throws CoreException {
-    project.setPersistentProperty(KEY,
-        String.valueOf(System.currentTimeMillis()));
-    projectsMarkedAsChanged.add(project);
-  }
+  private final IWarOutLocationChangedListener warOutLocationChangedListener = new IWarOutLocationChangedListener() {
+    public void warOutLocationChanged(IProject project) {
+      outputLocationMatchers.remove(project);
+    }
+  };
 
-  /**
-   * @param projectsMarkedAsChanged cache of projects that have already been
-   *          marked as changed so we do not check resources belonging to these
-   *          projects
-   */
-  private static void visitDelta(IResourceDelta delta,
-      Set<IProject> projectsMarkedAsChanged) throws CoreException {
+  private final ISaveParticipant saveParticipant = new ISaveParticipant() {
+    public void doneSaving(ISaveContext context) {
+    }
 
-    // Skip over non-GPE projects
-    IResource resource = delta.getResource();
-    IProject project = resource.getProject();
-    if (project != null && !ProjectUtilities.isGpeProject(project)) {
-      return;
+    public void prepareToSave(ISaveContext context) {
     }
 
-    // Exit early on projects we have already marked
-    if (projectsMarkedAsChanged.contains(project)) {
-      return;
+    public void rollback(ISaveContext context) {
     }
 
-    if (ResourceUtils.isRelevantResourceChange(delta)) {
-      if (!doesResourceAncestorNameStartWithDot(resource)
-          && !isResourceInAnOutputPath(resource)) {
-        markProjectAsChanged(project, projectsMarkedAsChanged);
-        return;
-      }
+    public void saving(ISaveContext context) {
+      flushPendingTimestamps();
     }
+  };
 
-    for (IResourceDelta childDelta : delta.getAffectedChildren()) {
-      visitDelta(childDelta, projectsMarkedAsChanged);
+  public void resourceChanged(IResourceChangeEvent event) {
+    long start = Instrumentation.start();
+    try {
+      processResourceChange(event);
+    } finally {
+      Instrumentation.stop("gdt.projectTimestamps.resourceChanged", start);
     }
   }
 
-  public void resourceChanged(IResourceChangeEvent event) {
+  private void processResourceChange(IResourceChangeEvent event) {
     IResourceDelta delta = event.getDelta();
     if (delta == null) {
       return;
     }
 
-    try {
-      Set<IProject> projectsMarkedAsChanged = new HashSet<IProject>();
-      visitDelta(delta, projectsMarkedAsChanged);
-    } catch (CoreException e) {
-      CorePluginLog.logError(e,
-          "Error while tracking project-level changes from a change in "
-              + delta.getResource());
+    for (IResourceDelta projectDelta : delta.getAffectedChildren()) {
+      IProject project = (IProject) projectDelta.getResource();
+      if (affectsOutputLocations(projectDelta)) {
+        outputLocationMatchers.remove(project);
+      }
+      if (projectDelta.getKind() == IResourceDelta.REMOVED) {
+        pendingTimestamps.remove(project);
+        continue;
+      }
+
+      try {
+        // Skip over non-GPE projects
+        if (ProjectUtilities.isGpeProject(project)
+            && hasChangeOutsideOutputLocations(projectDelta,
+                getOutputLocationMatcher(project))) {
+          pendingTimestamps.put(project, System.currentTimeMillis());
+        }
+      } catch (CoreException e) {
+        CorePluginLog.logError(e,
+            "Error while tracking project-level changes from a change in "
+                + project);
+      }
     }
   }
 
   public void startTracking() {
     ResourcesPlugin.getWorkspace().addResourceChangeListener(this);
+    JavaCore.addElementChangedListener(classpathChangeListener,
+        ElementChangedEvent.POST_CHANGE);
+    WebAppProjectProperties.addWarOutLocationChangedListener(warOutLocationChangedListener);
+    try {
+      ResourcesPlugin.getWorkspace().addSaveParticipant(CorePlugin.PLUGIN_ID,
+          saveParticipant);
+    } catch (CoreException e) {
+      CorePluginLog.logError(e,
+          "Could not register to persist project change timestamps");
+    }
   }
 
   public void stopTracking() {
     ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+    JavaCore.removeElementChangedListener(classpathChangeListener);
+    WebAppProjectProperties.removeWarOutLocationChangedListener(warOutLocationChangedListener);
+    ResourcesPlugin.getWorkspace().removeSaveParticipant(CorePlugin.PLUGIN_ID);
+    flushPendingTimestamps();
+    outputLocationMatchers.clear();
+  }
+
+  /**
+   * Writes the in-memory timestamps to the projects' persistent properties.
+   */
+  private void flushPendingTimestamps() {
+    for (Map.Entry<IProject, Long> entry : pendingTimestamps.entrySet()) {
+      IProject project = entry.getKey();
+      Long timestamp = entry.getValue();
+      try {
+        if (project.isAccessible()) {
+          project.setPersistentProperty(KEY, String.valueOf(timestamp));
+        }
+        // Keep the entry if a newer change arrived while writing
+        pendingTimestamps.remove(project, timestamp);
+      } catch (CoreException e) {
+        CorePluginLog.logError(e,
+            "Could not persist the change timestamp of " + project.getName());
+      }
+    }
+  }
+
+  private OutputLocationMatcher getOutputLocationMatcher(IProject project)
+      throws JavaModelException {
+    OutputLocationMatcher matcher = outputLocationMatchers.get(project);
+    if (matcher == null) {
+      matcher = OutputLocationMatcher.create(project);
+      outputLocationMatchers.put(project, matcher);
+    }
+    return matcher;
+  }
+
+  /**
+   * Returns whether the delta contains a relevant change to a resource that is
+   * neither hidden nor inside one of the project's output locations.
+   */
+  private boolean hasChangeOutsideOutputLocations(IResourceDelta delta,
+      OutputLocationMatcher outputLocationMatcher) {
+    IResource resource = delta.getResource();
+    if (ResourceUtils.isRelevantResourceChange(delta)
+        && !doesResourceAncestorNameStartWithDot(resource)
+        && !outputLocationMatcher.isInOutputLocation(resource)) {
+      return true;
+    }
+
+    for (IResourceDelta childDelta : delta.getAffectedChildren()) {
+      if (hasChangeOutsideOutputLocations(childDelta, outputLocationMatcher)) {
+        return true;
+      }
+    }
+    return false;
   }
 }
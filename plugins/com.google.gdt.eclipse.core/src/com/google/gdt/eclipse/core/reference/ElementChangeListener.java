@@ -16,6 +16,7 @@ package com.google.gdt.eclipse.core.reference;
 
 import com.google.gdt.eclipse.core.java.JavaModelSearch;
 import com.google.gdt.eclipse.core.java.JavaModelSearch.IJavaElementDeltaVisitor;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
 import com.google.gdt.eclipse.core.reference.ReferenceManager.ReferenceChangeListener;
 import com.google.gdt.eclipse.core.reference.location.ReferenceLocationType;
 
@@ -43,6 +44,15 @@ class ElementChangeListener implements IElementChangedListener {
   }
 
   public void elementChanged(ElementChangedEvent event) {
+    long start = Instrumentation.start();
+    try {
+      processDelta(event);
+    } finally {
+      Instrumentation.stop("gdt.reference.elementChanged", start);
+    }
+  }
+
+  private void processDelta(ElementChangedEvent event) {
     final Map<IJavaElement, IJavaElementDelta> changedElements = new HashMap<IJavaElement, IJavaElementDelta>();
 
     JavaModelSearch.visitJavaElementDelta(event.getDelta(),
@@ -16,6 +16,7 @@ package com.google.gdt.eclipse.core.reference;
 
 import com.google.gdt.eclipse.core.CorePluginLog;
 import com.google.gdt.eclipse.core.ResourceUtils;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
 import com.google.gdt.eclipse.core.projects.ProjectUtilities;
 import com.google.gdt.eclipse.core.reference.ReferenceManager.ReferenceChangeListener;
 import com.google.gdt.eclipse.core.reference.location.ReferenceLocationType;
@@ -46,6 +47,15 @@ class ResourceChangeListener implements IResourceChangeListener {
   }
 
   public void resourceChanged(IResourceChangeEvent event) {
+    long start = Instrumentation.start();
+    try {
+      processResourceChange(event);
+    } finally {
+      Instrumentation.stop("gdt.reference.resourceChanged", start);
+    }
+  }
+
+  private void processResourceChange(IResourceChangeEvent event) {
     if (event.getDelta() == null) {
       return;
     }
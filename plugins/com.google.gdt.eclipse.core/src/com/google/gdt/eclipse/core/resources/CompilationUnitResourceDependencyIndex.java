@@ -14,11 +14,15 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.core.resources;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.gdt.eclipse.core.CorePluginLog;
 import com.google.gdt.eclipse.core.ResourceUtils;
+import com.google.gdt.eclipse.core.collections.IndexFactory;
 import com.google.gdt.eclipse.core.collections.ManyToManyIndex;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -26,93 +30,140 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.ui.IMemento;
 import org.eclipse.ui.XMLMemento;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Tracks dependencies of {@link ICompilationUnit}s which are non-Java
  * resources.
+ * 
+ * The index is partitioned by the project containing the compilation units.
+ * Each partition is loaded the first time it is needed and is persisted to its
+ * own binary file, which is only rewritten when the partition has changed.
  */
 public abstract class CompilationUnitResourceDependencyIndex {
 
+  /**
+   * The compilation units of one project and the resources they depend on.
+   */
+  private static class Partition {
+    // Maps compilation units <=> resources they depend on.
+    private final ManyToManyIndex<ICompilationUnit, IPath> index = IndexFactory.newManyToManyIndex();
+
+    private boolean dirty;
+  }
+
   private static final String ATTR_COMPILATION_UNIT = "cu";
 
   private static final String ATTR_RESOURCE_PATH = "path";
 
+  /**
+   * Identifies the partition file format, and must be bumped whenever it
+   * changes so that stale files are ignored instead of misread.
+   */
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int MAGIC = 0x43555244; // "CURD"
+
+  private static final String PARTITION_FILE_EXTENSION = ".bin";
+
+  private static final String TEMP_FILE_EXTENSION = ".tmp";
+
   private static final String TAG_DEPENDENCIES = "deps";
 
   private static final String TAG_RESOURCE = "res";
 
-  private static final String TAG_ROOT = "index";
+  private final String indexName;
 
-  // Maps compilation units <=> resources they depend on.
-  private final ManyToManyIndex<ICompilationUnit, IPath> index = new ManyToManyIndex<ICompilationUnit, IPath>();
+  // Maps project name => partition, for the partitions loaded so far
+  private final Map<String, Partition> partitions = new HashMap<String, Partition>();
 
-  private final String indexName;
+  // Shares one instance of each path across all compilation units
+  private final Interner<IPath> pathInterner = Interners.newWeakInterner();
 
   protected CompilationUnitResourceDependencyIndex(String indexName) {
     this.indexName = indexName;
-    loadIndex();
+    migrateLegacyIndex();
   }
 
   /**
    * Removes all compilation units in the specified project from the index. Note
    * that the index may still contain resources that live inside the project.
    */
-  public void clear(IProject project) {
-    // Copy the set so we don't get a ConcurrentModificationException
-    Set<ICompilationUnit> compilationUnits = new HashSet<ICompilationUnit>(
-        index.getAllLeftElements());
-    for (ICompilationUnit cu : compilationUnits) {
-      if (cu.getResource().getProject().equals(project)) {
-        index.removeLeftElement(cu);
-      }
+  public synchronized void clear(IProject project) {
+    partitions.remove(project.getName());
+    File partitionFile = getPartitionFile(project.getName());
+    if (partitionFile.exists() && !partitionFile.delete()) {
+      // Leave an empty partition behind so the stale file gets overwritten
+      Partition partition = new Partition();
+      partition.dirty = true;
+      partitions.put(project.getName(), partition);
     }
   }
 
-  public Set<ICompilationUnit> findDependentCompilationUnits(IPath resourcePath) {
-    return index.getLeftElements(normalizePath(resourcePath));
+  public synchronized Set<ICompilationUnit> findDependentCompilationUnits(
+      IPath resourcePath) {
+    // Compilation units in any project may depend on the resource
+    loadAllPartitions();
+
+    IPath normalizedPath = normalizePath(resourcePath);
+    Set<ICompilationUnit> dependents = new HashSet<ICompilationUnit>();
+    for (Partition partition : partitions.values()) {
+      dependents.addAll(partition.index.getLeftElements(normalizedPath));
+    }
+    return dependents;
   }
 
-  public void putResourcesForCompilationUnit(ICompilationUnit cu,
+  public synchronized void putResourcesForCompilationUnit(ICompilationUnit cu,
       Set<IPath> resourcePaths) {
     Set<IPath> normalizedPaths = new HashSet<IPath>();
     for (IPath resourcePath : resourcePaths) {
-      normalizedPaths.add(normalizePath(resourcePath));
+      normalizedPaths.add(pathInterner.intern(normalizePath(resourcePath)));
     }
-    index.putLeftToManyRights(cu, normalizedPaths);
-  }
 
-  public void remove(ICompilationUnit cu) {
-    index.removeLeftElement(cu);
+    Partition partition = getPartition(getProjectName(cu));
+    partition.index.putLeftToManyRights(cu, normalizedPaths);
+    partition.dirty = true;
   }
 
-  public void saveIndex() {
-    XMLMemento memento = XMLMemento.createWriteRoot(TAG_ROOT);
-    persistIndex(memento);
+  public synchronized void remove(ICompilationUnit cu) {
+    Partition partition = getPartition(getProjectName(cu));
+    if (partition.index.containsLeftElement(cu)) {
+      partition.index.removeLeftElement(cu);
+      partition.dirty = true;
+    }
+  }
 
-    File indexFile = getIndexFile();
-    FileWriter writer = null;
-    try {
-      try {
-        writer = new FileWriter(indexFile);
-        memento.save(writer);
-      } finally {
-        if (writer != null) {
-          writer.close();
-        }
-      }
-    } catch (IOException e) {
-      CorePluginLog.logError(e, "Error saving index " + indexName);
+  /**
+   * Writes every partition that changed since it was last loaded or saved.
+   */
+  public synchronized void saveIndex() {
+    File partitionsDir = getPartitionsDirectory();
+    if (!partitionsDir.exists() && !partitionsDir.mkdirs()) {
+      CorePluginLog.logError("Error saving index {0}: could not create {1}",
+          indexName, partitionsDir);
+      return;
+    }
 
-      // Make sure we remove any partially-written file
-      if (indexFile.exists()) {
-        indexFile.delete();
+    for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+      Partition partition = entry.getValue();
+      if (partition.dirty) {
+        savePartition(entry.getKey(), partition);
+        partition.dirty = false;
       }
     }
   }
@@ -126,83 +177,205 @@ public abstract class CompilationUnitResourceDependencyIndex {
     return path;
   }
 
-  private File getIndexFile() {
-    return getIndexFileLocation().append(indexName).toFile();
+  private Partition getPartition(String projectName) {
+    Partition partition = partitions.get(projectName);
+    if (partition == null) {
+      partition = loadPartition(projectName);
+      partitions.put(projectName, partition);
+    }
+    return partition;
+  }
+
+  private File getPartitionFile(String projectName) {
+    return new File(getPartitionsDirectory(), projectName
+        + PARTITION_FILE_EXTENSION);
+  }
+
+  private File getPartitionsDirectory() {
+    return getIndexFileLocation().append(indexName + "Partitions").toFile();
+  }
+
+  private String getProjectName(ICompilationUnit cu) {
+    return cu.getJavaProject().getElementName();
+  }
+
+  private void loadAllPartitions() {
+    // Partitions of closed projects are left alone, since their compilation
+    // units would not be found to exist. Projects opened, imported or created
+    // since the last lookup have their partitions loaded now; the others are
+    // loaded already.
+    for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+      if (project.isAccessible()) {
+        getPartition(project.getName());
+      }
+    }
+  }
+
+  private Partition loadPartition(String projectName) {
+    Partition partition = new Partition();
+
+    DataInputStream in = null;
+    try {
+      try {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(
+            getPartitionFile(projectName))));
+        readPartition(in, partition);
+      } finally {
+        if (in != null) {
+          in.close();
+        }
+      }
+    } catch (FileNotFoundException e) {
+      // Ignore this exception, which occurs when the project has no partition
+    } catch (IOException e) {
+      CorePluginLog.logError(e, "Error loading index " + indexName
+          + " for project " + projectName);
+      partition.index.clear();
+    }
+    return partition;
   }
 
-  private IPath getResourcePath(IMemento resNode) {
-    String resourcePathString = resNode.getString(ATTR_RESOURCE_PATH);
-    if (resourcePathString == null) {
-      return null;
+  /**
+   * Moves the contents of the XML index written by earlier versions into
+   * partitions, and deletes it.
+   */
+  private void migrateLegacyIndex() {
+    File legacyIndexFile = getIndexFileLocation().append(indexName).toFile();
+    if (!legacyIndexFile.isFile()) {
+      return;
+    }
+
+    FileReader reader = null;
+    try {
+      try {
+        reader = new FileReader(legacyIndexFile);
+        XMLMemento memento = XMLMemento.createReadRoot(reader);
+        for (IMemento cuNode : memento.getChildren(TAG_DEPENDENCIES)) {
+          migrateLegacyCuDependencies(cuNode);
+        }
+      } finally {
+        if (reader != null) {
+          reader.close();
+        }
+      }
+    } catch (Exception e) {
+      CorePluginLog.logError(e, "Error loading index " + indexName);
     }
-    return new Path(resourcePathString);
+
+    saveIndex();
+    legacyIndexFile.delete();
   }
 
-  private void loadCuDependencies(IMemento cuNode) {
+  private void migrateLegacyCuDependencies(IMemento cuNode) {
     String cuHandle = cuNode.getString(ATTR_COMPILATION_UNIT);
     if (cuHandle == null) {
-      CorePluginLog.logError("Loading index {0}: Missing attribute {1}",
-          indexName, ATTR_COMPILATION_UNIT);
       return;
     }
 
     ICompilationUnit cu = (ICompilationUnit) JavaCore.create(cuHandle);
-    // Verify the compilation unit still exists
     if (cu == null || !cu.exists()) {
-      CorePluginLog.logError(
-          "Loading index {0}: compilation unit no longer exists ({1})",
-          indexName, cuHandle);
       return;
     }
 
     Set<IPath> resourcePaths = new HashSet<IPath>();
     for (IMemento resNode : cuNode.getChildren(TAG_RESOURCE)) {
-      IPath resourcePath = getResourcePath(resNode);
-      if (resourcePath == null) {
-        CorePluginLog.logError("Loading index {0}: missing attribute {1}",
-            indexName, ATTR_RESOURCE_PATH);
-        continue;
+      String resourcePathString = resNode.getString(ATTR_RESOURCE_PATH);
+      if (resourcePathString != null) {
+        resourcePaths.add(new Path(resourcePathString));
       }
+    }
+    putResourcesForCompilationUnit(cu, resourcePaths);
+  }
 
-      resourcePaths.add(resourcePath);
+  /**
+   * Reads a partition: a header, a table of the distinct resource paths, and
+   * then each compilation unit's handle followed by indices into the table.
+   */
+  private void readPartition(DataInputStream in, Partition partition)
+      throws IOException {
+    if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+      // Written by an incompatible version; it will be rebuilt
+      return;
     }
 
-    // Now add these dependencies to the index
-    index.putLeftToManyRights(cu, resourcePaths);
+    IPath[] paths = new IPath[in.readInt()];
+    for (int i = 0; i < paths.length; i++) {
+      paths[i] = pathInterner.intern(new Path(in.readUTF()));
+    }
+
+    int cuCount = in.readInt();
+    for (int i = 0; i < cuCount; i++) {
+      String cuHandle = in.readUTF();
+      Set<IPath> resourcePaths = new HashSet<IPath>();
+      int pathCount = in.readInt();
+      for (int j = 0; j < pathCount; j++) {
+        resourcePaths.add(paths[in.readInt()]);
+      }
+
+      // Verify the compilation unit still exists
+      ICompilationUnit cu = (ICompilationUnit) JavaCore.create(cuHandle);
+      if (cu == null || !cu.exists()) {
+        partition.dirty = true;
+        continue;
+      }
+      partition.index.putLeftToManyRights(cu, resourcePaths);
+    }
   }
 
-  private void loadIndex() {
-    FileReader reader = null;
+  private void savePartition(String projectName, Partition partition) {
+    File partitionFile = getPartitionFile(projectName);
+    Set<ICompilationUnit> cus = partition.index.getAllLeftElements();
+    if (cus.isEmpty()) {
+      partitionFile.delete();
+      return;
+    }
+
+    // Write and rename, so that a crash during the write leaves the previous
+    // partition in place instead of a truncated one
+    File tempFile = new File(partitionFile.getPath() + TEMP_FILE_EXTENSION);
+    DataOutputStream out = null;
     try {
       try {
-        reader = new FileReader(getIndexFile());
-        loadIndex(XMLMemento.createReadRoot(reader));
+        out = new DataOutputStream(new BufferedOutputStream(
+            new FileOutputStream(tempFile)));
+        writePartition(out, partition);
       } finally {
-        if (reader != null) {
-          reader.close();
+        if (out != null) {
+          out.close();
         }
       }
-    } catch (FileNotFoundException e) {
-      // Ignore this exception, which occurs when index does not yet exist
-    } catch (Exception e) {
-      CorePluginLog.logError(e, "Error loading index " + indexName);
-    }
-  }
+      Files.move(tempFile.toPath(), partitionFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      CorePluginLog.logError(e, "Error saving index " + indexName
+          + " for project " + projectName);
 
-  private void loadIndex(XMLMemento memento) {
-    for (IMemento cuNode : memento.getChildren(TAG_DEPENDENCIES)) {
-      loadCuDependencies(cuNode);
+      // Make sure we remove any partially-written file
+      tempFile.delete();
     }
   }
 
-  private void persistIndex(XMLMemento memento) {
-    for (ICompilationUnit cu : index.getAllLeftElements()) {
-      IMemento cuNode = memento.createChild(TAG_DEPENDENCIES);
-      cuNode.putString(ATTR_COMPILATION_UNIT, cu.getHandleIdentifier());
+  private void writePartition(DataOutputStream out, Partition partition)
+      throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+
+    Map<IPath, Integer> pathIndices = new HashMap<IPath, Integer>();
+    Set<IPath> paths = partition.index.getAllRightElements();
+    out.writeInt(paths.size());
+    for (IPath path : paths) {
+      pathIndices.put(path, pathIndices.size());
+      out.writeUTF(path.toString());
+    }
 
-      for (IPath resourcePath : index.getRightElements(cu)) {
-        IMemento resNode = cuNode.createChild(TAG_RESOURCE);
-        resNode.putString(ATTR_RESOURCE_PATH, resourcePath.toString());
+    Set<ICompilationUnit> cus = partition.index.getAllLeftElements();
+    out.writeInt(cus.size());
+    for (ICompilationUnit cu : cus) {
+      out.writeUTF(cu.getHandleIdentifier());
+      Set<IPath> resourcePaths = partition.index.getRightElements(cu);
+      out.writeInt(resourcePaths.size());
+      for (IPath resourcePath : resourcePaths) {
+        out.writeInt(pathIndices.get(resourcePath));
       }
     }
   }
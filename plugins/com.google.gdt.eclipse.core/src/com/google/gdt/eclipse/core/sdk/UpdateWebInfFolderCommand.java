@@ -14,6 +14,7 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.core.sdk;
 
+import com.google.gdt.eclipse.core.CorePlugin;
 import com.google.gdt.eclipse.core.CorePluginLog;
 import com.google.gdt.eclipse.core.ResourceUtils;
 import com.google.gdt.eclipse.core.WebAppUtilities;
@@ -32,32 +33,21 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Updates the managed WAR output directory's WEB-INF/lib directory so it
  * contains the correct jars from a particular SDK.
+ * <p>
+ * Only jars that are missing or differ from the SDK's are copied. A
+ * {@link WebInfLibManifest} kept in the plugin's state location lets an
+ * unchanged WEB-INF/lib folder be verified without reading the jars.
  */
 public abstract class UpdateWebInfFolderCommand {
 
-  private static boolean areFilesEqual(IFolder set1Folder, List<String> set1FileNames,
-      File[] set2) throws CoreException, IOException {
-
-    List<File> set1 = new ArrayList<File>();
-    for (String fileName : set1FileNames) {
-      IPath location = set1Folder.getFile(fileName).getLocation();
-      if (location == null) {
-        return false;
-      }
-
-      set1.add(location.toFile());
-    }
-
-    return ResourceUtils.areFileListsEqual(set1, Arrays.asList(set2));
-  }
-
   private final IJavaProject javaProject;
 
   protected final Sdk sdk;
@@ -80,52 +70,61 @@ public abstract class UpdateWebInfFolderCommand {
       return;
     }
 
+    IFolder webInfLibFolder = WebAppUtilities.getWebInfLib(project);
+
     /*
      * There are cases when this command executes but the project is not fully
      * refreshed. In that case, we may fail to locate the war folder and
      * therefore fail to update the war/WEB-INF/lib folder. Ultimately, we
      * should explore triggering this code based on IJavaElementDeltas.
      */
-    project.refreshLocal(IResource.DEPTH_INFINITE, null);
+    if (webInfLibFolder.exists()) {
+      webInfLibFolder.refreshLocal(IResource.DEPTH_ONE, null);
+    } else {
+      project.refreshLocal(IResource.DEPTH_INFINITE, null);
+    }
 
-    IFolder webInfLibFolder = WebAppUtilities.getWebInfLib(project);
     ResourceUtils.createFolderStructure(project,
         webInfLibFolder.getProjectRelativePath());
 
-    // Remove the old files
-    List<String> fileNamesToRemove = computeWebInfLibFilesToRemove();
     File[] filesToAdd = sdk.getWebAppClasspathFiles(project);
-
-    try {
-      // This gets called from a classpath changed listener; if the classpath
-      // changed that does not affect us, exit early
-      if (areFilesEqual(webInfLibFolder, fileNamesToRemove, filesToAdd)) {
-        // Nothing to do, the old set and new set of files are the same
-        return;
-      }
-    } catch (Throwable t) {
-      // Ignore and replace files
-      CorePluginLog.logWarning(t,
-          "Could not check if old files are equal to the new");
+    Set<String> fileNamesToAdd = new HashSet<String>();
+    for (File fileToAdd : filesToAdd) {
+      fileNamesToAdd.add(fileToAdd.getName());
     }
 
-    for (String fileToRemove : fileNamesToRemove) {
-      IFile file = webInfLibFolder.getFile(fileToRemove);
-      if (file.exists()) {
-        file.delete(true, false, new NullProgressMonitor());
+    boolean changed = false;
+
+    // Remove the old files that are no longer provided by the SDK
+    for (String fileToRemove : computeWebInfLibFilesToRemove()) {
+      if (!fileNamesToAdd.contains(fileToRemove)) {
+        IFile file = webInfLibFolder.getFile(fileToRemove);
+        if (file.exists()) {
+          file.delete(true, false, new NullProgressMonitor());
+          changed = true;
+        }
       }
     }
 
-    // Copy the new files in
+    // Copy the new files in, unless an identical copy is already there
+    WebInfLibManifest manifest = WebInfLibManifest.load(getManifestFile());
     for (File fileToAdd : filesToAdd) {
       IFile file = webInfLibFolder.getFile(fileToAdd.getName());
-      if (file.exists()) {
-        file.delete(true, false, new NullProgressMonitor());
+      if (syncFile(manifest, fileToAdd, file)) {
+        changed = true;
       }
-      file.create(new FileInputStream(fileToAdd), true, null);
     }
 
-    saveFilesCopiedToWebInfLib(Arrays.asList(filesToAdd));
+    manifest.retainAll(fileNamesToAdd);
+    try {
+      manifest.save();
+    } catch (IOException e) {
+      CorePluginLog.logWarning(e, "Could not save the WEB-INF/lib manifest");
+    }
+
+    if (changed) {
+      saveFilesCopiedToWebInfLib(Arrays.asList(filesToAdd));
+    }
   }
 
   protected abstract List<String> computeWebInfLibFilesToRemove()
@@ -137,5 +136,49 @@ public abstract class UpdateWebInfFolderCommand {
 
   protected abstract void saveFilesCopiedToWebInfLib(List<File> webInfLibFiles)
       throws BackingStoreException;
-}
 
+  private File getManifestFile() {
+    return CorePlugin.getDefault().getStateLocation().append("webInfLib").append(
+        javaProject.getElementName() + "." + getClass().getSimpleName()
+            + ".properties").toFile();
+  }
+
+  /**
+   * Copies the SDK jar over the WEB-INF/lib file if their contents differ.
+   * 
+   * @return whether the file was copied
+   */
+  private boolean syncFile(WebInfLibManifest manifest, File fileToAdd,
+      IFile file) throws CoreException, FileNotFoundException {
+    IPath location = file.getLocation();
+    File destination = location != null ? location.toFile() : null;
+
+    if (destination != null && file.exists()) {
+      try {
+        if (manifest.isUpToDate(fileToAdd, destination)) {
+          return false;
+        }
+        if (manifest.isContentEqual(fileToAdd, destination)) {
+          manifest.record(fileToAdd, destination);
+          return false;
+        }
+      } catch (IOException e) {
+        // Ignore and replace the file
+        CorePluginLog.logWarning(e,
+            "Could not check if " + destination + " is equal to " + fileToAdd);
+      }
+    }
+
+    if (file.exists()) {
+      file.setContents(new FileInputStream(fileToAdd), true, false,
+          new NullProgressMonitor());
+    } else {
+      file.create(new FileInputStream(fileToAdd), true, null);
+    }
+
+    if (destination != null) {
+      manifest.record(fileToAdd, destination);
+    }
+    return true;
+  }
+}
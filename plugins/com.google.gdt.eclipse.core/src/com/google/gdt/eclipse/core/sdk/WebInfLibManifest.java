@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.sdk;
+
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import com.google.gdt.eclipse.core.FileEquality;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * Records, for each jar copied into a project's WEB-INF/lib folder, the SDK jar
+ * it was copied from and the size and modification time of both copies.
+ * <p>
+ * A jar whose source and destination still have the recorded size and
+ * modification time is known to be up to date without reading either file.
+ * Otherwise {@link FileEquality}, which keeps the digests of the files it
+ * compared, tells whether the contents actually differ.
+ */
+class WebInfLibManifest {
+
+  private static final String COMMENT = "WEB-INF/lib manifest";
+
+  /**
+   * Returns the manifest stored in the given file, or an empty manifest if the
+   * file does not exist or cannot be read.
+   */
+  public static WebInfLibManifest load(File manifestFile) {
+    Properties entries = new Properties();
+    if (manifestFile.exists()) {
+      FileInputStream stream = null;
+      try {
+        stream = new FileInputStream(manifestFile);
+        entries.load(stream);
+      } catch (IOException e) {
+        // Treat as if nothing was copied yet
+        entries.clear();
+      } finally {
+        Closeables.closeQuietly(stream);
+      }
+    }
+    return new WebInfLibManifest(manifestFile, entries);
+  }
+
+  private final File manifestFile;
+
+  /**
+   * Jar names to entries of the form
+   * <code>sourceSize|sourceModified|size|modified|sourcePath</code>.
+   */
+  private final Properties entries;
+
+  private WebInfLibManifest(File manifestFile, Properties entries) {
+    this.manifestFile = manifestFile;
+    this.entries = entries;
+  }
+
+  /**
+   * Returns whether the destination is a copy of the source, as recorded by
+   * {@link #record}, and neither file has been touched since.
+   */
+  public boolean isUpToDate(File source, File destination) {
+    String[] entry = getEntry(destination.getName());
+    return entry != null && entry[4].equals(source.getAbsolutePath())
+        && matches(entry, 0, source) && matches(entry, 2, destination);
+  }
+
+  /**
+   * Returns whether the destination has the same contents as the source.
+   */
+  public boolean isContentEqual(File source, File destination)
+      throws IOException {
+    return FileEquality.getInstance().areContentsEqual(source, destination);
+  }
+
+  /**
+   * Records that the destination is a copy of the source.
+   */
+  public void record(File source, File destination) {
+    entries.setProperty(destination.getName(), source.length() + "|"
+        + source.lastModified() + '|' + destination.length() + '|'
+        + destination.lastModified() + '|' + source.getAbsolutePath());
+  }
+
+  /**
+   * Forgets the jars whose names are not in the given collection.
+   */
+  public void retainAll(Collection<String> names) {
+    entries.keySet().retainAll(names);
+  }
+
+  public void save() throws IOException {
+    Files.createParentDirs(manifestFile);
+    FileOutputStream stream = new FileOutputStream(manifestFile);
+    try {
+      entries.store(stream, COMMENT);
+    } finally {
+      stream.close();
+    }
+  }
+
+  private String[] getEntry(String name) {
+    String value = entries.getProperty(name);
+    if (value == null) {
+      return null;
+    }
+    String[] entry = value.split("\\|", 5);
+    return entry.length == 5 ? entry : null;
+  }
+
+  /**
+   * Returns whether the file's size and modification time match those at the
+   * given index of the entry.
+   */
+  private boolean matches(String[] entry, int index, File file) {
+    return file.isFile() && entry[index].equals(String.valueOf(file.length()))
+        && entry[index + 1].equals(String.valueOf(file.lastModified()));
+  }
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.update.internal.core;
+
+import com.google.gdt.eclipse.core.CorePluginLog;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs update and usage reporting work, one task at a time, on a single
+ * background thread so that callers (e.g. builds) never wait on the network.
+ *
+ * Tasks submitted with a key are coalesced: while a task with the same key is
+ * waiting to run, further submissions with that key are dropped.
+ */
+public class CoalescingTaskQueue {
+
+  private final ExecutorService executor;
+
+  private final Set<String> pendingKeys = new HashSet<String>();
+
+  /**
+   * @param threadName the name of the background thread
+   */
+  public CoalescingTaskQueue(final String threadName) {
+    executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, threadName);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Waits until all tasks submitted so far have run.
+   *
+   * @return <code>false</code> if the timeout elapsed first
+   */
+  public boolean awaitIdle(long timeout, TimeUnit unit)
+      throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(1);
+    if (!execute(new Runnable() {
+      public void run() {
+        latch.countDown();
+      }
+    })) {
+      return false;
+    }
+    return latch.await(timeout, unit);
+  }
+
+  /**
+   * Queues the task.
+   *
+   * @return <code>false</code> if the queue has been shut down
+   */
+  public boolean execute(Runnable task) {
+    try {
+      executor.execute(wrap(null, task));
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Queues the task unless a task with the same key is still waiting to run.
+   *
+   * @return <code>true</code> if the task was queued
+   */
+  public boolean execute(String key, Runnable task) {
+    synchronized (pendingKeys) {
+      if (!pendingKeys.add(key)) {
+        return false;
+      }
+    }
+    try {
+      executor.execute(wrap(key, task));
+      return true;
+    } catch (RejectedExecutionException e) {
+      synchronized (pendingKeys) {
+        pendingKeys.remove(key);
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Stops the background thread, dropping queued tasks.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private Runnable wrap(final String key, final Runnable task) {
+    return new Runnable() {
+      public void run() {
+        if (key != null) {
+          synchronized (pendingKeys) {
+            pendingKeys.remove(key);
+          }
+        }
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          CorePluginLog.logError(e, "Background update task failed");
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.core.update.internal.core;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Sends form-encoded POST requests for usage pings.
+ */
+public class PingSender {
+
+  private static final int TIMEOUT_MILLIS = 10000;
+
+  /**
+   * Posts the (already escaped) parameters to the URL.
+   *
+   * @return a description of the response, for logging
+   * @throws IOException if the request could not be sent
+   */
+  public static String post(URL url, String parametersString)
+      throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setConnectTimeout(TIMEOUT_MILLIS);
+    connection.setReadTimeout(TIMEOUT_MILLIS);
+    connection.setDoOutput(true);
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Content-Length",
+        Integer.toString(parametersString.length()));
+    try {
+      DataOutputStream out = new DataOutputStream(connection.getOutputStream());
+      try {
+        out.writeBytes(parametersString);
+        out.flush();
+      } finally {
+        out.close();
+      }
+      return readResponse(connection);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private static String readResponse(HttpURLConnection connection)
+      throws IOException {
+    int responseCode = connection.getResponseCode();
+    StringBuilder responseBuilder = new StringBuilder();
+    responseBuilder.append(responseCode);
+    responseBuilder.append(": ");
+    responseBuilder.append(connection.getResponseMessage());
+    if (responseCode == HttpURLConnection.HTTP_OK) {
+      responseBuilder.append('\n');
+      BufferedReader responseContentReader = new BufferedReader(
+          new InputStreamReader(connection.getInputStream()));
+      try {
+        String inputLine = responseContentReader.readLine();
+        while (inputLine != null) {
+          responseBuilder.append(inputLine);
+          inputLine = responseContentReader.readLine();
+        }
+      } finally {
+        responseContentReader.close();
+      }
+    }
+    return responseBuilder.toString();
+  }
+
+  private PingSender() {
+  }
+}
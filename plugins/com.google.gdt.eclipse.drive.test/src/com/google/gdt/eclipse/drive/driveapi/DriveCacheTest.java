@@ -21,6 +21,10 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.ParentReference;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.gdt.eclipse.drive.driveapi.DriveCache;
 import com.google.gdt.eclipse.drive.test.MockDriveProvider;
@@ -105,5 +109,87 @@ public class DriveCacheTest {
     }
     assertFalse(cache.isLeafId("invalid ID"));
   }
+  
+  @Test
+  public void testIsRefreshable() throws IOException {
+    Drive mockDrive = MockDriveProvider.getMockDrive();
+    assertFalse(DriveCache.make(mockDrive, QUERY_FOR_LEAVES).isRefreshable());
+    DriveCache cache = DriveCache.makeRefreshable(mockDrive, MockDriveProvider.getLeafMimeType());
+    assertTrue(cache.isRefreshable());
+    assertEquals(MockDriveProvider.getLeafMimeType(), cache.getLeafMimeType());
+  }
+  
+  @Test
+  public void testJsonRoundTrip() throws IOException {
+    Drive mockDrive = MockDriveProvider.getMockDrive();
+    DriveCache original =
+        DriveCache.makeRefreshable(mockDrive, MockDriveProvider.getLeafMimeType());
+    DriveCache restored = DriveCache.fromJson(original.toJson());
+    assertNotNull(restored);
+    assertTrue(restored.isRefreshable());
+    assertEquals(original.getRootId(), restored.getRootId());
+    for (int i = 0; i < FOLDER_COUNT; i++) {
+      String folderId = MockDriveProvider.fakeFileId("folder", i);
+      assertEquals(
+          ImmutableSet.copyOf(original.getChildIds(folderId)),
+          ImmutableSet.copyOf(restored.getChildIds(folderId)));
+      assertEquals(original.getTitle(folderId), restored.getTitle(folderId));
+      assertFalse(restored.isLeafId(folderId));
+    }
+    for (int i = 0; i < LEAF_COUNT; i++) {
+      String leafId = MockDriveProvider.fakeFileId("leaf", i);
+      assertEquals(original.getTitle(leafId), restored.getTitle(leafId));
+      assertTrue(restored.isLeafId(leafId));
+    }
+  }
+  
+  @Test
+  public void testFromJsonRejectsMalformedInput() {
+    assertNull(DriveCache.fromJson("not json at all {"));
+    assertNull(DriveCache.fromJson("{\"version\": -1}"));
+  }
+  
+  @Test
+  public void testApplyChange() throws IOException {
+    Drive mockDrive = MockDriveProvider.getMockDrive();
+    DriveCache cache = DriveCache.makeRefreshable(mockDrive, MockDriveProvider.getLeafMimeType());
+    String folder3Id = MockDriveProvider.fakeFileId("folder", 3);
+    String leaf0Id = MockDriveProvider.fakeFileId("leaf", 0);
+    
+    // Move leaf 0 from folder 2 to folder 3:
+    File movedLeaf = new File();
+    movedLeaf.setId(leaf0Id);
+    movedLeaf.setTitle("renamed leaf 0");
+    movedLeaf.setMimeType(MockDriveProvider.getLeafMimeType());
+    ParentReference newParent = new ParentReference();
+    newParent.setId(folder3Id);
+    movedLeaf.setParents(ImmutableList.of(newParent));
+    assertTrue(cache.applyChange(makeChange(leaf0Id, movedLeaf)));
+    assertEquals(ImmutableSet.of(leaf0Id), ImmutableSet.copyOf(cache.getChildIds(folder3Id)));
+    assertFalse(cache.getChildIds(MockDriveProvider.fakeFileId("folder", 2)).contains(leaf0Id));
+    assertEquals("renamed leaf 0", cache.getTitle(leaf0Id));
+    assertTrue(cache.isLeafId(leaf0Id));
+    
+    // Delete leaf 0:
+    Change deletion = makeChange(leaf0Id, null);
+    deletion.setDeleted(true);
+    assertTrue(cache.applyChange(deletion));
+    assertTrue(cache.getChildIds(folder3Id).isEmpty());
+    assertNull(cache.getTitle(leaf0Id));
+    assertFalse(cache.isLeafId(leaf0Id));
+    
+    // A change to a file that is neither a leaf nor a folder does not affect the tree:
+    File unrelated = new File();
+    unrelated.setId("unrelated file ID");
+    unrelated.setMimeType("text/plain");
+    assertFalse(cache.applyChange(makeChange("unrelated file ID", unrelated)));
+  }
+  
+  private static Change makeChange(String fileId, File file) {
+    Change change = new Change();
+    change.setFileId(fileId);
+    change.setFile(file);
+    return change;
+  }
 
 }
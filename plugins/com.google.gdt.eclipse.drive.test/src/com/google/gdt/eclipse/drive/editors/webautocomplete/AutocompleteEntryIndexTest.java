@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2013 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.drive.editors.webautocomplete;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Unit test for {@link AutocompleteEntryIndex}, and for the way {@link AutocompleteEntryHolder}
+ * keeps its indices up to date.
+ */
+@RunWith(JUnit4.class)
+public class AutocompleteEntryIndexTest {
+
+  private static final AutocompleteEntryIndex INDEX =
+      new AutocompleteEntryIndex(
+          ImmutableSortedSet.<AutocompleteEntry>of(
+              field("getA"), field("getAb"), field("getB"), field("Gets"), field("set"),
+              field("setZ")));
+
+  @Test
+  public void testEmptyPrefixMatchesEverything() {
+    assertEquals(INDEX.getAllEntries(), INDEX.getEntriesWithPrefix(""));
+    assertEquals(6, INDEX.getEntriesWithPrefix("").size());
+  }
+
+  @Test
+  public void testPrefixIgnoresCase() {
+    assertEquals(names("Gets", "getA", "getAb", "getB"), names(INDEX.getEntriesWithPrefix("GET")));
+    assertEquals(names("getA", "getAb"), names(INDEX.getEntriesWithPrefix("geta")));
+  }
+
+  @Test
+  public void testPrefixBoundaries() {
+    // A prefix equal to a whole name includes that name and the longer names after it
+    assertEquals(names("set", "setZ"), names(INDEX.getEntriesWithPrefix("set")));
+    assertEquals(names("setZ"), names(INDEX.getEntriesWithPrefix("setz")));
+    // Before the first name, past the last name and between names
+    assertTrue(INDEX.getEntriesWithPrefix("a").isEmpty());
+    assertTrue(INDEX.getEntriesWithPrefix("z").isEmpty());
+    assertTrue(INDEX.getEntriesWithPrefix("getC").isEmpty());
+    assertTrue(INDEX.getEntriesWithPrefix("setZZ").isEmpty());
+  }
+
+  @Test
+  public void testEntryNamedIsExact() {
+    assertEquals("getA", INDEX.getEntryNamed("getA").getEntryName());
+    assertNull(INDEX.getEntryNamed("geta"));
+    assertNull(INDEX.getEntryNamed("get"));
+  }
+
+  @Test
+  public void testEmptyIndex() {
+    AutocompleteEntryIndex index =
+        new AutocompleteEntryIndex(ImmutableSortedSet.<AutocompleteEntry>of());
+    assertTrue(index.getEntriesWithPrefix("").isEmpty());
+    assertTrue(index.getEntriesWithPrefix("a").isEmpty());
+    assertNull(index.getEntryNamed("a"));
+  }
+
+  @Test
+  public void testHolderLookupAfterAddingEntries() {
+    AutocompleteEntryHolder holder = AutocompleteEntryHolder.getInstance();
+    // The holder is a singleton, so use a type name no other test uses
+    String typeName = "AutocompleteEntryIndexTestType";
+    holder.addBeanData(bean(typeName, new AutocompleteProto.Field("first", "String", "")));
+    assertEquals(names("first"), names(holder.getEntriesWithPrefix(typeName, "f")));
+    AutocompleteEntry first = holder.getEntryNamed(typeName, "first");
+
+    // Adding entries must discard the index built by the lookups above
+    holder.addBeanData(bean(typeName, new AutocompleteProto.Field("fourth", "String", "")));
+    assertEquals(names("first", "fourth"), names(holder.getEntriesWithPrefix(typeName, "f")));
+    assertSame(first, holder.getEntryNamed(typeName, "first"));
+    assertEquals("fourth", holder.getEntryNamed(typeName, "fourth").getEntryName());
+  }
+
+  private static AutocompleteProto.Bean bean(String typeName, AutocompleteProto.Field field) {
+    AutocompleteProto.Type type =
+        new AutocompleteProto.Type(
+            typeName, "", ImmutableList.of(field),
+            Collections.<AutocompleteProto.Method>emptyList());
+    return new AutocompleteProto.Bean(type, Collections.<AutocompleteProto.Type>emptyList());
+  }
+
+  private static FieldAutocompleteEntry field(String name) {
+    return new FieldAutocompleteEntry("String", name, "");
+  }
+
+  private static List<String> names(String... names) {
+    return ImmutableList.copyOf(names);
+  }
+
+  private static List<String> names(SortedSet<AutocompleteEntry> entries) {
+    List<String> names = Lists.newArrayList();
+    for (AutocompleteEntry entry : entries) {
+      names.add(entry.getEntryName());
+    }
+    return names;
+  }
+}
@@ -20,6 +20,7 @@ import com.google.api.client.http.HttpTransport;
 import com.google.api.client.util.Lists;
 import com.google.api.client.util.Sets;
 import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.About;
 import com.google.api.services.drive.model.File;
 import com.google.api.services.drive.model.FileList;
 import com.google.api.services.drive.model.ParentReference;
@@ -106,6 +107,8 @@ public class MockDriveProvider {
   private static final int FOLDER_COUNT = FOLDER_NUMBERS_OF_FOLDER_PARENTS.length;
   
   private static final String FAKE_LEAF_QUERY = "fake leaf query";
+  private static final String FAKE_LEAF_MIME_TYPE = "application/x-fake-leaf";
+  private static final long FAKE_LARGEST_CHANGE_ID = 1000L;
   private static final String FAKE_LEAF_0_EXPORT_LINK = "http://example.com/fakeLeaf0ExportLink";
  
   @Mock private Drive mockDrive;
@@ -115,6 +118,9 @@ public class MockDriveProvider {
   @Mock private Drive.Files.List mockDriveFilesList;
   @Mock private Drive.Files.List mockDriveFilesListWithLeafQuery;
   @Mock private Drive.Files.List mockDriveFilesListWithFolderQuery;
+  @Mock private Drive.Files.List mockDriveFilesListWithLeafMimeTypeQuery;
+  @Mock private Drive.About mockDriveAbout;
+  @Mock private Drive.About.Get mockDriveAboutGet;
   @Mock private HttpTransport mockTransport;
   
   private File rootFile;
@@ -142,6 +148,7 @@ public class MockDriveProvider {
       String leafFileId = fakeFileId("leaf", i);
       leafFile.setId(leafFileId);
       leafFile.setTitle(fakeTitle("leaf", i));
+      leafFile.setMimeType(FAKE_LEAF_MIME_TYPE);
       ParentReference parent = new ParentReference();
       parent.setId(fakeFileId("folder", FOLDER_NUMBERS_OF_LEAF_PARENTS[i]));
       leafFile.setParents(ImmutableList.of(parent));
@@ -162,6 +169,7 @@ public class MockDriveProvider {
       File folderFile = new File();
       folderFile.setId(fakeFileId("folder", i));
       folderFile.setTitle(fakeTitle("folder", i));
+      folderFile.setMimeType(DriveQueries.FOLDER_MIME_TYPE);
       ImmutableList<ParentReference> parentList;
       if (i == 0) {
         parentList = ImmutableList.of();
@@ -189,6 +197,15 @@ public class MockDriveProvider {
     when(mockDriveFilesList.setQ(DriveQueries.mimeTypeQuery(DriveQueries.FOLDER_MIME_TYPE, true)))
         .thenReturn(mockDriveFilesListWithFolderQuery);
     when(mockDriveFilesListWithFolderQuery.execute()).thenReturn(fileListOfFolders);
+    when(mockDriveFilesList.setQ(DriveQueries.mimeTypeQuery(FAKE_LEAF_MIME_TYPE, true)))
+        .thenReturn(mockDriveFilesListWithLeafMimeTypeQuery);
+    when(mockDriveFilesListWithLeafMimeTypeQuery.execute()).thenReturn(fileListOfLeaves);
+    
+    About about = new About();
+    about.setLargestChangeId(FAKE_LARGEST_CHANGE_ID);
+    when(mockDrive.about()).thenReturn(mockDriveAbout);
+    when(mockDriveAbout.get()).thenReturn(mockDriveAboutGet);
+    when(mockDriveAboutGet.execute()).thenReturn(about);
     
     return mockDrive;
   }
@@ -218,6 +235,16 @@ public class MockDriveProvider {
   public static String getQueryForLeaves() {
     return FAKE_LEAF_QUERY;
   }
+  
+  /**
+   * Obtains a MIME type that, when passed to {@code DriveCache.makeRefreshable}, selects the leaf
+   * nodes known to this mock.
+   * 
+   * @return the MIME type
+   */
+  public static String getLeafMimeType() {
+    return FAKE_LEAF_MIME_TYPE;
+  }
 
   /**
    * Obtains a representation of the file-system tree in terms of the file IDs of the children of
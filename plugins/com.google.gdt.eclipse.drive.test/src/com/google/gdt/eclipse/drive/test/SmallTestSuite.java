@@ -27,6 +27,7 @@ import com.google.gdt.eclipse.drive.editors.DelegatingSourceViewerConfigurationT
 import com.google.gdt.eclipse.drive.editors.HardCodedApiInfoTest;
 import com.google.gdt.eclipse.drive.editors.JavaScriptIdentifierNamesTest;
 import com.google.gdt.eclipse.drive.editors.WebEditorCompletionProcessorTest;
+import com.google.gdt.eclipse.drive.editors.webautocomplete.AutocompleteEntryIndexTest;
 import com.google.gdt.eclipse.drive.images.NotSavedLabelDecoratorTest;
 import com.google.gdt.eclipse.drive.model.AppsScriptProjectTest;
 import com.google.gdt.eclipse.drive.model.FolderTreeContentProviderTest;
@@ -48,6 +49,7 @@ import org.junit.runners.Suite;
   ApiDocumentationServiceTest.class,
   AppsScriptProjectPreferencesTest.class,
   AppsScriptProjectTest.class,
+  AutocompleteEntryIndexTest.class,
   DelegatingSourceViewerConfigurationTest.class,
   DriveCacheTest.class,
   DrivePluginTest.class,
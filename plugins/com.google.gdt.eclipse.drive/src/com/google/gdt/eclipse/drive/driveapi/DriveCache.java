@@ -16,15 +16,21 @@
 package com.google.gdt.eclipse.drive.driveapi;
 
 import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.ChangeList;
 import com.google.api.services.drive.model.File;
 import com.google.api.services.drive.model.FileList;
 import com.google.api.services.drive.model.ParentReference;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -45,9 +51,23 @@ import javax.annotation.Nullable;
  * <p>A {@code DriveCache} is a low-level representation of a folder tree, tied to Drive file IDs.
  * It can be used to create a {@code FolderTree}, which is a high-level representation of a folder
  * tree representing parent-child relationships with object references instead of file IDs. 
+ * 
+ * <p>A {@code DriveCache} created by {@link #makeRefreshable(Drive, String)} records the Drive
+ * change ID current when it was read. Such a cache can be serialized with {@link #toJson()},
+ * restored with {@link #fromJson(String)}, and brought up to date with
+ * {@link #applyChanges(Drive)}, which reads only the Drive changes feed rather than re-listing
+ * every matching file and folder.
+ * 
+ * <p>{@code DriveCache} objects are not thread-safe; callers that share one between threads must
+ * synchronize access to it.
  */
 public class DriveCache {
   
+  private static final Gson gson = new Gson();
+  
+  // Incremented whenever the persistent form changes incompatibly:
+  private static final int PERSISTENT_FORM_VERSION = 1;
+  
   /**
    * Creates a new {@code DriveCache} holding a folder tree consisting of all leaf files satisfying
    * a specified query and all folders directly or indirectly containing those leaf files.
@@ -60,25 +80,88 @@ public class DriveCache {
    */
   public static DriveCache make(Drive drive, String leafQuery) throws IOException {
     File rootFile = drive.files().get("root").execute();
-    DriveCache result = new DriveCache(drive, leafQuery, rootFile.getId());
-    result.read();
+    DriveCache result = new DriveCache(leafQuery, null, rootFile.getId(), null);
+    result.read(drive);
+    return result;
+  }
+  
+  /**
+   * Creates a new {@code DriveCache} holding a folder tree consisting of all untrashed leaf files
+   * with a specified MIME type and all folders directly or indirectly containing those leaf files.
+   * Unlike a cache created by {@link #make(Drive, String)}, the new cache can later be brought up
+   * to date by {@link #applyChanges(Drive)}.
+   * 
+   * @param drive a {@link Drive} object used to access the Drive service
+   * @param leafMimeType the specified MIME type
+   * @return the new {@code DriveCache}
+   * @throws IOException if a request to the Drive service fails
+   */
+  public static DriveCache makeRefreshable(Drive drive, String leafMimeType) throws IOException {
+    File rootFile = drive.files().get("root").execute();
+    // The change ID is read before the files are listed, so that a change made during the listing
+    // is replayed by the next call on applyChanges rather than lost. Replaying is harmless.
+    Long largestChangeId = drive.about().get().execute().getLargestChangeId();
+    DriveCache result =
+        new DriveCache(
+            DriveQueries.mimeTypeQuery(leafMimeType, true), leafMimeType, rootFile.getId(),
+            largestChangeId);
+    result.read(drive);
+    return result;
+  }
+  
+  /**
+   * Restores a {@code DriveCache} from a string produced by {@link #toJson()}.
+   * 
+   * @param json the string
+   * @return
+   *     the restored {@code DriveCache}, or {@code null} if {@code json} is malformed or was
+   *     written by an incompatible version of this class
+   */
+  @Nullable
+  public static DriveCache fromJson(String json) {
+    PersistentForm form;
+    try {
+      form = gson.fromJson(json, PersistentForm.class);
+    } catch (JsonParseException e) {
+      return null;
+    }
+    if (form == null || form.version != PERSISTENT_FORM_VERSION || form.rootId == null
+        || form.titles == null || form.parentIds == null || form.leafIds == null) {
+      return null;
+    }
+    DriveCache result =
+        new DriveCache(form.leafQuery, form.leafMimeType, form.rootId, form.largestChangeId);
+    Set<String> leafIds = Sets.newHashSet(form.leafIds);
+    for (Map.Entry<String, String> entry : form.titles.entrySet()) {
+      String id = entry.getKey();
+      List<String> parentIds = form.parentIds.get(id);
+      result.addNode(
+          id, entry.getValue(), parentIds == null ? Lists.<String>newArrayList() : parentIds,
+          leafIds.contains(id));
+    }
     return result;
   }
 
-  private final Drive drive;
   private final String leafQuery;
+  @Nullable private final String leafMimeType;
   private final Multimap<String, String> parentIdsToChildIdSets;  
-  private final Map<String, File> idsToFiles;  
+  private final Multimap<String, String> childIdsToParentIdSets;  
+  private final Map<String, String> idsToTitles;  
   private final Set<String> leafIds;
   private final String rootId;
+  @Nullable private Long largestChangeId;
   
-  private DriveCache(Drive drive, String leafQuery, String rootId) {
-    this.drive = drive;
+  private DriveCache(
+      String leafQuery, @Nullable String leafMimeType, String rootId,
+      @Nullable Long largestChangeId) {
     this.leafQuery = leafQuery;
-    idsToFiles = Maps.newHashMap();
+    this.leafMimeType = leafMimeType;
+    idsToTitles = Maps.newHashMap();
     parentIdsToChildIdSets = HashMultimap.create();
+    childIdsToParentIdSets = HashMultimap.create();
     leafIds = Sets.newHashSet();
     this.rootId = rootId;
+    this.largestChangeId = largestChangeId;
   }
 
   /**
@@ -126,30 +209,169 @@ public class DriveCache {
    */
   @Nullable
   public String getTitle(String fileId) {
-    File metadata = idsToFiles.get(fileId);
-    return metadata == null ? null : metadata.getTitle();
+    return idsToTitles.get(fileId);
+  }
+  
+  /**
+   * Reports whether this {@code DriveCache} can be brought up to date by
+   * {@link #applyChanges(Drive)}.
+   * 
+   * @return
+   *     {@code true} if this {@code DriveCache} was created by
+   *     {@link #makeRefreshable(Drive, String)}, or restored from such a cache
+   */
+  public boolean isRefreshable() {
+    return leafMimeType != null && largestChangeId != null;
+  }
+  
+  /**
+   * @return
+   *     the leaf MIME type passed to {@link #makeRefreshable(Drive, String)}, or {@code null} if
+   *     this {@code DriveCache} is not refreshable
+   */
+  @Nullable
+  public String getLeafMimeType() {
+    return leafMimeType;
+  }
+  
+  /**
+   * Brings this {@code DriveCache} up to date by reading the Drive changes made since it was read
+   * or last refreshed.
+   * 
+   * @param drive a {@link Drive} object used to access the Drive service
+   * @return {@code true} if any of the changes affected the folder tree of this cache
+   * @throws IOException
+   *     if a request to the Drive service fails, for example because the stored change ID is too
+   *     old to be accepted by the changes feed; in that case this cache is left unchanged
+   * @throws IllegalStateException if this {@code DriveCache} is not refreshable
+   */
+  public boolean applyChanges(Drive drive) throws IOException {
+    Preconditions.checkState(isRefreshable(), "DriveCache was not created by makeRefreshable");
+    // Read the whole feed before touching the cache, so that a failed request leaves it unchanged.
+    List<Change> changes = Lists.newArrayList();
+    long newLargestChangeId = largestChangeId;
+    Drive.Changes.List listRequest =
+        drive.changes().list().setStartChangeId(largestChangeId + 1).setIncludeDeleted(true);
+    while (true) {
+      ChangeList changeList = listRequest.execute();
+      if (changeList.getItems() != null) {
+        changes.addAll(changeList.getItems());
+      }
+      if (changeList.getLargestChangeId() != null) {
+        newLargestChangeId = Math.max(newLargestChangeId, changeList.getLargestChangeId());
+      }
+      String nextPageToken = changeList.getNextPageToken();
+      if (Strings.isNullOrEmpty(nextPageToken)) {
+        break;
+      }
+      listRequest.setPageToken(nextPageToken);
+    }
+    boolean treeChanged = false;
+    for (Change change : changes) {
+      treeChanged |= applyChange(change);
+    }
+    largestChangeId = newLargestChangeId;
+    return treeChanged;
+  }
+  
+  /**
+   * Serializes this {@code DriveCache} in a form that can be restored by
+   * {@link #fromJson(String)}.
+   * 
+   * @return the serialized form
+   */
+  public String toJson() {
+    PersistentForm form = new PersistentForm();
+    form.version = PERSISTENT_FORM_VERSION;
+    form.leafQuery = leafQuery;
+    form.leafMimeType = leafMimeType;
+    form.rootId = rootId;
+    form.largestChangeId = largestChangeId;
+    form.titles = Maps.newHashMap(idsToTitles);
+    form.parentIds = Maps.newHashMap();
+    for (String childId : childIdsToParentIdSets.keySet()) {
+      form.parentIds.put(childId, Lists.newArrayList(childIdsToParentIdSets.get(childId)));
+    }
+    form.leafIds = Lists.newArrayList(leafIds);
+    return gson.toJson(form);
+  }
+  
+  /**
+   * Updates this {@code DriveCache} to reflect a single entry of the Drive changes feed.
+   * 
+   * @param change the entry
+   * @return {@code true} if the change affected the folder tree of this cache
+   */
+  @VisibleForTesting
+  boolean applyChange(Change change) {
+    String fileId = change.getFileId();
+    boolean wasPresent = removeNode(fileId);
+    File metadata = change.getFile();
+    if (Boolean.TRUE.equals(change.getDeleted()) || metadata == null || isTrashed(metadata)) {
+      return wasPresent;
+    }
+    String mimeType = metadata.getMimeType();
+    boolean isLeaf = leafMimeType.equals(mimeType);
+    if (!isLeaf && !DriveQueries.FOLDER_MIME_TYPE.equals(mimeType)) {
+      return wasPresent;
+    }
+    addNode(fileId, metadata.getTitle(), parentIdsOf(metadata), isLeaf);
+    return true;
   }
 
-  private void read() throws IOException {
+  private void read(Drive drive) throws IOException {
     for (File leafFileMetadata : getMatchingFiles(drive, leafQuery)) {
-      String id = leafFileMetadata.getId();
-      idsToFiles.put(id, leafFileMetadata);
-      leafIds.add(id);
+      addNode(
+          leafFileMetadata.getId(), leafFileMetadata.getTitle(), parentIdsOf(leafFileMetadata),
+          true);
     }
     String queryForFolders = DriveQueries.mimeTypeQuery(DriveQueries.FOLDER_MIME_TYPE, true);
     for (File folderMetadata : getMatchingFiles(drive, queryForFolders)) {
-      idsToFiles.put(folderMetadata.getId(), folderMetadata);
+      addNode(
+          folderMetadata.getId(), folderMetadata.getTitle(), parentIdsOf(folderMetadata), false);
+    }
+  }
+  
+  private void addNode(String id, String title, List<String> parentIds, boolean isLeaf) {
+    idsToTitles.put(id, title);
+    if (isLeaf) {
+      leafIds.add(id);
+    }
+    for (String parentId : parentIds) {
+      parentIdsToChildIdSets.put(parentId, id);
+      childIdsToParentIdSets.put(id, parentId);
+    }
+  }
+  
+  // Removes the node's title and its links to its parents. Links from the node to its own children
+  // are kept, so that a folder that is moved (which the changes feed reports as a removal followed
+  // by an addition) keeps its contents.
+  private boolean removeNode(String id) {
+    boolean wasPresent = idsToTitles.remove(id) != null;
+    leafIds.remove(id);
+    for (String parentId : childIdsToParentIdSets.removeAll(id)) {
+      parentIdsToChildIdSets.remove(parentId, id);
     }
-    for (String childId : idsToFiles.keySet()) {
-      List<ParentReference> parents = idsToFiles.get(childId).getParents();
+    return wasPresent;
+  }
+  
+  private static List<String> parentIdsOf(File metadata) {
+    List<String> result = Lists.newArrayList();
+    List<ParentReference> parents = metadata.getParents();
+    if (parents != null) {
       for (ParentReference parentRef : parents) {
-        parentIdsToChildIdSets.put(parentRef.getId(), childId);
+        result.add(parentRef.getId());
       }
     }
+    return result;
+  }
+  
+  private static boolean isTrashed(File metadata) {
+    return metadata.getLabels() != null && Boolean.TRUE.equals(metadata.getLabels().getTrashed());
   }
   
   private static List<File> getMatchingFiles(Drive drive, String query) throws IOException {
-    List<File> matchingFiles = Lists.newLinkedList();
+    List<File> matchingFiles = Lists.newArrayList();
     Drive.Files.List listRequest = drive.files().list().setQ(query);
     while (true) {
       FileList fileList = listRequest.execute();
@@ -161,5 +383,19 @@ public class DriveCache {
       listRequest.setPageToken(nextPageToken);
     }
   }
+  
+  /**
+   * The form in which a {@code DriveCache} is serialized by the {@link Gson} serializer.
+   */
+  private static class PersistentForm {
+    int version;
+    String leafQuery;
+    String leafMimeType;
+    String rootId;
+    Long largestChangeId;
+    Map<String, String> titles;
+    Map<String, List<String>> parentIds;
+    List<String> leafIds;
+  }
     
-}
\ No newline at end of file
+}
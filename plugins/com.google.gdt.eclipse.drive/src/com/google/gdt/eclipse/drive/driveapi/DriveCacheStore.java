@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2013 Google Inc. All Rights Reserved.
+ * 
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *******************************************************************************/
+
+package com.google.gdt.eclipse.drive.driveapi;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.gdt.eclipse.drive.DrivePlugin;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.annotation.Nullable;
+
+/**
+ * Persists {@link DriveCache} objects in a local directory, so that a folder tree read in one
+ * Eclipse session can be displayed immediately in the next one and then refreshed incrementally.
+ * Each cache is stored in its own file, named after a hash of the Drive account and the leaf MIME
+ * type of the cache, so that caches of different users are never confused.
+ */
+public class DriveCacheStore {
+  
+  private static final String FILE_NAME_PREFIX = "drivecache-";
+  private static final String FILE_NAME_SUFFIX = ".json";
+  
+  private final File directory;
+  
+  /**
+   * Constructs a {@code DriveCacheStore} that stores caches in a specified directory, which is
+   * created when the first cache is saved.
+   * 
+   * @param directory the specified directory
+   */
+  public DriveCacheStore(File directory) {
+    this.directory = directory;
+  }
+  
+  /**
+   * Reads a previously saved {@link DriveCache}.
+   * 
+   * @param account the Drive account for which the cache was saved
+   * @param leafMimeType the leaf MIME type of the cache
+   * @return
+   *     the cache, or {@code null} if no cache was saved for {@code account} and
+   *     {@code leafMimeType} or if the saved cache cannot be read
+   */
+  @Nullable
+  public DriveCache load(String account, String leafMimeType) {
+    File cacheFile = getCacheFile(account, leafMimeType);
+    if (!cacheFile.isFile()) {
+      return null;
+    }
+    String json;
+    try {
+      json = Files.toString(cacheFile, Charsets.UTF_8);
+    } catch (IOException e) {
+      DrivePlugin.logError("Error reading cached Drive folder tree from " + cacheFile, e);
+      return null;
+    }
+    DriveCache result = DriveCache.fromJson(json);
+    if (result == null || !result.isRefreshable()
+        || !leafMimeType.equals(result.getLeafMimeType())) {
+      // Written by an incompatible version of the plugin; it will be overwritten by the next save.
+      return null;
+    }
+    return result;
+  }
+  
+  /**
+   * Saves a refreshable {@link DriveCache}, replacing any cache previously saved for the same
+   * account and leaf MIME type. Errors are logged rather than thrown, since a failure to save only
+   * costs a full read of the folder tree the next time it is needed.
+   * 
+   * @param account the Drive account for which the cache was read
+   * @param cache the cache
+   */
+  public void save(String account, DriveCache cache) {
+    if (!cache.isRefreshable()) {
+      return;
+    }
+    File cacheFile = getCacheFile(account, cache.getLeafMimeType());
+    File tempFile = new File(directory, cacheFile.getName() + ".tmp");
+    try {
+      Files.createParentDirs(cacheFile);
+      Files.write(cache.toJson(), tempFile, Charsets.UTF_8);
+      // Write and rename, so that a crash during the write never leaves a truncated cache behind.
+      if (!tempFile.renameTo(cacheFile)) {
+        Files.copy(tempFile, cacheFile);
+        tempFile.delete();
+      }
+    } catch (IOException e) {
+      DrivePlugin.logError("Error saving cached Drive folder tree to " + cacheFile, e);
+    }
+  }
+  
+  private File getCacheFile(String account, String leafMimeType) {
+    String key =
+        Hashing.sha1().hashString(account + '\n' + leafMimeType, Charsets.UTF_8).toString();
+    return new File(directory, FILE_NAME_PREFIX + key + FILE_NAME_SUFFIX);
+  }
+}
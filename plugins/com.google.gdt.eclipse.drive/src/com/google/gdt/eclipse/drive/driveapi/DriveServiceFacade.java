@@ -36,11 +36,15 @@ import com.google.gdt.eclipse.drive.model.AppsScriptProject;
 import com.google.gdt.eclipse.drive.model.FolderTree;
 import com.google.gdt.eclipse.login.GoogleLogin;
 
+import org.eclipse.core.runtime.IPath;
+
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.Collection;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 /**
  * Encapsulates of of this plugin's accesses to the Drive service on behalf of the user, providing
  * the high-level operations required by the plugin. It is expected that the impact of any changes
@@ -63,6 +67,9 @@ public class DriveServiceFacade {
       DrivePlugin.PLUGIN_ID + ".apiInfoUrl";
   
   private static final String DEFAULT_API_INFO_URL = "https://script.google.com/a";
+  
+  // Subdirectory of the plugin state location in which folder-tree caches are persisted:
+  private static final String DRIVE_CACHE_DIRECTORY_NAME = "driveCache";
 
   @VisibleForTesting
   public static final String EXPORT_LINKS_API_PROPERTY_NAME = "exportLinks";
@@ -99,6 +106,13 @@ public class DriveServiceFacade {
   
   private DriveConnection currentConnection;
   
+  // The refreshable folder-tree cache most recently read or refreshed, and the account it belongs
+  // to. Both are guarded by folderCacheLock, which is separate from the lock on this object so that
+  // a long refresh does not block ensureConnection.
+  private final Object folderCacheLock = new Object();
+  private DriveCache folderCache;
+  private String folderCacheAccount;
+  
   private DriveServiceFacade() {
   }
   
@@ -124,6 +138,99 @@ public class DriveServiceFacade {
     DriveCache driveCache = DriveCache.make(connection.getDriveClient(), leafQuery);
     return FolderTree.make(driveCache, false);
   }
+  
+  /**
+   * Obtains a {@link FolderTree} of all untrashed leaf files with a specified MIME type and all
+   * folders directly or indirectly containing those files, from the folder-tree cache saved by a
+   * previous call on {@link #refreshFolderTree(String)}, without contacting the Drive service. The
+   * result may therefore be out of date; callers typically display it at once and then call
+   * {@code refreshFolderTree} in the background.
+   * 
+   * @param leafMimeType the specified MIME type
+   * @return the {@code FolderTree}, or {@code null} if there is no saved cache for the current user
+   */
+  @Nullable
+  public FolderTree getCachedFolderTree(String leafMimeType) {
+    String account = GoogleLogin.getInstance().getEmail();
+    synchronized (folderCacheLock) {
+      DriveCache cache = getFolderCache(account, leafMimeType);
+      return cache == null ? null : FolderTree.make(cache, false);
+    }
+  }
+  
+  /**
+   * Obtains an up-to-date {@link FolderTree} of all untrashed leaf files with a specified MIME type
+   * and all folders directly or indirectly containing those files. If a folder-tree cache has been
+   * saved for the current user, it is refreshed from the Drive changes feed; otherwise, or if the
+   * changes feed no longer accepts the change ID stored in the cache, the whole tree is read from
+   * Drive. The refreshed cache is saved for use by later calls on this method and on
+   * {@link #getCachedFolderTree(String)}.
+   * 
+   * @param leafMimeType the specified MIME type
+   * @return the {@code FolderTree}
+   * @throws IOException if the folder tree cannot be read from Drive
+   */
+  public FolderTree refreshFolderTree(String leafMimeType) throws IOException {
+    Drive driveClient = ensureConnection().getDriveClient();
+    String account = GoogleLogin.getInstance().getEmail();
+    synchronized (folderCacheLock) {
+      DriveCache cache = getFolderCache(account, leafMimeType);
+      if (cache != null) {
+        try {
+          boolean treeChanged = cache.applyChanges(driveClient);
+          DrivePlugin.logInfo(
+              "Refreshed cached Drive folder tree from the changes feed"
+                  + (treeChanged ? "" : "; the tree is unchanged"));
+        } catch (IOException e) {
+          DrivePlugin.logInfo(
+              "Unable to refresh cached Drive folder tree from the changes feed ("
+                  + e.getMessage() + "); rereading the whole tree");
+          cache = null;
+        }
+      }
+      if (cache == null) {
+        cache = DriveCache.makeRefreshable(driveClient, leafMimeType);
+      }
+      folderCache = cache;
+      folderCacheAccount = account;
+      DriveCacheStore store = getCacheStore();
+      if (store != null && account != null) {
+        store.save(account, cache);
+      }
+      return FolderTree.make(cache, false);
+    }
+  }
+  
+  // Returns the in-memory cache if it matches, else the persisted one, or null if neither does.
+  // Must be called while holding folderCacheLock.
+  @Nullable
+  private DriveCache getFolderCache(@Nullable String account, String leafMimeType) {
+    if (account == null) {
+      return null;
+    }
+    if (folderCache != null && account.equals(folderCacheAccount)
+        && leafMimeType.equals(folderCache.getLeafMimeType())) {
+      return folderCache;
+    }
+    DriveCacheStore store = getCacheStore();
+    DriveCache result = store == null ? null : store.load(account, leafMimeType);
+    if (result != null) {
+      folderCache = result;
+      folderCacheAccount = account;
+    }
+    return result;
+  }
+  
+  @Nullable
+  private static DriveCacheStore getCacheStore() {
+    DrivePlugin plugin = DrivePlugin.getDefault();
+    if (plugin == null) {
+      // We are running a test, or the plugin has been stopped.
+      return null;
+    }
+    IPath directory = plugin.getStateLocation().append(DRIVE_CACHE_DIRECTORY_NAME);
+    return new DriveCacheStore(directory.toFile());
+  }
 
   /**
    * Reads a Drive Apps Script project with a specified Drive file ID and creates a corresponding
@@ -298,6 +405,10 @@ public class DriveServiceFacade {
    */
   public synchronized void onLogout() {
     currentConnection = null;
+    synchronized (folderCacheLock) {
+      folderCache = null;
+      folderCacheAccount = null;
+    }
   }
   
   /**
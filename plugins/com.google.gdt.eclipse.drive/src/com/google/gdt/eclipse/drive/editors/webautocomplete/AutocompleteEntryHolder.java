@@ -17,6 +17,7 @@ package com.google.gdt.eclipse.drive.editors.webautocomplete;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.SortedSetMultimap;
@@ -24,6 +25,7 @@ import com.google.common.collect.TreeMultimap;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 
@@ -45,6 +47,12 @@ public final class AutocompleteEntryHolder {
 
   private final SortedSet<AutocompleteEntry> topLevelEntries = Sets.newTreeSet();
 
+  /**
+   * Prefix indices over the entries of each type name (with the {@code null} key standing for the
+   * top-level entries), built on first use and discarded when entries are added for the type.
+   */
+  private final Map<String, AutocompleteEntryIndex> typeNamesToIndices = Maps.newHashMap();
+
   /** Indicates whether the auto-complete data has been already loaded and can be used */
   private boolean isReady = false;
 
@@ -91,7 +99,7 @@ public final class AutocompleteEntryHolder {
       String topLevelTypeName, String typeName, String description, boolean isCommon) {
     if (!isCommon) {
       if (typeName.equals(topLevelTypeName)) {
-        topLevelEntries.add(new FieldAutocompleteEntry(typeName, typeName, description));
+        addEntry(null, new FieldAutocompleteEntry(typeName, typeName, description));
       }
 
       topLevelTypeNamesToTypeNames.put(topLevelTypeName, topLevelTypeName);
@@ -119,7 +127,7 @@ public final class AutocompleteEntryHolder {
    * Adds autocomplete entries from the specified type data proto.
    */
   private void addFieldData(String typeName, AutocompleteProto.Field fieldData) {
-    typeNamesToEntries.put(
+    addEntry(
         typeName,
         new FieldAutocompleteEntry(
             (fieldData.getKind() == AutocompleteProto.Field.Kind.ENUM_CONSTANT)
@@ -138,7 +146,7 @@ public final class AutocompleteEntryHolder {
    * Adds autocomplete entries from the specified method data proto.
    */
   private void addMethodData(String typeName, AutocompleteProto.Method methodData) {
-    typeNamesToEntries.put(
+    addEntry(
         typeName,
         new MethodAutocompleteEntry(
             methodData.getReturnTypeName(),
@@ -179,6 +187,55 @@ public final class AutocompleteEntryHolder {
         : topLevelEntries);
   }
 
+  /**
+   * Returns the autocomplete entries associated with the specified type name whose names start with
+   * the specified prefix, ignoring case, in sorted order. As in
+   * {@link #getEntriesForTypeName(String)}, a {@code null} type name denotes the top-level beans.
+   * The lookup takes time logarithmic in the number of entries for the type, plus the number of
+   * matches.
+   */
+  public SortedSet<AutocompleteEntry> getEntriesWithPrefix(
+      @Nullable String typeName, String prefix) {
+    Preconditions.checkNotNull(prefix, "prefix must be nonnull");
+
+    return getIndex(typeName).getEntriesWithPrefix(prefix);
+  }
+
+  /**
+   * Returns the first autocomplete entry, in sorted order, associated with the specified type name
+   * whose name is exactly the specified name, or {@code null} if there is no such entry.
+   */
+  @Nullable
+  public AutocompleteEntry getEntryNamed(@Nullable String typeName, String entryName) {
+    Preconditions.checkNotNull(entryName, "entryName must be nonnull");
+
+    return getIndex(typeName).getEntryNamed(entryName);
+  }
+
+  private synchronized AutocompleteEntryIndex getIndex(@Nullable String typeName) {
+    AutocompleteEntryIndex index = typeNamesToIndices.get(typeName);
+    if (index == null) {
+      index = new AutocompleteEntryIndex(getEntriesForTypeName(typeName));
+      typeNamesToIndices.put(typeName, index);
+    }
+    return index;
+  }
+
+  /**
+   * Adds an entry for the specified type name, or a top-level entry if the type name is
+   * {@code null}, and discards the index of the entries for that type name. Both happen under the
+   * lock that guards the indices, so a concurrent lookup cannot index the entries as they were
+   * before the addition after the index was discarded.
+   */
+  private synchronized void addEntry(@Nullable String typeName, AutocompleteEntry entry) {
+    if (typeName == null) {
+      topLevelEntries.add(entry);
+    } else {
+      typeNamesToEntries.put(typeName, entry);
+    }
+    typeNamesToIndices.remove(typeName);
+  }
+
   /**
    * Interface used for callbacks needed when the auto-complete data finishes loading
    */
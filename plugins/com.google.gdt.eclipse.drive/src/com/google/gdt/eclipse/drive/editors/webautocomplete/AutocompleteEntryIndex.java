@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright 2013 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.drive.editors.webautocomplete;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.SortedSet;
+
+import javax.annotation.Nullable;
+
+/**
+ * An immutable index over the autocomplete entries of one type, answering case-insensitive prefix
+ * queries in O(log n + k) time and exact-name lookups in constant time, without copying or
+ * filtering the whole entry set on each keystroke.
+ *
+ * <p>Entries are kept in an array sorted by lower-cased entry name, alongside a parallel array of
+ * the lower-cased names themselves, so that the entries matching a prefix form one contiguous range
+ * found by binary search.
+ */
+final class AutocompleteEntryIndex {
+
+  private static final Comparator<AutocompleteEntry> BY_LOWER_CASE_NAME =
+      new Comparator<AutocompleteEntry>() {
+        @Override public int compare(AutocompleteEntry e1, AutocompleteEntry e2) {
+          int result = lowerCaseName(e1).compareTo(lowerCaseName(e2));
+          return result != 0 ? result : e1.compareTo(e2);
+        }
+      };
+
+  private final ImmutableSortedSet<AutocompleteEntry> allEntries;
+
+  // Sorted by BY_LOWER_CASE_NAME; lowerCaseNames[i] is the lower-cased name of entries[i].
+  private final AutocompleteEntry[] entries;
+  private final String[] lowerCaseNames;
+
+  // Maps each entry name to the first entry, in natural order, with that name.
+  private final Map<String, AutocompleteEntry> entriesByName;
+
+  /**
+   * Builds an index over the specified entries.
+   *
+   * @param sortedEntries the entries of one type, in their natural order
+   */
+  AutocompleteEntryIndex(SortedSet<AutocompleteEntry> sortedEntries) {
+    allEntries = ImmutableSortedSet.copyOfSorted(sortedEntries);
+    entries = allEntries.toArray(new AutocompleteEntry[allEntries.size()]);
+    Arrays.sort(entries, BY_LOWER_CASE_NAME);
+    lowerCaseNames = new String[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      lowerCaseNames[i] = lowerCaseName(entries[i]);
+    }
+    entriesByName = Maps.newHashMapWithExpectedSize(allEntries.size());
+    for (AutocompleteEntry entry : allEntries) {
+      if (!entriesByName.containsKey(entry.getEntryName())) {
+        entriesByName.put(entry.getEntryName(), entry);
+      }
+    }
+  }
+
+  /**
+   * Returns all indexed entries, in their natural order.
+   */
+  SortedSet<AutocompleteEntry> getAllEntries() {
+    return allEntries;
+  }
+
+  /**
+   * Returns the indexed entries whose names start with the specified prefix, ignoring case, in
+   * their natural order.
+   */
+  SortedSet<AutocompleteEntry> getEntriesWithPrefix(String prefix) {
+    if (prefix.isEmpty()) {
+      return allEntries;
+    }
+    String lowerCasePrefix = prefix.toLowerCase();
+    int start = Arrays.binarySearch(lowerCaseNames, lowerCasePrefix);
+    if (start < 0) {
+      // No name equals the prefix; start at the insertion point, the first name greater than it.
+      start = -start - 1;
+    } else {
+      // Several entries (overloaded methods, for example) can share a name; back up to the first.
+      while (start > 0 && lowerCaseNames[start - 1].equals(lowerCasePrefix)) {
+        start--;
+      }
+    }
+    int end = start;
+    while (end < lowerCaseNames.length && lowerCaseNames[end].startsWith(lowerCasePrefix)) {
+      end++;
+    }
+    if (start == end) {
+      return ImmutableSortedSet.of();
+    }
+    return ImmutableSortedSet.copyOf(Arrays.asList(entries).subList(start, end));
+  }
+
+  /**
+   * Returns the first entry, in natural order, whose name is exactly the specified name, or
+   * {@code null} if there is no such entry.
+   */
+  @Nullable
+  AutocompleteEntry getEntryNamed(String name) {
+    return entriesByName.get(name);
+  }
+
+  private static String lowerCaseName(AutocompleteEntry entry) {
+    return entry.getEntryName().toLowerCase();
+  }
+}
@@ -18,11 +18,9 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
-import com.google.common.base.Predicate;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSortedSet;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.PeekingIterator;
 import com.google.gdt.eclipse.drive.editors.JavaScriptIdentifierNames;
@@ -285,20 +283,12 @@ public final class Autocompleter {
   }
 
   private SortedSet<AutocompleteEntry> getEntries(String clazz) {
-    return ImmutableSortedSet.copyOf(
-        autocompleteEntryHolder.getEntriesForTypeName(classOrArray(clazz)));
+    return autocompleteEntryHolder.getEntriesWithPrefix(classOrArray(clazz), "");
   }
 
   @VisibleForTesting
-  SortedSet<AutocompleteEntry> getEntriesWithPrefix(@Nullable String clazz, final String prefix) {
-    SortedSet<AutocompleteEntry> entries
-        = autocompleteEntryHolder.getEntriesForTypeName(classOrArray(clazz));
-
-    return ImmutableSortedSet.copyOf(Iterables.filter(entries, new Predicate<AutocompleteEntry>() {
-      @Override public boolean apply(AutocompleteEntry entry) {
-        return entry.getEntryName().toLowerCase().startsWith(prefix.toLowerCase());
-      }
-    }));
+  SortedSet<AutocompleteEntry> getEntriesWithPrefix(@Nullable String clazz, String prefix) {
+    return autocompleteEntryHolder.getEntriesWithPrefix(classOrArray(clazz), prefix);
   }
 
   @Nullable private static String classOrArray(@Nullable String clazz) {
@@ -306,13 +296,11 @@ public final class Autocompleter {
   }
 
   @VisibleForTesting String getReturnType(String className, Segment entry) {
-    for (AutocompleteEntry entryObj : autocompleteEntryHolder.getEntriesForTypeName(className)) {
-      if (entryObj.getEntryName().equals(entry.getValue())) {
-        return parseReturnType(entryObj.getReturnType(), entry.isArrayElement());
-      }
+    AutocompleteEntry entryObj = autocompleteEntryHolder.getEntryNamed(className, entry.getValue());
+    if (entryObj == null) {
+      return "";
     }
-
-    return "";
+    return parseReturnType(entryObj.getReturnType(), entry.isArrayElement());
   }
 
   private static String parseReturnType(String returnType, boolean isArrayElement) {
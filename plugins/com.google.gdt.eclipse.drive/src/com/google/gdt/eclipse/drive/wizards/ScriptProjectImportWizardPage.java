@@ -36,6 +36,8 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.dialogs.IDialogSettings;
 import org.eclipse.jface.operation.IRunnableContext;
@@ -44,6 +46,7 @@ import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
+import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.wizard.WizardPage;
 import org.eclipse.osgi.util.TextProcessor;
@@ -76,6 +79,7 @@ import org.eclipse.ui.internal.ide.dialogs.IDEResourceInfoUtils;
 import org.eclipse.ui.internal.ide.filesystem.FileSystemConfiguration;
 import org.eclipse.ui.internal.ide.filesystem.FileSystemSupportRegistry;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -100,7 +104,7 @@ public class ScriptProjectImportWizardPage extends WizardPage {
   
   /**
    * A container that can be referenced by a final variable, so that its contents can be set in an
-   * inner class (used in {@link #getFolderTreeWithProgress()}).
+   * inner class (used in {@link #getFolderTreeWithProgress(String, Callable)}).
    */
   private static class FolderTreeHolder {
     public FolderTree value;
@@ -118,6 +122,7 @@ public class ScriptProjectImportWizardPage extends WizardPage {
   private ISelection previousSelection;
   private Text projectNameField;
   private FolderTree.FolderTreeLeaf selectedDriveProject;
+  private TreeViewer treeViewer;
 
   private final Listener nameModifyListener =
       new Listener() {
@@ -176,9 +181,37 @@ public class ScriptProjectImportWizardPage extends WizardPage {
   public void createControl(Composite parent) {
     Composite root = new Composite(parent, SWT.NULL);
     setControl(root);
+    // Log on now, if necessary, in the UI thread, so that none of the threads run below will try to
+    // access login plugin UI widgets:
+    DriveServiceFacade.get().ensureConnection();
     FolderTree tree = null;
     try {
-      tree = getFolderTreeWithProgress();
+      // Reading the saved tree waits for any refresh in progress, so it must not run in the UI
+      // thread either.
+      FolderTree cachedTree =
+          getFolderTreeWithProgress(
+              "Reading saved Apps Script projects...",
+              new Callable<FolderTree>() {
+                @Override public FolderTree call() {
+                  return DriveServiceFacade.get().getCachedFolderTree(
+                      DriveQueries.SCRIPT_PROJECT_MIME_TYPE);
+                }
+              });
+      if (cachedTree != null) {
+        // Show the tree as of the last import at once, and bring it up to date in the background.
+        populateWithNormalContent(root, cachedTree);
+        scheduleFolderTreeRefresh();
+        return;
+      }
+      tree =
+          getFolderTreeWithProgress(
+              "Looking for Apps Script projects in Drive...",
+              new Callable<FolderTree>() {
+                @Override public FolderTree call() throws Exception {
+                  return DriveServiceFacade.get().refreshFolderTree(
+                      DriveQueries.SCRIPT_PROJECT_MIME_TYPE);
+                }
+              });
     } catch (InterruptedException e) {
       setErrorMessage("The search for Apps Script projects in Drive was interrupted.");
       return;
@@ -192,12 +225,11 @@ public class ScriptProjectImportWizardPage extends WizardPage {
   }
   
   @Nullable
-  private FolderTree getFolderTreeWithProgress() throws InterruptedException {
+  private FolderTree getFolderTreeWithProgress(
+      final String taskName, final Callable<FolderTree> getFolderTree)
+      throws InterruptedException {
     final FolderTreeHolder folderTreeHolder = new FolderTreeHolder();
     IRunnableContext context = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
-    // Log on now, if necessary, in the UI thread, so the thread run below will not try to access
-    // login plugin UI widgets:
-    DriveServiceFacade.get().ensureConnection();
     try {
       context.run(
           true, false,
@@ -205,20 +237,11 @@ public class ScriptProjectImportWizardPage extends WizardPage {
             @Override public void run(IProgressMonitor monitor)
                 throws InvocationTargetException, InterruptedException {
               ((ScriptProjectImportWizard) getWizard()).setCurrentMonitor(monitor);
-              monitor.beginTask(
-                  "Looking for Apps Script projects in Drive...", IProgressMonitor.UNKNOWN);
+              monitor.beginTask(taskName, IProgressMonitor.UNKNOWN);
               try {
                 BlockingCallableWithProgress<FolderTree> callable =
                     new BlockingCallableWithProgress<FolderTree>(
-                        new Callable<FolderTree>() {
-                          @Override public FolderTree call() throws Exception {
-                            return
-                                DriveServiceFacade.get().getFolderTree(
-                                    DriveQueries.mimeTypeQuery(
-                                        DriveQueries.SCRIPT_PROJECT_MIME_TYPE, true));
-                          }
-                        },
-                        GET_FOLDER_TREE_CANCELLATION_POLLING_INTERVAL_IN_MILLIS);
+                        getFolderTree, GET_FOLDER_TREE_CANCELLATION_POLLING_INTERVAL_IN_MILLIS);
                 folderTreeHolder.value = callable.call(monitor);
               } finally {
                 ((ScriptProjectImportWizard) getWizard()).setCurrentMonitor(null);
@@ -233,6 +256,73 @@ public class ScriptProjectImportWizardPage extends WizardPage {
     }
   }
   
+  private void scheduleFolderTreeRefresh() {
+    final Display display = getShell().getDisplay();
+    Job refreshJob =
+        new Job("Refreshing Apps Script projects from Drive") {
+          @Override protected IStatus run(IProgressMonitor monitor) {
+            final FolderTree refreshedTree;
+            try {
+              refreshedTree =
+                  DriveServiceFacade.get().refreshFolderTree(DriveQueries.SCRIPT_PROJECT_MIME_TYPE);
+            } catch (IOException e) {
+              // The cached tree stays on display; it is still usable, just possibly out of date.
+              DrivePlugin.logError("Error refreshing Apps Script projects from Drive", e);
+              return Status.OK_STATUS;
+            }
+            display.asyncExec(
+                new Runnable() {
+                  @Override public void run() {
+                    if (treeViewer != null && !treeViewer.getControl().isDisposed()) {
+                      updateFolderTree(refreshedTree);
+                    }
+                  }
+                });
+            return Status.OK_STATUS;
+          }
+        };
+    refreshJob.setSystem(true);
+    refreshJob.schedule();
+  }
+  
+  /**
+   * Replaces the tree displayed by this page, keeping the currently selected Drive project selected
+   * if it is still present in the new tree.
+   */
+  private void updateFolderTree(FolderTree driveTree) {
+    String selectedFileId = selectedDriveProject == null ? null : selectedDriveProject.getFileId();
+    treeViewer.setInput(driveTree.addDummyParent());
+    treeViewer.expandAll();
+    FolderTree.FolderTreeLeaf reselected =
+        selectedFileId == null ? null : findLeaf(driveTree, selectedFileId);
+    if (reselected != null) {
+      StructuredSelection selection = new StructuredSelection(reselected);
+      // Reselecting fires the selection listener, which would overwrite an edited project name.
+      String projectName = projectNameField.getText();
+      treeViewer.setSelection(selection, true);
+      projectNameField.setText(projectName);
+    } else if (selectedFileId != null) {
+      previousSelection = null;
+      selectedDriveProject = null;
+      setPageComplete(false);
+    }
+  }
+  
+  @Nullable
+  private static FolderTree.FolderTreeLeaf findLeaf(FolderTree tree, String fileId) {
+    if (tree instanceof FolderTree.FolderTreeLeaf) {
+      FolderTree.FolderTreeLeaf leaf = (FolderTree.FolderTreeLeaf) tree;
+      return fileId.equals(leaf.getFileId()) ? leaf : null;
+    }
+    for (FolderTree child : tree.getChildren()) {
+      FolderTree.FolderTreeLeaf result = findLeaf(child, fileId);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+  
   private void populateWithNormalContent(Composite root, FolderTree driveTree) {
     initializeDialogUnits(root.getParent());
 
@@ -247,7 +337,7 @@ public class ScriptProjectImportWizardPage extends WizardPage {
     treeViewerContainer.setExpandHorizontal(true);
     treeViewerContainer.setExpandVertical(true);
     
-    final TreeViewer treeViewer = new TreeViewer(treeViewerContainer, SWT.BORDER);
+    treeViewer = new TreeViewer(treeViewerContainer, SWT.BORDER);
     Tree tree = treeViewer.getTree();
     treeViewerContainer.setContent(tree);
     treeViewerContainer.setMinSize(tree.computeSize(SWT.DEFAULT, getPreferredTreeHeight()));
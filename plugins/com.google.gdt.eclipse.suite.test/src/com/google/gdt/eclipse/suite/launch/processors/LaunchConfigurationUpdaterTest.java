@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.suite.launch.processors;
+
+import com.google.appengine.eclipse.core.projects.GaeEnablingProjectCreationParticipant;
+import com.google.gcp.eclipse.testing.GaeProjectTestUtil;
+import com.google.gdt.eclipse.core.jobs.JobsUtilities;
+import com.google.gdt.eclipse.core.launch.LaunchConfigurationProcessorTestingHelper;
+import com.google.gdt.eclipse.core.launch.LaunchConfigurationProcessorUtilities;
+import com.google.gwt.eclipse.core.projects.GwtEnablingProjectCreationParticipant;
+import com.google.gwt.eclipse.testing.GwtRuntimeTestUtilities;
+import com.google.gwt.eclipse.testing.GwtTestUtilities;
+
+import junit.framework.TestCase;
+
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchConfigurationListener;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.ILaunchManager;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests that {@link LaunchConfigurationUpdater} saves a launch configuration
+ * only when the processors changed it.
+ */
+public class LaunchConfigurationUpdaterTest extends TestCase {
+
+  /**
+   * Counts the saves of one launch configuration.
+   */
+  private static class SaveCounter implements ILaunchConfigurationListener {
+    private final String name;
+
+    private final AtomicInteger saves = new AtomicInteger();
+
+    public SaveCounter(ILaunchConfiguration launchConfig) {
+      this.name = launchConfig.getName();
+    }
+
+    public void launchConfigurationAdded(ILaunchConfiguration configuration) {
+    }
+
+    public void launchConfigurationChanged(ILaunchConfiguration configuration) {
+      if (!configuration.isWorkingCopy() && name.equals(configuration.getName())) {
+        saves.incrementAndGet();
+      }
+    }
+
+    public void launchConfigurationRemoved(ILaunchConfiguration configuration) {
+    }
+  }
+
+  private final LaunchConfigurationProcessorTestingHelper helper = new LaunchConfigurationProcessorTestingHelper();
+
+  @Override
+  public void setUp() throws Exception {
+    GwtTestUtilities.setUp();
+
+    GaeProjectTestUtil.addDefaultSdk();
+    GwtRuntimeTestUtilities.addDefaultRuntime();
+
+    helper.setUp(LaunchConfigurationUpdaterTest.class.getSimpleName(),
+        new GwtEnablingProjectCreationParticipant(),
+        new GaeEnablingProjectCreationParticipant());
+  }
+
+  public void testChangedConfigurationIsSaved() throws Exception {
+    ILaunchConfigurationWorkingCopy launchConfigWc = helper.getLaunchConfig();
+    launchConfigWc.setAttribute(
+        IJavaLaunchConfigurationConstants.ATTR_PROGRAM_ARGUMENTS, "");
+    ILaunchConfiguration launchConfig = launchConfigWc.doSave();
+    JobsUtilities.waitForIdle();
+
+    SaveCounter counter = new SaveCounter(launchConfig);
+    ILaunchManager manager = DebugPlugin.getDefault().getLaunchManager();
+    manager.addLaunchConfigurationListener(counter);
+    try {
+      assertTrue(new LaunchConfigurationUpdater(launchConfig,
+          getJavaProject()).update());
+      assertEquals(1, counter.saves.get());
+    } finally {
+      manager.removeLaunchConfigurationListener(counter);
+    }
+
+    assertTrue(LaunchConfigurationProcessorUtilities.parseProgramArgs(
+        launchConfig).contains("-war"));
+  }
+
+  public void testUnchangedConfigurationIsNotSaved() throws Exception {
+    ILaunchConfiguration launchConfig = helper.getLaunchConfig().getOriginal();
+
+    // Bring the launch configuration up to date first
+    new LaunchConfigurationUpdater(launchConfig, getJavaProject()).update();
+    JobsUtilities.waitForIdle();
+
+    SaveCounter counter = new SaveCounter(launchConfig);
+    ILaunchManager manager = DebugPlugin.getDefault().getLaunchManager();
+    manager.addLaunchConfigurationListener(counter);
+    try {
+      assertFalse(new LaunchConfigurationUpdater(launchConfig,
+          getJavaProject()).update());
+      assertEquals(0, counter.saves.get());
+    } finally {
+      manager.removeLaunchConfigurationListener(counter);
+    }
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    helper.tearDown();
+  }
+
+  private IJavaProject getJavaProject() {
+    return JavaCore.create(helper.getProject());
+  }
+}
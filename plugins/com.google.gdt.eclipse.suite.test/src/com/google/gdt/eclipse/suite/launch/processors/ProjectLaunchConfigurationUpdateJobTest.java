@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.suite.launch.processors;
+
+import com.google.gcp.eclipse.testing.ProjectTestUtil;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.IJavaProject;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests that {@link ProjectLaunchConfigurationUpdateJob} coalesces update
+ * requests.
+ */
+public class ProjectLaunchConfigurationUpdateJobTest extends TestCase {
+
+  /**
+   * Counts the updates instead of updating the launch configurations.
+   */
+  private static class CountingUpdateJob extends
+      ProjectLaunchConfigurationUpdateJob {
+    private final AtomicInteger updates = new AtomicInteger();
+
+    public CountingUpdateJob(IProject project) {
+      super(project);
+    }
+
+    @Override
+    void updateLaunchConfigurations(IJavaProject javaProject,
+        IProgressMonitor monitor) {
+      updates.incrementAndGet();
+    }
+  }
+
+  private IProject project;
+
+  public void testBurstOfRequestsIsOneUpdate() throws Exception {
+    CountingUpdateJob job = new CountingUpdateJob(project);
+    for (int i = 0; i < 10; i++) {
+      job.requestUpdate();
+    }
+    job.join();
+    assertEquals(1, job.updates.get());
+
+    // A later request is not lost
+    job.requestUpdate();
+    job.join();
+    assertEquals(2, job.updates.get());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    project = ProjectTestUtil.createProject(
+        ProjectLaunchConfigurationUpdateJobTest.class.getSimpleName()).getProject();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    project.delete(true, true, null);
+  }
+}
@@ -18,6 +18,7 @@ import com.google.gdt.eclipse.core.CorePluginLog;
 import com.google.gdt.eclipse.core.extensions.ExtensionQuery;
 import com.google.gdt.eclipse.core.extensions.ExtensionQuery.Data;
 import com.google.gdt.eclipse.core.jobs.DownloadJob;
+import com.google.gdt.eclipse.core.update.internal.core.CoalescingTaskQueue;
 import com.google.gdt.eclipse.core.update.internal.core.DailyUpdateCheckStrategy;
 import com.google.gdt.eclipse.core.update.internal.core.UpdateCheckStrategy;
 import com.google.gdt.eclipse.suite.preferences.GdtPreferences;
@@ -33,12 +34,21 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles update checks for the plugin.
  */
 public class FeatureUpdateManager implements DownloadJobCreator {
 
+  /**
+   * The minimum time between two update checks requested through
+   * {@link #requestUpdateCheck()}.
+   */
+  private static final long UPDATE_CHECK_REQUEST_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private static final String UPDATE_CHECK_TASK_KEY = "updateCheck";
+
   protected static File createTmpFile() throws IOException {
     File tempFile = File.createTempFile("site", "xml");
     tempFile.deleteOnExit();
@@ -61,6 +71,10 @@ public class FeatureUpdateManager implements DownloadJobCreator {
 
   private final UpdateCheckStrategy updateCheckStrategy = new DailyUpdateCheckStrategy();
 
+  private final CoalescingTaskQueue taskQueue;
+
+  private volatile long nextUpdateCheckRequestMillis;
+
   /**
    * Constructs an instance with a generator for an update site URL, and a
    * {@link FeatureUpdateCheckersMap}.
@@ -69,12 +83,15 @@ public class FeatureUpdateManager implements DownloadJobCreator {
    * @param updateCheckersMap if the update site URL has the string provided by
    *          the key of the UpdateSiteToken then the corresponding checker
    *          scans the update site to determine if an update is available.
+   * @param taskQueue the queue running update checks requested through
+   *          {@link #requestUpdateCheck()}
    */
   public FeatureUpdateManager(UpdateSiteURLGenerator urlGenerator,
-      FeatureUpdateCheckersMap updateCheckersMap) {
+      FeatureUpdateCheckersMap updateCheckersMap, CoalescingTaskQueue taskQueue) {
 
     this.updateCheckersMap = updateCheckersMap;
     this.urlGenerator = urlGenerator;
+    this.taskQueue = taskQueue;
     downloadJobs = new ArrayList<DownloadJob>();
   }
 
@@ -140,6 +157,26 @@ public class FeatureUpdateManager implements DownloadJobCreator {
     }
   }
 
+  /**
+   * Requests an update check without blocking the caller. Requests are
+   * throttled in memory so that frequent callers (such as builds) only pay for
+   * a time comparison, and the check itself runs on the background task queue.
+   */
+  public void requestUpdateCheck() {
+    long now = System.currentTimeMillis();
+    if (now < nextUpdateCheckRequestMillis) {
+      return;
+    }
+    nextUpdateCheckRequestMillis = now + UPDATE_CHECK_REQUEST_INTERVAL_MILLIS;
+
+    taskQueue.execute(UPDATE_CHECK_TASK_KEY, new Runnable() {
+      @Override
+      public void run() {
+        checkForUpdates();
+      }
+    });
+  }
+
   @Override
   public DownloadJob createDownloadJob(final File tempFile,
       UpdateSiteURLGenerator generator) {
@@ -20,6 +20,7 @@ import com.google.gdt.eclipse.core.Logger;
 import com.google.gdt.eclipse.core.PluginProperties;
 import com.google.gdt.eclipse.core.sdk.Sdk;
 import com.google.gdt.eclipse.core.sdk.SdkUtils;
+import com.google.gdt.eclipse.core.update.internal.core.CoalescingTaskQueue;
 import com.google.gdt.eclipse.core.update.internal.core.FeatureUpdateChecker;
 import com.google.gdt.eclipse.core.update.internal.core.FeatureUpdateChecker.UpdateComputer;
 import com.google.gdt.eclipse.core.update.internal.core.FeatureUpdateChecker.UpdateInfo;
@@ -78,6 +79,8 @@ public class GdtExtPlugin extends AbstractGooglePlugin {
   private static FeatureUpdateManager featureUpdateManager;
   private static Logger logger;
   private static AnalyticsPingManager analyticsPingManager;
+  private static CoalescingTaskQueue backgroundTaskQueue;
+  private static SdkVersionSummary sdkVersionSummary;
   private static GdtExtPlugin plugin;
 
   static {
@@ -95,6 +98,13 @@ public class GdtExtPlugin extends AbstractGooglePlugin {
     return plugin;
   }
 
+  /**
+   * @return the queue running update checks and usage pings in the background
+   */
+  public static CoalescingTaskQueue getBackgroundTaskQueue() {
+    return backgroundTaskQueue;
+  }
+
   public static FeatureUpdateManager getFeatureUpdateManager() {
     return featureUpdateManager;
   }
@@ -118,6 +128,10 @@ public class GdtExtPlugin extends AbstractGooglePlugin {
     return logger;
   }
 
+  public static SdkVersionSummary getSdkVersionSummary() {
+    return sdkVersionSummary;
+  }
+
   public static PingManager getAnalyticsPingManager() {
     return analyticsPingManager;
   }
@@ -129,6 +143,10 @@ public class GdtExtPlugin extends AbstractGooglePlugin {
     plugin = this;
     logger = new Logger(this);
 
+    backgroundTaskQueue = new CoalescingTaskQueue("GPE Update Checks");
+    sdkVersionSummary = new SdkVersionSummary();
+    sdkVersionSummary.start();
+
     initializeFeatureUpdateManager();
   }
 
@@ -144,6 +162,16 @@ public class GdtExtPlugin extends AbstractGooglePlugin {
       analyticsPingManager = null;
     }
 
+    if (sdkVersionSummary != null) {
+      sdkVersionSummary.stop();
+      sdkVersionSummary = null;
+    }
+
+    if (backgroundTaskQueue != null) {
+      backgroundTaskQueue.shutdown();
+      backgroundTaskQueue = null;
+    }
+
     plugin = null;
     logger = null;
 
@@ -165,8 +193,7 @@ public class GdtExtPlugin extends AbstractGooglePlugin {
     FeatureUpdateChecker gaeSdkChecker = new FeatureUpdateChecker(new UpdateComputer() {
       @Override
       public UpdateInfo checkSiteXMLForUpdates(Element siteXMLRootElem) {
-        GaeMaxSdkVersionComputer maxVersionComputer = new GaeMaxSdkVersionComputer();
-        String maxAppEngineSdkVersion = maxVersionComputer.computeMaxSdkVersion(getJavaProjects());
+        String maxAppEngineSdkVersion = sdkVersionSummary.getMaxGaeSdkVersion();
         if (maxAppEngineSdkVersion == null) {
           /*
            * Doesn't look like the App Engine SDK is being used in the
@@ -185,8 +212,7 @@ public class GdtExtPlugin extends AbstractGooglePlugin {
     FeatureUpdateChecker gwtSdkChecker = new FeatureUpdateChecker(new UpdateComputer() {
       @Override
       public UpdateInfo checkSiteXMLForUpdates(Element siteXMLRootElem) {
-        GwtMaxSdkVersionComputer maxVersionComputer = new GwtMaxSdkVersionComputer();
-        String maxGwtSdkVersion = maxVersionComputer.computeMaxSdkVersion(getJavaProjects());
+        String maxGwtSdkVersion = sdkVersionSummary.getMaxGwtSdkVersion();
         if (maxGwtSdkVersion == null) {
           /*
            * Doesn't look like the GWT SDK is being used in the workspace;
@@ -220,8 +246,10 @@ public class GdtExtPlugin extends AbstractGooglePlugin {
 
     UpdateSiteURLGenerator generator = new UpdateSiteURLGenerator();
 
-    featureUpdateManager = new FeatureUpdateManager(generator, updateCheckersMap);
-    analyticsPingManager = new AnalyticsPingManager(generator);
+    featureUpdateManager = new FeatureUpdateManager(generator, updateCheckersMap,
+        backgroundTaskQueue);
+    analyticsPingManager = new AnalyticsPingManager(generator, backgroundTaskQueue,
+        sdkVersionSummary);
   }
 
 }
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.suite.update;
+
+import com.google.gdt.eclipse.core.ClasspathChangeDeltas;
+import com.google.gdt.eclipse.suite.update.GdtExtPlugin.GaeMaxSdkVersionComputer;
+import com.google.gdt.eclipse.suite.update.GdtExtPlugin.GwtMaxSdkVersionComputer;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Caches the maximum GWT and App Engine SDK versions used in the workspace.
+ * Computing them resolves the classpath of every project, so the result is
+ * kept until a Java project is added, removed, opened, closed or has its
+ * classpath changed. The versions are computed without holding a lock, since
+ * resolving classpaths may wait for the Java model while its listeners wait to
+ * invalidate the summary.
+ */
+public class SdkVersionSummary {
+
+  /**
+   * The versions found by one computation.
+   */
+  private static final class Versions {
+    private final String maxGwtSdkVersion;
+
+    private final String maxGaeSdkVersion;
+
+    Versions(String maxGwtSdkVersion, String maxGaeSdkVersion) {
+      this.maxGwtSdkVersion = maxGwtSdkVersion;
+      this.maxGaeSdkVersion = maxGaeSdkVersion;
+    }
+  }
+
+  private final IElementChangedListener classpathChangeListener = new IElementChangedListener() {
+    public void elementChanged(ElementChangedEvent event) {
+      if (ClasspathChangeDeltas.affectsClasspaths(event.getDelta())) {
+        invalidate();
+      }
+    }
+  };
+
+  /**
+   * Counts the invalidations, so a computation can tell whether it overlapped
+   * one. Guarded by this.
+   */
+  private int generation;
+
+  private volatile Versions versions;
+
+  /**
+   * @return the maximum App Engine SDK version, or <code>null</code> if no
+   *         project uses App Engine
+   */
+  public String getMaxGaeSdkVersion() {
+    return getVersions().maxGaeSdkVersion;
+  }
+
+  /**
+   * @return the maximum GWT SDK version, or <code>null</code> if no project
+   *         uses GWT
+   */
+  public String getMaxGwtSdkVersion() {
+    return getVersions().maxGwtSdkVersion;
+  }
+
+  /**
+   * @return a description of the SDKs in use, as reported to Analytics
+   */
+  public String getDescription() {
+    Versions current = getVersions();
+    String maxGwtSdkVersion = current.maxGwtSdkVersion;
+    String maxGaeSdkVersion = current.maxGaeSdkVersion;
+    if (maxGwtSdkVersion == null) {
+      if (maxGaeSdkVersion == null) {
+        return "none";
+      } else {
+        return "GAE " + maxGaeSdkVersion;
+      }
+    } else {
+      if (maxGaeSdkVersion == null) {
+        return "GWT " + maxGwtSdkVersion;
+      } else {
+        return "both GWT " + maxGwtSdkVersion + " and GAE " + maxGaeSdkVersion;
+      }
+    }
+  }
+
+  public synchronized void invalidate() {
+    generation++;
+    versions = null;
+  }
+
+  public void start() {
+    JavaCore.addElementChangedListener(classpathChangeListener,
+        ElementChangedEvent.POST_CHANGE);
+  }
+
+  public void stop() {
+    JavaCore.removeElementChangedListener(classpathChangeListener);
+    invalidate();
+  }
+
+  private Versions getVersions() {
+    Versions current = versions;
+    if (current != null) {
+      return current;
+    }
+
+    int computeGeneration;
+    synchronized (this) {
+      computeGeneration = generation;
+    }
+    IJavaProject[] projects = GdtExtPlugin.getJavaProjects();
+    current = new Versions(
+        new GwtMaxSdkVersionComputer().computeMaxSdkVersion(projects),
+        new GaeMaxSdkVersionComputer().computeMaxSdkVersion(projects));
+    synchronized (this) {
+      // A computation overlapping a classpath change may be stale, so it only
+      // serves this call
+      if (generation == computeGeneration) {
+        versions = current;
+      }
+    }
+    return current;
+  }
+}
@@ -26,7 +26,8 @@ import org.eclipse.jdt.core.compiler.CompilationParticipant;
 /**
  * A compilation participant that is used to trigger an update check of the GDT
  * Plugin's feature whenever a Java build is triggered on a project, and the
- * project has either the GWT or GAE natures (or both).
+ * project has either the GWT or GAE natures (or both). The check itself is
+ * throttled and runs in the background, so builds never wait on it.
  */
 public class UpdateTriggerCompilationParticipant extends CompilationParticipant {
 
@@ -36,7 +37,7 @@ public class UpdateTriggerCompilationParticipant extends CompilationParticipant
       if (project.exists()) {
         if (GWTNature.isGWTProject(project.getProject())
             || project.getProject().hasNature(GaeNature.NATURE_ID)) {
-          GdtExtPlugin.getFeatureUpdateManager().checkForUpdates();
+          GdtExtPlugin.getFeatureUpdateManager().requestUpdateCheck();
           return true;
         }
       }
@@ -21,26 +21,22 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.gdt.eclipse.appengine.swarm.AppEngineSwarmPlugin;
 import com.google.gdt.eclipse.core.CorePlugin;
+import com.google.gdt.eclipse.core.update.internal.core.CoalescingTaskQueue;
+import com.google.gdt.eclipse.core.update.internal.core.PingSender;
 import com.google.gdt.eclipse.core.update.internal.core.ProjectInformationUtils;
 import com.google.gdt.eclipse.drive.DrivePlugin;
 import com.google.gdt.eclipse.login.GoogleLogin;
 import com.google.gdt.eclipse.managedapis.ManagedApiPlugin;
 import com.google.gdt.eclipse.suite.GdtPlugin;
 import com.google.gdt.eclipse.suite.update.GdtExtPlugin;
-import com.google.gdt.eclipse.suite.update.GdtExtPlugin.GaeMaxSdkVersionComputer;
-import com.google.gdt.eclipse.suite.update.GdtExtPlugin.GwtMaxSdkVersionComputer;
+import com.google.gdt.eclipse.suite.update.SdkVersionSummary;
 import com.google.gdt.eclipse.suite.update.UpdateSiteURLGenerator;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.Platform;
-import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.update.internal.configurator.VersionedIdentifier;
 
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Map;
@@ -87,8 +83,20 @@ public class AnalyticsPingManager implements PingManager {
 
   private final UpdateSiteURLGenerator urlGenerator;
 
-  public AnalyticsPingManager(UpdateSiteURLGenerator urlGenerator) {
+  private final CoalescingTaskQueue taskQueue;
+
+  private final SdkVersionSummary sdkVersionSummary;
+
+  /**
+   * @param urlGenerator generates the project details reported with pings
+   * @param taskQueue the queue on which the pings are sent
+   * @param sdkVersionSummary the SDK versions reported with every ping
+   */
+  public AnalyticsPingManager(UpdateSiteURLGenerator urlGenerator, CoalescingTaskQueue taskQueue,
+      SdkVersionSummary sdkVersionSummary) {
     this.urlGenerator = urlGenerator;
+    this.taskQueue = taskQueue;
+    this.sdkVersionSummary = sdkVersionSummary;
   }
 
   @Override
@@ -186,7 +194,7 @@ public class AnalyticsPingManager implements PingManager {
     return updateSiteUrl.getQuery();
   }
 
-  private static void sendPing(
+  private void sendPing(
       String pluginName, Action action, @Nullable String label, @Nullable Integer value,
       CustomDimensionAssignment... customDimensions) {
     Map<String, String> parametersMap = Maps.newHashMap(STANDARD_PARAMETERS);
@@ -214,30 +222,24 @@ public class AnalyticsPingManager implements PingManager {
         parametersMap,
         CustomDimensionName.IS_SIGNED_IN,
         Boolean.toString(GoogleLogin.getInstance().isLoggedIn()));
-    setCustomDimension(parametersMap, CustomDimensionName.SDK_VERSIONS, getSdkVersions());
+    setCustomDimension(
+        parametersMap, CustomDimensionName.SDK_VERSIONS, sdkVersionSummary.getDescription());
     for (CustomDimensionAssignment nameValuePair : customDimensions) {
       setCustomDimension(parametersMap, nameValuePair.getName(), nameValuePair.getValue());
     }
     sendPostRequest(parametersMap);
   }
 
-  private static String getSdkVersions() {
-    IJavaProject[] projects = GdtExtPlugin.getJavaProjects();
-    String maxGwtSdkVersion = new GwtMaxSdkVersionComputer().computeMaxSdkVersion(projects);
-    String maxGaeSdkVersion = new GaeMaxSdkVersionComputer().computeMaxSdkVersion(projects);
-    if (maxGwtSdkVersion == null) {
-      if (maxGaeSdkVersion == null) {
-        return "none";
-      } else {
-        return "GAE " + maxGaeSdkVersion;
-      }
-    } else {
-      if (maxGaeSdkVersion == null) {
-        return "GWT " + maxGwtSdkVersion;
-      } else {
-        return "both GWT " + maxGwtSdkVersion + " and GAE " + maxGaeSdkVersion;
+  /**
+   * Sends the ping on the background task queue so the caller never waits on the network.
+   */
+  private void sendPostRequest(final Map<String, String> parametersMap) {
+    taskQueue.execute(new Runnable() {
+      @Override
+      public void run() {
+        doSendPostRequest(parametersMap);
       }
-    }
+    });
   }
 
   private static void setCustomDimension(
@@ -245,30 +247,14 @@ public class AnalyticsPingManager implements PingManager {
     map.put("cd" + dimension.getIndex(), value);
   }
 
-  private static void sendPostRequest(Map<String, String> parametersMap) {
+  private static void doSendPostRequest(Map<String, String> parametersMap) {
     GdtExtPlugin.getLogger().logInfo("Sending POST request to Analytics: " + parametersMap);
     String parametersString = getParametersString(parametersMap);
     try {
-      URL url = new URL(ANALYTICS_COLLECTION_URL);
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-      connection.setDoOutput(true);
-      connection.setRequestMethod("POST");
-      connection.setRequestProperty(
-          "Content-Length", Integer.toString(parametersString.length()));
       GdtExtPlugin.getLogger().logInfo(
           "Analytics ping request parameters: " + parametersString);
-      try {
-        DataOutputStream out = new DataOutputStream(connection.getOutputStream());
-        try {
-          out.writeBytes(parametersString);
-          out.flush();
-        } finally {
-          out.close();
-        }
-      } finally {
-        logPostResponse(connection);
-        connection.disconnect();
-      }
+      String response = PingSender.post(new URL(ANALYTICS_COLLECTION_URL), parametersString);
+      GdtExtPlugin.getLogger().logInfo("Analytics ping response: " + response);
     } catch (IOException e) {
       GdtExtPlugin.getLogger().logError(e, "Error trying to ping Analytics");
     }
@@ -290,27 +276,6 @@ public class AnalyticsPingManager implements PingManager {
     return resultBuilder.toString();
   }
 
-  private static void logPostResponse(HttpURLConnection connection)  throws IOException {
-    int responseCode = connection.getResponseCode();
-    StringBuilder responseBuilder = new StringBuilder();
-    responseBuilder.append("Analytics ping response: ");
-    responseBuilder.append(responseCode);
-    responseBuilder.append(": ");
-    responseBuilder.append(connection.getResponseMessage());
-    if (responseCode == 200) {
-      responseBuilder.append('\n');
-      BufferedReader responseContentReader =
-          new BufferedReader(new InputStreamReader(connection.getInputStream()));
-      String inputLine = responseContentReader.readLine();
-      while (inputLine != null) {
-        responseBuilder.append(inputLine);
-        inputLine = responseContentReader.readLine();
-      }
-      responseContentReader.close();
-    }
-    GdtExtPlugin.getLogger().logInfo(responseBuilder.toString());
-  }
-
   // Each element of this enum corresponds to a custom dimensions defined in the Analytics web UI,
   // The constructor argument specifies the index of the custom dimension.
   private enum CustomDimensionName {
@@ -53,6 +53,7 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
@@ -338,7 +339,8 @@ public class SpeedTracerLaunchDelegate extends JavaLaunchDelegate {
       try {
         GWTCompileRunner.compileWithCancellationSupport(
             JavaCore.create(project), warOutLocation, compileSettings,
-            consoleOutputStream, terminateAction, monitor, terminateAction);
+            consoleOutputStream, terminateAction,
+            new SubProgressMonitor(monitor, 100), terminateAction);
       } finally {
         try {
           assert (consoleOutputStream != null);
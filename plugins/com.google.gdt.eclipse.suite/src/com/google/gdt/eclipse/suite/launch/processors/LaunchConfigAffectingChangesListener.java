@@ -16,7 +16,6 @@ package com.google.gdt.eclipse.suite.launch.processors;
 
 import com.google.gdt.eclipse.core.CorePluginLog;
 import com.google.gdt.eclipse.core.JavaProjectUtilities;
-import com.google.gdt.eclipse.core.launch.LaunchConfigurationUtilities;
 import com.google.gdt.eclipse.core.properties.WebAppProjectProperties;
 import com.google.gdt.eclipse.core.properties.WebAppProjectProperties.IWarOutLocationChangedListener;
 import com.google.gdt.eclipse.suite.GdtPlugin;
@@ -28,12 +27,9 @@ import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
-import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences.INodeChangeListener;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
@@ -54,13 +50,18 @@ import org.eclipse.jdt.launching.JavaRuntime;
 import org.osgi.service.prefs.BackingStoreException;
 import org.osgi.service.prefs.Preferences;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Updates relevant launch configurations when a project's classpath or natures
  * change.
+ * <p>
+ * Changes are coalesced per project by {@link ProjectLaunchConfigurationUpdateJob},
+ * so a burst of classpath, nature and preference changes results in a single
+ * update of each affected project's launch configurations.
  */
 public enum LaunchConfigAffectingChangesListener implements
     IElementChangedListener, IResourceChangeListener,
@@ -68,24 +69,6 @@ public enum LaunchConfigAffectingChangesListener implements
     IPreferenceChangeListener, INodeChangeListener {
   INSTANCE;
 
-  private static void asyncUpdate(
-      final List<LaunchConfigurationUpdater> launchConfigurationUpdaters) {
-    WorkspaceJob job = new WorkspaceJob("Updating GPE launch configurations") {
-
-      @Override
-      public IStatus runInWorkspace(IProgressMonitor monitor)
-          throws CoreException {
-        syncUpdate(launchConfigurationUpdaters);
-        return Status.OK_STATUS;
-      }
-    };
-
-    job.setSystem(true);
-    // Use the build rule, since it locks the whole workspace
-    job.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
-    job.schedule();
-  }
-
   private static void syncUpdate(
       final List<LaunchConfigurationUpdater> launchConfigurationUpdaters) {
     for (LaunchConfigurationUpdater updater : launchConfigurationUpdaters) {
@@ -98,6 +81,12 @@ public enum LaunchConfigAffectingChangesListener implements
     }
   }
 
+  /**
+   * The update jobs of the existing projects whose launch configurations have
+   * been updated since the listener started.
+   */
+  private final ConcurrentMap<IProject, ProjectLaunchConfigurationUpdateJob> updateJobs = new ConcurrentHashMap<IProject, ProjectLaunchConfigurationUpdateJob>();
+
   public void added(NodeChangeEvent event) {
     ((IEclipsePreferences) event.getChild()).addPreferenceChangeListener(this);
     ((IEclipsePreferences) event.getChild()).addNodeChangeListener(this);
@@ -183,13 +172,22 @@ public enum LaunchConfigAffectingChangesListener implements
     }
 
     for (IResourceDelta delta : rootDelta.getAffectedChildren()) {
-      // The description includes natures (see IProjectDescription)
-      if (delta.getFlags() == IResourceDelta.DESCRIPTION) {
-        IResource resource = delta.getResource();
-        if (resource.getType() != IResource.PROJECT) {
-          continue;
+      IResource resource = delta.getResource();
+      if (resource.getType() != IResource.PROJECT) {
+        continue;
+      }
+
+      if (delta.getKind() == IResourceDelta.REMOVED) {
+        // Deleted or moved, so there is nothing left to update
+        ProjectLaunchConfigurationUpdateJob job = updateJobs.remove(resource);
+        if (job != null) {
+          job.cancel();
         }
+        continue;
+      }
 
+      // The description includes natures (see IProjectDescription)
+      if (delta.getFlags() == IResourceDelta.DESCRIPTION) {
         IJavaProject javaProject = JavaCore.create((IProject) resource);
         if (!javaProject.exists()) {
           continue;
@@ -234,6 +232,9 @@ public enum LaunchConfigAffectingChangesListener implements
 
     JavaCore.removeElementChangedListener(this);
     ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+
+    Job.getJobManager().cancel(ProjectLaunchConfigurationUpdateJob.class);
+    updateJobs.clear();
   }
 
   public void updateLaunchConfigurations(IProject project) {
@@ -248,22 +249,17 @@ public enum LaunchConfigAffectingChangesListener implements
   }
 
   private void updateLaunchConfigs(IJavaProject javaProject) {
-    try {
-      List<ILaunchConfiguration> launchConfigs = LaunchConfigurationUtilities.getLaunchConfigurations(
-          javaProject.getProject(),
-          LaunchConfigurationUpdater.APPLICABLE_LAUNCH_CONFIGURATION_TYPE_IDS.toArray(new String[0]));
-      ArrayList<LaunchConfigurationUpdater> launchConfigurationUpdaters = new ArrayList<LaunchConfigurationUpdater>();
-      for (ILaunchConfiguration launchConfig : launchConfigs) {
-        launchConfigurationUpdaters.add(new LaunchConfigurationUpdater(
-            launchConfig, javaProject));
+    IProject project = javaProject.getProject();
+    ProjectLaunchConfigurationUpdateJob job = updateJobs.get(project);
+    if (job == null) {
+      ProjectLaunchConfigurationUpdateJob newJob = new ProjectLaunchConfigurationUpdateJob(
+          project);
+      job = updateJobs.putIfAbsent(project, newJob);
+      if (job == null) {
+        job = newJob;
       }
-
-      asyncUpdate(launchConfigurationUpdaters);
-    } catch (CoreException e) {
-      CorePluginLog.logError(
-          e,
-          "Could not update launch configuration after project nature or classpath change");
     }
+    job.requestUpdate();
   }
 
 }
@@ -48,6 +48,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /*
@@ -144,11 +145,14 @@ public class LaunchConfigurationUpdater {
   /**
    * Updates the launch configuration by delegating to each {@link ILaunchConfigurationProcessor}.
    * <p>
-   * This method saves the launch configuration's working copy.
+   * The processors run against a working copy, which is saved only if they changed any of its
+   * attributes.
    *
+   * @return whether the launch configuration was changed
    * @throws CoreException
    */
-  public void update() throws CoreException {
+  public boolean update() throws CoreException {
+    Map<?, ?> originalAttributes = launchConfig.getAttributes();
     ILaunchConfigurationWorkingCopy launchConfigWc = launchConfig.getWorkingCopy();
 
     for (ILaunchConfigurationProcessor processor : PROCESSORS) {
@@ -164,7 +168,12 @@ public class LaunchConfigurationUpdater {
     launchConfigWc.setAttribute(IJavaLaunchConfigurationConstants.ATTR_VM_ARGUMENTS,
         LaunchConfigurationProcessorUtilities.createArgsString(vmArgs));
 
+    if (originalAttributes.equals(launchConfigWc.getAttributes())) {
+      return false;
+    }
+
     launchConfigWc.doSave();
+    return true;
   }
 
   public String validate() {
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.suite.launch.processors;
+
+import com.google.gdt.eclipse.core.CorePluginLog;
+import com.google.gdt.eclipse.core.launch.LaunchConfigurationUtilities;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.MultiRule;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Updates the launch configurations of one project. Requests made while an
+ * update is waiting to run are coalesced into that update, and requests made
+ * while it runs cause one more update afterwards.
+ * <p>
+ * The update only locks the project and the projects holding its shared launch
+ * configuration files, so updates of different projects run concurrently with
+ * each other and with builds of unrelated projects.
+ */
+class ProjectLaunchConfigurationUpdateJob extends Job {
+
+  /**
+   * How long to wait for more changes to the project before updating.
+   */
+  private static final long COALESCING_DELAY_MS = 250;
+
+  private final IProject project;
+
+  private final AtomicBoolean updateRequested = new AtomicBoolean();
+
+  public ProjectLaunchConfigurationUpdateJob(IProject project) {
+    super("Updating GPE launch configurations of " + project.getName());
+    this.project = project;
+    setSystem(true);
+  }
+
+  @Override
+  public boolean belongsTo(Object family) {
+    return family == ProjectLaunchConfigurationUpdateJob.class;
+  }
+
+  /**
+   * Requests an update of the project's launch configurations.
+   */
+  public void requestUpdate() {
+    updateRequested.set(true);
+    schedule(COALESCING_DELAY_MS);
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+    if (!updateRequested.getAndSet(false)) {
+      return Status.OK_STATUS;
+    }
+
+    IJavaProject javaProject = JavaCore.create(project);
+    if (!javaProject.exists()) {
+      return Status.OK_STATUS;
+    }
+
+    try {
+      updateLaunchConfigurations(javaProject, monitor);
+    } catch (CoreException e) {
+      CorePluginLog.logError(e,
+          "Could not update launch configuration after project nature or classpath change");
+    }
+
+    return Status.OK_STATUS;
+  }
+
+  /**
+   * Updates each of the project's launch configurations, saving the ones that
+   * changed.
+   */
+  void updateLaunchConfigurations(final IJavaProject javaProject,
+      IProgressMonitor monitor) throws CoreException {
+    final List<ILaunchConfiguration> launchConfigs = LaunchConfigurationUtilities.getLaunchConfigurations(
+        project,
+        LaunchConfigurationUpdater.APPLICABLE_LAUNCH_CONFIGURATION_TYPE_IDS.toArray(new String[0]));
+    if (launchConfigs.isEmpty()) {
+      return;
+    }
+
+    IWorkspace workspace = ResourcesPlugin.getWorkspace();
+    workspace.run(new IWorkspaceRunnable() {
+      public void run(IProgressMonitor monitor) throws CoreException {
+        for (ILaunchConfiguration launchConfig : launchConfigs) {
+          try {
+            new LaunchConfigurationUpdater(launchConfig, javaProject).update();
+          } catch (CoreException ce) {
+            CorePluginLog.logError(ce, "Could not update launch configuration "
+                + launchConfig.getName() + " .");
+          }
+        }
+      }
+    }, computeRule(launchConfigs), IWorkspace.AVOID_UPDATE, monitor);
+  }
+
+  /**
+   * Returns a rule covering the project and the projects holding the shared
+   * launch configuration files that may be rewritten.
+   */
+  private ISchedulingRule computeRule(List<ILaunchConfiguration> launchConfigs) {
+    ISchedulingRule rule = project;
+    for (ILaunchConfiguration launchConfig : launchConfigs) {
+      IFile file = launchConfig.getFile();
+      if (file != null) {
+        rule = MultiRule.combine(rule, file.getProject());
+      }
+    }
+    return rule;
+  }
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.compile;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.launching.IRuntimeClasspathEntry;
+import org.eclipse.jdt.launching.JavaRuntime;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the shared part of the {@link CompileFingerprintStore} fingerprints and
+ * the resolution of the compiler's output directory.
+ */
+public class CompileFingerprintStoreTest extends TestCase {
+
+  private static final List<String> NO_ARGS = Collections.emptyList();
+
+  private File classesDir;
+
+  private List<IRuntimeClasspathEntry> classpath;
+
+  public void testSharedFingerprintDependsOnArguments() {
+    String fingerprint = CompileFingerprintStore.computeSharedFingerprint(
+        classpath, NO_ARGS, Arrays.asList("-style", "OBF"));
+    assertEquals(fingerprint, CompileFingerprintStore.computeSharedFingerprint(
+        classpath, NO_ARGS, Arrays.asList("-style", "OBF")));
+    assertFalse(fingerprint.equals(CompileFingerprintStore.computeSharedFingerprint(
+        classpath, NO_ARGS, Arrays.asList("-style", "PRETTY"))));
+    assertFalse(fingerprint.equals(CompileFingerprintStore.computeSharedFingerprint(
+        classpath, Arrays.asList("-Dgwt.foo=bar"),
+        Arrays.asList("-style", "OBF"))));
+  }
+
+  public void testSharedFingerprintDependsOnClasspathFiles() throws IOException {
+    String fingerprint = CompileFingerprintStore.computeSharedFingerprint(
+        classpath, NO_ARGS, NO_ARGS);
+
+    File classFile = new File(classesDir, "Foo.class");
+    writeFile(classFile, "changed");
+    String changedFingerprint = CompileFingerprintStore.computeSharedFingerprint(
+        classpath, NO_ARGS, NO_ARGS);
+    assertFalse(fingerprint.equals(changedFingerprint));
+
+    writeFile(new File(classesDir, "Bar.class"), "added");
+    assertFalse(changedFingerprint.equals(
+        CompileFingerprintStore.computeSharedFingerprint(classpath, NO_ARGS,
+            NO_ARGS)));
+  }
+
+  public void testWarDirectoryDefaultsToCompilerDefault() {
+    File workingDirectory = new File("project").getAbsoluteFile();
+    assertEquals(new File(workingDirectory,
+        CompileFingerprintStore.DEFAULT_WAR_DIRECTORY),
+        CompileFingerprintStore.resolveWarDirectory(
+            Arrays.asList("-style", "OBF"), workingDirectory));
+  }
+
+  public void testWarDirectoryIsResolvedAgainstWorkingDirectory() {
+    File workingDirectory = new File("project").getAbsoluteFile();
+    assertEquals(new File(workingDirectory, "out"),
+        CompileFingerprintStore.resolveWarDirectory(
+            Arrays.asList("-war", "out"), workingDirectory));
+
+    File absolute = new File("elsewhere").getAbsoluteFile();
+    assertEquals(absolute, CompileFingerprintStore.resolveWarDirectory(
+        Arrays.asList("-war", absolute.getPath()), workingDirectory));
+  }
+
+  public void testWarDirectoryFromExtraArgumentsWins() {
+    File workingDirectory = new File("project").getAbsoluteFile();
+    File warLocation = new File(workingDirectory, "war");
+    // The extra arguments follow the -war of the project's WAR directory
+    assertEquals(new File(workingDirectory, "other"),
+        CompileFingerprintStore.resolveWarDirectory(Arrays.asList("-war",
+            warLocation.getPath(), "-war", "other"), workingDirectory));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    classesDir = File.createTempFile("classes", "");
+    assertTrue(classesDir.delete());
+    assertTrue(classesDir.mkdir());
+    writeFile(new File(classesDir, "Foo.class"), "original");
+    classpath = Collections.singletonList(
+        JavaRuntime.newArchiveRuntimeClasspathEntry(
+            Path.fromOSString(classesDir.getAbsolutePath())));
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (File file : classesDir.listFiles()) {
+      file.delete();
+    }
+    classesDir.delete();
+  }
+
+  private void writeFile(File file, String contents) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(contents.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.compile;
+
+import com.google.gwt.eclipse.core.compile.CompileProgressTracker.ModuleTimings;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Tests {@link CompilerOutputParser} and the {@link CompileProgressTracker} it
+ * feeds.
+ */
+public class CompilerOutputParserTest extends TestCase {
+
+  /**
+   * Counts the work reported to it.
+   */
+  private static class CountingProgressMonitor extends NullProgressMonitor {
+    private int work;
+
+    @Override
+    public void worked(int work) {
+      this.work += work;
+    }
+  }
+
+  /**
+   * Advances the clock by one second on every reading.
+   */
+  private static class SteppingTracker extends CompileProgressTracker {
+    private long now;
+
+    SteppingTracker(CountingProgressMonitor monitor, int localWorkers) {
+      super(monitor, localWorkers);
+    }
+
+    @Override
+    long currentTimeMillis() {
+      now += 1000;
+      return now;
+    }
+  }
+
+  private static final String COMPILER_OUTPUT = "Compiling module com.example.Foo\r\n"
+      + "   Compiling 4 permutations\r\n"
+      + "      Compiling permutation 0...\r\n"
+      + "      Compiling permutation 1...\r\n"
+      + "      Compiling permutation 2...\r\n"
+      + "      Compiling permutation 3...\r\n"
+      + "   Compile of permutations succeeded\r\n"
+      + "Linking into /tmp/war/foo\r\n"
+      + "   Link succeeded\r\n"
+      + "   Compilation succeeded -- 8.000s\r\n";
+
+  private CountingProgressMonitor monitor;
+
+  private ByteArrayOutputStream console;
+
+  public void testFailedCompile() throws IOException {
+    CompileProgressTracker tracker = new SteppingTracker(monitor, 1);
+    parse(tracker, "Compiling module com.example.Foo\n"
+        + "   Validating units:\n"
+        + "      [ERROR] Errors in 'file:/src/com/example/client/Foo.java'\n"
+        + "         [ERROR] Line 3: No source code is available\n");
+    tracker.finish();
+
+    List<ModuleTimings> timings = tracker.getModuleTimings();
+    assertEquals(1, timings.size());
+    assertNull(timings.get(0).isSucceeded());
+    assertEquals(2, timings.get(0).getErrorCount());
+    assertEquals(-1, timings.get(0).getPrecompileMillis());
+  }
+
+  public void testOutputPassesThroughUnchanged() throws IOException {
+    parse(new SteppingTracker(monitor, 1), COMPILER_OUTPUT + "partial");
+    assertEquals(COMPILER_OUTPUT + "partial", console.toString("UTF-8"));
+  }
+
+  public void testPhasesAndProgress() throws IOException {
+    CompileProgressTracker tracker = new SteppingTracker(monitor, 2);
+    parse(tracker, COMPILER_OUTPUT);
+    tracker.finish();
+
+    assertEquals(CompileProgressTracker.WORK_PER_MODULE, monitor.work);
+    assertEquals(2, tracker.getPeakPermutationsInFlight());
+
+    List<ModuleTimings> timings = tracker.getModuleTimings();
+    assertEquals(1, timings.size());
+    ModuleTimings fooTimings = timings.get(0);
+    assertEquals("com.example.Foo", fooTimings.getModule());
+    assertEquals(Boolean.TRUE, fooTimings.isSucceeded());
+    assertEquals(4, fooTimings.getPermutationCount());
+    assertEquals(2, fooTimings.getPeakPermutationsInFlight());
+    // The clock ticks at module start, permutation count, link and finish
+    assertEquals(1000, fooTimings.getPrecompileMillis());
+    assertEquals(1000, fooTimings.getPermutationsMillis());
+    assertEquals(1000, fooTimings.getLinkMillis());
+    assertEquals(3000, fooTimings.getTotalMillis());
+    assertEquals(0, fooTimings.getErrorCount());
+  }
+
+  public void testTimingLogRow() throws IOException {
+    CompileProgressTracker tracker = new SteppingTracker(monitor, 1);
+    parse(tracker, COMPILER_OUTPUT);
+    assertEquals(
+        "2014-01-01T00:00:00+0000,\"my,project\",com.example.Foo,succeeded,"
+            + "1000,4,1000,1,1000,3000,0", CompileTimingLog.toCsvRow(
+            "2014-01-01T00:00:00+0000", "my,project",
+            tracker.getModuleTimings().get(0)));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    monitor = new CountingProgressMonitor();
+    console = new ByteArrayOutputStream();
+  }
+
+  private void parse(CompileProgressTracker tracker, String output)
+      throws IOException {
+    CompilerOutputParser parser = new CompilerOutputParser(console, tracker);
+    byte[] bytes = output.getBytes("UTF-8");
+    // Write in uneven chunks, as a pipe would deliver them
+    for (int i = 0; i < bytes.length; i += 7) {
+      parser.write(bytes, i, Math.min(7, bytes.length - i));
+    }
+    parser.close();
+  }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.compile;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests the sizing helpers of {@link ParallelGWTCompileRunner} and the
+ * {@link LinePrefixingOutputStream} it uses to label compiler output.
+ */
+public class ParallelGWTCompileRunnerTest extends TestCase {
+
+  public void testComputeMaxHeapMegabytes() {
+    assertNull(ParallelGWTCompileRunner.computeMaxHeapMegabytes(2, null));
+    // 16 GB leaves 12 GB usable, split among 4 processes
+    assertEquals(Long.valueOf(3072),
+        ParallelGWTCompileRunner.computeMaxHeapMegabytes(4, 16384L));
+    // Clamped to the minimum and maximum heap sizes
+    assertEquals(Long.valueOf(512),
+        ParallelGWTCompileRunner.computeMaxHeapMegabytes(8, 2048L));
+    assertEquals(Long.valueOf(4096),
+        ParallelGWTCompileRunner.computeMaxHeapMegabytes(1, 65536L));
+  }
+
+  public void testComputePoolSize() {
+    assertEquals(3, ParallelGWTCompileRunner.computePoolSize(4, 3, null, null));
+    assertEquals(2, ParallelGWTCompileRunner.computePoolSize(2, 5, null, null));
+    // 16 GB leaves 12 GB usable, which fits only three 4 GB compilers
+    assertEquals(3,
+        ParallelGWTCompileRunner.computePoolSize(8, 10, 4096L, 16384L));
+    // Always at least one process, even if memory appears too small
+    assertEquals(1,
+        ParallelGWTCompileRunner.computePoolSize(4, 4, 4096L, 1024L));
+  }
+
+  public void testLinePrefixingOutputStream() throws IOException {
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    LinePrefixingOutputStream a = new LinePrefixingOutputStream("[a] ", target);
+    LinePrefixingOutputStream b = new LinePrefixingOutputStream("[b] ", target);
+    a.write("one\ntw".getBytes("UTF-8"));
+    b.write("three\n".getBytes("UTF-8"));
+    a.write("o\n".getBytes("UTF-8"));
+    b.write("partial".getBytes("UTF-8"));
+    b.close();
+    a.close();
+    assertEquals("[a] one\n[b] three\n[a] two\n[b] partial",
+        target.toString("UTF-8"));
+  }
+
+  public void testParseMaxHeapMegabytes() {
+    assertNull(ParallelGWTCompileRunner.parseMaxHeapMegabytes(
+        Collections.<String> emptyList()));
+    assertNull(ParallelGWTCompileRunner.parseMaxHeapMegabytes(
+        Arrays.asList("-Xms256m", "-Dfoo=-Xmx1g")));
+    assertEquals(Long.valueOf(1024), ParallelGWTCompileRunner.parseMaxHeapMegabytes(
+        Arrays.asList("-Xmx1g")));
+    assertEquals(Long.valueOf(2), ParallelGWTCompileRunner.parseMaxHeapMegabytes(
+        Arrays.asList("-Xmx2048k")));
+    // The last argument wins, as it does for the JVM
+    assertEquals(Long.valueOf(768), ParallelGWTCompileRunner.parseMaxHeapMegabytes(
+        Arrays.asList("-Xmx512m", "-Xmx768M")));
+  }
+}
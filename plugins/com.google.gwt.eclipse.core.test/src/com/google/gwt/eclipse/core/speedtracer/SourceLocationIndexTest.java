@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.speedtracer;
+
+import com.google.gwt.eclipse.core.test.AbstractGWTPluginTestCase;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Tests the caching of {@link SourceLocationIndex}.
+ */
+public class SourceLocationIndexTest extends AbstractGWTPluginTestCase {
+
+  /**
+   * Counts the builds, and can invalidate the index while one is running.
+   */
+  private static class CountingIndex extends SourceLocationIndex {
+    private int builds;
+
+    private boolean invalidateDuringBuild;
+
+    @Override
+    Snapshot build() {
+      builds++;
+      Snapshot snapshot = super.build();
+      if (invalidateDuringBuild) {
+        invalidateDuringBuild = false;
+        invalidate();
+      }
+      return snapshot;
+    }
+  }
+
+  private IFile entryPoint;
+
+  private CountingIndex index;
+
+  public void testBuildOverlappingInvalidationIsNotKept() {
+    index.invalidateDuringBuild = true;
+    // The lookup which started the build still uses it
+    assertEquals(entryPoint, index.findFile(entryPoint.getLocation()));
+    assertEquals(1, index.builds);
+
+    assertEquals(entryPoint, index.findFile(entryPoint.getLocation()));
+    assertEquals(2, index.builds);
+    assertEquals(entryPoint, index.findFile(entryPoint.getLocation()));
+    assertEquals(2, index.builds);
+  }
+
+  public void testInvalidateAfterBuild() {
+    IPath location = entryPoint.getLocation();
+    assertEquals(entryPoint, index.findFile(location));
+    assertEquals(entryPoint, index.findFile(location));
+    assertEquals(1, index.builds);
+
+    index.invalidate();
+    assertEquals(entryPoint, index.findFile(location));
+    assertEquals(2, index.builds);
+    assertEquals(entryPoint, index.findFile(location));
+    assertEquals(2, index.builds);
+  }
+
+  public void testUnindexedLocationIsNotFound() {
+    IPath location = getTestProject().getProject().getLocation().removeLastSegments(
+        1).append("NoSuchProject/src/Missing.java");
+    assertNull(index.findFile(location));
+  }
+
+  @Override
+  protected boolean requiresTestProject() {
+    return true;
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    entryPoint = getTestProject().getProject().getFile(
+        "src/" + TEST_PROJECT_SRC_PACKAGE.replace('.', '/') + "/"
+            + TEST_PROJECT_ENTRY_POINT + ".java");
+    assertTrue(entryPoint.exists());
+    index = new CountingIndex();
+  }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.speedtracer;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.gdt.eclipse.core.ResourceUtils;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tests that {@link SymbolManifestGenerator} reuses, adds and removes the
+ * symbol maps in the WAR folder.
+ */
+public class SymbolManifestGeneratorTest extends TestCase {
+
+  private static final String MODULE = "hello";
+
+  private static final String OTHER_MODULE = "other";
+
+  private static final String EXISTING_HASH = "0123456789ABCDEF0123456789ABCDEF";
+
+  private static final String NEW_HASH = "FEDCBA9876543210FEDCBA9876543210";
+
+  private static final String OBSOLETE_HASH = "00000000000000000000000000000000";
+
+  private File dir;
+
+  private File extraFolder;
+
+  private File warFolder;
+
+  public void testExistingSymbolMapIsReused() throws IOException {
+    File existing = writeFile(symbolMap(MODULE, EXISTING_HASH), "published");
+    long lastModified = existing.lastModified();
+
+    String manifest = generate(MODULE);
+
+    // The hash names the contents, so the published map is left as it is
+    assertEquals("published", read(existing));
+    assertEquals(lastModified, existing.lastModified());
+    assertTrue(manifest.contains(EXISTING_HASH + ".symbolMap"));
+  }
+
+  public void testMissingSymbolMapIsLinkedOrCopied() throws IOException {
+    writeFile(symbolMap(MODULE, EXISTING_HASH), "published");
+
+    String manifest = generate(MODULE);
+
+    File added = symbolMap(MODULE, NEW_HASH);
+    assertEquals("extra " + NEW_HASH, read(added));
+    assertTrue(manifest.contains(NEW_HASH + ".symbolMap"));
+    // The source in the extra folder is left alone
+    assertEquals("extra " + NEW_HASH, read(extraSymbolMap(NEW_HASH)));
+  }
+
+  public void testMissingSymbolMapWithoutSourceIsOmitted() throws IOException {
+    writeFile(symbolMap(MODULE, EXISTING_HASH), "published");
+    assertTrue(extraSymbolMap(NEW_HASH).delete());
+
+    String manifest = generate(MODULE);
+
+    assertFalse(symbolMap(MODULE, NEW_HASH).exists());
+    assertTrue(manifest.contains(NEW_HASH + ".cache.js"));
+    assertFalse(manifest.contains(NEW_HASH + ".symbolMap"));
+  }
+
+  public void testOnlyObsoleteSymbolMapsOfGeneratedModulesAreRemoved()
+      throws IOException {
+    writeFile(symbolMap(MODULE, EXISTING_HASH), "published");
+    File obsolete = writeFile(symbolMap(MODULE, OBSOLETE_HASH), "obsolete");
+    File otherFile = writeFile(new File(obsolete.getParentFile(), "notes.txt"),
+        "notes");
+    File otherModuleMap = writeFile(symbolMap(OTHER_MODULE, OBSOLETE_HASH),
+        "other module");
+
+    generate(MODULE);
+
+    assertFalse(obsolete.exists());
+    assertTrue(symbolMap(MODULE, EXISTING_HASH).exists());
+    assertTrue(symbolMap(MODULE, NEW_HASH).exists());
+    assertTrue(otherFile.exists());
+    // The other module was not part of this generation
+    assertTrue(otherModuleMap.exists());
+
+    String[] names = symbolMap(MODULE, EXISTING_HASH).getParentFile().list();
+    Arrays.sort(names);
+    assertEquals(Arrays.asList(EXISTING_HASH + ".symbolMap",
+        NEW_HASH + ".symbolMap", "notes.txt"), Arrays.asList(names));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    dir = Files.createTempDir();
+    warFolder = new File(dir, "war");
+    extraFolder = new File(dir, "extra");
+
+    // Two permutations, whose symbol maps the compiler wrote to the extra
+    // folder
+    writeFile(new File(warFolder, MODULE + "/" + EXISTING_HASH + ".cache.js"),
+        "permutation");
+    writeFile(new File(warFolder, MODULE + "/" + NEW_HASH + ".cache.js"),
+        "permutation");
+    writeFile(extraSymbolMap(EXISTING_HASH), "extra " + EXISTING_HASH);
+    writeFile(extraSymbolMap(NEW_HASH), "extra " + NEW_HASH);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    ResourceUtils.deleteFileRecursively(dir);
+  }
+
+  private File extraSymbolMap(String hash) {
+    return new File(extraFolder, MODULE + "/symbolMaps/" + hash + ".symbolMap");
+  }
+
+  private String generate(String... modules) {
+    return new SymbolManifestGenerator(warFolder, Arrays.asList(modules),
+        extraFolder, "project").generate();
+  }
+
+  private String read(File file) throws IOException {
+    return Files.toString(file, Charsets.UTF_8);
+  }
+
+  private File symbolMap(String module, String hash) {
+    return new File(SymbolManifestGenerator.getSymbolMapsFolder(warFolder),
+        module + "/" + hash + ".symbolMap");
+  }
+
+  private File writeFile(File file, String contents) throws IOException {
+    Files.createParentDirs(file);
+    Files.write(contents, file, Charsets.UTF_8);
+    return file;
+  }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.uibinder.model.reference;
+
+import com.google.gcp.eclipse.testing.ProjectTestUtil;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+
+/**
+ * Tests that adding or removing a widget type discards the lookups cached by
+ * {@link UiBinderTypeLookupCache}.
+ */
+public class UiBinderTypeLookupCacheTest extends TestCase {
+
+  private static final String PACKAGE_NAME = "com.example.client";
+
+  private static final String WIDGET_TYPE_NAME = PACKAGE_NAME + ".MyWidget";
+
+  private IJavaProject javaProject;
+
+  public void testAddingWidgetTypeInvalidatesLookups() throws Exception {
+    assertNull(UiBinderTypeLookupCache.INSTANCE.findType(javaProject,
+        WIDGET_TYPE_NAME));
+    long generation = UiBinderTypeLookupCache.INSTANCE.getGeneration();
+
+    createWidgetType();
+
+    assertTrue(UiBinderTypeLookupCache.INSTANCE.getGeneration() > generation);
+    assertNotNull(UiBinderTypeLookupCache.INSTANCE.findType(javaProject,
+        WIDGET_TYPE_NAME));
+  }
+
+  public void testRemovingWidgetTypeInvalidatesLookups() throws Exception {
+    ICompilationUnit widget = createWidgetType();
+    assertNotNull(UiBinderTypeLookupCache.INSTANCE.findType(javaProject,
+        WIDGET_TYPE_NAME));
+    long generation = UiBinderTypeLookupCache.INSTANCE.getGeneration();
+
+    widget.delete(true, null);
+
+    assertTrue(UiBinderTypeLookupCache.INSTANCE.getGeneration() > generation);
+    assertNull(UiBinderTypeLookupCache.INSTANCE.findType(javaProject,
+        WIDGET_TYPE_NAME));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    javaProject = ProjectTestUtil.createProject(UiBinderTypeLookupCacheTest.class.getSimpleName());
+    IFolder sourceFolder = javaProject.getProject().getFolder(
+        ProjectTestUtil.SOURCE_FOLDER);
+    if (!sourceFolder.exists()) {
+      sourceFolder.create(true, true, null);
+    }
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    javaProject.getProject().delete(true, true, null);
+  }
+
+  private ICompilationUnit createWidgetType() throws Exception {
+    IPackageFragment packageFragment = javaProject.getPackageFragmentRoot(
+        javaProject.getProject().getFolder(ProjectTestUtil.SOURCE_FOLDER)).createPackageFragment(
+        PACKAGE_NAME, true, null);
+    return packageFragment.createCompilationUnit("MyWidget.java", "package "
+        + PACKAGE_NAME + ";\n\npublic class MyWidget {\n}\n", true, null);
+  }
+}
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.uibinder.model.reference;
+
+import com.google.gwt.eclipse.core.uibinder.problems.IValidationResultPlacementStrategy;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.wst.sse.core.StructuredModelManager;
+import org.eclipse.wst.sse.core.internal.provisional.text.IStructuredDocument;
+import org.eclipse.wst.sse.core.internal.provisional.text.IStructuredDocumentRegion;
+import org.eclipse.wst.xml.core.internal.provisional.contenttype.ContentTypeIdForXML;
+import org.eclipse.wst.xml.core.internal.provisional.document.IDOMElement;
+import org.eclipse.wst.xml.core.internal.provisional.document.IDOMModel;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests that {@link UiBinderXmlElementCache} replays the results of unchanged
+ * elements at their current offsets, and has changed elements checked again.
+ */
+@SuppressWarnings("restriction")
+public class UiBinderXmlElementCacheTest extends TestCase {
+
+  /**
+   * Collects the placed validation results as "message@offset+length".
+   */
+  private static class ResultCollector implements
+      IValidationResultPlacementStrategy<Object> {
+    private final List<String> results = new ArrayList<String>();
+
+    public void clearValidationResults(IResource resource) {
+      results.clear();
+    }
+
+    public Object placeValidationResult(IResource resource, IDocument document,
+        IRegion position, String message, int severity) {
+      results.add(message + "@" + position.getOffset() + "+"
+          + position.getLength());
+      return null;
+    }
+  }
+
+  private static final String XML = "<ui:UiBinder xmlns:ui=\"urn:ui:com.google.gwt.uibinder\"\n"
+      + "    xmlns:g=\"urn:import:com.google.gwt.user.client.ui\">\n"
+      + "  <g:HTMLPanel>\n"
+      + "    <g:Label/>\n"
+      + "  </g:HTMLPanel>\n"
+      + "</ui:UiBinder>\n";
+
+  private static final List<String> ALL_ELEMENTS = Arrays.asList(
+      "ui:UiBinder", "g:HTMLPanel", "g:Label");
+
+  /**
+   * Stands in for the parser's tag checks: flags the name in each of the
+   * element's tags.
+   */
+  private static void check(IDOMElement element,
+      IValidationResultPlacementStrategy<?> strategy, IDocument document) {
+    String name = element.getNodeName();
+    strategy.placeValidationResult(null, document, new Region(
+        element.getStartOffset() + 1, name.length()), "Unknown " + name,
+        IMarker.SEVERITY_ERROR);
+
+    IStructuredDocumentRegion endRegion = element.getEndStructuredDocumentRegion();
+    if (endRegion != null) {
+      strategy.placeValidationResult(null, document, new Region(
+          endRegion.getStartOffset() + 2, name.length()), "Unknown " + name,
+          IMarker.SEVERITY_ERROR);
+    }
+  }
+
+  private static void collectElements(Node node, List<IDOMElement> elements) {
+    if (node.getNodeType() == Node.ELEMENT_NODE) {
+      elements.add((IDOMElement) node);
+    }
+    for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+      collectElements(child, elements);
+    }
+  }
+
+  private final UiBinderXmlElementCache cache = new UiBinderXmlElementCache();
+
+  /**
+   * The names of the elements whose tags the last pass checked.
+   */
+  private final List<String> checkedElements = new ArrayList<String>();
+
+  private IDOMModel model;
+
+  public void testEditAboveElementsMovesTheirResults() throws Exception {
+    List<String> before = validate();
+
+    getDocument().replace(XML.indexOf("  <g:HTMLPanel>"), 0, "\n\n");
+    List<String> after = validate();
+
+    assertEquals(Collections.emptyList(), checkedElements);
+    assertFalse(before.equals(after));
+    assertEquals(validateWithoutCache(), after);
+  }
+
+  public void testEditedTagIsCheckedAgain() throws Exception {
+    validate();
+
+    getDocument().replace(XML.indexOf("<g:Label") + "<g:Label".length(), 0,
+        " title=\"t\"");
+    List<String> results = validate();
+
+    assertEquals(Arrays.asList("g:Label"), checkedElements);
+    assertEquals(validateWithoutCache(), results);
+  }
+
+  public void testInvalidatedTypeLookupsCheckAllElementsAgain() {
+    validate();
+
+    UiBinderTypeLookupCache.INSTANCE.invalidate();
+    List<String> results = validate();
+
+    assertEquals(ALL_ELEMENTS, checkedElements);
+    assertEquals(validateWithoutCache(), results);
+  }
+
+  public void testUnchangedDocumentReusesAllResults() {
+    assertEquals(validateWithoutCache(), validate());
+    assertEquals(ALL_ELEMENTS, checkedElements);
+
+    assertEquals(validateWithoutCache(), validate());
+    assertEquals(Collections.emptyList(), checkedElements);
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    model = (IDOMModel) StructuredModelManager.getModelManager().createUnManagedStructuredModelFor(
+        ContentTypeIdForXML.ContentTypeID_XML);
+    getDocument().set(XML);
+    cache.connect(getDocument());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    cache.disconnect();
+  }
+
+  private IStructuredDocument getDocument() {
+    return model.getStructuredDocument();
+  }
+
+  private List<IDOMElement> getElements() {
+    List<IDOMElement> elements = new ArrayList<IDOMElement>();
+    collectElements(model.getDocument(), elements);
+    return elements;
+  }
+
+  /**
+   * Validates the document the way {@link UiBinderXmlParser} does, checking
+   * only the elements whose cached results are not replayed.
+   */
+  private List<String> validate() {
+    ResultCollector collector = new ResultCollector();
+    IValidationResultPlacementStrategy<?> strategy = cache.newRecordingStrategy(collector);
+    cache.beginPass();
+    checkedElements.clear();
+
+    Set<String> javaTypeReferences = new HashSet<String>();
+    for (IDOMElement element : getElements()) {
+      if (!cache.replay(element, null, getDocument(), javaTypeReferences)) {
+        checkedElements.add(element.getNodeName());
+        cache.beginElement(element);
+        check(element, strategy, getDocument());
+        cache.endElement(Collections.singleton(element.getNodeName()));
+        javaTypeReferences.add(element.getNodeName());
+      }
+    }
+
+    // Replayed elements contribute their type references too
+    assertEquals(new HashSet<String>(ALL_ELEMENTS), javaTypeReferences);
+    return collector.results;
+  }
+
+  private List<String> validateWithoutCache() {
+    ResultCollector collector = new ResultCollector();
+    for (IDOMElement element : getElements()) {
+      check(element, collector, getDocument());
+    }
+    return collector.results;
+  }
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.uibinder.sse.css;
+
+import com.google.gwt.eclipse.core.uibinder.sse.css.model.CssResourceAwareModelLoader;
+
+import junit.framework.TestCase;
+
+import org.eclipse.wst.css.core.internal.provisional.document.ICSSNode;
+import org.eclipse.wst.sse.core.internal.provisional.text.IStructuredDocumentRegion;
+import org.eclipse.wst.sse.core.internal.provisional.text.ITextRegion;
+
+/**
+ * Tests that {@link CssExtractor#update(String)} and {@link CssExtractorCache}
+ * produce the same documents and model as extracting the CSS from scratch.
+ */
+@SuppressWarnings("restriction")
+public class CssExtractorTest extends TestCase {
+
+  private static final String CSS = ".a {\n  color: red;\n}\n"
+      + "@media print {\n  .b {\n    color: blue;\n  }\n}\n"
+      + "@if user.agent safari {\n  .c {\n    width: 1px;\n  }\n}\n"
+      + "@else {\n  .c {\n    width: 2px;\n  }\n}\n"
+      + ".d {\n  margin: 0;\n}\n";
+
+  /**
+   * Describes the regions of the structured document and the nodes of the CSS
+   * model, so that two extractors can be compared.
+   */
+  private static String describe(CssExtractor extractor) {
+    StringBuilder sb = new StringBuilder();
+    IStructuredDocumentRegion documentRegion = extractor.getStructuredDocument().getFirstStructuredDocumentRegion();
+    for (; documentRegion != null; documentRegion = documentRegion.getNext()) {
+      sb.append(documentRegion.getStartOffset()).append(' ').append(
+          documentRegion.getType()).append('\n');
+      for (ITextRegion region : documentRegion.getRegions().toArray()) {
+        sb.append("  ").append(region.getStart()).append(' ').append(
+            region.getType()).append(' ').append(
+            documentRegion.getText(region)).append('\n');
+      }
+    }
+    describe(extractor.getCssDocument(), "", sb);
+    return sb.toString();
+  }
+
+  private static void describe(ICSSNode node, String indent, StringBuilder sb) {
+    sb.append(indent).append(node.getNodeType()).append(' ').append(
+        node.getCssText()).append('\n');
+    ICSSNode child = node.getFirstChild();
+    for (; child != null; child = child.getNextSibling()) {
+      describe(child, indent + "  ", sb);
+    }
+  }
+
+  private static CssExtractor extract(String css) {
+    return CssExtractor.extract(css, new CssResourceAwareModelLoader());
+  }
+
+  public void testCacheReusesExtractorForSameKey() {
+    CssExtractorCache cache = new CssExtractorCache();
+    Object key = new Object();
+    CssExtractor first = cache.extract(key, CSS,
+        new CssResourceAwareModelLoader());
+    String edited = CSS.replace("color: red", "color: green");
+    CssExtractor second = cache.extract(key, edited,
+        new CssResourceAwareModelLoader());
+
+    assertSame(first, second);
+    assertEquals(edited, second.getStructuredDocument().get());
+    assertEquals(describe(extract(edited)), describe(second));
+  }
+
+  public void testCacheSeparatesKeys() {
+    CssExtractorCache cache = new CssExtractorCache();
+    String other = ".x {\n  top: 0;\n}\n";
+    CssExtractor first = cache.extract(new Object(), CSS,
+        new CssResourceAwareModelLoader());
+    CssExtractor second = cache.extract(new Object(), other,
+        new CssResourceAwareModelLoader());
+
+    assertNotSame(first, second);
+    assertEquals(describe(extract(CSS)), describe(first));
+    assertEquals(describe(extract(other)), describe(second));
+  }
+
+  public void testCacheExtractsAgainAfterClear() {
+    CssExtractorCache cache = new CssExtractorCache();
+    Object key = new Object();
+    CssExtractor first = cache.extract(key, CSS,
+        new CssResourceAwareModelLoader());
+    cache.clear();
+    CssExtractor second = cache.extract(key, CSS,
+        new CssResourceAwareModelLoader());
+
+    assertNotSame(first, second);
+    assertEquals(describe(extract(CSS)), describe(second));
+  }
+
+  public void testUpdateAddingMediaBlock() {
+    assertUpdateMatchesExtract(CSS, CSS.replace(".d {",
+        "@media screen {\n  .e {\n    top: 0;\n  }\n}\n.d {"));
+  }
+
+  public void testUpdateDeletingEverything() {
+    assertUpdateMatchesExtract(CSS, "");
+  }
+
+  public void testUpdateDeletionSpanningMediaBlocks() {
+    // Removes the end of the @media rule and the start of the @if rule
+    int start = CSS.indexOf("color: blue");
+    int end = CSS.indexOf("width: 1px");
+    assertUpdateMatchesExtract(CSS, CSS.substring(0, start)
+        + CSS.substring(end));
+  }
+
+  public void testUpdateDeletion() {
+    assertUpdateMatchesExtract(CSS, CSS.replace("  color: red;\n", ""));
+  }
+
+  public void testUpdateEditSpanningMediaBlocks() {
+    int start = CSS.indexOf("color: blue");
+    int end = CSS.indexOf("@else");
+    assertUpdateMatchesExtract(CSS, CSS.substring(0, start)
+        + "color: black;\n  }\n}\n"
+        + "@media screen {\n  .f {\n    left: 0;\n  }\n}\n"
+        + CSS.substring(end));
+  }
+
+  public void testUpdateFromEmpty() {
+    assertUpdateMatchesExtract("", CSS);
+  }
+
+  public void testUpdateInsertion() {
+    assertUpdateMatchesExtract(CSS, CSS.replace("color: red;",
+        "color: red;\n  font-weight: bold;"));
+  }
+
+  public void testUpdateInsertionOfRepeatedText() {
+    // The inserted text repeats its surroundings, so the common prefix and
+    // suffix of the old and new blocks overlap
+    String css = ".a {\n}\n.a {\n}\n";
+    assertUpdateMatchesExtract(css, css + ".a {\n}\n");
+    assertUpdateMatchesExtract(css, ".a {\n}\n" + css);
+  }
+
+  public void testUpdateDeletionOfRepeatedText() {
+    String css = "@else {\n}\n@else {\n}\n@else {\n}\n";
+    assertUpdateMatchesExtract(css, "@else {\n}\n@else {\n}\n");
+  }
+
+  public void testUpdateOfSingleRepeatedCharacter() {
+    assertUpdateMatchesExtract(".a{}}}}", ".a{}}}");
+    assertUpdateMatchesExtract(".a{}}}", ".a{}}}}");
+  }
+
+  public void testUpdateUnchanged() {
+    CssExtractor extractor = extract(CSS);
+    String expected = describe(extractor);
+    extractor.update(CSS);
+    assertEquals(expected, describe(extractor));
+  }
+
+  public void testUpdatesInSequence() {
+    CssExtractor extractor = extract(CSS);
+    String[] edits = {
+        CSS.replace("red", "re"), CSS.replace("red", "r"),
+        CSS.replace("red", "r}\n@media print {"),
+        CSS.replace("@else {", "@elif user.agent ie6 {"), CSS};
+    for (String edit : edits) {
+      extractor.update(edit);
+      assertEquals(edit, extractor.getStructuredDocument().get());
+      assertEquals(describe(extract(edit)), describe(extractor));
+    }
+  }
+
+  private void assertUpdateMatchesExtract(String before, String after) {
+    CssExtractor extractor = extract(before);
+    extractor.update(after);
+    assertEquals(after, extractor.getStructuredDocument().get());
+    assertEquals(describe(extract(after)), describe(extractor));
+  }
+}
@@ -14,6 +14,7 @@
  *******************************************************************************/
 package com.google.gwt.eclipse.core.validators.java;
 
+import com.google.gwt.eclipse.core.markers.GWTProblemType;
 import com.google.gwt.eclipse.core.test.AbstractGWTPluginTestCase;
 
 import org.eclipse.jdt.core.IField;
@@ -324,6 +325,42 @@ public class JsniJavaRefTest extends AbstractGWTPluginTestCase {
     }
   }
 
+  public void testResolveJavaElementWithContext() throws Exception {
+    IJavaProject project = getTestProject();
+    assertNotNull(project);
+
+    JsniResolutionContext context = new JsniResolutionContext();
+
+    // Resolving the same reference twice reuses the first resolution
+    JsniJavaRef ref = JsniJavaRef.parse("@com.hello.client.JsniJavaRefTest::getNumber()");
+    IJavaElement element = ref.resolveJavaElement(project, context);
+    assertEquals(0, context.getHitCount());
+    assertEquals(element, ref.resolveJavaElement(project, context));
+    assertEquals(1, context.getHitCount());
+    assertEquals(element, ref.resolveJavaElement(project));
+
+    // Failures are remembered too, but are reported against each caller's ref
+    JsniJavaRef badRef = JsniJavaRef.parse("@com.hello.client.JsniJavaRefTest::badRef()");
+    for (int i = 0; i < 2; i++) {
+      JsniJavaRef ref2 = new JsniJavaRef(badRef);
+      ref2.setOffset(i);
+      try {
+        ref2.resolveJavaElement(project, context);
+        fail("resolveElement should have thrown UnresolvedJsniJavaRefException");
+      } catch (UnresolvedJsniJavaRefException e) {
+        assertEquals(GWTProblemType.JSNI_JAVA_REF_MISSING_METHOD,
+            e.getProblemType());
+        assertSame(ref2, e.getJavaRef());
+      }
+    }
+    assertEquals(2, context.getHitCount());
+
+    // Type lookups are shared with references to other members of the type
+    assertSame(context.findType(project, "com.hello.client.JsniJavaRefTest"),
+        context.findType(project, "com.hello.client.JsniJavaRefTest"));
+    assertNull(context.findType(project, "com.hello.client.NoSuchType"));
+  }
+
   public void testToString() {
     for (String test : REFS) {
       JsniJavaRef ref = JsniJavaRef.parse(test);
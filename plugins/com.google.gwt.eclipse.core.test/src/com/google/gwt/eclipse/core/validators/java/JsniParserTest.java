@@ -143,6 +143,31 @@ public class JsniParserTest extends AbstractGWTPluginTestCase {
     assertEquals(expectedProblemRegion.getOffset(), problem.getSourceStart());
   }
 
+  public void testParseMethodDeclarationReusesCachedParse() {
+    ASTParser parser = ASTParser.newParser(AST.JLS3);
+    parser.setProject(getTestProject());
+    parser.setResolveBindings(false);
+    parser.setSource(testClass.getCompilationUnit());
+    CompilationUnit root = (CompilationUnit) parser.createAST(null);
+    MethodDeclaration jsniMethod = ((TypeDeclaration) root.types().get(0)).getMethods()[0];
+
+    JsniParseCache cache = JsniParseCache.getInstance();
+    cache.clear(getTestProject().getProject());
+    List<JsniJavaRef> firstRefs = JsniParser.parse(jsniMethod).getJavaRefs();
+    long hitCount = cache.getHitCount();
+    List<JsniJavaRef> secondRefs = JsniParser.parse(jsniMethod).getJavaRefs();
+    assertEquals(hitCount + 1, cache.getHitCount());
+
+    // The cached references are copies with the same document offsets
+    assertEquals(firstRefs.size(), secondRefs.size());
+    for (int i = 0; i < firstRefs.size(); i++) {
+      assertNotSame(firstRefs.get(i), secondRefs.get(i));
+      assertEquals(firstRefs.get(i), secondRefs.get(i));
+      assertEquals(firstRefs.get(i).getOffset(), secondRefs.get(i).getOffset());
+      assertEquals(firstRefs.get(i).getSource(), secondRefs.get(i).getSource());
+    }
+  }
+
   public void testParseString() throws Exception {
     String jsniMethod = createString(new String[] { "public native void jsniMethod()/*-{",
         "    // References to some Java types", "    var num = obj.@com.hello.client.A$B::getNumber()();",
@@ -23,6 +23,8 @@ import com.google.gwt.eclipse.testing.GwtRuntimeTestUtilities;
 
 import junit.framework.TestCase;
 
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
@@ -36,6 +38,7 @@ import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
+import java.io.ByteArrayInputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -321,6 +324,76 @@ public final class RemoteServiceValidatorTest extends TestCase {
         validationResults.getTypeDependencies());
   }
 
+  public void testPairingDigests() throws JavaModelException {
+    ICompilationUnit syncInterface = JavaProjectUtilities.createCompilationUnit(
+        javaProject,
+        "com.google.TestService",
+        "package com.google;\npublic interface TestService extends com.google.gwt.user.client.rpc.RemoteService { int foo(String s); void bar(); }\n");
+
+    ICompilationUnit asyncInterface = JavaProjectUtilities.createCompilationUnit(
+        javaProject,
+        "com.google.TestServiceAsync",
+        "package com.google;\nimport com.google.gwt.user.client.rpc.AsyncCallback;\npublic interface TestServiceAsync { void bar(AsyncCallback<Void> c); void foo(String s, AsyncCallback<Integer> c); }\n");
+
+    ICompilationUnit mismatchedAsyncInterface = JavaProjectUtilities.createCompilationUnit(
+        javaProject,
+        "com.google.OtherServiceAsync",
+        "package com.google;\nimport com.google.gwt.user.client.rpc.AsyncCallback;\npublic interface OtherServiceAsync { void foo(String s, AsyncCallback<Long> c); }\n");
+
+    ITypeBinding syncBinding = JavaASTUtils.findTypeDeclaration(
+        (CompilationUnit) newAST(syncInterface), "com.google.TestService").resolveBinding();
+    ITypeBinding asyncBinding = JavaASTUtils.findTypeDeclaration(
+        (CompilationUnit) newAST(asyncInterface), "com.google.TestServiceAsync").resolveBinding();
+    ITypeBinding mismatchedAsyncBinding = JavaASTUtils.findTypeDeclaration(
+        (CompilationUnit) newAST(mismatchedAsyncInterface),
+        "com.google.OtherServiceAsync").resolveBinding();
+
+    // Consistent halves of a pair share a digest, regardless of method order
+    String syncDigest = RemoteServicePairingIndex.computeSyncDigest(syncBinding);
+    assertNotNull(syncDigest);
+    assertEquals(syncDigest,
+        RemoteServicePairingIndex.computeAsyncDigest(asyncBinding));
+    assertFalse(syncDigest.equals(RemoteServicePairingIndex.computeAsyncDigest(mismatchedAsyncBinding)));
+
+    // Validating either half records its digest for the other half to use
+    RemoteServiceValidator rsv = new RemoteServiceValidator();
+    assertTrue(rsv.validate(newAST(syncInterface)).getProblems().isEmpty());
+    assertEquals(syncDigest, RemoteServicePairingIndex.getInstance().findDigest(
+        javaProject, "com.google.TestService", true));
+    assertNull(RemoteServicePairingIndex.getInstance().findDigest(javaProject,
+        "com.google.TestService", false));
+
+    ValidationResult validationResults = rsv.validate(newAST(asyncInterface));
+    assertTrue(validationResults.getProblems().isEmpty());
+    assertEquals(Arrays.asList("com.google.TestService"),
+        validationResults.getTypeDependencies());
+  }
+
+  public void testPairingDigestTracksSuperInterfaces() throws CoreException {
+    ICompilationUnit baseInterface = JavaProjectUtilities.createCompilationUnit(
+        javaProject,
+        "com.google.BaseService",
+        "package com.google;\npublic interface BaseService extends com.google.gwt.user.client.rpc.RemoteService { int foo(String s); }\n");
+
+    ICompilationUnit syncInterface = JavaProjectUtilities.createCompilationUnit(
+        javaProject,
+        "com.google.TestService",
+        "package com.google;\npublic interface TestService extends BaseService { void bar(); }\n");
+
+    RemoteServiceValidator rsv = new RemoteServiceValidator();
+    rsv.validate(newAST(syncInterface));
+    assertNotNull(RemoteServicePairingIndex.getInstance().findDigest(
+        javaProject, "com.google.TestService", true));
+
+    // The inherited methods are part of the digest, so changing them must
+    // invalidate it even though TestService.java itself is unchanged
+    ((IFile) baseInterface.getResource()).setContents(new ByteArrayInputStream(
+        "package com.google;\npublic interface BaseService extends com.google.gwt.user.client.rpc.RemoteService { long foo(String s); }\n".getBytes()),
+        true, false, null);
+    assertNull(RemoteServicePairingIndex.getInstance().findDigest(javaProject,
+        "com.google.TestService", true));
+  }
+
   public void testSyncMethodReturnTypeAndAsyncCallbackMismatch() {
   }
 
@@ -30,6 +30,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.jdt.core.IJavaProject;
 
 import java.io.IOException;
@@ -41,6 +42,11 @@ import java.io.PrintWriter;
  */
 public class GWTDeploymentParticipant implements DeploymentParticipant {
 
+  /**
+   * The share of the deployment's work reported by the GWT compile.
+   */
+  private static final int COMPILE_WORK = 10;
+
   private static final QualifiedName PREVIOUS_DEPLOYMENT_BUILD_PROJECT_CHANGE_STAMP_KEY = new QualifiedName(
       GWTDeploymentParticipant.class.getName(),
       "previousDeploymentBuildProjectChangeStamp");
@@ -69,11 +75,13 @@ public class GWTDeploymentParticipant implements DeploymentParticipant {
         GWTCompileSettings settings = GWTProjectProperties.getGwtCompileSettings(project);
         settings.setEntryPointModules(GWTProjectProperties.getEntryPointModules(project));
 
-        // Watch the monitor for cancellations, and destroy the process
+        // Watch the monitor for cancellations, and destroy the process. The
+        // deployment has already begun a task on the monitor, so report the
+        // compile's progress through a share of it.
         TerminateProcessAction processTerminator = new TerminateProcessAction();
         GWTCompileRunner.compileWithCancellationSupport(javaProject,
             warLocation, settings, consoleOutputStream, processTerminator,
-            monitor, processTerminator);
+            new SubProgressMonitor(monitor, COMPILE_WORK), processTerminator);
       } else {
         PrintWriter printWriter = new PrintWriter(consoleOutputStream);
         printWriter.println("Skipping GWT compilation since no relevant changes have occurred since the last deploy.");
@@ -32,8 +32,10 @@ import com.google.gwt.eclipse.core.sdk.GWTUpdateWebInfFolderCommand;
 import com.google.gwt.eclipse.core.search.JavaRefIndex;
 import com.google.gwt.eclipse.core.speedtracer.SourceViewerServer;
 import com.google.gwt.eclipse.core.uibinder.model.reference.UiBinderReferenceManager;
+import com.google.gwt.eclipse.core.uibinder.model.reference.UiBinderTypeLookupCache;
 import com.google.gwt.eclipse.core.uibinder.problems.UiBinderTemplateProblemType;
 import com.google.gwt.eclipse.core.uibinder.problems.java.UiBinderJavaProblemType;
+import com.google.gwt.eclipse.core.validators.rpc.RemoteServicePairingIndex;
 import com.google.gwt.eclipse.core.validators.rpc.RemoteServiceProblemType;
 
 import org.eclipse.core.runtime.preferences.InstanceScope;
@@ -131,6 +133,7 @@ public class GWTPlugin extends AbstractGooglePlugin {
     }
     ClientBundleResourceChangeListener.addToWorkspace();
     UiBinderReferenceManager.INSTANCE.start();
+    UiBinderTypeLookupCache.INSTANCE.start();
 
     webInfFolderUpdater.start();
   }
@@ -139,9 +142,11 @@ public class GWTPlugin extends AbstractGooglePlugin {
   public void stop(BundleContext context) throws Exception {
     webInfFolderUpdater.stop();
 
+    UiBinderTypeLookupCache.INSTANCE.stop();
     UiBinderReferenceManager.INSTANCE.stop();
     ClientBundleResourceDependencyIndex.save();
     JavaRefIndex.save();
+    RemoteServicePairingIndex.save();
 
     removeLaunchListener();
 
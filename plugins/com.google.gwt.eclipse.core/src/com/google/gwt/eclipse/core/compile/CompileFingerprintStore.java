@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.compile;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gwt.eclipse.core.GWTPlugin;
+import com.google.gwt.eclipse.core.GWTPluginLog;
+import com.google.gwt.eclipse.core.modules.IModule;
+import com.google.gwt.eclipse.core.modules.ModuleFile;
+import com.google.gwt.eclipse.core.modules.ModuleUtils;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.launching.IRuntimeClasspathEntry;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Remembers a fingerprint of the inputs to the last successful GWT compile of
+ * each entry point module, so that compiling a module whose inputs have not
+ * changed since can be skipped.
+ * 
+ * The inputs are the module's inherited-module closure (including every file
+ * under the source and public paths of each module), the compiler classpath,
+ * and the VM and compiler arguments, which include the -war directory. Files
+ * contribute their path, size and modification time rather than their
+ * contents, so computing a fingerprint costs a directory walk rather than a
+ * read of every file.
+ * 
+ * Fingerprints are stored as persistent properties of the project.
+ */
+class CompileFingerprintStore {
+
+  /**
+   * The -war directory of the GWT compiler when none is given, relative to its
+   * working directory.
+   */
+  static final String DEFAULT_WAR_DIRECTORY = "war";
+
+  private static final String FINGERPRINT_KEY_PREFIX = "compileFingerprint.";
+
+  /**
+   * Computes the part of the fingerprint shared by all modules compiled with
+   * the same classpath and arguments.
+   */
+  static String computeSharedFingerprint(
+      List<IRuntimeClasspathEntry> classpath, List<String> vmArgs,
+      List<String> compilerOptions) {
+    Hasher hasher = Hashing.sha1().newHasher();
+    putStrings(hasher, vmArgs);
+    putStrings(hasher, compilerOptions);
+    for (IRuntimeClasspathEntry entry : classpath) {
+      String location = entry.getLocation();
+      if (location != null) {
+        putFileTree(hasher, new File(location));
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns the directory the compiler writes its output to: the last -war
+   * directory in the compiler options, or the compiler's default, resolved
+   * against the working directory of the compiler process.
+   */
+  static File resolveWarDirectory(List<String> compilerOptions,
+      File workingDirectory) {
+    String warDirectory = DEFAULT_WAR_DIRECTORY;
+    for (int i = 0; i < compilerOptions.size() - 1; i++) {
+      if ("-war".equals(compilerOptions.get(i))) {
+        warDirectory = compilerOptions.get(i + 1);
+      }
+    }
+    File file = new File(warDirectory);
+    return file.isAbsolute() ? file : new File(workingDirectory, warDirectory);
+  }
+
+  private static void putFileTree(Hasher hasher, File file) {
+    hasher.putString(file.getPath(), Charsets.UTF_8);
+    if (file.isDirectory()) {
+      String[] children = file.list();
+      if (children == null) {
+        return;
+      }
+      // Listing order is unspecified, so sort for a stable fingerprint
+      Arrays.sort(children);
+      for (String child : children) {
+        putFileTree(hasher, new File(file, child));
+      }
+    } else {
+      hasher.putLong(file.length());
+      hasher.putLong(file.lastModified());
+    }
+  }
+
+  private static void putStrings(Hasher hasher, List<String> strings) {
+    hasher.putInt(strings.size());
+    for (String string : strings) {
+      hasher.putString(string, Charsets.UTF_8);
+    }
+  }
+
+  private final IJavaProject javaProject;
+
+  private final File warDirectory;
+
+  /**
+   * @param warDirectory the directory the compiler writes its output to (see
+   *          {@link #resolveWarDirectory(List, File)}), or null if it is not
+   *          known, in which case no module is considered up to date
+   */
+  CompileFingerprintStore(IJavaProject javaProject, File warDirectory) {
+    this.javaProject = javaProject;
+    this.warDirectory = warDirectory;
+  }
+
+  /**
+   * Forgets the fingerprint of the given module, so that it is compiled next
+   * time even if its inputs end up unchanged (for example, after a failed
+   * compile that may have left partial output).
+   */
+  void clear(String moduleName) {
+    setStoredFingerprint(moduleName, null);
+  }
+
+  /**
+   * Computes the fingerprint of the given module's inputs.
+   * 
+   * @param sharedFingerprint the result of
+   *          {@link #computeSharedFingerprint(List, List, List)}
+   * @return the fingerprint, or null if the module cannot be found
+   */
+  String computeFingerprint(String moduleName, String sharedFingerprint) {
+    IModule entryPointModule = ModuleUtils.findModule(javaProject, moduleName,
+        true);
+    if (entryPointModule == null) {
+      return null;
+    }
+
+    Hasher hasher = Hashing.sha1().newHasher();
+    hasher.putString(sharedFingerprint, Charsets.UTF_8);
+
+    // Walk the closure of inherited modules. Modules in jars are not
+    // returned, but their jars are covered by the shared fingerprint.
+    Set<IModule> visited = new HashSet<IModule>();
+    Queue<IModule> pending = new ArrayDeque<IModule>();
+    pending.add(entryPointModule);
+    while (!pending.isEmpty()) {
+      IModule module = pending.remove();
+      if (!visited.add(module)) {
+        continue;
+      }
+      hasher.putString(module.getQualifiedName(), Charsets.UTF_8);
+      if (module instanceof ModuleFile) {
+        putModuleFile(hasher, (ModuleFile) module);
+      }
+      pending.addAll(module.getInheritedModules(javaProject));
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns whether the given module was last compiled successfully with
+   * exactly the given inputs, and its output is still present.
+   */
+  boolean isUpToDate(String moduleName, String fingerprint) {
+    if (fingerprint == null
+        || !fingerprint.equals(getStoredFingerprint(moduleName))) {
+      return false;
+    }
+    if (warDirectory == null) {
+      // Without an output location, the output may have been deleted
+      return false;
+    }
+    IModule module = ModuleUtils.findModule(javaProject, moduleName, true);
+    if (module == null) {
+      return false;
+    }
+    String compiledName = module.getCompiledName();
+    return new File(new File(warDirectory, compiledName), compiledName
+        + ".nocache.js").isFile();
+  }
+
+  /**
+   * Records the fingerprint of a module that was just compiled successfully.
+   */
+  void record(String moduleName, String fingerprint) {
+    setStoredFingerprint(moduleName, fingerprint);
+  }
+
+  private QualifiedName getKey(String moduleName) {
+    return new QualifiedName(GWTPlugin.PLUGIN_ID, FINGERPRINT_KEY_PREFIX
+        + moduleName);
+  }
+
+  private String getStoredFingerprint(String moduleName) {
+    try {
+      return javaProject.getProject().getPersistentProperty(
+          getKey(moduleName));
+    } catch (CoreException e) {
+      GWTPluginLog.logWarning(e, "Could not read the GWT compile fingerprint of "
+          + moduleName);
+      return null;
+    }
+  }
+
+  private void putModuleFile(Hasher hasher, ModuleFile module) {
+    IPath moduleXmlLocation = module.getFile().getLocation();
+    if (moduleXmlLocation == null) {
+      return;
+    }
+    File moduleXml = moduleXmlLocation.toFile();
+    putFileTree(hasher, moduleXml);
+
+    File moduleDir = moduleXml.getParentFile();
+    for (IPath sourcePath : module.getSourcePaths()) {
+      putFileTree(hasher, new File(moduleDir, sourcePath.toOSString()));
+    }
+    for (IPath publicPath : module.getPublicPaths()) {
+      putFileTree(hasher, new File(moduleDir, publicPath.toOSString()));
+    }
+  }
+
+  private void setStoredFingerprint(String moduleName, String fingerprint) {
+    IProject project = javaProject.getProject();
+    try {
+      project.setPersistentProperty(getKey(moduleName), fingerprint);
+    } catch (CoreException e) {
+      GWTPluginLog.logWarning(e,
+          "Could not store the GWT compile fingerprint of " + moduleName);
+    }
+  }
+}
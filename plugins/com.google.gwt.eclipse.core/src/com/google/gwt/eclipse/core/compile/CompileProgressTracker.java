@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.compile;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns the compiler events recognized by {@link CompilerOutputParser} into
+ * progress monitor work and per-module phase timings.
+ * 
+ * Each module is worth {@link #WORK_PER_MODULE} units, split between
+ * precompilation, the permutations (in equal parts) and linking. The compiler
+ * logs only the start of each permutation, so completions are inferred: with
+ * N local workers, starting permutation k means at least k - N have finished,
+ * and all have finished once the compiler reports the permutations done.
+ * 
+ * Events may arrive concurrently from several compiler processes, so all
+ * methods are synchronized.
+ */
+class CompileProgressTracker implements CompilerOutputParser.Listener {
+
+  /**
+   * The phase timings and permutation counts of one module.
+   */
+  static class ModuleTimings {
+
+    private final String module;
+
+    private final long startMillis;
+
+    private long permutationsStartMillis = -1;
+
+    private long linkStartMillis = -1;
+
+    private long endMillis = -1;
+
+    private int permutationCount;
+
+    private int permutationsStarted;
+
+    private int permutationsCompleted;
+
+    private int peakPermutationsInFlight;
+
+    private int errorCount;
+
+    /**
+     * Null until the compiler reports the outcome.
+     */
+    private Boolean succeeded;
+
+    private int workReported;
+
+    ModuleTimings(String module, long startMillis) {
+      this.module = module;
+      this.startMillis = startMillis;
+    }
+
+    int getErrorCount() {
+      return errorCount;
+    }
+
+    /**
+     * @return the time spent linking, or -1 if unknown
+     */
+    long getLinkMillis() {
+      return linkStartMillis >= 0 ? endMillis - linkStartMillis : -1;
+    }
+
+    String getModule() {
+      return module;
+    }
+
+    int getPeakPermutationsInFlight() {
+      return peakPermutationsInFlight;
+    }
+
+    int getPermutationCount() {
+      return permutationCount;
+    }
+
+    /**
+     * @return the time spent compiling permutations, or -1 if unknown
+     */
+    long getPermutationsMillis() {
+      if (permutationsStartMillis < 0) {
+        return -1;
+      }
+      return (linkStartMillis >= 0 ? linkStartMillis : endMillis)
+          - permutationsStartMillis;
+    }
+
+    /**
+     * @return the time spent precompiling, or -1 if unknown
+     */
+    long getPrecompileMillis() {
+      return permutationsStartMillis >= 0 ? permutationsStartMillis
+          - startMillis : -1;
+    }
+
+    long getTotalMillis() {
+      return endMillis - startMillis;
+    }
+
+    /**
+     * @return whether the module compiled successfully, or null if the compiler
+     *         did not report its outcome
+     */
+    Boolean isSucceeded() {
+      return succeeded;
+    }
+  }
+
+  static final int WORK_PER_MODULE = 100;
+
+  private static final int PRECOMPILE_WORK = 20;
+
+  /**
+   * The rest of each module's work is reported when it finishes linking.
+   */
+  private static final int PERMUTATIONS_WORK = 70;
+
+  private static String seconds(long millis) {
+    return ParallelGWTCompileRunner.formatSeconds(millis);
+  }
+
+  private final IProgressMonitor monitor;
+
+  private final int localWorkers;
+
+  private final Map<String, ModuleTimings> moduleTimings =
+      new LinkedHashMap<String, ModuleTimings>();
+
+  private int permutationsInFlight;
+
+  private int peakPermutationsInFlight;
+
+  private int unattributedErrorCount;
+
+  /**
+   * @param monitor receives {@link #WORK_PER_MODULE} units of work for each
+   *          module the compiler reports
+   * @param localWorkers the number of permutations each compiler process
+   *          compiles at once
+   */
+  CompileProgressTracker(IProgressMonitor monitor, int localWorkers) {
+    this.monitor = monitor;
+    this.localWorkers = Math.max(1, localWorkers);
+  }
+
+  public synchronized void errorReported(String module, String message) {
+    ModuleTimings timings = module != null ? moduleTimings.get(module) : null;
+    if (timings != null) {
+      timings.errorCount++;
+    } else {
+      unattributedErrorCount++;
+    }
+  }
+
+  /**
+   * Closes the timings of any module whose outcome the compiler did not
+   * report, typically because the process failed or was terminated. Call once
+   * all compiler processes have exited.
+   */
+  synchronized void finish() {
+    long now = currentTimeMillis();
+    for (ModuleTimings timings : moduleTimings.values()) {
+      if (timings.endMillis < 0) {
+        timings.endMillis = now;
+        completePermutations(timings, timings.permutationsStarted);
+      }
+    }
+  }
+
+  synchronized List<ModuleTimings> getModuleTimings() {
+    return new ArrayList<ModuleTimings>(moduleTimings.values());
+  }
+
+  /**
+   * @return the most permutations compiled at once, across all modules
+   */
+  synchronized int getPeakPermutationsInFlight() {
+    return peakPermutationsInFlight;
+  }
+
+  /**
+   * @return the number of errors not attributable to a module, such as those
+   *         reported before the first module starts
+   */
+  synchronized int getUnattributedErrorCount() {
+    return unattributedErrorCount;
+  }
+
+  public synchronized void linkFinished(String module, boolean succeeded) {
+    // The module is complete only once the compiler reports its outcome
+  }
+
+  public synchronized void linkStarted(String module) {
+    ModuleTimings timings = moduleTimings.get(module);
+    if (timings == null) {
+      return;
+    }
+    timings.linkStartMillis = currentTimeMillis();
+    completePermutations(timings, timings.permutationsStarted);
+    reportWork(timings, PRECOMPILE_WORK + PERMUTATIONS_WORK);
+    monitor.subTask("Linking " + module);
+  }
+
+  public synchronized void moduleFinished(String module, boolean succeeded) {
+    ModuleTimings timings = moduleTimings.get(module);
+    if (timings == null) {
+      return;
+    }
+    timings.endMillis = currentTimeMillis();
+    timings.succeeded = succeeded;
+    completePermutations(timings, timings.permutationsStarted);
+    reportWork(timings, WORK_PER_MODULE);
+  }
+
+  public synchronized void moduleStarted(String module) {
+    moduleTimings.put(module, new ModuleTimings(module, currentTimeMillis()));
+    monitor.subTask("Precompiling " + module);
+  }
+
+  public synchronized void permutationsCounted(String module,
+      int permutationCount) {
+    ModuleTimings timings = moduleTimings.get(module);
+    if (timings == null) {
+      return;
+    }
+    timings.permutationsStartMillis = currentTimeMillis();
+    timings.permutationCount = permutationCount;
+    reportWork(timings, PRECOMPILE_WORK);
+    monitor.subTask("Compiling " + permutationCount + " permutations of "
+        + module);
+  }
+
+  public synchronized void permutationsFinished(String module,
+      boolean succeeded) {
+    ModuleTimings timings = moduleTimings.get(module);
+    if (timings == null) {
+      return;
+    }
+    completePermutations(timings, timings.permutationsStarted);
+    reportWork(timings, PRECOMPILE_WORK + PERMUTATIONS_WORK);
+  }
+
+  public synchronized void permutationStarted(String module, int permutationId) {
+    ModuleTimings timings = moduleTimings.get(module);
+    if (timings == null) {
+      return;
+    }
+    // A worker only picks up a permutation after finishing its previous one
+    completePermutations(timings, timings.permutationsStarted + 1
+        - localWorkers);
+    timings.permutationsStarted++;
+    permutationsInFlight++;
+    timings.peakPermutationsInFlight = Math.max(
+        timings.peakPermutationsInFlight, timings.permutationsStarted
+            - timings.permutationsCompleted);
+    peakPermutationsInFlight = Math.max(peakPermutationsInFlight,
+        permutationsInFlight);
+
+    String progress = timings.permutationCount > 0 ? timings.permutationsStarted
+        + " of " + timings.permutationCount : String.valueOf(
+        timings.permutationsStarted);
+    monitor.subTask("Compiling permutation " + progress + " of " + module);
+  }
+
+  /**
+   * Prints one line of phase timings per module.
+   */
+  synchronized void printSummary(PrintWriter printWriter) {
+    for (ModuleTimings timings : moduleTimings.values()) {
+      StringBuilder line = new StringBuilder("Timings for "
+          + timings.getModule() + ":");
+      if (timings.getPrecompileMillis() >= 0) {
+        line.append(" precompile " + seconds(timings.getPrecompileMillis())
+            + ",");
+      }
+      if (timings.getPermutationsMillis() >= 0) {
+        line.append(" " + timings.getPermutationCount() + " permutations "
+            + seconds(timings.getPermutationsMillis()) + " (at most "
+            + timings.getPeakPermutationsInFlight() + " at once),");
+      }
+      if (timings.getLinkMillis() >= 0) {
+        line.append(" link " + seconds(timings.getLinkMillis()) + ",");
+      }
+      line.append(" total " + seconds(timings.getTotalMillis()));
+      if (timings.getErrorCount() > 0) {
+        line.append(", " + timings.getErrorCount() + " errors");
+      }
+      printWriter.println(line);
+    }
+    printWriter.flush();
+  }
+
+  /**
+   * Overridden by tests to control the clock.
+   */
+  long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  private void completePermutations(ModuleTimings timings, int completedCount) {
+    while (timings.permutationsCompleted < completedCount) {
+      timings.permutationsCompleted++;
+      permutationsInFlight--;
+    }
+    if (timings.permutationCount > 0) {
+      int completed = Math.min(timings.permutationsCompleted,
+          timings.permutationCount);
+      reportWork(timings, PRECOMPILE_WORK + PERMUTATIONS_WORK * completed
+          / timings.permutationCount);
+    }
+  }
+
+  /**
+   * Reports work for the given module up to the given cumulative amount.
+   */
+  private void reportWork(ModuleTimings timings, int cumulativeWork) {
+    if (cumulativeWork > timings.workReported) {
+      monitor.worked(cumulativeWork - timings.workReported);
+      timings.workReported = cumulativeWork;
+    }
+  }
+}
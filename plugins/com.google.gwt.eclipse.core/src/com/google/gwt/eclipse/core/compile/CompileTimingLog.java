@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.compile;
+
+import com.google.gwt.eclipse.core.GWTPlugin;
+import com.google.gwt.eclipse.core.GWTPluginLog;
+import com.google.gwt.eclipse.core.compile.CompileProgressTracker.ModuleTimings;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Appends the phase timings of each GWT compile to a CSV file in the plug-in's
+ * state location, one row per module, so that compile times can be tracked
+ * across builds with a spreadsheet or script.
+ */
+class CompileTimingLog {
+
+  static final String HEADER = "time,project,module,outcome,precompileMillis,"
+      + "permutations,permutationsMillis,peakPermutationsInFlight,linkMillis,"
+      + "totalMillis,errors";
+
+  private static final String LOG_FILE_NAME = "compile-timings.csv";
+
+  /**
+   * Appends the given timings, writing the header first if the file is new.
+   */
+  static synchronized void append(File logFile, String projectName,
+      List<ModuleTimings> moduleTimings) throws IOException {
+    boolean isNew = !logFile.exists();
+    PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+        new FileOutputStream(logFile, true), "UTF-8"));
+    try {
+      if (isNew) {
+        writer.println(HEADER);
+      }
+      String time = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date());
+      for (ModuleTimings timings : moduleTimings) {
+        writer.println(toCsvRow(time, projectName, timings));
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Appends the given timings to the log in the plug-in's state location,
+   * logging rather than throwing on failure.
+   */
+  static void appendToDefaultLog(String projectName,
+      List<ModuleTimings> moduleTimings) {
+    if (moduleTimings.isEmpty()) {
+      return;
+    }
+    File logFile = GWTPlugin.getDefault().getStateLocation().append(
+        LOG_FILE_NAME).toFile();
+    try {
+      append(logFile, projectName, moduleTimings);
+    } catch (IOException e) {
+      GWTPluginLog.logWarning(e, "Could not record GWT compile timings in "
+          + logFile);
+    }
+  }
+
+  static String toCsvRow(String time, String projectName,
+      ModuleTimings timings) {
+    Boolean succeeded = timings.isSucceeded();
+    String outcome = succeeded == null ? "unknown" : succeeded ? "succeeded"
+        : "failed";
+    return time + "," + quote(projectName) + "," + quote(timings.getModule())
+        + "," + outcome + "," + timings.getPrecompileMillis() + ","
+        + timings.getPermutationCount() + "," + timings.getPermutationsMillis()
+        + "," + timings.getPeakPermutationsInFlight() + ","
+        + timings.getLinkMillis() + "," + timings.getTotalMillis() + ","
+        + timings.getErrorCount();
+  }
+
+  private static String quote(String value) {
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  private CompileTimingLog() {
+  }
+}
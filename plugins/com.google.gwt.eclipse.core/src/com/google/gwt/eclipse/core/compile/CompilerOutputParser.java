@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.compile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Passes GWT compiler output through unchanged while recognizing the
+ * compiler's progress messages (module precompilation, the permutation count,
+ * each permutation, linking and errors) and reporting them to a
+ * {@link Listener}.
+ * 
+ * Lines are recognized by the messages the compiler logs at the INFO level,
+ * after stripping indentation. Output that does not match (for example, from a
+ * compiler version that logs differently) is simply not reported.
+ */
+class CompilerOutputParser extends OutputStream {
+
+  /**
+   * Receives the compiler events recognized by the parser. Called on the thread
+   * that writes the compiler output.
+   */
+  interface Listener {
+
+    void errorReported(String module, String message);
+
+    void linkFinished(String module, boolean succeeded);
+
+    void linkStarted(String module);
+
+    void moduleFinished(String module, boolean succeeded);
+
+    void moduleStarted(String module);
+
+    void permutationsCounted(String module, int permutationCount);
+
+    void permutationsFinished(String module, boolean succeeded);
+
+    void permutationStarted(String module, int permutationId);
+  }
+
+  private static final String ERROR_TAG = "[ERROR] ";
+
+  private static final Pattern MODULE_STARTED_PATTERN =
+      Pattern.compile("^Compiling module (\\S+)$");
+
+  private static final Pattern PERMUTATIONS_COUNTED_PATTERN =
+      Pattern.compile("^Compiling (\\d+) permutations?$");
+
+  private static final Pattern PERMUTATION_STARTED_PATTERN =
+      Pattern.compile("^Compiling permutation (\\d+)\\.\\.\\.$");
+
+  private static final Pattern PERMUTATIONS_FINISHED_PATTERN =
+      Pattern.compile("^Compile of permutations (succeeded|failed)");
+
+  private static final Pattern LINK_STARTED_PATTERN =
+      Pattern.compile("^Linking into ");
+
+  private static final Pattern LINK_FINISHED_PATTERN =
+      Pattern.compile("^Link (succeeded|failed)");
+
+  private static final Pattern MODULE_FINISHED_PATTERN =
+      Pattern.compile("^Compilation (succeeded|failed)");
+
+  private final OutputStream delegate;
+
+  private final Listener listener;
+
+  private final ByteArrayOutputStream currentLine = new ByteArrayOutputStream();
+
+  /**
+   * The module whose output is being parsed, or null before the first module
+   * starts.
+   */
+  private String module;
+
+  /**
+   * @param delegate receives all output unchanged
+   * @param listener receives the recognized events
+   */
+  CompilerOutputParser(OutputStream delegate, Listener listener) {
+    this.delegate = delegate;
+    this.listener = listener;
+  }
+
+  /**
+   * Parses any trailing partial line. The delegate is flushed but left open,
+   * since it is usually a shared console stream.
+   */
+  @Override
+  public void close() throws IOException {
+    parseCurrentLine();
+    delegate.flush();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    delegate.flush();
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    delegate.write(b, off, len);
+
+    int lineStart = off;
+    int end = off + len;
+    for (int i = off; i < end; i++) {
+      if (b[i] == '\n') {
+        currentLine.write(b, lineStart, i - lineStart);
+        parseCurrentLine();
+        lineStart = i + 1;
+      }
+    }
+    currentLine.write(b, lineStart, end - lineStart);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    delegate.write(b);
+
+    if (b == '\n') {
+      parseCurrentLine();
+    } else {
+      currentLine.write(b);
+    }
+  }
+
+  /**
+   * Parses one line of compiler output, without its line terminator.
+   */
+  void parseLine(String line) {
+    String text = line.trim();
+    if (text.length() == 0) {
+      return;
+    }
+
+    if (text.startsWith(ERROR_TAG)) {
+      listener.errorReported(module, text.substring(ERROR_TAG.length()));
+      return;
+    }
+
+    Matcher matcher = MODULE_STARTED_PATTERN.matcher(text);
+    if (matcher.find()) {
+      module = matcher.group(1);
+      listener.moduleStarted(module);
+      return;
+    }
+
+    if (module == null) {
+      // Progress messages are only meaningful within a module
+      return;
+    }
+
+    matcher = PERMUTATION_STARTED_PATTERN.matcher(text);
+    if (matcher.find()) {
+      listener.permutationStarted(module, Integer.parseInt(matcher.group(1)));
+      return;
+    }
+
+    matcher = PERMUTATIONS_COUNTED_PATTERN.matcher(text);
+    if (matcher.find()) {
+      listener.permutationsCounted(module, Integer.parseInt(matcher.group(1)));
+      return;
+    }
+
+    matcher = PERMUTATIONS_FINISHED_PATTERN.matcher(text);
+    if (matcher.find()) {
+      listener.permutationsFinished(module, isSuccess(matcher));
+      return;
+    }
+
+    if (LINK_STARTED_PATTERN.matcher(text).find()) {
+      listener.linkStarted(module);
+      return;
+    }
+
+    matcher = LINK_FINISHED_PATTERN.matcher(text);
+    if (matcher.find()) {
+      listener.linkFinished(module, isSuccess(matcher));
+      return;
+    }
+
+    matcher = MODULE_FINISHED_PATTERN.matcher(text);
+    if (matcher.find()) {
+      listener.moduleFinished(module, isSuccess(matcher));
+    }
+  }
+
+  private boolean isSuccess(Matcher matcher) {
+    return "succeeded".equals(matcher.group(1));
+  }
+
+  private void parseCurrentLine() {
+    if (currentLine.size() == 0) {
+      return;
+    }
+    // Decoded with the default charset, which the process output pump uses
+    String line = currentLine.toString();
+    currentLine.reset();
+    try {
+      parseLine(line);
+    } catch (NumberFormatException e) {
+      // A count too large to be real; ignore the line
+    }
+  }
+}
@@ -38,6 +38,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.variables.VariablesPlugin;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.launching.IRuntimeClasspathEntry;
@@ -49,7 +50,9 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -71,43 +74,28 @@ public class GWTCompileRunner {
       GWTCompileSettings settings, OutputStream consoleOutputStream,
       IProcessReceiver processReceiver) throws IOException,
       InterruptedException, CoreException, OperationCanceledException {
-    IProject project = javaProject.getProject();
-
-    if (warLocation != null) {
-      // Remove any existing Speed Tracer launch artifacts
-      new SpeedTracerArtifactsRemover(warLocation.toFile()).removeAll();
-    }
-
-    if (settings.getEntryPointModules().isEmpty()) {
-      // Nothing to compile, so just return.
-      return;
-    }
-
-    int processStatus = ProcessUtilities.launchProcessAndWaitFor(
-        computeCompilerCommandLine(javaProject, warLocation, settings),
-        project.getLocation().toFile(), consoleOutputStream, processReceiver);
-
-    /*
-     * Do a refresh on the war folder if it's in the workspace. This ensures
-     * that Eclipse sees the generated artifacts from the GWT compile, and
-     * doesn't complain about stale resources during subsequent file searches.
-     */
-    if (warLocation != null) {
-       for (IContainer warFolder : ResourcesPlugin.getWorkspace().getRoot()
-          .findContainersForLocationURI(URIUtil.toURI(warLocation))) {
-        warFolder.refreshLocal(IResource.DEPTH_INFINITE, null);
-      }
-    }
+    compile(javaProject, warLocation, settings, consoleOutputStream,
+        processReceiver, null);
+  }
 
-    if (processStatus != 0) {
-      if (processReceiver != null && processReceiver.hasDestroyedProcess()) {
-        PrintWriter printWriter = new PrintWriter(consoleOutputStream);
-        printWriter.println("GWT compilation terminated by the user.");
-        printWriter.flush();
-        throw new OperationCanceledException();
-      } else {
-        throw new CoreException(new Status(IStatus.ERROR, GWTPlugin.PLUGIN_ID,
-            "GWT compilation failed"));
+  /**
+   * @param processReceiver optional, receives the process after it is started
+   * @param monitor optional, a monitor on which no task has begun; receives
+   *          progress as the compiler reports its phases and permutations
+   */
+  public static void compile(IJavaProject javaProject, IPath warLocation,
+      GWTCompileSettings settings, OutputStream consoleOutputStream,
+      IProcessReceiver processReceiver, IProgressMonitor monitor)
+      throws IOException, InterruptedException, CoreException,
+      OperationCanceledException {
+    SubMonitor progress = SubMonitor.convert(monitor,
+        "Performing GWT compile", 1);
+    try {
+      compileModules(javaProject, warLocation, settings, consoleOutputStream,
+          processReceiver, progress);
+    } finally {
+      if (monitor != null) {
+        monitor.done();
       }
     }
   }
@@ -124,13 +112,12 @@ public class GWTCompileRunner {
       throws IOException, InterruptedException, CoreException,
       OperationCanceledException {
 
-    monitor.setTaskName("Performing GWT compile");
     ProgressMonitorCanceledWatcher monitorWatcher = new ProgressMonitorCanceledWatcher(
         monitor, cancellationListener);
     monitorWatcher.start();
     try {
       GWTCompileRunner.compile(javaProject, warLocation, settings,
-          consoleOutputStream, processReceiver);
+          consoleOutputStream, processReceiver, monitor);
     } finally {
       monitorWatcher.stop();
     }
@@ -214,40 +201,228 @@ public class GWTCompileRunner {
     return resolvedRuntimeClasspath;
   }
 
+  /**
+   * Compiles each entry point module in its own compiler process, running up to
+   * {@link GWTCompileSettings#getParallelProcesses()} processes at once. When
+   * the user has not specified a heap size, one is computed from the physical
+   * memory of the machine. The fingerprint of each module that compiles
+   * successfully is recorded, even if others fail.
+   */
+  private static void compileInParallel(IJavaProject javaProject,
+      IPath warLocation, int parallelProcesses,
+      List<IRuntimeClasspathEntry> classpath, List<String> vmArgs,
+      List<String> compilerOptions, List<String> modules,
+      OutputStream consoleOutputStream, IProcessReceiver processReceiver,
+      CompileProgressTracker tracker, CompileFingerprintStore fingerprintStore,
+      Map<String, String> fingerprints) throws InterruptedException,
+      CoreException, OperationCanceledException {
+    Long heapMegabytes = ParallelGWTCompileRunner.parseMaxHeapMegabytes(vmArgs);
+    Long totalMemoryMegabytes =
+        ParallelGWTCompileRunner.getTotalPhysicalMemoryMegabytes();
+    int poolSize = ParallelGWTCompileRunner.computePoolSize(parallelProcesses,
+        modules.size(), heapMegabytes, totalMemoryMegabytes);
+    List<String> processVmArgs = new ArrayList<String>(vmArgs);
+    if (heapMegabytes == null) {
+      Long computedHeapMegabytes = ParallelGWTCompileRunner.computeMaxHeapMegabytes(
+          poolSize, totalMemoryMegabytes);
+      if (computedHeapMegabytes != null) {
+        processVmArgs.add("-Xmx" + computedHeapMegabytes + "m");
+      }
+    }
+
+    List<String> baseCommandLine = computeCompilerCommandLine(javaProject,
+        classpath, processVmArgs, compilerOptions);
+    ParallelGWTCompileRunner.Report report;
+    try {
+      report = new ParallelGWTCompileRunner(baseCommandLine,
+          javaProject.getProject().getLocation().toFile(), consoleOutputStream,
+          processReceiver, tracker, poolSize).compile(modules);
+    } finally {
+      reportTimings(javaProject.getProject(), tracker, consoleOutputStream);
+    }
+
+    refreshWarFolder(warLocation);
+
+    for (ParallelGWTCompileRunner.ModuleResult result : report.getResults()) {
+      if (result.getOutcome() == ParallelGWTCompileRunner.Outcome.SUCCEEDED) {
+        fingerprintStore.record(result.getModule(),
+            fingerprints.get(result.getModule()));
+      }
+    }
+
+    if (report.isCanceled()) {
+      synchronized (consoleOutputStream) {
+        PrintWriter printWriter = new PrintWriter(consoleOutputStream);
+        printWriter.println("GWT compilation terminated by the user.");
+        printWriter.flush();
+      }
+      throw new OperationCanceledException();
+    }
+
+    List<String> failedModules = report.getFailedModules();
+    if (!failedModules.isEmpty()) {
+      throw new CoreException(new Status(IStatus.ERROR, GWTPlugin.PLUGIN_ID,
+          "GWT compilation failed for " + failedModules));
+    }
+  }
+
+  /**
+   * Compiles the entry point modules whose inputs have changed, reporting
+   * {@link CompileProgressTracker#WORK_PER_MODULE} units of work per module.
+   */
+  private static void compileModules(IJavaProject javaProject,
+      IPath warLocation, GWTCompileSettings settings,
+      OutputStream consoleOutputStream, IProcessReceiver processReceiver,
+      SubMonitor progress)
+      throws IOException, InterruptedException, CoreException,
+      OperationCanceledException {
+    IProject project = javaProject.getProject();
+
+    if (warLocation != null) {
+      // Remove any existing Speed Tracer launch artifacts
+      new SpeedTracerArtifactsRemover(warLocation.toFile()).removeAll();
+    }
+
+    List<String> modules = settings.getEntryPointModules();
+    if (modules.isEmpty()) {
+      // Nothing to compile, so just return.
+      return;
+    }
+
+    List<IRuntimeClasspathEntry> classpath = computeClasspath(javaProject);
+    List<String> vmArgs = computeVmArgs(javaProject, settings);
+    List<String> compilerOptions = computeCompilerOptions(warLocation, settings);
+
+    // Skip the modules whose inputs are unchanged since their last compile
+    CompileFingerprintStore fingerprintStore = new CompileFingerprintStore(
+        javaProject, CompileFingerprintStore.resolveWarDirectory(
+            compilerOptions, project.getLocation().toFile()));
+    String sharedFingerprint = CompileFingerprintStore.computeSharedFingerprint(
+        classpath, vmArgs, compilerOptions);
+    Map<String, String> fingerprints = new HashMap<String, String>();
+    List<String> modulesToCompile = new ArrayList<String>();
+    PrintWriter printWriter = new PrintWriter(consoleOutputStream);
+    for (String module : modules) {
+      String fingerprint = fingerprintStore.computeFingerprint(module,
+          sharedFingerprint);
+      fingerprints.put(module, fingerprint);
+      if (!settings.isForceCompile()
+          && fingerprintStore.isUpToDate(module, fingerprint)) {
+        printWriter.println("Skipping GWT compilation of " + module
+            + " since nothing it depends on has changed since it was last compiled.");
+      } else {
+        fingerprintStore.clear(module);
+        modulesToCompile.add(module);
+      }
+    }
+    printWriter.flush();
+
+    if (modulesToCompile.isEmpty()) {
+      return;
+    }
+
+    progress.setWorkRemaining(modulesToCompile.size()
+        * CompileProgressTracker.WORK_PER_MODULE);
+    CompileProgressTracker tracker = new CompileProgressTracker(progress,
+        computeLocalWorkers(compilerOptions));
+
+    if (modulesToCompile.size() > 1 && settings.getParallelProcesses() != 1) {
+      compileInParallel(javaProject, warLocation, settings.getParallelProcesses(),
+          classpath, vmArgs, compilerOptions, modulesToCompile,
+          consoleOutputStream, processReceiver, tracker, fingerprintStore,
+          fingerprints);
+      return;
+    }
+
+    List<String> commandLine = computeCompilerCommandLine(javaProject,
+        classpath, vmArgs, compilerOptions);
+    // add the startup modules
+    commandLine.addAll(modulesToCompile);
+
+    CompilerOutputParser outputParser = new CompilerOutputParser(
+        consoleOutputStream, tracker);
+    int processStatus;
+    try {
+      processStatus = ProcessUtilities.launchProcessAndWaitFor(commandLine,
+          project.getLocation().toFile(), outputParser, processReceiver);
+    } finally {
+      outputParser.close();
+      reportTimings(project, tracker, consoleOutputStream);
+    }
+
+    refreshWarFolder(warLocation);
+
+    if (processStatus != 0) {
+      if (processReceiver != null && processReceiver.hasDestroyedProcess()) {
+        printWriter.println("GWT compilation terminated by the user.");
+        printWriter.flush();
+        throw new OperationCanceledException();
+      } else {
+        throw new CoreException(new Status(IStatus.ERROR, GWTPlugin.PLUGIN_ID,
+            "GWT compilation failed"));
+      }
+    }
+
+    for (String module : modulesToCompile) {
+      fingerprintStore.record(module, fingerprints.get(module));
+    }
+  }
+
   /**
    * Computes the command line arguments required to invoke the GWT compiler for
-   * this project.
+   * this project, without any modules.
    */
   private static List<String> computeCompilerCommandLine(
-      IJavaProject javaProject, IPath warLocation, GWTCompileSettings settings)
-      throws CoreException {
+      IJavaProject javaProject, List<IRuntimeClasspathEntry> classpath,
+      List<String> vmArgs, List<String> compilerOptions) throws CoreException {
     List<String> commandLine = new ArrayList<String>();
     // add the fully qualified path to java
     String javaExecutable = ProcessUtilities.computeJavaExecutableFullyQualifiedPath(javaProject);
     commandLine.add(javaExecutable);
 
-    commandLine.addAll(GWTLaunchConfiguration.computeCompileDynamicVMArgsAsList(
-        javaProject));
-
-    commandLine.addAll(splitArgs(VariablesPlugin.getDefault().getStringVariableManager().performStringSubstitution(
-        settings.getVmArgs())));
+    commandLine.addAll(vmArgs);
 
     // add the classpath
     commandLine.add("-cp");
-    commandLine.add(ClasspathUtilities.flattenToClasspathString(computeClasspath(javaProject)));
+    commandLine.add(ClasspathUtilities.flattenToClasspathString(classpath));
 
     // add the GWT compiler class name
     commandLine.add(COMPILER_NAME);
 
     // add the GWT compiler options
-    commandLine.addAll(computeCompilerOptions(warLocation, settings));
-
-    // add the startup modules
-    commandLine.addAll(settings.getEntryPointModules());
+    commandLine.addAll(compilerOptions);
 
     return commandLine;
   }
 
+  /**
+   * @return the number of permutations the compiler compiles at once, as given
+   *         by the -localWorkers option, or 1 (the compiler's default)
+   */
+  private static int computeLocalWorkers(List<String> compilerOptions) {
+    int localWorkers = 1;
+    for (int i = 0; i < compilerOptions.size() - 1; i++) {
+      if ("-localWorkers".equals(compilerOptions.get(i))) {
+        try {
+          localWorkers = Integer.parseInt(compilerOptions.get(i + 1));
+        } catch (NumberFormatException e) {
+          // The compiler will reject it; keep the default
+        }
+      }
+    }
+    return localWorkers;
+  }
+
+  private static List<String> computeVmArgs(IJavaProject javaProject,
+      GWTCompileSettings settings) throws CoreException {
+    List<String> vmArgs = new ArrayList<String>();
+    vmArgs.addAll(GWTLaunchConfiguration.computeCompileDynamicVMArgsAsList(
+        javaProject));
+    vmArgs.addAll(splitArgs(VariablesPlugin.getDefault().getStringVariableManager().performStringSubstitution(
+        settings.getVmArgs())));
+    return vmArgs;
+  }
+
   private static List<String> computeCompilerOptions(IPath warLocation,
       GWTCompileSettings settings) {
     List<String> options = new ArrayList<String>();
@@ -274,6 +449,34 @@ public class GWTCompileRunner {
     return options;
   }
 
+  /*
+   * Do a refresh on the war folder if it's in the workspace. This ensures
+   * that Eclipse sees the generated artifacts from the GWT compile, and
+   * doesn't complain about stale resources during subsequent file searches.
+   */
+  private static void refreshWarFolder(IPath warLocation) throws CoreException {
+    if (warLocation != null) {
+      for (IContainer warFolder : ResourcesPlugin.getWorkspace().getRoot()
+          .findContainersForLocationURI(URIUtil.toURI(warLocation))) {
+        warFolder.refreshLocal(IResource.DEPTH_INFINITE, null);
+      }
+    }
+  }
+
+  /**
+   * Writes the phase timings of a finished compile to the console and appends
+   * them to the timing log.
+   */
+  private static void reportTimings(IProject project,
+      CompileProgressTracker tracker, OutputStream consoleOutputStream) {
+    tracker.finish();
+    synchronized (consoleOutputStream) {
+      tracker.printSummary(new PrintWriter(consoleOutputStream));
+    }
+    CompileTimingLog.appendToDefaultLog(project.getName(),
+        tracker.getModuleTimings());
+  }
+
   private static List<String> splitArgs(String args) {
     List<String> options = new ArrayList<String>();
 
@@ -58,6 +58,8 @@ public class GWTCompileSettings {
 
   private static final String OUTPUT_STYLE_TAG = "output-style";
 
+  private static final String PARALLEL_PROCESSES_TAG = "parallel-processes";
+
   private static final String ROOT_TAG = "gwt-compile-settings";
 
   private static final String VM_ARGS_TAG = "vm-args";
@@ -121,6 +123,15 @@ public class GWTCompileSettings {
           settings.setVmArgs(getElementText(element));
           continue;
         }
+
+        if (nodeName.equalsIgnoreCase(PARALLEL_PROCESSES_TAG)) {
+          try {
+            settings.setParallelProcesses(Integer.parseInt(getElementText(element).trim()));
+          } catch (NumberFormatException e) {
+            GWTPluginLog.logWarning(e, "Ignoring invalid number of GWT compiler processes");
+          }
+          continue;
+        }
         
         if (nodeName.equalsIgnoreCase(ENTRY_POINT_MODULES_TAG)) {
           settings.entryPointModules.add(getElementText(element));
@@ -181,10 +192,19 @@ public class GWTCompileSettings {
 
   private String extraArgs = "";
 
+  private boolean forceCompile;
+
   private String logLevel = (String) GWTLaunchAttributes.LOG_LEVEL.getDefaultValue();
   
   private String outputStyle = (String) GWTLaunchAttributes.OUTPUT_STYLE.getDefaultValue();
 
+  /**
+   * 1 compiles all modules in a single compiler process; 0 compiles each module
+   * in its own process, one process per available processor; any other value
+   * is the maximum number of per-module processes to run at once.
+   */
+  private int parallelProcesses = 1;
+
   private final IProject project;
 
   private String vmArgs = "-Xmx512m";
@@ -225,10 +245,23 @@ public class GWTCompileSettings {
     return outputStyle;
   }
 
+  /**
+   * Returns the maximum number of compiler processes to run at once when
+   * compiling several modules: 1 (the default) compiles all modules in a single
+   * process, and 0 uses one process per available processor.
+   */
+  public int getParallelProcesses() {
+    return parallelProcesses;
+  }
+
   public String getVmArgs() {
     return vmArgs;
   }
 
+  public boolean isForceCompile() {
+    return forceCompile;
+  }
+
   @Override
   public int hashCode() {
     return this.toXml().hashCode();
@@ -246,6 +279,15 @@ public class GWTCompileSettings {
     this.extraArgs = args;
   }
 
+  /**
+   * Whether to compile every entry point module even if nothing it depends on
+   * has changed since it was last compiled. Like the entry point modules, this
+   * is <strong>not</strong> persisted.
+   */
+  public void setForceCompile(boolean forceCompile) {
+    this.forceCompile = forceCompile;
+  }
+
   public void setLogLevel(String logLevel) {
     this.logLevel = logLevel;
   }
@@ -254,6 +296,10 @@ public class GWTCompileSettings {
     this.outputStyle = outputStyle;
   }
 
+  public void setParallelProcesses(int parallelProcesses) {
+    this.parallelProcesses = Math.max(0, parallelProcesses);
+  }
+
   public void setVmArgs(String vmArgs) {
     this.vmArgs = vmArgs;
   }
@@ -315,6 +361,7 @@ public class GWTCompileSettings {
     sb.append(createXmlElement(OUTPUT_STYLE_TAG, outputStyle));
     sb.append(createXmlElement(EXTRA_ARGS_TAG, createCDATAElement(extraArgs)));
     sb.append(createXmlElement(VM_ARGS_TAG, createCDATAElement(vmArgs)));
+    sb.append(createXmlElement(PARALLEL_PROCESSES_TAG, String.valueOf(parallelProcesses)));
             
     if (shouldSaveEntryPointModules()) {
       for (String moduleName : entryPointModules) {
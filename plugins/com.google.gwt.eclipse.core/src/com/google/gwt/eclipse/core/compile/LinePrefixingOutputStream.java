@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.compile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that writes each complete line it receives to a shared
+ * target stream, preceded by a fixed prefix. Several instances may share one
+ * target; each line is written to the target atomically, so lines from
+ * different writers are interleaved but never mixed.
+ */
+class LinePrefixingOutputStream extends OutputStream {
+
+  private final byte[] prefix;
+
+  private final OutputStream target;
+
+  private final ByteArrayOutputStream currentLine = new ByteArrayOutputStream();
+
+  /**
+   * @param prefix text written before each line
+   * @param target the shared stream; writes to it are synchronized on the
+   *          stream itself
+   */
+  LinePrefixingOutputStream(String prefix, OutputStream target) {
+    this.prefix = prefix.getBytes();
+    this.target = target;
+  }
+
+  @Override
+  public void close() throws IOException {
+    // Emit a trailing partial line, but leave the shared target open
+    emitCurrentLine();
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    int lineStart = off;
+    int end = off + len;
+    for (int i = off; i < end; i++) {
+      if (b[i] == '\n') {
+        currentLine.write(b, lineStart, i + 1 - lineStart);
+        emitCurrentLine();
+        lineStart = i + 1;
+      }
+    }
+    currentLine.write(b, lineStart, end - lineStart);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    currentLine.write(b);
+    if (b == '\n') {
+      emitCurrentLine();
+    }
+  }
+
+  private void emitCurrentLine() throws IOException {
+    if (currentLine.size() == 0) {
+      return;
+    }
+    synchronized (target) {
+      target.write(prefix);
+      currentLine.writeTo(target);
+      target.flush();
+    }
+    currentLine.reset();
+  }
+}
@@ -0,0 +1,468 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.compile;
+
+import com.google.gdt.eclipse.core.ProcessUtilities;
+import com.google.gdt.eclipse.core.ProcessUtilities.IProcessReceiver;
+import com.google.gwt.eclipse.core.GWTPluginLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles several GWT entry point modules, each in its own compiler process,
+ * with at most a fixed number of processes running at once. The output of each
+ * process is written to the shared console with the module name as a line
+ * prefix, and a summary of per-module outcomes and timings is written when all
+ * modules are done.
+ * 
+ * Cancellation is driven by the caller's {@link IProcessReceiver}: once it
+ * reports that it has destroyed a process (the user pressed the terminate
+ * button, or the progress monitor was canceled), every running compiler
+ * process is destroyed and the modules still waiting are skipped.
+ */
+class ParallelGWTCompileRunner {
+
+  /**
+   * The outcome of compiling one module.
+   */
+  static class ModuleResult {
+
+    private final String module;
+
+    private final Outcome outcome;
+
+    private final long elapsedMillis;
+
+    private final String detail;
+
+    ModuleResult(String module, Outcome outcome, long elapsedMillis,
+        String detail) {
+      this.module = module;
+      this.outcome = outcome;
+      this.elapsedMillis = elapsedMillis;
+      this.detail = detail;
+    }
+
+    long getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    String getModule() {
+      return module;
+    }
+
+    Outcome getOutcome() {
+      return outcome;
+    }
+  }
+
+  /**
+   * The possible outcomes of compiling one module.
+   */
+  enum Outcome {
+    SUCCEEDED, FAILED, CANCELED
+  }
+
+  /**
+   * The aggregated outcome of a parallel compile.
+   */
+  static class Report {
+
+    private final List<ModuleResult> results;
+
+    private final boolean canceled;
+
+    Report(List<ModuleResult> results, boolean canceled) {
+      this.results = results;
+      this.canceled = canceled;
+    }
+
+    List<String> getFailedModules() {
+      List<String> failedModules = new ArrayList<String>();
+      for (ModuleResult result : results) {
+        if (result.getOutcome() == Outcome.FAILED) {
+          failedModules.add(result.getModule());
+        }
+      }
+      return failedModules;
+    }
+
+    List<ModuleResult> getResults() {
+      return results;
+    }
+
+    boolean isCanceled() {
+      return canceled;
+    }
+  }
+
+  /**
+   * Tracks the compiler process of one module, so that it can be destroyed on
+   * cancellation, and forwards it to the caller's receiver so that the
+   * terminate button is enabled.
+   */
+  private class ModuleProcessReceiver implements IProcessReceiver {
+
+    private Process process;
+
+    public boolean hasDestroyedProcess() {
+      return canceled.get();
+    }
+
+    public void setProcess(Process process) {
+      synchronized (runningProcesses) {
+        this.process = process;
+        runningProcesses.add(process);
+      }
+      // Checked after registering, so that a concurrent cancel() cannot miss it
+      if (canceled.get()) {
+        process.destroy();
+      }
+      if (processReceiver != null) {
+        processReceiver.setProcess(process);
+      }
+    }
+
+    void release() {
+      synchronized (runningProcesses) {
+        if (process != null) {
+          runningProcesses.remove(process);
+        }
+      }
+    }
+  }
+
+  private static final long CANCELLATION_POLLING_INTERVAL_MILLIS = 250;
+
+  private static final Pattern MAX_HEAP_PATTERN = Pattern.compile("^-Xmx(\\d+)([kKmMgG]?)$");
+
+  /**
+   * Smallest and largest heap given to a compiler process when the user has
+   * not specified one.
+   */
+  private static final long MIN_HEAP_MEGABYTES = 512;
+
+  private static final long MAX_HEAP_MEGABYTES = 4096;
+
+  /**
+   * Memory left to Eclipse and the rest of the system when sizing compiler
+   * heaps: this much, or a quarter of physical memory, whichever is larger.
+   */
+  private static final long RESERVED_MEMORY_MEGABYTES = 1024;
+
+  /**
+   * Computes the maximum heap size to give each compiler process when the user
+   * has not specified one, by dividing the memory not reserved for Eclipse and
+   * the system among the processes.
+   * 
+   * @return the heap size in megabytes, or null if the physical memory size is
+   *         unknown
+   */
+  static Long computeMaxHeapMegabytes(int poolSize, Long totalMemoryMegabytes) {
+    if (totalMemoryMegabytes == null) {
+      return null;
+    }
+    long perProcess = computeUsableMemoryMegabytes(totalMemoryMegabytes) / poolSize;
+    return Math.max(MIN_HEAP_MEGABYTES, Math.min(MAX_HEAP_MEGABYTES, perProcess));
+  }
+
+  /**
+   * Computes how many compiler processes to run at once.
+   * 
+   * @param requestedProcesses the number requested in the compile settings, or
+   *          0 to use one process per available processor
+   * @param moduleCount the number of modules to compile
+   * @param heapMegabytes the user-specified compiler heap size, or null if none
+   *          was specified
+   * @param totalMemoryMegabytes the physical memory size, or null if unknown
+   */
+  static int computePoolSize(int requestedProcesses, int moduleCount,
+      Long heapMegabytes, Long totalMemoryMegabytes) {
+    int poolSize = requestedProcesses > 0 ? requestedProcesses
+        : Runtime.getRuntime().availableProcessors();
+    if (totalMemoryMegabytes != null) {
+      // Never start more processes than fit in memory at once
+      long perProcess = heapMegabytes != null ? heapMegabytes : MIN_HEAP_MEGABYTES;
+      long fitting = computeUsableMemoryMegabytes(totalMemoryMegabytes) / perProcess;
+      poolSize = (int) Math.min(poolSize, fitting);
+    }
+    return Math.max(1, Math.min(poolSize, moduleCount));
+  }
+
+  /**
+   * @return the physical memory size of this machine in megabytes, or null if
+   *         the JVM does not expose it
+   */
+  static Long getTotalPhysicalMemoryMegabytes() {
+    OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+    try {
+      // Only the com.sun.management extension of the bean exposes this, and
+      // that interface may not be visible to the bundle class loader
+      Method method = osBean.getClass().getMethod("getTotalPhysicalMemorySize");
+      method.setAccessible(true);
+      Object value = method.invoke(osBean);
+      if (value instanceof Number) {
+        return ((Number) value).longValue() / (1024 * 1024);
+      }
+    } catch (Exception e) {
+      // Fall through, the memory size is simply unknown
+    }
+    return null;
+  }
+
+  /**
+   * @return the heap size in megabytes given by the last -Xmx argument, or null
+   *         if there is none
+   */
+  static Long parseMaxHeapMegabytes(List<String> vmArgs) {
+    Long result = null;
+    for (String vmArg : vmArgs) {
+      Matcher matcher = MAX_HEAP_PATTERN.matcher(vmArg.trim());
+      if (!matcher.matches()) {
+        continue;
+      }
+      long value;
+      try {
+        value = Long.parseLong(matcher.group(1));
+      } catch (NumberFormatException e) {
+        continue;
+      }
+      switch (Character.toLowerCase(matcher.group(2).length() == 0 ? 'b'
+          : matcher.group(2).charAt(0))) {
+        case 'g':
+          result = value * 1024;
+          break;
+        case 'm':
+          result = value;
+          break;
+        case 'k':
+          result = value / 1024;
+          break;
+        default:
+          result = value / (1024 * 1024);
+          break;
+      }
+    }
+    return result;
+  }
+
+  private static long computeUsableMemoryMegabytes(long totalMemoryMegabytes) {
+    long reserved = Math.max(RESERVED_MEMORY_MEGABYTES, totalMemoryMegabytes / 4);
+    return Math.max(0, totalMemoryMegabytes - reserved);
+  }
+
+  static String formatSeconds(long millis) {
+    return String.format("%.1f s", millis / 1000.0);
+  }
+
+  private final List<String> baseCommandLine;
+
+  private final File workingDir;
+
+  private final OutputStream consoleOutputStream;
+
+  private final IProcessReceiver processReceiver;
+
+  private final CompilerOutputParser.Listener outputListener;
+
+  private final int poolSize;
+
+  private final AtomicBoolean canceled = new AtomicBoolean(false);
+
+  /**
+   * Synchronize on the set itself.
+   */
+  private final Set<Process> runningProcesses = new HashSet<Process>();
+
+  /**
+   * @param baseCommandLine the compiler command line, up to and including the
+   *          compiler options; the module name is appended for each process
+   * @param workingDir the working directory of the compiler processes
+   * @param consoleOutputStream receives the prefixed output of all processes
+   *          and the summary
+   * @param processReceiver optional, receives each process after it is started
+   *          and is polled for cancellation
+   * @param outputListener receives the events parsed from the output of every
+   *          process, possibly concurrently
+   * @param poolSize the maximum number of processes to run at once
+   */
+  ParallelGWTCompileRunner(List<String> baseCommandLine, File workingDir,
+      OutputStream consoleOutputStream, IProcessReceiver processReceiver,
+      CompilerOutputParser.Listener outputListener, int poolSize) {
+    this.baseCommandLine = baseCommandLine;
+    this.workingDir = workingDir;
+    this.consoleOutputStream = consoleOutputStream;
+    this.processReceiver = processReceiver;
+    this.outputListener = outputListener;
+    this.poolSize = poolSize;
+  }
+
+  /**
+   * Compiles the given modules and writes a summary to the console.
+   * 
+   * @throws InterruptedException if the calling thread is interrupted; all
+   *           compiler processes are destroyed before this is thrown
+   */
+  Report compile(List<String> modules) throws InterruptedException {
+    long startMillis = System.currentTimeMillis();
+    ExecutorService executor = Executors.newFixedThreadPool(poolSize,
+        new ThreadFactory() {
+          public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "GWT Compile Worker");
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+
+    List<Future<ModuleResult>> futures = new ArrayList<Future<ModuleResult>>();
+    try {
+      for (final String module : modules) {
+        futures.add(executor.submit(new Callable<ModuleResult>() {
+          public ModuleResult call() throws Exception {
+            return compileModule(module);
+          }
+        }));
+      }
+      executor.shutdown();
+
+      while (!executor.awaitTermination(CANCELLATION_POLLING_INTERVAL_MILLIS,
+          TimeUnit.MILLISECONDS)) {
+        if (processReceiver != null && processReceiver.hasDestroyedProcess()) {
+          cancel();
+        }
+      }
+    } catch (InterruptedException e) {
+      cancel();
+      executor.shutdownNow();
+      throw e;
+    }
+
+    if (processReceiver != null && processReceiver.hasDestroyedProcess()) {
+      canceled.set(true);
+    }
+
+    List<ModuleResult> results = new ArrayList<ModuleResult>();
+    for (int i = 0; i < modules.size(); i++) {
+      try {
+        results.add(futures.get(i).get());
+      } catch (ExecutionException e) {
+        GWTPluginLog.logError(e.getCause(), "Unable to compile GWT module "
+            + modules.get(i));
+        results.add(new ModuleResult(modules.get(i), Outcome.FAILED, 0,
+            e.getCause().getLocalizedMessage()));
+      }
+    }
+
+    Report report = new Report(results, canceled.get());
+    printSummary(report, System.currentTimeMillis() - startMillis);
+    return report;
+  }
+
+  private void cancel() {
+    canceled.set(true);
+    synchronized (runningProcesses) {
+      for (Process process : runningProcesses) {
+        process.destroy();
+      }
+    }
+  }
+
+  private ModuleResult compileModule(String module) throws IOException,
+      InterruptedException {
+    if (canceled.get()) {
+      return new ModuleResult(module, Outcome.CANCELED, 0, null);
+    }
+
+    List<String> commandLine = new ArrayList<String>(baseCommandLine);
+    commandLine.add(module);
+    OutputStream prefixingOutputStream = new LinePrefixingOutputStream("["
+        + module + "] ", consoleOutputStream);
+    OutputStream moduleOutputStream = new CompilerOutputParser(
+        prefixingOutputStream, outputListener);
+    ModuleProcessReceiver moduleProcessReceiver = new ModuleProcessReceiver();
+
+    long startMillis = System.currentTimeMillis();
+    int exitCode;
+    try {
+      exitCode = ProcessUtilities.launchProcessAndWaitFor(commandLine,
+          workingDir, moduleOutputStream, moduleProcessReceiver);
+    } finally {
+      moduleProcessReceiver.release();
+      moduleOutputStream.close();
+      prefixingOutputStream.close();
+    }
+    long elapsedMillis = System.currentTimeMillis() - startMillis;
+
+    if (exitCode == 0) {
+      return new ModuleResult(module, Outcome.SUCCEEDED, elapsedMillis, null);
+    } else if (canceled.get()) {
+      return new ModuleResult(module, Outcome.CANCELED, elapsedMillis, null);
+    } else {
+      return new ModuleResult(module, Outcome.FAILED, elapsedMillis,
+          "exit code " + exitCode);
+    }
+  }
+
+  private void printSummary(Report report, long wallClockMillis) {
+    long totalCompileMillis = 0;
+    int moduleNameWidth = 1;
+    for (ModuleResult result : report.getResults()) {
+      totalCompileMillis += result.getElapsedMillis();
+      moduleNameWidth = Math.max(moduleNameWidth, result.getModule().length());
+    }
+
+    synchronized (consoleOutputStream) {
+      PrintWriter printWriter = new PrintWriter(consoleOutputStream);
+      printWriter.println();
+      printWriter.println("GWT compilation summary (" + report.getResults().size()
+          + " modules, up to " + poolSize + " compiler processes at once):");
+      for (ModuleResult result : report.getResults()) {
+        StringBuilder line = new StringBuilder("  ");
+        line.append(String.format("%-" + moduleNameWidth + "s  %-9s",
+            result.getModule(), result.getOutcome().toString().toLowerCase()));
+        if (result.getOutcome() != Outcome.CANCELED || result.getElapsedMillis() > 0) {
+          line.append("  ").append(formatSeconds(result.getElapsedMillis()));
+        }
+        if (result.detail != null) {
+          line.append(" (").append(result.detail).append(')');
+        }
+        printWriter.println(line);
+      }
+      printWriter.println("Total: " + formatSeconds(totalCompileMillis)
+          + " of compile time in " + formatSeconds(wallClockMillis) + " elapsed");
+      printWriter.flush();
+    }
+  }
+}
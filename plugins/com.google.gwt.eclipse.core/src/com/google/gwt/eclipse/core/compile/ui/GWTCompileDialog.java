@@ -67,6 +67,7 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.dialogs.ElementListSelectionDialog;
 import org.eclipse.ui.forms.events.ExpansionAdapter;
@@ -128,6 +129,8 @@ public class GWTCompileDialog extends TitleAreaDialog {
     }
   }
 
+  private static final int MAX_PARALLEL_PROCESSES = 64;
+
   // TODO: move this to utilities class
   private static int convertSeverity(IStatus status) {
     switch (status.getSeverity()) {
@@ -156,6 +159,8 @@ public class GWTCompileDialog extends TitleAreaDialog {
 
   private Text extraArgsText;
 
+  private Button forceCompileButton;
+
   private final FieldListener listener = new FieldListener();
 
   private String logLevel;
@@ -168,6 +173,8 @@ public class GWTCompileDialog extends TitleAreaDialog {
 
   private ComboViewer outputStyleComboViewer;
 
+  private Spinner parallelProcessesSpinner;
+
   private IProject project;
 
   private Text projectText;
@@ -189,7 +196,9 @@ public class GWTCompileDialog extends TitleAreaDialog {
     settings.setLogLevel(logLevel);
     settings.setExtraArgs(extraArgs);
     settings.setVmArgs(vmArgs);
+    settings.setParallelProcesses(parallelProcessesSpinner.getSelection());
     settings.setEntryPointModules(entryPointModulesBlock.getModules());
+    settings.setForceCompile(forceCompileButton.getSelection());
     return settings;
   }
 
@@ -277,6 +286,7 @@ public class GWTCompileDialog extends TitleAreaDialog {
     outputStyleComboViewer.addPostSelectionChangedListener(listener);
     extraArgsText.addModifyListener(listener);
     vmArgsText.addModifyListener(listener);
+    parallelProcessesSpinner.addModifyListener(listener);
 
     applyButton.addSelectionListener(new SelectionAdapter() {
       @Override
@@ -387,6 +397,18 @@ public class GWTCompileDialog extends TitleAreaDialog {
     GridData vmArgsGridData = new GridData(GridData.FILL_HORIZONTAL);
     vmArgsGridData.heightHint = converter.convertHeightInCharsToPixels(5);
     vmArgsText.setLayoutData(vmArgsGridData);
+
+    // Parallel compiler processes field
+    SWTFactory.createLabel(advancedContainer,
+        "Compiler processes for multiple modules (1 = one for all modules, 0 = one per CPU):", 1);
+    parallelProcessesSpinner = new Spinner(advancedContainer, SWT.BORDER);
+    parallelProcessesSpinner.setMinimum(0);
+    parallelProcessesSpinner.setMaximum(MAX_PARALLEL_PROCESSES);
+
+    // Skip unchanged modules unless forced
+    forceCompileButton = SWTFactory.createCheckButton(advancedContainer,
+        "Compile modules even if nothing has changed since the last compile",
+        null, false, 1);
   }
 
   private void createCompilerAndShellComponent(Composite parent) {
@@ -450,6 +472,7 @@ public class GWTCompileDialog extends TitleAreaDialog {
     initializeOutputStyle(settings.getOutputStyle());
     initializeExtraArgs(settings.getExtraArgs());
     initializeVmArgs(settings.getVmArgs());
+    parallelProcessesSpinner.setSelection(settings.getParallelProcesses());
 
     originalSettings = settings;
   }
@@ -21,6 +21,7 @@ import com.google.gwt.eclipse.core.search.IndexedJsniJavaRef;
 import com.google.gwt.eclipse.core.search.JavaQueryParticipant;
 import com.google.gwt.eclipse.core.validators.java.JavaCompilationParticipant;
 import com.google.gwt.eclipse.core.validators.java.JsniJavaRef;
+import com.google.gwt.eclipse.core.validators.java.JsniResolutionContext;
 import com.google.gwt.eclipse.core.validators.java.UnresolvedJsniJavaRefException;
 
 import org.eclipse.core.runtime.CoreException;
@@ -63,9 +64,14 @@ public class JsniReferenceChangeHelper {
     RefactoringASTParser parser = new RefactoringASTParser(AST.JLS4);
     CompilationUnit astNode = parser.parse(cu, false);
 
+    // Both the re-validation and the matching below resolve references against
+    // the same post-refactoring Java Model, so they can share lookups
+    JsniResolutionContext resolutionContext = new JsniResolutionContext();
+
     // Now re-validate the compilation unit's AST to get the JSNI Java
     // references' updated positions into the index
-    JavaCompilationParticipant.validateCompilationUnit(astNode);
+    JavaCompilationParticipant.validateCompilationUnit(astNode,
+        resolutionContext);
 
     // Get the index entries matching the old element by name only (we can't
     // resolve the references anymore because the old element no longer exists).
@@ -79,7 +85,7 @@ public class JsniReferenceChangeHelper {
       // Remove any matches that did not come from this compilation unit or
       // which don't resolve to the refactored Java Element
       if (!(ref.getSource().equals(cu.getPath()))
-          || (!resolvesToRefactoredElement(cu, ref))) {
+          || (!resolvesToRefactoredElement(cu, ref, resolutionContext))) {
         iterator.remove();
       }
     }
@@ -129,6 +135,11 @@ public class JsniReferenceChangeHelper {
 
   public boolean resolvesToRefactoredElement(ICompilationUnit cu,
       IIndexedJavaRef ref) {
+    return resolvesToRefactoredElement(cu, ref, new JsniResolutionContext());
+  }
+
+  public boolean resolvesToRefactoredElement(ICompilationUnit cu,
+      IIndexedJavaRef ref, JsniResolutionContext context) {
     IJavaElement refactoredElement = jsniReferenceChange.getRefactoringSupport().getNewElement();
     if (refactoredElement == null) {
       return false;
@@ -149,7 +160,8 @@ public class JsniReferenceChangeHelper {
         assert (refactoredElement instanceof IMethod || refactoredElement instanceof IField);
 
         IJavaProject javaProject = cu.getJavaProject();
-        IJavaElement refactoredRefElement = refactoredRef.resolveJavaElement(javaProject);
+        IJavaElement refactoredRefElement = refactoredRef.resolveJavaElement(
+            javaProject, context);
         return refactoredElement.equals(refactoredRefElement);
       } catch (UnresolvedJsniJavaRefException e) {
         // Ignore any unresolved references; it's entirely possible that some
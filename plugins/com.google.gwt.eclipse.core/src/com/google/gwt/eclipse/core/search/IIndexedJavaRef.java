@@ -14,6 +14,8 @@
  *******************************************************************************/
 package com.google.gwt.eclipse.core.search;
 
+import com.google.gwt.eclipse.core.validators.java.JsniResolutionContext;
+
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.ui.IMemento;
@@ -39,6 +41,12 @@ public interface IIndexedJavaRef {
 
   IJavaElement resolve();
 
+  /**
+   * Resolves the reference, sharing lookups with other references resolved
+   * through the same context.
+   */
+  IJavaElement resolve(JsniResolutionContext context);
+
   void save(IMemento parent);
 
 }
@@ -16,6 +16,7 @@ package com.google.gwt.eclipse.core.search;
 
 import com.google.gwt.eclipse.core.util.Util;
 import com.google.gwt.eclipse.core.validators.java.JsniJavaRef;
+import com.google.gwt.eclipse.core.validators.java.JsniResolutionContext;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IPath;
@@ -92,6 +93,10 @@ public class IndexedJsniJavaRef extends JsniJavaRef implements IIndexedJavaRef {
   }
 
   public IJavaElement resolve() {
+    return resolve(new JsniResolutionContext());
+  }
+
+  public IJavaElement resolve(JsniResolutionContext context) {
     try {
       // Figure out the containing project based on its source file path
 
@@ -106,7 +111,7 @@ public class IndexedJsniJavaRef extends JsniJavaRef implements IIndexedJavaRef {
       }
 
       // Delegate to JsniJavaRef for the actual work of resolving the reference
-      return super.resolveJavaElement(javaProject);
+      return super.resolveJavaElement(javaProject, context);
     } catch (Exception e) {
       return null;
     }
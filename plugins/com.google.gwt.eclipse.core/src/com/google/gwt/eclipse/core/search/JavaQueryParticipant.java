@@ -16,6 +16,7 @@ package com.google.gwt.eclipse.core.search;
 
 import com.google.gwt.eclipse.core.GWTPluginLog;
 import com.google.gwt.eclipse.core.util.Util;
+import com.google.gwt.eclipse.core.validators.java.JsniResolutionContext;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
@@ -221,6 +222,7 @@ public class JavaQueryParticipant implements IQueryParticipant {
     }
 
     Set<IIndexedJavaRef> matches = new HashSet<IIndexedJavaRef>();
+    JsniResolutionContext resolutionContext = new JsniResolutionContext();
     for (IIndexedJavaRef nameMatch : nameMatches) {
       /*
        * Try to resolve each potential match to see if it actually references
@@ -228,7 +230,7 @@ public class JavaQueryParticipant implements IQueryParticipant {
        * parameter lists, as well as correctly searching for a super type's
        * members from a reference to one of its subclasses.
        */
-      IJavaElement matchElement = nameMatch.resolve();
+      IJavaElement matchElement = nameMatch.resolve(resolutionContext);
       if (javaElement.equals(matchElement)) {
         matches.add(nameMatch);
       }
@@ -68,7 +68,7 @@ public final class JavaRefIndex {
   public static JavaRefIndex getInstance() {
     // Lazily load the search index
     if (INSTANCE == null) {
-      INSTANCE = new JavaRefIndex();
+      INSTANCE = new JavaRefIndex(true);
     }
     return INSTANCE;
   }
@@ -80,6 +80,15 @@ public final class JavaRefIndex {
     INSTANCE.saveIndex();
   }
 
+  /**
+   * For testing purposes. Creates an empty index which is neither loaded from
+   * nor saved to the plug-in state location, so it works without a running
+   * workbench.
+   */
+  static JavaRefIndex createDetachedIndex() {
+    return new JavaRefIndex(false);
+  }
+
   private static String getElementMemberKey(String memberSignature) {
     /*
      * If the element is a method or ctor, strip out the parameter list before
@@ -117,8 +126,10 @@ public final class JavaRefIndex {
    */
   private final Map<IPath, Set<IIndexedJavaRef>> fileIndex = new HashMap<IPath, Set<IIndexedJavaRef>>();
 
-  private JavaRefIndex() {
-    loadIndex();
+  private JavaRefIndex(boolean load) {
+    if (load) {
+      loadIndex();
+    }
   }
 
   // TODO: deep copy the added ref so it can't be modified from the outside?
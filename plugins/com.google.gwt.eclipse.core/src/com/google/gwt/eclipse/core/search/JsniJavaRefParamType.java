@@ -14,8 +14,8 @@
  *******************************************************************************/
 package com.google.gwt.eclipse.core.search;
 
-import com.google.gdt.eclipse.core.java.JavaModelSearch;
 import com.google.gwt.eclipse.core.util.Util;
+import com.google.gwt.eclipse.core.validators.java.JsniResolutionContext;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IPath;
@@ -131,6 +131,10 @@ public class JsniJavaRefParamType implements IIndexedJavaRef {
   }
 
   public IJavaElement resolve() {
+    return resolve(new JsniResolutionContext());
+  }
+
+  public IJavaElement resolve(JsniResolutionContext context) {
     IProject project = Util.getProject(getSource());
     if (project == null) {
       return null;
@@ -142,7 +146,7 @@ public class JsniJavaRefParamType implements IIndexedJavaRef {
     }
 
     // Try to find the type in the project's classpath
-    return JavaModelSearch.findType(javaProject, className());
+    return context.findType(javaProject, className());
   }
 
   public void save(IMemento memento) {
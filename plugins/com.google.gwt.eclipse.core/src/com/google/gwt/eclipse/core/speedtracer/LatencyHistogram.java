@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.speedtracer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies with power-of-two millisecond buckets:
+ * bucket 0 counts latencies below 1 ms, bucket <code>i</code> counts
+ * latencies in <code>[2^(i-1), 2^i)</code> ms, and the last bucket counts
+ * everything longer.
+ */
+public class LatencyHistogram {
+
+  private static final int BUCKET_COUNT = 16;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+  /**
+   * @return the upper bound (exclusive) of the bucket in milliseconds, or
+   *         {@link Long#MAX_VALUE} for the last bucket
+   */
+  public static long getBucketUpperBoundMillis(int bucket) {
+    return bucket < BUCKET_COUNT - 1 ? 1L << bucket : Long.MAX_VALUE;
+  }
+
+  public int getBucketCount() {
+    return BUCKET_COUNT;
+  }
+
+  /**
+   * @return a snapshot of the counts of each bucket
+   */
+  public long[] getCounts() {
+    long[] snapshot = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshot[i] = counts.get(i);
+    }
+    return snapshot;
+  }
+
+  public long getTotalCount() {
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  public void record(long durationNanos) {
+    long millis = TimeUnit.NANOSECONDS.toMillis(Math.max(0, durationNanos));
+    int bucket = millis == 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+    counts.incrementAndGet(Math.min(bucket, BUCKET_COUNT - 1));
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    long lowerBound = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      long count = counts.get(i);
+      long upperBound = getBucketUpperBoundMillis(i);
+      if (count > 0) {
+        if (sb.length() > 0) {
+          sb.append(", ");
+        }
+        sb.append(upperBound == Long.MAX_VALUE ? ">=" + lowerBound : "<" + upperBound);
+        sb.append("ms: ").append(count);
+      }
+      lowerBound = upperBound;
+    }
+    return sb.toString();
+  }
+}
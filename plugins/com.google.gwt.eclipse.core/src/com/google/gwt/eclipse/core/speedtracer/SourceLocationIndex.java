@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.speedtracer;
+
+import com.google.gdt.eclipse.core.ClasspathChangeDeltas;
+import com.google.gwt.eclipse.core.GWTPluginLog;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps file system locations to the workspace elements which contain them, so
+ * {@link ViewSourceServlet} does not have to walk every project's classpath on
+ * each request.
+ *
+ * The index is built lazily on the first lookup and dropped whenever a Java
+ * project is added, removed, opened, closed or has its classpath changed. It is
+ * built without holding a lock, since resolving classpaths may wait for the
+ * Java model while its listeners wait to drop the index; a build that overlaps
+ * a change is used for the lookup that started it but is not kept.
+ */
+class SourceLocationIndex {
+
+  /**
+   * The locations of one build of the index, never modified once built.
+   */
+  static final class Snapshot {
+    /**
+     * Library (JAR or class folder) locations to the package fragment roots
+     * referencing them, in project order.
+     */
+    private final Map<File, List<IPackageFragmentRoot>> libraryRoots;
+
+    /**
+     * Locations of projects and source folders to the containers.
+     */
+    private final Map<IPath, IContainer> containers;
+
+    Snapshot(Map<File, List<IPackageFragmentRoot>> libraryRoots,
+        Map<IPath, IContainer> containers) {
+      this.libraryRoots = libraryRoots;
+      this.containers = containers;
+    }
+  }
+
+  private final IElementChangedListener classpathChangeListener = new IElementChangedListener() {
+    public void elementChanged(ElementChangedEvent event) {
+      if (ClasspathChangeDeltas.affectsClasspaths(event.getDelta())) {
+        invalidate();
+      }
+    }
+  };
+
+  /**
+   * Counts the invalidations, so a build can tell whether it overlapped one.
+   * Guarded by this.
+   */
+  private int generation;
+
+  private volatile Snapshot snapshot;
+
+  /**
+   * Finds the workspace file at the given file system location.
+   *
+   * @return the file, or <code>null</code> if it is not inside an indexed
+   *         container
+   */
+  public IFile findFile(IPath location) {
+    Map<IPath, IContainer> containers = getSnapshot().containers;
+    for (IPath path = location.removeLastSegments(1); path.segmentCount() > 0; path = path.removeLastSegments(1)) {
+      IContainer container = containers.get(path);
+      if (container != null) {
+        IFile file = container.getFile(location.removeFirstSegments(
+            path.segmentCount()).setDevice(null));
+        if (file.isAccessible()) {
+          return file;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds the package fragment root of the library at the given location.
+   *
+   * @param preferredProjectName the name of the project whose root to return
+   *          if several projects reference the library, may be
+   *          <code>null</code>
+   * @return the root, or <code>null</code> if no project references the
+   *         library
+   */
+  public IPackageFragmentRoot findLibraryRoot(File location,
+      String preferredProjectName) {
+    List<IPackageFragmentRoot> roots = getSnapshot().libraryRoots.get(location);
+    if (roots == null) {
+      return null;
+    }
+    if (preferredProjectName != null) {
+      for (IPackageFragmentRoot root : roots) {
+        if (preferredProjectName.equals(root.getJavaProject().getElementName())) {
+          return root;
+        }
+      }
+    }
+    return roots.get(0);
+  }
+
+  public synchronized void invalidate() {
+    generation++;
+    snapshot = null;
+  }
+
+  public void start() {
+    JavaCore.addElementChangedListener(classpathChangeListener,
+        ElementChangedEvent.POST_CHANGE);
+  }
+
+  public void stop() {
+    JavaCore.removeElementChangedListener(classpathChangeListener);
+    invalidate();
+  }
+
+  /**
+   * Walks the classpaths of the open Java projects. Package-private so tests
+   * can interleave invalidations with it.
+   */
+  Snapshot build() {
+    Map<File, List<IPackageFragmentRoot>> newLibraryRoots = new HashMap<File, List<IPackageFragmentRoot>>();
+    Map<IPath, IContainer> newContainers = new HashMap<IPath, IContainer>();
+
+    for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+      if (!project.isAccessible()) {
+        continue;
+      }
+      putContainer(newContainers, project);
+
+      IJavaProject javaProject = JavaCore.create(project);
+      if (!javaProject.exists()) {
+        continue;
+      }
+
+      try {
+        for (IClasspathEntry classpathEntry : javaProject.getResolvedClasspath(true)) {
+          IPath path = classpathEntry.getPath();
+          if (classpathEntry.getEntryKind() == IClasspathEntry.CPE_SOURCE) {
+            IResource sourceFolder = project.getWorkspace().getRoot().findMember(path);
+            if (sourceFolder instanceof IContainer) {
+              // Source folders may be linked from outside the project
+              putContainer(newContainers, (IContainer) sourceFolder);
+            }
+          } else if (classpathEntry.getEntryKind() == IClasspathEntry.CPE_LIBRARY) {
+            File file = path.toFile();
+            List<IPackageFragmentRoot> roots = newLibraryRoots.get(file);
+            if (roots == null) {
+              roots = new ArrayList<IPackageFragmentRoot>(1);
+              newLibraryRoots.put(file, roots);
+            }
+            roots.add(javaProject.getPackageFragmentRoot(path.toOSString()));
+          }
+        }
+      } catch (JavaModelException e) {
+        GWTPluginLog.logWarning(e, "Could not index the classpath of "
+            + project.getName());
+      }
+    }
+
+    return new Snapshot(newLibraryRoots, newContainers);
+  }
+
+  private Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+    if (current != null) {
+      return current;
+    }
+
+    int buildGeneration;
+    synchronized (this) {
+      buildGeneration = generation;
+    }
+    current = build();
+    synchronized (this) {
+      if (generation == buildGeneration) {
+        snapshot = current;
+      }
+    }
+    return current;
+  }
+
+  private void putContainer(Map<IPath, IContainer> map, IContainer container) {
+    IPath location = container.getLocation();
+    if (location != null && !map.containsKey(location)) {
+      map.put(location, container);
+    }
+  }
+}
@@ -26,12 +26,18 @@ public class SourceViewerServer extends JettyServer {
 
   public static final SourceViewerServer INSTANCE = new SourceViewerServer();
 
+  private final ViewSourceServlet viewSourceServlet = new ViewSourceServlet();
+
   public SourceViewerServer() {
     super(SourceViewerServer.class.getClassLoader());
 
     int port = GWTPreferences.getSourceViewerServerPort();
     setPort(port);
-    addServlet(VIEW_SOURCE_SERVLET_PATH, new ViewSourceServlet());
+    addServlet(VIEW_SOURCE_SERVLET_PATH, viewSourceServlet);
+  }
+
+  public ViewSourceServlet getViewSourceServlet() {
+    return viewSourceServlet;
   }
 
   public String getViewSourceUrl() {
@@ -24,15 +24,30 @@ import org.eclipse.core.runtime.Path;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Generates the symbol manifest file required by Speed Tracer to show Java
  * stack traces and jump to the IDE. This will also copy the required symbol
  * maps into the WAR folder.
+ *
+ * GWT permutations are named by the hash of their contents, so a symbol map
+ * already present in the WAR folder is never copied again. New symbol maps are
+ * hard-linked from the extra folder when the file system allows it, and symbol
+ * maps of permutations which no longer exist are removed. Module folders are
+ * processed in parallel.
  */
 public class SymbolManifestGenerator {
 
@@ -44,6 +59,11 @@ public class SymbolManifestGenerator {
     public final String hash;
     public final String moduleName;
 
+    /**
+     * The WAR-relative path of the symbol map, or null if there is none.
+     */
+    public String symbolsPath;
+
     public Resource(String rootRelativePath, String hash, String moduleName) {
       this.rootRelativePath = rootRelativePath;
       this.hash = hash;
@@ -57,6 +77,18 @@ public class SymbolManifestGenerator {
 
   private static final String SYMBOLS_FOLDER_NAME = "symbolsforspeedtracer";
 
+  private static final String SYMBOL_MAP_SUFFIX = ".symbolMap";
+
+  /**
+   * The length of the hash GWT uses to name permutations.
+   */
+  private static final int HASH_LENGTH = 32;
+
+  /**
+   * The maximum number of module folders processed concurrently.
+   */
+  private static final int MAX_THREADS = 4;
+
   private static final FilenameFilter RESOURCE_NAME_FILTER = new FilenameFilter() {
     public boolean accept(File dir, String name) {
       return ResourceUtils.endsWith(name, ".cache.html")
@@ -64,6 +96,12 @@ public class SymbolManifestGenerator {
     }
   };
 
+  private static final FilenameFilter SYMBOL_MAP_NAME_FILTER = new FilenameFilter() {
+    public boolean accept(File dir, String name) {
+      return ResourceUtils.endsWith(name, SYMBOL_MAP_SUFFIX);
+    }
+  };
+
   /**
    * @param warOutFolder the WAR out folder
    * @return the symbol manifest location as a {@link File} object (no existence
@@ -77,6 +115,23 @@ public class SymbolManifestGenerator {
     return new File(warOutFolder, SYMBOLS_FOLDER_NAME);
   }
 
+  /**
+   * Hard-links the destination to the source, falling back to a copy if the
+   * file system does not support links.
+   */
+  private static void linkOrCopy(File source, File dest) throws IOException {
+    dest.getParentFile().mkdirs();
+    try {
+      Files.createLink(dest.toPath(), source.toPath());
+      return;
+    } catch (UnsupportedOperationException e) {
+      // fall through to copy
+    } catch (FileSystemException e) {
+      // e.g. different volumes, fall through to copy
+    }
+    ResourceUtils.copyFile(source, dest);
+  }
+
   private final List<String> moduleNames;
 
   private final File extraFolder;
@@ -113,7 +168,9 @@ public class SymbolManifestGenerator {
       Map<String, Object> resourceJsonMap = new TreeMap<String, Object>();
       rootJsonMap.put(resource.rootRelativePath, resourceJsonMap);
 
-      addSymbolsForResourceToResourceJsonMap(resource, resourceJsonMap);
+      if (resource.symbolsPath != null) {
+        resourceJsonMap.put("symbols", resource.symbolsPath);
+      }
       resourceJsonMap.put("type", "gwt");
 
       Map<String, Object> sourceViewerServerMap = new TreeMap<String, Object>();
@@ -126,29 +183,35 @@ public class SymbolManifestGenerator {
     return JSON.toString(rootJsonMap);
   }
 
-  private void addSymbolsForResourceToResourceJsonMap(Resource resource,
-      Map<String, Object> resourceJsonMap) {
-    File symbolMapFile = findValidSymbolMapFile(resource);
-    if (symbolMapFile == null) {
-      GWTPluginLog.logWarning("Could not find a symbol map file for "
-          + resource.rootRelativePath);
-      return;
-    }
-
+  /**
+   * Makes the symbol map of the resource available in the WAR folder.
+   */
+  private void addSymbolsForResource(Resource resource) {
     Path destSymbolMapRelativePath = new Path(SYMBOLS_FOLDER_NAME + "/"
         + resource.moduleName
-        + "/" + resource.hash + ".symbolMap");
+        + "/" + resource.hash + SYMBOL_MAP_SUFFIX);
     File destSymbolMapFile = new File(warOutFolder,
         destSymbolMapRelativePath.toOSString());
-    try {
-      ResourceUtils.copyFile(symbolMapFile, destSymbolMapFile);
-    } catch (IOException e) {
-      GWTPluginLog.logError(e, "Could not copy the symbol map from "
-          + symbolMapFile.getPath() + " to " + destSymbolMapFile.getPath());
-      return;
+
+    // The hash names the contents, so an existing symbol map is up-to-date
+    if (!destSymbolMapFile.exists()) {
+      File symbolMapFile = findValidSymbolMapFile(resource);
+      if (symbolMapFile == null) {
+        GWTPluginLog.logWarning("Could not find a symbol map file for "
+            + resource.rootRelativePath);
+        return;
+      }
+
+      try {
+        linkOrCopy(symbolMapFile, destSymbolMapFile);
+      } catch (IOException e) {
+        GWTPluginLog.logError(e, "Could not copy the symbol map from "
+            + symbolMapFile.getPath() + " to " + destSymbolMapFile.getPath());
+        return;
+      }
     }
 
-    resourceJsonMap.put("symbols", destSymbolMapRelativePath.toString());
+    resource.symbolsPath = destSymbolMapRelativePath.toString();
   }
 
   private File[] collectResourceFilesForModule(File moduleFolder) {
@@ -156,38 +219,103 @@ public class SymbolManifestGenerator {
   }
 
   private List<Resource> collectResources() {
-    List<Resource> resources = new ArrayList<Resource>();
-
-    for (String moduleName : moduleNames) {
-      File moduleFolder = new File(warOutFolder, moduleName);
+    List<Callable<List<Resource>>> tasks = new ArrayList<Callable<List<Resource>>>();
+    for (final String moduleName : moduleNames) {
+      final File moduleFolder = new File(warOutFolder, moduleName);
       if (!moduleFolder.exists()) {
         continue;
       }
 
-      for (File resourceFile : collectResourceFilesForModule(moduleFolder)) {
-        String resourceName = resourceFile.getName();
-        // The hash used by GWT is 32 characters
-        if (resourceName.length() < 32) {
-          continue;
+      tasks.add(new Callable<List<Resource>>() {
+        public List<Resource> call() {
+          return collectResourcesForModule(moduleName, moduleFolder);
         }
+      });
+    }
+
+    List<Resource> resources = new ArrayList<Resource>();
+    if (tasks.isEmpty()) {
+      return resources;
+    }
 
-        String rootRelativePath = moduleName + "/" + resourceName;
-        String hash = resourceName.substring(0, 32);
-        resources.add(new Resource(rootRelativePath, hash, moduleName));
+    int threads = Math.min(tasks.size(),
+        Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    try {
+      for (Future<List<Resource>> future : executor.invokeAll(tasks)) {
+        try {
+          resources.addAll(future.get());
+        } catch (ExecutionException e) {
+          GWTPluginLog.logError(e.getCause(),
+              "Could not collect the symbol maps of a module");
+        }
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OperationCanceledException();
+    } finally {
+      executor.shutdownNow();
     }
 
     return resources;
   }
 
+  private List<Resource> collectResourcesForModule(String moduleName,
+      File moduleFolder) {
+    List<Resource> resources = new ArrayList<Resource>();
+    Set<String> hashes = new HashSet<String>();
+
+    File[] resourceFiles = collectResourceFilesForModule(moduleFolder);
+    if (resourceFiles == null) {
+      return resources;
+    }
+
+    for (File resourceFile : resourceFiles) {
+      String resourceName = resourceFile.getName();
+      if (resourceName.length() < HASH_LENGTH) {
+        continue;
+      }
+
+      String rootRelativePath = moduleName + "/" + resourceName;
+      String hash = resourceName.substring(0, HASH_LENGTH);
+      Resource resource = new Resource(rootRelativePath, hash, moduleName);
+      addSymbolsForResource(resource);
+      resources.add(resource);
+      hashes.add(hash);
+    }
+
+    removeObsoleteSymbolMaps(moduleName, hashes);
+    return resources;
+  }
+
   private File findValidSymbolMapFile(Resource resource) {
     /*
      * TODO: require less knowledge of the layout of the "extra" folder. One way
      * is to move a lot of this logic into GWT SDK.
      */
     File symbolMapFile = new File(extraFolder, new Path(resource.moduleName
-        + "/symbolMaps/" + resource.hash + ".symbolMap").toOSString());
+        + "/symbolMaps/" + resource.hash + SYMBOL_MAP_SUFFIX).toOSString());
     return symbolMapFile.exists() ? symbolMapFile : null;
   }
 
+  /**
+   * Removes the symbol maps of permutations the module no longer has.
+   */
+  private void removeObsoleteSymbolMaps(String moduleName, Set<String> hashes) {
+    File destModuleFolder = new File(getSymbolMapsFolder(warOutFolder),
+        moduleName);
+    File[] symbolMapFiles = destModuleFolder.listFiles(SYMBOL_MAP_NAME_FILTER);
+    if (symbolMapFiles == null) {
+      return;
+    }
+
+    for (File symbolMapFile : symbolMapFiles) {
+      String name = symbolMapFile.getName();
+      String hash = name.substring(0, name.length() - SYMBOL_MAP_SUFFIX.length());
+      if (!hashes.contains(hash)) {
+        symbolMapFile.delete();
+      }
+    }
+  }
+
 }
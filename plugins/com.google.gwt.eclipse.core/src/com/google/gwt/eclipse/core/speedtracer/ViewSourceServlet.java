@@ -22,18 +22,12 @@ import com.google.gdt.eclipse.core.java.Pair;
 import com.google.gwt.eclipse.core.GWTPluginLog;
 
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.IWorkspaceRoot;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
-import org.eclipse.jdt.core.IClasspathEntry;
-import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaCore;
-import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.text.BadLocationException;
@@ -52,9 +46,6 @@ import org.eclipse.ui.texteditor.ITextEditor;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -77,9 +68,33 @@ public class ViewSourceServlet extends HttpServlet {
         + "'}");
   }
 
+  private final SourceLocationIndex sourceLocationIndex = new SourceLocationIndex();
+
+  private final LatencyHistogram requestLatencyHistogram = new LatencyHistogram();
+
+  @Override
+  public void destroy() {
+    sourceLocationIndex.stop();
+    super.destroy();
+  }
+
+  /**
+   * @return the histogram of the time taken to handle view source requests
+   */
+  public LatencyHistogram getRequestLatencyHistogram() {
+    return requestLatencyHistogram;
+  }
+
+  @Override
+  public void init() throws ServletException {
+    super.init();
+    sourceLocationIndex.start();
+  }
+
   @Override
   protected void doGet(HttpServletRequest req, HttpServletResponse resp)
       throws ServletException, IOException {
+    long start = System.nanoTime();
     try {
       Pair<Integer, String> result = handleGet(req, resp);
       Integer statusCode = result.getX();
@@ -101,6 +116,8 @@ public class ViewSourceServlet extends HttpServlet {
           + req.getParameter("filePath") + ")");
       showErrorDialog("Could not view the source file, see log for details.");
       resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    } finally {
+      requestLatencyHistogram.record(System.nanoTime() - start);
     }
   }
 
@@ -110,7 +127,11 @@ public class ViewSourceServlet extends HttpServlet {
   private IFile getFile(String filePathString) throws IOException {
     Path filePath = new Path(filePathString);
 
-    final IResource resource = ResourceUtils.getResource(filePath);
+    IResource resource = filePath.isAbsolute()
+        ? sourceLocationIndex.findFile(filePath) : null;
+    if (resource == null) {
+      resource = ResourceUtils.getResource(filePath);
+    }
     if (resource == null) {
       throw new IOException(
           "Could not view source because the file is not in the workspace (\""
@@ -138,42 +159,7 @@ public class ViewSourceServlet extends HttpServlet {
     }
 
     File jarFile = new File(jarPathString);
-
-    // Iterate projects to find the external JAR
-    IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-    List<IProject> projects = new ArrayList<IProject>(
-        Arrays.asList(root.getProjects()));
-    IProject preferredProject = preferredProjectName != null
-        ? root.getProject(preferredProjectName) : null;
-    if (preferredProject != null && preferredProject.exists()) {
-      // Search the preferred project first
-      projects.remove(preferredProject);
-      projects.add(0, preferredProject);
-    }
-
-    for (IProject project : projects) {
-      IJavaProject javaProject = JavaCore.create(project);
-      if (!javaProject.exists()) {
-        continue;
-      }
-
-      try {
-        IClasspathEntry[] classpathEntries = javaProject.getResolvedClasspath(true);
-        for (IClasspathEntry classpathEntry : classpathEntries) {
-          IPath path = classpathEntry.getPath();
-          if (jarFile.equals(path.toFile())) {
-            return javaProject.getPackageFragmentRoot(path.toOSString());
-          }
-        }
-
-      } catch (JavaModelException e) {
-        GWTPluginLog.logWarning(e, "Could not check " + project.getName()
-            + " for JAR file");
-        continue;
-      }
-    }
-
-    return null;
+    return sourceLocationIndex.findLibraryRoot(jarFile, preferredProjectName);
   }
 
   /*
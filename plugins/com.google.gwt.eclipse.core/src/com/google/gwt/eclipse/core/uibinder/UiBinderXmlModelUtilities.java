@@ -21,6 +21,7 @@ import com.google.gdt.eclipse.core.XmlUtilities;
 import com.google.gdt.eclipse.core.java.ClasspathResourceUtilities;
 import com.google.gwt.eclipse.core.GWTPluginLog;
 import com.google.gwt.eclipse.core.uibinder.sse.css.CssExtractor;
+import com.google.gwt.eclipse.core.uibinder.sse.css.CssExtractorCache;
 import com.google.gwt.eclipse.core.uibinder.sse.css.model.CssResourceAwareModelLoader;
 
 import org.eclipse.core.resources.IFile;
@@ -80,6 +81,20 @@ public final class UiBinderXmlModelUtilities {
    */
   public static CssExtractor createCssExtractorForStyleElement(
       IDOMElement styleElement, IJavaProject javaProject) {
+    return createCssExtractorForStyleElement(styleElement, javaProject, null);
+  }
+
+  /**
+   * Creates a {@link CssExtractor} from a <ui:style> element, patching the
+   * extractor previously created for the same element if a cache is given.
+   * 
+   * @param extractorCache an optional cache of the extractors created for
+   *          style elements
+   * @see #createCssExtractorForStyleElement(IDOMElement, IJavaProject)
+   */
+  public static CssExtractor createCssExtractorForStyleElement(
+      IDOMElement styleElement, IJavaProject javaProject,
+      CssExtractorCache extractorCache) {
     // The contents of the element is appended to the source files
     String cssBlock = "";
 
@@ -98,6 +113,10 @@ public final class UiBinderXmlModelUtilities {
       return null;
     }
 
+    if (extractorCache != null) {
+      return extractorCache.extract(styleElement, cssBlock,
+          new CssResourceAwareModelLoader());
+    }
     return CssExtractor.extract(cssBlock, new CssResourceAwareModelLoader());
   }
 
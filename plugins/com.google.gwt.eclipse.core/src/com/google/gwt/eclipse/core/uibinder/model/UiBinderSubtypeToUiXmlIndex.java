@@ -15,6 +15,7 @@
 package com.google.gwt.eclipse.core.uibinder.model;
 
 import com.google.gdt.eclipse.core.CorePluginLog;
+import com.google.gdt.eclipse.core.collections.IndexFactory;
 import com.google.gdt.eclipse.core.collections.OneToManyIndex;
 import com.google.gdt.eclipse.core.java.JavaModelSearch;
 import com.google.gdt.eclipse.core.reference.PersistenceException;
@@ -112,7 +113,7 @@ public class UiBinderSubtypeToUiXmlIndex {
   private final OneToManyIndex<IPath, IType> uiXmlPathToOwnerTypes;
 
   public UiBinderSubtypeToUiXmlIndex() {
-    this.uiXmlPathToOwnerTypes = new OneToManyIndex<IPath, IType>();
+    this.uiXmlPathToOwnerTypes = IndexFactory.newOneToManyIndex();
   }
 
   public UiBinderSubtypeToUiXmlIndex(UiBinderSubtypeToUiXmlIndex original) {
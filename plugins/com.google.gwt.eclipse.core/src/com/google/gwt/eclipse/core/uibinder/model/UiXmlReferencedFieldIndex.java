@@ -15,6 +15,7 @@
 package com.google.gwt.eclipse.core.uibinder.model;
 
 import com.google.gdt.eclipse.core.CorePluginLog;
+import com.google.gdt.eclipse.core.collections.IndexFactory;
 import com.google.gdt.eclipse.core.collections.OneToManyIndex;
 import com.google.gdt.eclipse.core.reference.PersistenceException;
 
@@ -86,7 +87,7 @@ public final class UiXmlReferencedFieldIndex {
    * Stores the literal ui:field references in a particular UiBinder template,
    * identified by a workspace-relative path ending with ui.xml.
    */
-  private final OneToManyIndex<IPath, String> referencedFields = new OneToManyIndex<IPath, String>();
+  private final OneToManyIndex<IPath, String> referencedFields = IndexFactory.newOneToManyIndex();
 
   public void clear(IJavaProject javaProject) {
     synchronized (this) {
@@ -18,6 +18,7 @@ import com.google.gdt.eclipse.core.MarkerUtilities;
 import com.google.gdt.eclipse.core.StatusUtilities;
 import com.google.gdt.eclipse.core.java.JavaModelSearch;
 import com.google.gdt.eclipse.core.java.JavaModelSearch.IJavaElementDeltaVisitor;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
 import com.google.gdt.eclipse.core.reference.IReference;
 import com.google.gdt.eclipse.core.reference.PersistenceException;
 import com.google.gdt.eclipse.core.reference.ReferenceManager;
@@ -245,7 +246,13 @@ public enum UiBinderReferenceManager {
     };
 
     public void elementChanged(ElementChangedEvent event) {
-      JavaModelSearch.visitJavaElementDelta(event.getDelta(), visitor);
+      long start = Instrumentation.start();
+      try {
+        JavaModelSearch.visitJavaElementDelta(event.getDelta(), visitor);
+      } finally {
+        Instrumentation.stop(
+            "gwt.uiBinder.referenceManager.elementChanged", start);
+      }
     }
   };
 
@@ -273,12 +280,18 @@ public enum UiBinderReferenceManager {
     };
 
     public void resourceChanged(IResourceChangeEvent event) {
-      if (event.getDelta() != null) {
-        try {
-          event.getDelta().accept(visitor);
-        } catch (CoreException e) {
-          GWTPluginLog.logError(e);
+      long start = Instrumentation.start();
+      try {
+        if (event.getDelta() != null) {
+          try {
+            event.getDelta().accept(visitor);
+          } catch (CoreException e) {
+            GWTPluginLog.logError(e);
+          }
         }
+      } finally {
+        Instrumentation.stop(
+            "gwt.uiBinder.referenceManager.resourceChanged", start);
       }
     }
   };
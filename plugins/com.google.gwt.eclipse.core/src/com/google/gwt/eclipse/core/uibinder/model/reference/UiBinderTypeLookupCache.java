@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.uibinder.model.reference;
+
+import com.google.gdt.eclipse.core.ClasspathChangeDeltas;
+import com.google.gdt.eclipse.core.JavaUtilities;
+import com.google.gdt.eclipse.core.java.JavaModelSearch;
+import com.google.gdt.eclipse.core.java.JavaModelSearch.IJavaElementDeltaVisitor;
+import com.google.gwt.eclipse.core.clientbundle.ClientBundleUtilities;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the Java model lookups made while validating UiBinder templates:
+ * widget and <code>type</code> attribute types, <code>urn:import</code>
+ * packages, and whether <code>&lt;ui:style&gt;</code> types are
+ * <code>CssResource</code> subtypes.
+ * <p>
+ * The lookups are cached per project. Since a project sees the types of the
+ * projects it depends on, any structural Java model change (a type, compilation
+ * unit, package or classpath entry being added or removed, or a supertype
+ * changing) discards the lookups of all projects. Edits within method bodies
+ * leave the cache intact.
+ */
+public enum UiBinderTypeLookupCache {
+  INSTANCE;
+
+  private static class ProjectLookups {
+    /**
+     * Qualified type names to the types, or to {@link #MISSING_TYPE}.
+     */
+    private final Map<String, Object> types = new ConcurrentHashMap<String, Object>();
+    private final Map<String, Boolean> packages = new ConcurrentHashMap<String, Boolean>();
+    private final Map<String, Boolean> cssResourceSubtypes = new ConcurrentHashMap<String, Boolean>();
+  }
+
+  private static final Object MISSING_TYPE = new Object();
+
+  private static final int STRUCTURAL_CHANGE_FLAGS = ClasspathChangeDeltas.CLASSPATH_CHANGE_FLAGS
+      | IJavaElementDelta.F_ADDED_TO_CLASSPATH
+      | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+      | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+      | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED
+      | IJavaElementDelta.F_SUPER_TYPES | IJavaElementDelta.F_MODIFIERS;
+
+  private final Map<IJavaProject, ProjectLookups> lookups = new ConcurrentHashMap<IJavaProject, ProjectLookups>();
+
+  /**
+   * Incremented each time the cached lookups are discarded.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  private final IElementChangedListener javaModelChangeListener = new IElementChangedListener() {
+    public void elementChanged(ElementChangedEvent event) {
+      final boolean[] structuralChange = new boolean[1];
+      JavaModelSearch.visitJavaElementDelta(event.getDelta(),
+          new IJavaElementDeltaVisitor() {
+            public boolean visit(IJavaElementDelta delta) {
+              if (structuralChange[0]) {
+                return false;
+              }
+              int elementType = delta.getElement().getElementType();
+              if (elementType > IJavaElement.TYPE) {
+                // Members do not affect type or package lookups
+                return false;
+              }
+              if ((elementType != IJavaElement.JAVA_MODEL && delta.getKind() != IJavaElementDelta.CHANGED)
+                  || (delta.getFlags() & STRUCTURAL_CHANGE_FLAGS) != 0) {
+                structuralChange[0] = true;
+                return false;
+              }
+              return true;
+            }
+          });
+
+      if (structuralChange[0]) {
+        invalidate();
+      }
+    }
+  };
+
+  /**
+   * Finds the type with the given qualified name.
+   * 
+   * @return the type, or <code>null</code> if it does not exist
+   */
+  public IType findType(IJavaProject javaProject, String qualifiedTypeName) {
+    Map<String, Object> types = getLookups(javaProject).types;
+    Object type = types.get(qualifiedTypeName);
+    if (type == null) {
+      type = JavaModelSearch.findType(javaProject, qualifiedTypeName);
+      if (!JavaModelSearch.isValidElement((IType) type)) {
+        type = MISSING_TYPE;
+      }
+      types.put(qualifiedTypeName, type);
+    }
+    return type != MISSING_TYPE ? (IType) type : null;
+  }
+
+  /**
+   * Returns the number of times the cached lookups have been discarded.
+   * Clients holding results derived from the lookups can compare generations to
+   * find out whether their results are stale.
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  public void invalidate() {
+    generation.incrementAndGet();
+    lookups.clear();
+  }
+
+  /**
+   * Returns whether the type is a subtype of <code>CssResource</code>, or
+   * <code>null</code> if the project does not have <code>CssResource</code> on
+   * its classpath.
+   */
+  public Boolean isCssResourceSubtype(IJavaProject javaProject, IType type)
+      throws JavaModelException {
+    Map<String, Boolean> cssResourceSubtypes = getLookups(javaProject).cssResourceSubtypes;
+    String qualifiedTypeName = type.getFullyQualifiedName();
+    Boolean isSubtype = cssResourceSubtypes.get(qualifiedTypeName);
+    if (isSubtype == null) {
+      IType cssResourceType = ClientBundleUtilities.findCssResourceType(javaProject);
+      if (cssResourceType == null) {
+        return null;
+      }
+      isSubtype = JavaUtilities.isSubtype(cssResourceType, type);
+      cssResourceSubtypes.put(qualifiedTypeName, isSubtype);
+    }
+    return isSubtype;
+  }
+
+  /**
+   * Returns whether a package with the given name exists on the project's
+   * classpath.
+   */
+  public boolean packageExists(IJavaProject javaProject, String packageName)
+      throws JavaModelException {
+    Map<String, Boolean> packages = getLookups(javaProject).packages;
+    Boolean exists = packages.get(packageName);
+    if (exists == null) {
+      exists = false;
+      // Don't call JavaModelSearch.getPackageFragments here, which incurs an
+      // expensive exists check that is redundant with
+      // JavaModelSearch.isValidElement below.
+      for (IPackageFragmentRoot packageFragmentRoot : javaProject.getAllPackageFragmentRoots()) {
+        IPackageFragment packageFragment = packageFragmentRoot.getPackageFragment(packageName);
+        if (JavaModelSearch.isValidElement(packageFragment)) {
+          exists = true;
+          break;
+        }
+      }
+      packages.put(packageName, exists);
+    }
+    return exists;
+  }
+
+  public void start() {
+    JavaCore.addElementChangedListener(javaModelChangeListener,
+        ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+  }
+
+  public void stop() {
+    JavaCore.removeElementChangedListener(javaModelChangeListener);
+    invalidate();
+  }
+
+  private ProjectLookups getLookups(IJavaProject javaProject) {
+    ProjectLookups projectLookups = lookups.get(javaProject);
+    if (projectLookups == null) {
+      projectLookups = new ProjectLookups();
+      lookups.put(javaProject, projectLookups);
+    }
+    return projectLookups;
+  }
+}
@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.uibinder.model.reference;
+
+import com.google.gwt.eclipse.core.uibinder.problems.IValidationResultPlacementStrategy;
+import com.google.gwt.eclipse.core.uibinder.sse.css.CssExtractorCache;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.wst.sse.core.internal.provisional.events.IStructuredDocumentListener;
+import org.eclipse.wst.sse.core.internal.provisional.events.NewDocumentEvent;
+import org.eclipse.wst.sse.core.internal.provisional.events.NoChangeEvent;
+import org.eclipse.wst.sse.core.internal.provisional.events.RegionChangedEvent;
+import org.eclipse.wst.sse.core.internal.provisional.events.RegionsReplacedEvent;
+import org.eclipse.wst.sse.core.internal.provisional.events.StructuredDocumentRegionsReplacedEvent;
+import org.eclipse.wst.sse.core.internal.provisional.text.IStructuredDocument;
+import org.eclipse.wst.sse.core.internal.provisional.text.IStructuredDocumentRegion;
+import org.eclipse.wst.xml.core.internal.provisional.document.IDOMElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Remembers the problems and type references that {@link UiBinderXmlParser}
+ * found in each element's tags, so that as-you-type validation only re-checks
+ * the elements whose tags were edited.
+ * <p>
+ * The checks whose results are cached depend only on the element's start and
+ * end tags, its namespace and the Java model: namespace prefixes, widget types
+ * and <code>type</code> attributes. An element's result is reused while the
+ * text of its tags and its namespace are unchanged, and while
+ * {@link UiBinderTypeLookupCache} has not been invalidated. Problems are
+ * stored relative to the tag they lie in, so results stay valid when text
+ * before or inside the element moves them.
+ * <p>
+ * Structured document change events let a validation pass skip the comparison
+ * entirely when the document has not been edited since the previous pass.
+ * <p>
+ * This class is not thread-safe; each validator should use its own instance.
+ */
+@SuppressWarnings("restriction")
+public class UiBinderXmlElementCache {
+
+  private static class CachedProblem {
+    private final boolean inEndTag;
+    private final int offset;
+    private final int length;
+    private final String message;
+    private final int severity;
+
+    public CachedProblem(boolean inEndTag, int offset, int length,
+        String message, int severity) {
+      this.inEndTag = inEndTag;
+      this.offset = offset;
+      this.length = length;
+      this.message = message;
+      this.severity = severity;
+    }
+  }
+
+  private static class Entry {
+    private final String signature;
+    private final long generation;
+    private final List<CachedProblem> problems;
+    private final Set<String> javaTypeReferences;
+
+    public Entry(String signature, long generation,
+        List<CachedProblem> problems, Set<String> javaTypeReferences) {
+      this.signature = signature;
+      this.generation = generation;
+      this.problems = problems;
+      this.javaTypeReferences = javaTypeReferences;
+    }
+  }
+
+  /**
+   * Forwards validation results to the parser's strategy, recording those that
+   * are placed while an element's tags are being checked.
+   */
+  private class RecordingPlacementStrategy implements
+      IValidationResultPlacementStrategy<Object> {
+    private final IValidationResultPlacementStrategy<?> strategy;
+
+    public RecordingPlacementStrategy(
+        IValidationResultPlacementStrategy<?> strategy) {
+      this.strategy = strategy;
+    }
+
+    public void clearValidationResults(IResource resource) {
+      strategy.clearValidationResults(resource);
+    }
+
+    public Object placeValidationResult(IResource resource, IDocument document,
+        IRegion position, String message, int severity) {
+      if (recordingElement != null) {
+        IStructuredDocumentRegion endRegion = recordingElement.getEndStructuredDocumentRegion();
+        boolean inEndTag = endRegion != null
+            && position.getOffset() >= endRegion.getStartOffset();
+        int tagOffset = inEndTag ? endRegion.getStartOffset()
+            : recordingElement.getStartOffset();
+        recordedProblems.add(new CachedProblem(inEndTag, position.getOffset()
+            - tagOffset, position.getLength(), message, severity));
+      }
+      return strategy.placeValidationResult(resource, document, position,
+          message, severity);
+    }
+  }
+
+  private static String computeSignature(IDOMElement element) {
+    StringBuilder signature = new StringBuilder();
+    IStructuredDocumentRegion startRegion = element.getStartStructuredDocumentRegion();
+    if (startRegion != null) {
+      signature.append(startRegion.getText());
+    }
+    signature.append('\0');
+    IStructuredDocumentRegion endRegion = element.getEndStructuredDocumentRegion();
+    if (endRegion != null) {
+      signature.append(endRegion.getText());
+    }
+    signature.append('\0').append(element.getNamespaceURI());
+    return signature.toString();
+  }
+
+  private IStructuredDocument document;
+
+  private final IStructuredDocumentListener documentListener = new IStructuredDocumentListener() {
+    public void newModel(NewDocumentEvent structuredDocumentEvent) {
+      documentChanged = true;
+    }
+
+    public void noChange(NoChangeEvent structuredDocumentEvent) {
+    }
+
+    public void nodesReplaced(
+        StructuredDocumentRegionsReplacedEvent structuredDocumentEvent) {
+      documentChanged = true;
+    }
+
+    public void regionChanged(RegionChangedEvent structuredDocumentEvent) {
+      documentChanged = true;
+    }
+
+    public void regionsReplaced(RegionsReplacedEvent structuredDocumentEvent) {
+      documentChanged = true;
+    }
+  };
+
+  /**
+   * Whether the document was edited since the last pass began. Set from the
+   * thread editing the document.
+   */
+  private volatile boolean documentChanged = true;
+
+  private final Map<IDOMElement, Entry> entries = new WeakHashMap<IDOMElement, Entry>();
+
+  /**
+   * The CSS extracted from the document's style elements.
+   */
+  private final CssExtractorCache cssExtractors = new CssExtractorCache();
+
+  /**
+   * The state of the current pass.
+   */
+  private boolean passDocumentChanged;
+  private long passGeneration;
+  private IValidationResultPlacementStrategy<?> passStrategy;
+
+  /**
+   * The element whose tags are being checked, or <code>null</code>.
+   */
+  private IDOMElement recordingElement;
+  private String recordingSignature;
+  private final List<CachedProblem> recordedProblems = new ArrayList<CachedProblem>();
+
+  /**
+   * Starts listening to changes of the document. Cached results of any other
+   * document are discarded.
+   */
+  public void connect(IDocument document) {
+    if (document == this.document) {
+      return;
+    }
+    disconnect();
+    if (document instanceof IStructuredDocument) {
+      this.document = (IStructuredDocument) document;
+      this.document.addDocumentChangedListener(documentListener);
+    }
+  }
+
+  public void disconnect() {
+    if (document != null) {
+      document.removeDocumentChangedListener(documentListener);
+      document = null;
+    }
+    entries.clear();
+    cssExtractors.clear();
+    documentChanged = true;
+  }
+
+  /**
+   * Returns the cache of the CSS extracted from style elements, so that
+   * validating a style element after an edit patches its previously extracted
+   * CSS.
+   */
+  CssExtractorCache getCssExtractorCache() {
+    return cssExtractors;
+  }
+
+  /**
+   * Returns a strategy that forwards validation results to the given one,
+   * recording those placed while an element's tags are checked. Cached
+   * results are replayed on the given strategy.
+   */
+  IValidationResultPlacementStrategy<?> newRecordingStrategy(
+      IValidationResultPlacementStrategy<?> strategy) {
+    passStrategy = strategy;
+    return new RecordingPlacementStrategy(strategy);
+  }
+
+  /**
+   * Starts a validation pass.
+   */
+  void beginPass() {
+    // Reset before reading, so edits made during this pass are seen by the
+    // next one
+    passDocumentChanged = documentChanged;
+    documentChanged = false;
+    passGeneration = UiBinderTypeLookupCache.INSTANCE.getGeneration();
+  }
+
+  /**
+   * Starts recording the results of checking the element's tags.
+   */
+  void beginElement(IDOMElement element) {
+    recordingElement = element;
+    recordingSignature = computeSignature(element);
+    recordedProblems.clear();
+  }
+
+  /**
+   * Stops recording, and caches the recorded results.
+   * 
+   * @param javaTypeReferences the types referenced by the element's tags
+   */
+  void endElement(Set<String> javaTypeReferences) {
+    entries.put(recordingElement, new Entry(recordingSignature,
+        passGeneration, new ArrayList<CachedProblem>(recordedProblems),
+        javaTypeReferences.isEmpty() ? Collections.<String> emptySet()
+            : new HashSet<String>(javaTypeReferences)));
+    recordingElement = null;
+    recordingSignature = null;
+    recordedProblems.clear();
+  }
+
+  /**
+   * Places the cached results of the element's tags, if they are still valid.
+   * 
+   * @param javaTypeReferences receives the types referenced by the element's
+   *          tags
+   * @return whether the cached results were placed; if not, the caller must
+   *         check the element's tags between {@link #beginElement} and
+   *         {@link #endElement}
+   */
+  boolean replay(IDOMElement element, IResource resource, IDocument document,
+      Set<String> javaTypeReferences) {
+    Entry entry = entries.get(element);
+    if (entry == null || entry.generation != passGeneration) {
+      return false;
+    }
+    if (passDocumentChanged
+        && !entry.signature.equals(computeSignature(element))) {
+      return false;
+    }
+
+    IStructuredDocumentRegion endRegion = element.getEndStructuredDocumentRegion();
+    for (CachedProblem problem : entry.problems) {
+      int tagOffset = problem.inEndTag && endRegion != null
+          ? endRegion.getStartOffset() : element.getStartOffset();
+      passStrategy.placeValidationResult(resource, document, new Region(
+          tagOffset + problem.offset, problem.length), problem.message,
+          problem.severity);
+    }
+    javaTypeReferences.addAll(entry.javaTypeReferences);
+    return true;
+  }
+}
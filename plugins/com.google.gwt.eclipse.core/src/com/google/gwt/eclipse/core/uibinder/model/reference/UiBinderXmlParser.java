@@ -14,12 +14,11 @@
  *******************************************************************************/
 package com.google.gwt.eclipse.core.uibinder.model.reference;
 
-import com.google.gdt.eclipse.core.JavaUtilities;
 import com.google.gdt.eclipse.core.SseUtilities;
 import com.google.gdt.eclipse.core.XmlUtilities;
 import com.google.gdt.eclipse.core.XmlUtilities.NodeVisitor;
 import com.google.gdt.eclipse.core.java.ClasspathResourceUtilities;
-import com.google.gdt.eclipse.core.java.JavaModelSearch;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
 import com.google.gdt.eclipse.core.reference.Reference;
 import com.google.gdt.eclipse.core.reference.ReferenceManager;
 import com.google.gdt.eclipse.core.reference.location.ClasspathRelativeFileReferenceLocation;
@@ -29,7 +28,6 @@ import com.google.gdt.eclipse.core.reference.location.ReferenceLocationType;
 import com.google.gdt.eclipse.core.reference.logicaljavamodel.LogicalPackage;
 import com.google.gdt.eclipse.core.reference.logicaljavamodel.UiBinderImportReferenceType;
 import com.google.gwt.eclipse.core.GWTPluginLog;
-import com.google.gwt.eclipse.core.clientbundle.ClientBundleUtilities;
 import com.google.gwt.eclipse.core.uibinder.UiBinderConstants;
 import com.google.gwt.eclipse.core.uibinder.UiBinderException;
 import com.google.gwt.eclipse.core.uibinder.UiBinderUtilities;
@@ -41,13 +39,12 @@ import com.google.gwt.eclipse.core.uibinder.contentassist.computers.CssSelectorN
 import com.google.gwt.eclipse.core.uibinder.problems.IValidationResultPlacementStrategy;
 import com.google.gwt.eclipse.core.uibinder.problems.UiBinderProblemMarkerManager;
 import com.google.gwt.eclipse.core.uibinder.sse.css.CssExtractor;
+import com.google.gwt.eclipse.core.uibinder.sse.css.CssExtractorCache;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMethod;
-import org.eclipse.jdt.core.IPackageFragment;
-import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
@@ -123,6 +120,23 @@ public class UiBinderXmlParser {
       ReferenceManager referenceManager,
       IValidationResultPlacementStrategy<?> validationResultPlacementStrategy)
       throws FileNotFoundException, UiBinderException {
+    return newInstance(xmlModel, referenceManager,
+        validationResultPlacementStrategy, null);
+  }
+
+  /**
+   * Returns a new instance of the parser that reuses the results of elements
+   * whose tags have not changed since the previous parse of the same model.
+   * 
+   * @param elementCache an optional cache of the results of previous parses
+   * @see #newInstance(IDOMModel, ReferenceManager,
+   *      IValidationResultPlacementStrategy)
+   */
+  public static UiBinderXmlParser newInstance(IDOMModel xmlModel,
+      ReferenceManager referenceManager,
+      IValidationResultPlacementStrategy<?> validationResultPlacementStrategy,
+      UiBinderXmlElementCache elementCache)
+      throws FileNotFoundException, UiBinderException {
     // TODO: turn this method into a static parse method, because the usage
     // pattern
     // for this class is always UiBinderXmlParser.newInstance().parse().
@@ -152,11 +166,18 @@ public class UiBinderXmlParser {
     }
 
     return new UiBinderXmlParser(xmlModel, xmlFile, xmlClasspathRelativePath,
-        referenceManager, validationResultPlacementStrategy, javaProject);
+        referenceManager, validationResultPlacementStrategy, elementCache,
+        javaProject);
   }
 
   private final IPath classpathRelativeDir;
 
+  /**
+   * Results of previous parses. This can be null if the client parses the
+   * model only once.
+   */
+  private final UiBinderXmlElementCache elementCache;
+
   private ElExpressionFirstFragmentComputer firstFragmentComputer;
   private final IJavaProject javaProject;
   /**
@@ -183,8 +204,9 @@ public class UiBinderXmlParser {
   private UiBinderXmlParser(IDOMModel xmlModel, IFile xmlFile,
       IPath xmlClasspathRelativePath, ReferenceManager referenceManager,
       IValidationResultPlacementStrategy<?> validationResultPlacementStrategy,
-      IJavaProject javaProject) {
+      UiBinderXmlElementCache elementCache, IJavaProject javaProject) {
     this.referenceManager = referenceManager;
+    this.elementCache = elementCache;
     this.xmlModel = xmlModel;
     this.xmlFile = xmlFile;
     this.javaProject = javaProject;
@@ -193,10 +215,21 @@ public class UiBinderXmlParser {
         xmlClasspathRelativePath);
     classpathRelativeDir = xmlClasspathRelativePath.removeLastSegments(1);
     problemMarkerManager = new UiBinderProblemMarkerManager(xmlFile,
-        xmlModel.getStructuredDocument(), validationResultPlacementStrategy);
+        xmlModel.getStructuredDocument(), elementCache != null
+            ? elementCache.newRecordingStrategy(validationResultPlacementStrategy)
+            : validationResultPlacementStrategy);
   }
 
   public ParseResults parse() {
+    long start = Instrumentation.start();
+    try {
+      return parseDocument();
+    } finally {
+      Instrumentation.stop("gwt.validate.uiXml", start);
+    }
+  }
+
+  private ParseResults parseDocument() {
     if (!UiBinderConstants.UI_BINDER_ENABLED) {
       return null;
     }
@@ -208,6 +241,9 @@ public class UiBinderXmlParser {
           xmlFile, EnumSet.of(ReferenceLocationType.SOURCE)));
     }
     problemMarkerManager.clear();
+    if (elementCache != null) {
+      elementCache.beginPass();
+    }
 
     // the ElExpressionFirstFragmentComputer marks problems as it finds first
     // fragments,
@@ -237,6 +273,10 @@ public class UiBinderXmlParser {
     }
   }
 
+  private CssExtractorCache getCssExtractorCache() {
+    return elementCache != null ? elementCache.getCssExtractorCache() : null;
+  }
+
   private IFile getExistingFile(IPath classpathRelativePath) {
     try {
       IFile resFile = (IFile) ClasspathResourceUtilities.resolveFile(
@@ -295,14 +335,33 @@ public class UiBinderXmlParser {
   }
 
   private void parseElement(IDOMElement element) {
-    tryValidatePrefix(element);
-    tryParseWidgetFromElement(element);
-    tryParseWithElement(element);
+    if (elementCache == null) {
+      parseElementTags(element, javaTypeReferences);
+    } else if (!elementCache.replay(element, xmlFile,
+        xmlModel.getStructuredDocument(), javaTypeReferences)) {
+      Set<String> elementTypeReferences = new HashSet<String>();
+      elementCache.beginElement(element);
+      parseElementTags(element, elementTypeReferences);
+      elementCache.endElement(elementTypeReferences);
+      javaTypeReferences.addAll(elementTypeReferences);
+    }
+
     tryParseStyleElement(element);
     tryParseResourceElement(element);
     tryParseUiImportElement(element);
   }
 
+  /**
+   * Runs the checks that depend only on the element's tags and namespace (and
+   * the Java model), whose results {@link UiBinderXmlElementCache} can reuse.
+   */
+  private void parseElementTags(IDOMElement element,
+      Set<String> elementTypeReferences) {
+    tryValidatePrefix(element);
+    tryParseWidgetFromElement(element, elementTypeReferences);
+    tryParseWithElement(element, elementTypeReferences);
+  }
+
   private void setFieldReferenceFirstFragmentUndefinedError(
       IRegion attrValueRegion, IRegion exprContentRegion, String exprContents) {
     String firstFragment = UiBinderUtilities.getFirstFragment(exprContents);
@@ -315,7 +374,7 @@ public class UiBinderXmlParser {
       String remainingFragments, int remainingFragmentsOffsetInDoc,
       IRegion fieldRefRegion) {
     CssExtractor extractor = UiBinderXmlModelUtilities.createCssExtractorForStyleElement(
-        styleElement, javaProject);
+        styleElement, javaProject, getCssExtractorCache());
     if (extractor != null) {
       for (String selector : CssSelectorNameCollector.getValidSelectorNames(extractor.getCssDocument())) {
         if (selector.equals(remainingFragments)) {
@@ -468,7 +527,7 @@ public class UiBinderXmlParser {
 
     // Check for duplicate selector names
     CssExtractor extractor = UiBinderXmlModelUtilities.createCssExtractorForStyleElement(
-        element, javaProject);
+        element, javaProject, getCssExtractorCache());
     if (extractor != null) {
       String errorMessage = CssSelectorNameCollector.getDuplicateSelectorNamesErrorMessage(extractor.getCssDocument());
       if (errorMessage != null) {
@@ -480,7 +539,7 @@ public class UiBinderXmlParser {
     }
 
     tryParseStyleElementSrcAttribute(element);
-    tryParseTypeAttribute(element);
+    tryParseTypeAttribute(element, javaTypeReferences);
   }
 
   private void tryParseStyleElementSrcAttribute(IDOMElement styleElement) {
@@ -517,7 +576,8 @@ public class UiBinderXmlParser {
   /**
    * Parses the "type" attribute on <ui:with> and <ui:style> elements.
    */
-  private void tryParseTypeAttribute(IDOMElement element) {
+  private void tryParseTypeAttribute(IDOMElement element,
+      Set<String> typeReferences) {
     IDOMAttr typeAttr = (IDOMAttr) UiBinderXmlModelUtilities.getTypeAttribute(element);
     if (typeAttr == null) {
       return;
@@ -534,28 +594,27 @@ public class UiBinderXmlParser {
       return;
     }
 
-    final IType type = JavaModelSearch.findType(javaProject, fqType);
-    if (!JavaModelSearch.isValidElement(type)) {
+    final IType type = UiBinderTypeLookupCache.INSTANCE.findType(javaProject,
+        fqType);
+    if (type == null) {
       problemMarkerManager.setTypeUndefinedError(valueRegion, fqType);
     } else {
       if (UiBinderXmlModelUtilities.isStyleElement(element)) {
         // Ensure the type is a CssResource subtype
-        IType cssResourceType = ClientBundleUtilities.findCssResourceType(javaProject);
-        if (cssResourceType != null) {
-          try {
-            if (!JavaUtilities.isSubtype(cssResourceType, type)) {
-              problemMarkerManager.setNotCssResourceSubtypeError(valueRegion,
-                  fqType);
-            }
-          } catch (JavaModelException e) {
-            GWTPluginLog.logWarning(e,
-                "Could not validate the <ui:style>'s type attribute.");
+        try {
+          if (Boolean.FALSE.equals(UiBinderTypeLookupCache.INSTANCE.isCssResourceSubtype(
+              javaProject, type))) {
+            problemMarkerManager.setNotCssResourceSubtypeError(valueRegion,
+                fqType);
           }
+        } catch (JavaModelException e) {
+          GWTPluginLog.logWarning(e,
+              "Could not validate the <ui:style>'s type attribute.");
         }
       }
     }
 
-    javaTypeReferences.add(fqType);
+    typeReferences.add(fqType);
   }
 
   /**
@@ -593,21 +652,15 @@ public class UiBinderXmlParser {
     addReference(xmlReferenceLocation, new LogicalJavaElementReferenceLocation(
         new LogicalPackage(packageName)));
 
-    IPackageFragmentRoot[] packageFragmentRoots;
     try {
-      // Don't call JavaModelSearch.getPackageFragments here, which incurs an expensive
-      // exists check that is redundant with JavaModelSearch.isValidElement below.
-      packageFragmentRoots = javaProject.getAllPackageFragmentRoots();
+      if (UiBinderTypeLookupCache.INSTANCE.packageExists(javaProject,
+          packageName)) {
+        return;
+      }
     } catch (JavaModelException e) {
       GWTPluginLog.logError(e, "Could not parse UiBinder urn:import attribute");
       return;
     }
-    for (IPackageFragmentRoot packageFragmentRoot : packageFragmentRoots) {
-      IPackageFragment packageFragment = packageFragmentRoot.getPackageFragment(packageName);
-      if (JavaModelSearch.isValidElement(packageFragment)) {
-        return; // Return as soon as we find any valid package with the name in the import
-      }
-    }
 
     IRegion attrValueRegion = XmlUtilities.getAttributeValueRegion(attr);
     if (attrValueRegion == null) {
@@ -624,7 +677,8 @@ public class UiBinderXmlParser {
   /**
    * Parses a widget reference from an element. For example, g:Button.
    */
-  private void tryParseWidgetFromElement(IDOMElement element) {
+  private void tryParseWidgetFromElement(IDOMElement element,
+      Set<String> typeReferences) {
     String fqWidgetType = UiBinderXmlModelUtilities.computeQualifiedWidgetTypeName(element);
     if (fqWidgetType == null) {
       return;
@@ -636,10 +690,10 @@ public class UiBinderXmlParser {
     
     // even if this type doens't exist, we'll add the name so that if the type
     // is added later, this ui.xml file gets revalidated.
-    javaTypeReferences.add(fqWidgetType);
+    typeReferences.add(fqWidgetType);
     
-    final IType type = JavaModelSearch.findType(javaProject, fqWidgetType);
-    boolean validType = JavaModelSearch.isValidElement(type);
+    boolean validType = UiBinderTypeLookupCache.INSTANCE.findType(javaProject,
+        fqWidgetType) != null;
 
     // e.g. <g:Button> and </g:Button> will be different regions in the loop
     // below
@@ -651,12 +705,13 @@ public class UiBinderXmlParser {
     }
   }
 
-  private void tryParseWithElement(IDOMElement element) {
+  private void tryParseWithElement(IDOMElement element,
+      Set<String> typeReferences) {
     if (!UiBinderXmlModelUtilities.isWithElement(element)) {
       return;
     }
 
-    tryParseTypeAttribute(element);
+    tryParseTypeAttribute(element, typeReferences);
   }
 
   private void tryValidatePrefix(IDOMElement element) {
@@ -89,6 +89,43 @@ public class CssExtractor {
     this.cssModel = cssModel;
   }
 
+  /**
+   * Patches the extracted CSS to match the given block. Only the text between
+   * the common prefix and suffix of the old and new blocks is replaced, so the
+   * structured document re-tokenizes just the regions around the change and
+   * the model is updated in place rather than rebuilt.
+   */
+  void update(String cssBlock) {
+    String currentBlock = structuredDocument.get();
+    int currentLength = currentBlock.length();
+    int newLength = cssBlock.length();
+
+    int prefixLength = 0;
+    int maxLength = Math.min(currentLength, newLength);
+    while (prefixLength < maxLength
+        && currentBlock.charAt(prefixLength) == cssBlock.charAt(prefixLength)) {
+      prefixLength++;
+    }
+    if (prefixLength == currentLength && prefixLength == newLength) {
+      return;
+    }
+
+    int suffixLength = 0;
+    int maxSuffixLength = maxLength - prefixLength;
+    while (suffixLength < maxSuffixLength
+        && currentBlock.charAt(currentLength - 1 - suffixLength) == cssBlock.charAt(newLength
+            - 1 - suffixLength)) {
+      suffixLength++;
+    }
+
+    structuredDocument.replaceText(this, prefixLength, currentLength
+        - prefixLength - suffixLength, cssBlock.substring(prefixLength,
+        newLength - suffixLength));
+
+    // Media rules created by the change may need the same fixes
+    new CssResourceAwareModelRepairer(structuredDocument, cssModel).repair();
+  }
+
   public ICSSDocument getCssDocument() {
     return cssDocument;
   }
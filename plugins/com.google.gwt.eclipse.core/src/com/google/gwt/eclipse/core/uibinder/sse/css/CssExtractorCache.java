@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.uibinder.sse.css;
+
+import com.google.gwt.eclipse.core.GWTPluginLog;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.wst.css.core.internal.modelhandler.CSSModelLoader;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the CSS extracted from blocks of documents, so that extracting a block
+ * again after an edit patches the previously extracted model instead of
+ * creating and tokenizing a new one.
+ * <p>
+ * Extractors are kept per key (e.g. the document or the style element the CSS
+ * came from) for as long as the key is reachable. An extractor returned by this
+ * cache is updated by the next call for the same key, so callers should not
+ * hold on to it.
+ * <p>
+ * This class is not thread-safe; each user should have its own instance.
+ */
+@SuppressWarnings("restriction")
+public class CssExtractorCache {
+
+  private final Map<Object, CssExtractor> extractors = new WeakHashMap<Object, CssExtractor>();
+
+  public void clear() {
+    extractors.clear();
+  }
+
+  /**
+   * Extracts a CSS block from a document, reusing the extractor of the
+   * previous block extracted from the same document.
+   * 
+   * @see CssExtractor#extract(IDocument, int, int, CSSModelLoader)
+   */
+  public CssExtractor extract(IDocument document, int offset, int length,
+      CSSModelLoader cssModelLoader) {
+    try {
+      return extract(document, document.get(offset, length), cssModelLoader);
+    } catch (BadLocationException e) {
+      // Likely not to happen, but in case it does, return null
+      return null;
+    }
+  }
+
+  /**
+   * Extracts a CSS block, reusing the extractor previously returned for the
+   * given key.
+   * 
+   * @see CssExtractor#extract(String, CSSModelLoader)
+   */
+  public CssExtractor extract(Object key, String cssBlock,
+      CSSModelLoader cssModelLoader) {
+    CssExtractor extractor = extractors.get(key);
+    if (extractor != null) {
+      try {
+        extractor.update(cssBlock);
+        return extractor;
+      } catch (RuntimeException e) {
+        GWTPluginLog.logWarning(e,
+            "Could not update the extracted CSS, extracting it again.");
+        extractors.remove(key);
+      }
+    }
+
+    extractor = CssExtractor.extract(cssBlock, cssModelLoader);
+    if (extractor != null) {
+      extractors.put(key, extractor);
+    }
+    return extractor;
+  }
+}
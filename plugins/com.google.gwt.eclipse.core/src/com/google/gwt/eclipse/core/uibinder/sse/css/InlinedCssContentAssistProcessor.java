@@ -46,6 +46,8 @@ import java.util.List;
 public class InlinedCssContentAssistProcessor implements
     IContentAssistProcessor {
 
+  private final CssExtractorCache extractorCache = new CssExtractorCache();
+
   public ICompletionProposal[] computeCompletionProposals(ITextViewer viewer,
       int offsetInDoc) {
 
@@ -59,8 +61,9 @@ public class InlinedCssContentAssistProcessor implements
     }
 
     int offsetInExtractedDoc = offsetInDoc - partition.getOffset();
-    CssExtractor extractor = CssExtractor.extract(doc, partition.getOffset(),
-        partition.getLength(), new CssResourceAwareModelLoader());
+    CssExtractor extractor = extractorCache.extract(doc,
+        partition.getOffset(), partition.getLength(),
+        new CssResourceAwareModelLoader());
     if (extractor == null) {
       GWTPluginLog.logWarning("Could not extract CSS document to generate CSS proposals.");
       return null;
@@ -47,6 +47,8 @@ public class StructuredAutoEditStrategyInlinedCss implements IAutoEditStrategy {
 
   private final StructuredAutoEditStrategyCSS originalCssAutoEditStrategy = new StructuredAutoEditStrategyCSS();
 
+  private final CssExtractorCache extractorCache = new CssExtractorCache();
+
   public void customizeDocumentCommand(IDocument document,
       DocumentCommand command) {
 
@@ -62,8 +64,12 @@ public class StructuredAutoEditStrategyInlinedCss implements IAutoEditStrategy {
       return;
     }
 
-    CssExtractor extractor = CssExtractor.extract(document, region.getOffset(),
-        region.getLength(), new CssResourceAwareModelLoader());
+    CssExtractor extractor = extractorCache.extract(document,
+        region.getOffset(), region.getLength(),
+        new CssResourceAwareModelLoader());
+    if (extractor == null) {
+      return;
+    }
 
     // Create a temporary document command with offsets aligned to the extracted
     // CSS
@@ -17,6 +17,7 @@ package com.google.gwt.eclipse.core.uibinder.validators;
 import com.google.gdt.eclipse.core.JavaASTUtils;
 import com.google.gdt.eclipse.core.SseUtilities;
 import com.google.gdt.eclipse.core.java.ClasspathResourceUtilities;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
 import com.google.gdt.eclipse.core.reference.Reference;
 import com.google.gdt.eclipse.core.reference.ReferenceManager;
 import com.google.gdt.eclipse.core.reference.location.ClasspathRelativeFileReferenceLocation;
@@ -509,6 +510,15 @@ public class UiBinderJavaValidator {
    * Validation entry point.
    */
   public ValidationResult validate() {
+    long start = Instrumentation.start();
+    try {
+      return visitCompilationUnit();
+    } finally {
+      Instrumentation.stop("gwt.validate.uiBinder", start);
+    }
+  }
+
+  private ValidationResult visitCompilationUnit() {
     result = new ValidationResult();
 
     /*
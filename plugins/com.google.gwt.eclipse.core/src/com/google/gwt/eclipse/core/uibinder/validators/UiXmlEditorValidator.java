@@ -15,6 +15,7 @@
 package com.google.gwt.eclipse.core.uibinder.validators;
 
 import com.google.gwt.eclipse.core.uibinder.UiBinderException;
+import com.google.gwt.eclipse.core.uibinder.model.reference.UiBinderXmlElementCache;
 import com.google.gwt.eclipse.core.uibinder.model.reference.UiBinderXmlParser;
 import com.google.gwt.eclipse.core.uibinder.problems.ReporterMessagePlacementStrategy;
 
@@ -50,12 +51,19 @@ public class UiXmlEditorValidator extends MarkupValidator {
    */
   private int documentRefCount;
 
+  /**
+   * Results of unchanged elements from the previous validation passes over
+   * {@link #document}.
+   */
+  private final UiBinderXmlElementCache elementCache = new UiBinderXmlElementCache();
+
   @Override
   public void connect(IDocument document) {
     super.connect(document);
 
     this.document = document;
     documentRefCount++;
+    elementCache.connect(document);
   }
 
   @Override
@@ -68,6 +76,7 @@ public class UiXmlEditorValidator extends MarkupValidator {
 
     if (documentRefCount == 0) {
       this.document = null;
+      elementCache.disconnect();
     }
   }
 
@@ -95,7 +104,7 @@ public class UiXmlEditorValidator extends MarkupValidator {
         // manager since this gets called as-user-types and the file is not
         // necessarily saved.
         UiBinderXmlParser.newInstance(xmlModel, null,
-            validationResultPlacementStrategy).parse();
+            validationResultPlacementStrategy, elementCache).parse();
       } catch (FileNotFoundException e) {
         // Ignore since this is as-you-type, the resource changed parser will
         // log errors
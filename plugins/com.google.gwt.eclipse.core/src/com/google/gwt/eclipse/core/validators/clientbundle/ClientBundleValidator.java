@@ -18,6 +18,7 @@ import com.google.gdt.eclipse.core.JavaASTUtils;
 import com.google.gdt.eclipse.core.StringUtilities;
 import com.google.gdt.eclipse.core.java.ClasspathResourceUtilities;
 import com.google.gdt.eclipse.core.java.JavaModelSearch;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
 import com.google.gdt.eclipse.core.validation.ValidationResult;
 import com.google.gwt.eclipse.core.GWTPluginLog;
 import com.google.gwt.eclipse.core.clientbundle.ClientBundleResourceDependencyIndex;
@@ -377,16 +378,21 @@ public class ClientBundleValidator {
    * Validation entry point.
    */
   public ValidationResult validate(CompilationUnit cu) {
-    ICompilationUnit icu = JavaASTUtils.getCompilationUnit(cu);
-    ClientBundleValidationVisitor visitor = new ClientBundleValidationVisitor(
-        icu.getJavaProject());
-    cu.accept(visitor);
-    ClientBundleValidationResult result = visitor.getResult();
+    long start = Instrumentation.start();
+    try {
+      ICompilationUnit icu = JavaASTUtils.getCompilationUnit(cu);
+      ClientBundleValidationVisitor visitor = new ClientBundleValidationVisitor(
+          icu.getJavaProject());
+      cu.accept(visitor);
+      ClientBundleValidationResult result = visitor.getResult();
 
-    ClientBundleResourceDependencyIndex.getInstance().putResourcesForCompilationUnit(
-        icu, result.getPossibleResourcePaths());
+      ClientBundleResourceDependencyIndex.getInstance().putResourcesForCompilationUnit(
+          icu, result.getPossibleResourcePaths());
 
-    return result;
+      return result;
+    } finally {
+      Instrumentation.stop("gwt.validate.clientBundle", start);
+    }
   }
 
 }
@@ -16,6 +16,7 @@ package com.google.gwt.eclipse.core.validators.java;
 
 import com.google.gdt.eclipse.core.BuilderUtilities;
 import com.google.gdt.eclipse.core.JavaASTUtils;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
 import com.google.gdt.eclipse.core.validation.ValidationResult;
 import com.google.gwt.dev.util.Empty;
 import com.google.gwt.eclipse.core.GWTPluginLog;
@@ -35,6 +36,7 @@ import com.google.gwt.eclipse.core.uibinder.model.reference.UiBinderReferenceMan
 import com.google.gwt.eclipse.core.uibinder.problems.java.UiBinderJavaProblem;
 import com.google.gwt.eclipse.core.uibinder.validators.UiBinderJavaValidator;
 import com.google.gwt.eclipse.core.validators.clientbundle.ClientBundleValidator;
+import com.google.gwt.eclipse.core.validators.rpc.RemoteServicePairingIndex;
 import com.google.gwt.eclipse.core.validators.rpc.RemoteServiceProblem;
 import com.google.gwt.eclipse.core.validators.rpc.RemoteServiceValidator;
 
@@ -96,6 +98,12 @@ public class JavaCompilationParticipant extends CompilationParticipant {
       // Clear Java ref index entries for this project
       JavaRefIndex.getInstance().clear(project);
 
+      // Forget the parsed JSNI methods of this project
+      JsniParseCache.getInstance().clear(project);
+
+      // Clear RPC interface pairing digests
+      RemoteServicePairingIndex.getInstance().clear(project);
+
       // Clear ClientBundle resource index entries
       ClientBundleResourceDependencyIndex.getInstance().clear(project);
 
@@ -112,6 +120,26 @@ public class JavaCompilationParticipant extends CompilationParticipant {
   }
 
   public static JavaValidationResult validateCompilationUnit(ASTNode ast) {
+    return validateCompilationUnit(ast, new JsniResolutionContext());
+  }
+
+  /**
+   * Validates the compilation unit, resolving JSNI Java references through the
+   * given context so that lookups are shared with other units validated in the
+   * same pass.
+   */
+  public static JavaValidationResult validateCompilationUnit(ASTNode ast,
+      JsniResolutionContext context) {
+    long start = Instrumentation.start();
+    try {
+      return validateAndIndex(ast, context);
+    } finally {
+      Instrumentation.stop("gwt.validate.java", start);
+    }
+  }
+
+  private static JavaValidationResult validateAndIndex(ASTNode ast,
+      JsniResolutionContext context) {
     ICompilationUnit cu = JavaASTUtils.getCompilationUnit(ast);
 
     // If the compilation unit is not on the build classpath, return an empty
@@ -121,7 +149,7 @@ public class JavaCompilationParticipant extends CompilationParticipant {
     }
 
     // Walk the Java AST to find problems and Java references in JSNI blocks
-    JavaValidationVisitor visitor = new JavaValidationVisitor();
+    JavaValidationVisitor visitor = new JavaValidationVisitor(context);
     ast.accept(visitor);
 
     /*
@@ -144,31 +172,36 @@ public class JavaCompilationParticipant extends CompilationParticipant {
 
   private static void indexJavaRefs(ICompilationUnit cu,
       List<JsniJavaRef> jsniRefs) {
-    Set<IIndexedJavaRef> indexRefs = new HashSet<IIndexedJavaRef>(
-        jsniRefs.size());
-
-    for (JsniJavaRef jsniRef : jsniRefs) {
-      // Add the main JSNI ref
-      indexRefs.add(new IndexedJsniJavaRef(jsniRef));
-
-      // For method refs, add each parameter type reference to the index also
-      if (jsniRef.isMethod() && !jsniRef.matchesAnyOverload()) {
-        int paramTypeOffset = jsniRef.getParamTypesOffset();
-        if (paramTypeOffset > -1) {
-          for (String paramType : jsniRef.paramTypes()) {
-            IIndexedJavaRef paramTypeRef = JsniJavaRefParamType.parse(
-                jsniRef.getSource(), paramTypeOffset, paramType);
-            if (paramTypeRef != null) {
-              indexRefs.add(paramTypeRef);
+    long start = Instrumentation.start();
+    try {
+      Set<IIndexedJavaRef> indexRefs = new HashSet<IIndexedJavaRef>(
+          jsniRefs.size());
+
+      for (JsniJavaRef jsniRef : jsniRefs) {
+        // Add the main JSNI ref
+        indexRefs.add(new IndexedJsniJavaRef(jsniRef));
+
+        // For method refs, add each parameter type reference to the index also
+        if (jsniRef.isMethod() && !jsniRef.matchesAnyOverload()) {
+          int paramTypeOffset = jsniRef.getParamTypesOffset();
+          if (paramTypeOffset > -1) {
+            for (String paramType : jsniRef.paramTypes()) {
+              IIndexedJavaRef paramTypeRef = JsniJavaRefParamType.parse(
+                  jsniRef.getSource(), paramTypeOffset, paramType);
+              if (paramTypeRef != null) {
+                indexRefs.add(paramTypeRef);
+              }
+              paramTypeOffset += paramType.length();
             }
-            paramTypeOffset += paramType.length();
           }
         }
       }
-    }
 
-    // Add all the Java references to the index
-    JavaRefIndex.getInstance().add(cu.getPath(), indexRefs);
+      // Add all the Java references to the index
+      JavaRefIndex.getInstance().add(cu.getPath(), indexRefs);
+    } finally {
+      Instrumentation.stop("gwt.index.javaRefs", start);
+    }
   }
 
   @Override
@@ -226,6 +259,15 @@ public class JavaCompilationParticipant extends CompilationParticipant {
 
   @Override
   public void reconcile(ReconcileContext context) {
+    long start = Instrumentation.start();
+    try {
+      validateReconciledUnit(context);
+    } finally {
+      Instrumentation.stop("gwt.reconcile", start);
+    }
+  }
+
+  private void validateReconciledUnit(ReconcileContext context) {
     ICompilationUnit cu = context.getWorkingCopy();
 
     try {
@@ -302,6 +344,17 @@ public class JavaCompilationParticipant extends CompilationParticipant {
 
   private void handleBuildStarting(BuildContext[] files,
       final IProgressMonitor monitor) {
+    Instrumentation.record("gwt.build.units", files.length);
+    long start = Instrumentation.start();
+    try {
+      validateBuildFiles(files, monitor);
+    } finally {
+      Instrumentation.stop("gwt.build", start);
+    }
+  }
+
+  private void validateBuildFiles(BuildContext[] files,
+      final IProgressMonitor monitor) {
     UiBinderSubtypeToOwnerIndex prebuildOwnerIndex = new UiBinderSubtypeToOwnerIndex(
         UiBinderReferenceManager.INSTANCE.getSubtypeToOwnerIndex());
     final LinkedHashMap<ICompilationUnit, BuildContext> compilationUnitToBuildContext = new LinkedHashMap<ICompilationUnit, BuildContext>();
@@ -313,6 +366,9 @@ public class JavaCompilationParticipant extends CompilationParticipant {
 
     final Set<ICompilationUnit> validatedCompilationUnits = new HashSet<ICompilationUnit>();
 
+    // Share JSNI reference lookups across every unit in this build
+    final JsniResolutionContext resolutionContext = new JsniResolutionContext();
+
     /*
      * ASTBatchParser processes the ICompilationUnits in batches based on the
      * available memory in the system. Note that we never cache the ASTs they
@@ -366,7 +422,8 @@ public class JavaCompilationParticipant extends CompilationParticipant {
               // TODO: Merge this code with that of reconcile
 
               // Validate the Java AST and record any GWT problems we find
-              JavaValidationResult result = validateCompilationUnit(ast);
+              JavaValidationResult result = validateCompilationUnit(ast,
+                  resolutionContext);
               List<CategorizedProblem> problems = new ArrayList<CategorizedProblem>(
                   result.getProblems());
 
@@ -25,12 +25,22 @@ import org.eclipse.jdt.core.dom.Modifier;
  */
 class JavaValidationVisitor extends ASTVisitor {
 
+  private final JsniResolutionContext context;
+
   private final JavaValidationResult result = new JavaValidationResult();
 
+  public JavaValidationVisitor() {
+    this(new JsniResolutionContext());
+  }
+
+  public JavaValidationVisitor(JsniResolutionContext context) {
+    this.context = context;
+  }
+
   @Override
   public void endVisit(MethodDeclaration method) {
     if (Modifier.isNative(method.getModifiers())) {
-      JavaValidationResult methodResult = JsniParser.parse(method);
+      JavaValidationResult methodResult = JsniParser.parse(method, context);
 
       // Collect all Java references we found in this method
       result.addAllJavaRefs(methodResult.getJavaRefs());
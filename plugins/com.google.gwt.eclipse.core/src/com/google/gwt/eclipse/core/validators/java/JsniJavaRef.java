@@ -254,6 +254,34 @@ public class JsniJavaRef extends JsniRef {
 
   public IJavaElement resolveJavaElement(IJavaProject project)
       throws UnresolvedJsniJavaRefException {
+    return resolveJavaElement(project, new JsniResolutionContext());
+  }
+
+  /**
+   * Resolves this reference, sharing type lookups, type hierarchies and the
+   * outcomes of identical references with everything else resolved through
+   * the same context.
+   */
+  public IJavaElement resolveJavaElement(IJavaProject project,
+      JsniResolutionContext context) throws UnresolvedJsniJavaRefException {
+    return context.resolve(project, this);
+  }
+
+  public void setOffset(int offset) {
+    this.offset = offset;
+  }
+
+  public void setSource(IPath source) {
+    this.source = source;
+  }
+
+  public String simpleClassName() {
+    String[] classParts = dottedClassName().split("\\.");
+    return classParts[classParts.length - 1];
+  }
+
+  IJavaElement doResolveJavaElement(IJavaProject project,
+      JsniResolutionContext context) throws UnresolvedJsniJavaRefException {
     IJavaElement element = null;
 
     // 0. Ignore the magic null reference
@@ -262,7 +290,7 @@ public class JsniJavaRef extends JsniRef {
     }
 
     // 1. Try to find the type in the project's classpath
-    IType type = JavaModelSearch.findType(project, dottedClassName());
+    IType type = context.findType(project, dottedClassName());
     if (type == null) {
       throw new UnresolvedJsniJavaRefException(
           GWTProblemType.JSNI_JAVA_REF_UNRESOLVED_TYPE, this);
@@ -290,7 +318,7 @@ public class JsniJavaRef extends JsniRef {
     // finding its super classes and implemented interfaces
     ITypeHierarchy hierarchy;
     try {
-      hierarchy = type.newSupertypeHierarchy(null);
+      hierarchy = context.getSupertypeHierarchy(type);
     } catch (JavaModelException e) {
       GWTPluginLog.logError(e, "Error creating type hierarchy for "
           + className());
@@ -414,16 +442,12 @@ public class JsniJavaRef extends JsniRef {
     return element;
   }
 
-  public void setOffset(int offset) {
-    this.offset = offset;
-  }
-
-  public void setSource(IPath source) {
-    this.source = source;
-  }
-
-  public String simpleClassName() {
-    String[] classParts = dottedClassName().split("\\.");
-    return classParts[classParts.length - 1];
+  /**
+   * Returns the literal text of the reference, without any of the location
+   * information subclasses may add to {@link #toString()}.
+   */
+  String resolutionKey() {
+    return "@" + className() + "::" + memberName()
+        + (isMethod() ? "(" + paramTypesString() + ")" : "");
   }
 }
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.validators.java;
+
+import com.google.gwt.eclipse.core.validators.java.JsniParser.JavaScriptParseException;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the outcome of parsing each JSNI method, so that native methods
+ * whose source has not changed are not sent back through the JavaScript parser
+ * on every reconcile and build.
+ * 
+ * Entries are keyed by the source of the whole method declaration. Offsets are
+ * stored relative to the start of the declaration, so an entry stays valid
+ * when edits elsewhere in the compilation unit move the method. The parsed
+ * JavaScript AST itself is not retained, since only the Java references and
+ * parse errors extracted from it are used afterwards.
+ * 
+ * Each project has its own cache, bounded to {@link #MAX_ENTRIES_PER_PROJECT}
+ * entries and evicted in least-recently-used order.
+ */
+public final class JsniParseCache {
+
+  /**
+   * The outcome of parsing one JSNI method: either its Java references or a
+   * JavaScript parse error, with offsets relative to the method declaration.
+   */
+  static final class Entry {
+
+    static Entry forJavaRefs(List<JsniJavaRef> javaRefs) {
+      return new Entry(Collections.unmodifiableList(javaRefs), null);
+    }
+
+    static Entry forParseError(JavaScriptParseException parseError) {
+      return new Entry(null, parseError);
+    }
+
+    private final List<JsniJavaRef> javaRefs;
+
+    private final JavaScriptParseException parseError;
+
+    private Entry(List<JsniJavaRef> javaRefs,
+        JavaScriptParseException parseError) {
+      this.javaRefs = javaRefs;
+      this.parseError = parseError;
+    }
+
+    /**
+     * Returns new copies of the Java references, located in the given
+     * compilation unit.
+     * 
+     * @param source the path of the compilation unit
+     * @param methodStartPosition the offset of the method declaration in the
+     *          compilation unit
+     * @throws JavaScriptParseException if the method failed to parse; its
+     *           offset is relative to the method declaration
+     */
+    List<JsniJavaRef> createJavaRefs(IPath source, int methodStartPosition)
+        throws JavaScriptParseException {
+      if (parseError != null) {
+        throw parseError;
+      }
+
+      List<JsniJavaRef> copies = new ArrayList<JsniJavaRef>(javaRefs.size());
+      for (JsniJavaRef javaRef : javaRefs) {
+        JsniJavaRef copy = new JsniJavaRef(javaRef);
+        copy.setSource(source);
+        copy.setOffset(javaRef.getOffset() + methodStartPosition);
+        copies.add(copy);
+      }
+      return copies;
+    }
+  }
+
+  static final int MAX_ENTRIES_PER_PROJECT = 2000;
+
+  private static final JsniParseCache INSTANCE = new JsniParseCache();
+
+  public static JsniParseCache getInstance() {
+    return INSTANCE;
+  }
+
+  private final Map<IProject, Map<String, Entry>> projectCaches =
+      new HashMap<IProject, Map<String, Entry>>();
+
+  private long hitCount;
+
+  private long missCount;
+
+  private JsniParseCache() {
+  }
+
+  /**
+   * Removes all entries for the given project.
+   */
+  public synchronized void clear(IProject project) {
+    projectCaches.remove(project);
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return the fraction of lookups that were hits, or 0 if there have been no
+   *         lookups
+   */
+  public synchronized double getHitRate() {
+    long lookups = hitCount + missCount;
+    return lookups > 0 ? (double) hitCount / lookups : 0;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return the cached outcome of parsing the given method source, or null
+   */
+  synchronized Entry get(IProject project, String methodSource) {
+    Map<String, Entry> cache = projectCaches.get(project);
+    Entry entry = cache != null ? cache.get(methodSource) : null;
+    if (entry != null) {
+      hitCount++;
+    } else {
+      missCount++;
+    }
+    return entry;
+  }
+
+  synchronized void put(IProject project, String methodSource, Entry entry) {
+    Map<String, Entry> cache = projectCaches.get(project);
+    if (cache == null) {
+      @SuppressWarnings("serial")
+      Map<String, Entry> newCache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+          return size() > MAX_ENTRIES_PER_PROJECT;
+        }
+      };
+      cache = newCache;
+      projectCaches.put(project, cache);
+    }
+    cache.put(methodSource, entry);
+  }
+}
@@ -15,6 +15,7 @@
 package com.google.gwt.eclipse.core.validators.java;
 
 import com.google.gdt.eclipse.core.JavaASTUtils;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
 import com.google.gwt.dev.jjs.Correlation;
 import com.google.gwt.dev.jjs.Correlation.Axis;
 import com.google.gwt.dev.jjs.InternalCompilerException;
@@ -35,7 +36,7 @@ import com.google.gwt.eclipse.core.editors.java.GWTPartitions;
 import com.google.gwt.eclipse.core.markers.GWTJavaProblem;
 import com.google.gwt.eclipse.core.markers.GWTProblemType;
 
-import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jface.text.BadLocationException;
@@ -182,6 +183,25 @@ public final class JsniParser {
   }
 
   public static JavaValidationResult parse(MethodDeclaration method) {
+    return parse(method, new JsniResolutionContext());
+  }
+
+  /**
+   * Parses and validates the JSNI method, resolving its Java references
+   * through the given context.
+   */
+  public static JavaValidationResult parse(MethodDeclaration method,
+      JsniResolutionContext context) {
+    long start = Instrumentation.start();
+    try {
+      return parseMethod(method, context);
+    } finally {
+      Instrumentation.stop("gwt.jsni.parse", start);
+    }
+  }
+
+  private static JavaValidationResult parseMethod(MethodDeclaration method,
+      JsniResolutionContext context) {
     final JavaValidationResult result = new JavaValidationResult();
 
     try {
@@ -191,7 +211,7 @@ public final class JsniParser {
 
         // Validate the Java references
         for (JsniJavaRef ref : result.getJavaRefs()) {
-          GWTJavaProblem problem = validateJavaRef(method, ref);
+          GWTJavaProblem problem = validateJavaRef(method, ref, context);
           if (problem != null) {
             result.addProblem(problem);
           }
@@ -266,9 +286,32 @@ public final class JsniParser {
   private static List<JsniJavaRef> findJavaRefs(
       final MethodDeclaration jsniMethod) throws IOException,
       JavaScriptParseException, BadLocationException {
-    final String jsniSource = JavaASTUtils.getSource(jsniMethod);
+    String jsniSource = JavaASTUtils.getSource(jsniMethod);
     ICompilationUnit cu = JavaASTUtils.getCompilationUnit(jsniMethod);
-    final IPath cuPath = cu.getResource().getFullPath();
+    IProject project = cu.getJavaProject().getProject();
+
+    // Reuse the outcome of parsing an identical method declaration
+    JsniParseCache cache = JsniParseCache.getInstance();
+    JsniParseCache.Entry entry = cache.get(project, jsniSource);
+    if (entry == null) {
+      try {
+        entry = JsniParseCache.Entry.forJavaRefs(findJavaRefs(jsniSource));
+      } catch (JavaScriptParseException e) {
+        entry = JsniParseCache.Entry.forParseError(e);
+      }
+      cache.put(project, jsniSource, entry);
+    }
+
+    return entry.createJavaRefs(cu.getResource().getFullPath(),
+        jsniMethod.getStartPosition());
+  }
+
+  /**
+   * Finds the Java references in a JSNI method declaration, with offsets
+   * relative to the start of the declaration and no source path.
+   */
+  static List<JsniJavaRef> findJavaRefs(final String jsniSource)
+      throws IOException, JavaScriptParseException, BadLocationException {
     final List<JsniJavaRef> javaRefs = new ArrayList<JsniJavaRef>();
 
     JsBlock js = JsniParser.parse(jsniSource);
@@ -281,23 +324,17 @@ public final class JsniParser {
           if (ident.indexOf("@") != -1) {
             JsniJavaRef javaRef = JsniJavaRef.parse(ident);
             if (javaRef != null) {
-              // Set the reference's Java source file
-              javaRef.setSource(cuPath);
-
               // To get the Java reference offset, we have to do an indexOf on
               // its identifier. To make sure we catch multiple references to
               // the same Java element, we need to start at the index one past
               // the start of the last Java reference we found (if any)
               int fromIndex = 0;
               if (javaRefs.size() > 0) {
-                fromIndex = javaRefs.get(javaRefs.size() - 1).getOffset()
-                    - jsniMethod.getStartPosition() + 1;
+                fromIndex = javaRefs.get(javaRefs.size() - 1).getOffset() + 1;
               }
-              int offset = jsniSource.indexOf(ident, fromIndex)
-                  + jsniMethod.getStartPosition();
 
-              // Set the reference's offset within the Java source file
-              javaRef.setOffset(offset);
+              // Set the reference's offset within the method declaration
+              javaRef.setOffset(jsniSource.indexOf(ident, fromIndex));
 
               javaRefs.add(javaRef);
             }
@@ -330,11 +367,11 @@ public final class JsniParser {
   }
 
   private static GWTJavaProblem validateJavaRef(MethodDeclaration jsniMethod,
-      JsniJavaRef ref) {
+      JsniJavaRef ref, JsniResolutionContext context) {
     ICompilationUnit cu = JavaASTUtils.getCompilationUnit(jsniMethod);
 
     try {
-      ref.resolveJavaElement(cu.getJavaProject());
+      ref.resolveJavaElement(cu.getJavaProject(), context);
       return null;
 
     } catch (UnresolvedJsniJavaRefException e) {
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.validators.java;
+
+import com.google.gdt.eclipse.core.java.JavaModelSearch;
+import com.google.gwt.eclipse.core.markers.GWTProblemType;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaModelException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memoizes the Java Model lookups made while resolving JSNI Java references.
+ * 
+ * A context is meant to live for a single pass over the code, such as one
+ * reconcile, one build, one search or one refactoring, and then be discarded.
+ * Within that pass, every reference to the same type shares one type lookup
+ * and one supertype hierarchy, and every textually identical reference is
+ * resolved only once. Failed lookups are remembered as well, so a misspelled
+ * type referenced from many JSNI methods only costs one classpath search.
+ * 
+ * Since nothing is ever invalidated, a context must not outlive the Java Model
+ * state it was populated from. This class is not thread-safe.
+ */
+public class JsniResolutionContext {
+
+  /**
+   * The outcome of resolving a reference: either the element it resolved to,
+   * or the problem type it failed with (which may be <code>null</code> for
+   * references that fail but should be ignored).
+   */
+  private static class Resolution {
+
+    private final IJavaElement element;
+
+    private final GWTProblemType problemType;
+
+    Resolution(IJavaElement element, GWTProblemType problemType) {
+      this.element = element;
+      this.problemType = problemType;
+    }
+
+    IJavaElement getElementOrThrow(JsniJavaRef ref)
+        throws UnresolvedJsniJavaRefException {
+      if (element == null) {
+        // Always report the failure against the caller's reference, so the
+        // problem marker lands on the right offset
+        throw new UnresolvedJsniJavaRefException(problemType, ref);
+      }
+      return element;
+    }
+  }
+
+  private final Map<IType, ITypeHierarchy> hierarchies = new HashMap<IType, ITypeHierarchy>();
+
+  private int hitCount;
+
+  private final Map<IJavaProject, Map<String, Resolution>> resolutions = new HashMap<IJavaProject, Map<String, Resolution>>();
+
+  private final Map<IJavaProject, Map<String, IType>> types = new HashMap<IJavaProject, Map<String, IType>>();
+
+  /**
+   * Finds a type on the project's classpath, reusing the result of any
+   * previous lookup of the same name (including a failed one).
+   * 
+   * @return the type, or <code>null</code> if it could not be found
+   */
+  public IType findType(IJavaProject project, String qualifiedTypeName) {
+    Map<String, IType> projectTypes = types.get(project);
+    if (projectTypes == null) {
+      projectTypes = new HashMap<String, IType>();
+      types.put(project, projectTypes);
+    }
+
+    if (projectTypes.containsKey(qualifiedTypeName)) {
+      return projectTypes.get(qualifiedTypeName);
+    }
+
+    IType type = JavaModelSearch.findType(project, qualifiedTypeName);
+    projectTypes.put(qualifiedTypeName, type);
+    return type;
+  }
+
+  /**
+   * Returns the number of references that were answered from this context
+   * instead of being resolved against the Java Model.
+   */
+  public int getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Returns the supertype hierarchy of the type, building it only the first
+   * time it is requested.
+   */
+  public ITypeHierarchy getSupertypeHierarchy(IType type)
+      throws JavaModelException {
+    ITypeHierarchy hierarchy = hierarchies.get(type);
+    if (hierarchy == null) {
+      hierarchy = type.newSupertypeHierarchy(null);
+      hierarchies.put(type, hierarchy);
+    }
+    return hierarchy;
+  }
+
+  IJavaElement resolve(IJavaProject project, JsniJavaRef ref)
+      throws UnresolvedJsniJavaRefException {
+    Map<String, Resolution> projectResolutions = resolutions.get(project);
+    if (projectResolutions == null) {
+      projectResolutions = new HashMap<String, Resolution>();
+      resolutions.put(project, projectResolutions);
+    }
+
+    String key = ref.resolutionKey();
+    Resolution resolution = projectResolutions.get(key);
+    if (resolution != null) {
+      hitCount++;
+      return resolution.getElementOrThrow(ref);
+    }
+
+    try {
+      IJavaElement element = ref.doResolveJavaElement(project, this);
+      projectResolutions.put(key, new Resolution(element, null));
+      return element;
+    } catch (UnresolvedJsniJavaRefException e) {
+      projectResolutions.put(key, new Resolution(null, e.getProblemType()));
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,428 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.eclipse.core.validators.rpc;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gdt.eclipse.core.JavaASTUtils;
+import com.google.gwt.eclipse.core.GWTPlugin;
+import com.google.gwt.eclipse.core.GWTPluginLog;
+import com.google.gwt.eclipse.core.util.Util;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.ui.IMemento;
+import org.eclipse.ui.XMLMemento;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers a digest of the method signatures of every synchronous and
+ * asynchronous RPC interface we have validated, so that validating one half of
+ * a pair does not require finding and parsing the other half.
+ * 
+ * The digests are computed so that a synchronous interface and an asynchronous
+ * interface that are consistent with each other have the same digest. If the
+ * changed interface's digest matches the one recorded for its partner, the
+ * pair is known to be valid; otherwise the validator falls back to resolving
+ * the partner's AST.
+ * 
+ * An entry is only trusted while the files it was computed from, that of the
+ * interface and those of its super-interfaces, are unchanged on disk and have
+ * no unsaved edits.
+ */
+public class RemoteServicePairingIndex {
+
+  private static class Entry {
+    private final String digest;
+    // Maps the path of each file the digest was computed from => its stamp
+    private final Map<IPath, Long> stamps;
+    private final boolean sync;
+
+    Entry(Map<IPath, Long> stamps, boolean sync, String digest) {
+      this.stamps = stamps;
+      this.sync = sync;
+      this.digest = digest;
+    }
+  }
+
+  private static final String ATTR_DIGEST = "digest";
+
+  private static final String ATTR_PATH = "path";
+
+  private static final String ATTR_PROJECT = "project";
+
+  private static final String ATTR_STAMP = "stamp";
+
+  private static final String ATTR_SYNC = "sync";
+
+  private static final String ATTR_TYPE = "type";
+
+  private static final String INDEX_FILE_NAME = "remoteServicePairs";
+
+  private static RemoteServicePairingIndex INSTANCE;
+
+  private static final String TAG_FILE = "file";
+
+  private static final String TAG_INTERFACE = "interface";
+
+  private static final String TAG_ROOT = "index";
+
+  public static synchronized RemoteServicePairingIndex getInstance() {
+    // Lazily load the index
+    if (INSTANCE == null) {
+      INSTANCE = new RemoteServicePairingIndex();
+      INSTANCE.loadIndex();
+    }
+    return INSTANCE;
+  }
+
+  public static synchronized void save() {
+    if (INSTANCE != null) {
+      INSTANCE.saveIndex();
+    }
+  }
+
+  /**
+   * Computes the pairing digest of an asynchronous interface, or returns
+   * <code>null</code> if any of its methods is malformed on its own (in which
+   * case only a full validation can report the problem).
+   */
+  static String computeAsyncDigest(ITypeBinding asyncInterface) {
+    List<String> signatures = new ArrayList<String>();
+    for (IMethodBinding method : getAllMethods(asyncInterface)) {
+      ITypeBinding callback = RemoteServiceUtilities.getAsyncCallbackParam(method);
+      if (callback == null
+          || !callback.isParameterizedType()
+          || !Util.VALID_ASYNC_RPC_RETURN_TYPES.contains(
+              method.getReturnType().getQualifiedName())) {
+        return null;
+      }
+
+      ITypeBinding resultType = callback.getTypeArguments()[0];
+      signatures.add(computeSignature(method.getName(),
+          RemoteServiceUtilities.computeSyncParameterTypes(method),
+          toPairedTypeName(resultType)));
+    }
+    return computeDigest(signatures);
+  }
+
+  /**
+   * Computes the pairing digest of a synchronous interface.
+   */
+  static String computeSyncDigest(ITypeBinding syncInterface) {
+    List<String> signatures = new ArrayList<String>();
+    for (IMethodBinding method : getAllMethods(syncInterface)) {
+      ITypeBinding returnType = method.getReturnType();
+      String resultTypeName = returnType.isPrimitive()
+          ? JavaASTUtils.getWrapperTypeName(returnType.getQualifiedName())
+          : toPairedTypeName(returnType);
+
+      // The async parameters include the trailing AsyncCallback, so drop it to
+      // line up with computeSyncParameterTypes on the async side
+      String[] asyncParameters = RemoteServiceUtilities.computeAsyncParameterTypes(method);
+      String[] parameters = new String[asyncParameters.length - 1];
+      System.arraycopy(asyncParameters, 0, parameters, 0, parameters.length);
+      signatures.add(computeSignature(method.getName(), parameters,
+          resultTypeName));
+    }
+    return computeDigest(signatures);
+  }
+
+  private static String computeDigest(List<String> signatures) {
+    Collections.sort(signatures);
+    Hasher hasher = Hashing.sha1().newHasher();
+    for (String signature : signatures) {
+      hasher.putString(signature, Charsets.UTF_8);
+      hasher.putByte((byte) 0);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns the stamps of the files the methods of the given interface are
+   * declared in, or <code>null</code> if any of them is declared in a binary
+   * type or in a compilation unit with unsaved changes.
+   */
+  private static Map<IPath, Long> computeStamps(ICompilationUnit cu,
+      ITypeBinding type) throws JavaModelException {
+    Map<IPath, Long> stamps = new LinkedHashMap<IPath, Long>();
+    IFile file = (IFile) cu.getResource();
+    stamps.put(file.getFullPath(), file.getModificationStamp());
+
+    List<ITypeBinding> types = new ArrayList<ITypeBinding>();
+    RemoteServiceUtilities.expandSuperInterfaces(type, types);
+    for (ITypeBinding t : types) {
+      if (t.getDeclaredMethods().length == 0) {
+        // Contributes nothing to the digest, e.g. RemoteService
+        continue;
+      }
+
+      IJavaElement element = t.getErasure().getJavaElement();
+      if (!(element instanceof IType)) {
+        return null;
+      }
+      ICompilationUnit typeCu = ((IType) element).getCompilationUnit();
+      if (typeCu == null || typeCu.getResource() == null
+          || typeCu.hasUnsavedChanges()) {
+        // Changes to binary types can't be detected from file stamps
+        return null;
+      }
+      IFile typeFile = (IFile) typeCu.getResource();
+      stamps.put(typeFile.getFullPath(), typeFile.getModificationStamp());
+    }
+    return stamps;
+  }
+
+  private static String computeSignature(String methodName,
+      String[] parameterTypes, String resultType) {
+    return RemoteServiceUtilities.computeMethodSignature(resultType,
+        methodName, parameterTypes);
+  }
+
+  private static List<IMethodBinding> getAllMethods(ITypeBinding type) {
+    List<ITypeBinding> types = new ArrayList<ITypeBinding>();
+    RemoteServiceUtilities.expandSuperInterfaces(type, types);
+
+    List<IMethodBinding> methods = new ArrayList<IMethodBinding>();
+    for (ITypeBinding t : types) {
+      methods.addAll(Arrays.asList(t.getDeclaredMethods()));
+    }
+    return methods;
+  }
+
+  /**
+   * Names a type the way it must match across the pair. Types that refer to
+   * type variables are erased, since each interface declares its own.
+   */
+  private static String toPairedTypeName(ITypeBinding type) {
+    if (AbstractPairedInterfaceValidator.containsTypeVariableReferences(type)) {
+      type = type.getErasure();
+    }
+    return type.getQualifiedName();
+  }
+
+  // Maps project name => interface qualified name => entry
+  private final Map<String, Map<String, Entry>> entries = new HashMap<String, Map<String, Entry>>();
+
+  RemoteServicePairingIndex() {
+  }
+
+  /**
+   * Removes all interfaces in the specified project from the index.
+   */
+  public synchronized void clear(IProject project) {
+    entries.remove(project.getName());
+  }
+
+  /**
+   * Returns the digest recorded for the given interface, or <code>null</code>
+   * if there is none we can trust.
+   * 
+   * @param sync whether the interface must be a synchronous one
+   */
+  synchronized String findDigest(IJavaProject javaProject,
+      String qualifiedTypeName, boolean sync) {
+    Map<String, Entry> projectEntries = entries.get(javaProject.getElementName());
+    if (projectEntries == null) {
+      return null;
+    }
+
+    Entry entry = projectEntries.get(qualifiedTypeName);
+    if (entry == null || entry.sync != sync) {
+      return null;
+    }
+
+    for (Map.Entry<IPath, Long> stamp : entry.stamps.entrySet()) {
+      IFile file = ResourcesPlugin.getWorkspace().getRoot().getFile(
+          stamp.getKey());
+      if (!file.exists() || file.getModificationStamp() != stamp.getValue()) {
+        projectEntries.remove(qualifiedTypeName);
+        return null;
+      }
+
+      // An editor's unsaved changes are what a full lookup would see, and they
+      // may not match the file the digest came from
+      ICompilationUnit cu = JavaCore.createCompilationUnitFrom(file);
+      try {
+        if (cu == null || cu.hasUnsavedChanges()) {
+          return null;
+        }
+      } catch (JavaModelException e) {
+        return null;
+      }
+    }
+
+    return entry.digest;
+  }
+
+  /**
+   * Records the digest of an interface declared in the given compilation unit.
+   * Interfaces in compilation units with unsaved changes, or in working copies
+   * owned by a refactoring, are not recorded, and neither are interfaces which
+   * inherit methods from binary types or from compilation units with unsaved
+   * changes.
+   * 
+   * @param type the binding of the interface the digest was computed from
+   */
+  synchronized void put(ICompilationUnit cu, ITypeBinding type,
+      String qualifiedTypeName, boolean sync, String digest) {
+    Map<String, Entry> projectEntries = getProjectEntries(cu.getJavaProject().getElementName());
+    Map<IPath, Long> stamps = null;
+    try {
+      if (digest != null && cu.getResource() != null && cu.getOwner() == null
+          && !cu.hasUnsavedChanges()) {
+        stamps = computeStamps(cu, type);
+      }
+    } catch (JavaModelException e) {
+      // Don't record the digest
+    }
+
+    if (stamps == null) {
+      projectEntries.remove(qualifiedTypeName);
+      return;
+    }
+    projectEntries.put(qualifiedTypeName, new Entry(stamps, sync, digest));
+  }
+
+  synchronized void saveIndex() {
+    XMLMemento memento = XMLMemento.createWriteRoot(TAG_ROOT);
+    for (Map.Entry<String, Map<String, Entry>> projectEntries : entries.entrySet()) {
+      for (Map.Entry<String, Entry> typeEntry : projectEntries.getValue().entrySet()) {
+        Entry entry = typeEntry.getValue();
+        IMemento node = memento.createChild(TAG_INTERFACE);
+        node.putString(ATTR_PROJECT, projectEntries.getKey());
+        node.putString(ATTR_TYPE, typeEntry.getKey());
+        node.putString(ATTR_SYNC, String.valueOf(entry.sync));
+        node.putString(ATTR_DIGEST, entry.digest);
+        for (Map.Entry<IPath, Long> stamp : entry.stamps.entrySet()) {
+          IMemento fileNode = node.createChild(TAG_FILE);
+          fileNode.putString(ATTR_PATH, stamp.getKey().toString());
+          fileNode.putString(ATTR_STAMP, String.valueOf(stamp.getValue()));
+        }
+      }
+    }
+
+    File indexFile = getIndexFile();
+    FileWriter writer = null;
+    try {
+      try {
+        writer = new FileWriter(indexFile);
+        memento.save(writer);
+      } finally {
+        if (writer != null) {
+          writer.close();
+        }
+      }
+    } catch (IOException e) {
+      GWTPluginLog.logError(e, "Error saving RPC pairing index");
+
+      // Make sure we remove any partially-written file
+      if (indexFile.exists()) {
+        indexFile.delete();
+      }
+    }
+  }
+
+  private File getIndexFile() {
+    // <workspace>/.metadata/.plugins/com.google.gwt.eclipse.core
+    return GWTPlugin.getDefault().getStateLocation().append(INDEX_FILE_NAME).toFile();
+  }
+
+  private Map<String, Entry> getProjectEntries(String projectName) {
+    Map<String, Entry> projectEntries = entries.get(projectName);
+    if (projectEntries == null) {
+      projectEntries = new HashMap<String, Entry>();
+      entries.put(projectName, projectEntries);
+    }
+    return projectEntries;
+  }
+
+  private void loadIndex() {
+    FileReader reader = null;
+    try {
+      try {
+        reader = new FileReader(getIndexFile());
+        loadIndex(XMLMemento.createReadRoot(reader));
+      } finally {
+        if (reader != null) {
+          reader.close();
+        }
+      }
+    } catch (FileNotFoundException e) {
+      // Ignore this exception, which occurs when index does not yet exist
+    } catch (Exception e) {
+      GWTPluginLog.logError(e, "Error loading RPC pairing index");
+    }
+  }
+
+  private void loadIndex(XMLMemento memento) {
+    for (IMemento node : memento.getChildren(TAG_INTERFACE)) {
+      String project = node.getString(ATTR_PROJECT);
+      String type = node.getString(ATTR_TYPE);
+      String digest = node.getString(ATTR_DIGEST);
+      // Entries written before super-interfaces were tracked have no files
+      IMemento[] fileNodes = node.getChildren(TAG_FILE);
+      if (project == null || type == null || digest == null
+          || fileNodes.length == 0) {
+        continue;
+      }
+
+      Map<IPath, Long> stamps = new LinkedHashMap<IPath, Long>();
+      try {
+        for (IMemento fileNode : fileNodes) {
+          String path = fileNode.getString(ATTR_PATH);
+          String stamp = fileNode.getString(ATTR_STAMP);
+          if (path == null || stamp == null) {
+            stamps = null;
+            break;
+          }
+          stamps.put(new Path(path), Long.parseLong(stamp));
+        }
+      } catch (NumberFormatException e) {
+        stamps = null;
+      }
+
+      // Skip corrupt entries; they will be recomputed on the next build
+      if (stamps != null) {
+        getProjectEntries(project).put(type, new Entry(stamps,
+            Boolean.valueOf(node.getString(ATTR_SYNC)), digest));
+      }
+    }
+  }
+}
@@ -15,8 +15,10 @@
 package com.google.gwt.eclipse.core.validators.rpc;
 
 import com.google.gdt.eclipse.core.JavaASTUtils;
+import com.google.gdt.eclipse.core.perf.Instrumentation;
 import com.google.gdt.eclipse.core.validation.ValidationResult;
 
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -35,15 +37,18 @@ import java.util.List;
 public class RemoteServiceValidator {
   private static class RemoteServiceValidationVisitor extends ASTVisitor {
     private final PairedInterfaceValidator asynchronousInterfaceValidator = new AsynchronousInterfaceValidator();
+    private final CompilationUnit compilationUnit;
     private final List<String> dependentTypes = new ArrayList<String>();
     private final IJavaProject javaProject;
+    private final RemoteServicePairingIndex pairingIndex = RemoteServicePairingIndex.getInstance();
 
     private final List<CategorizedProblem> problems = new ArrayList<CategorizedProblem>();
 
     private final PairedInterfaceValidator synchronousInterfaceValidator = new SynchronousInterfaceValidator();
 
-    public RemoteServiceValidationVisitor(IJavaProject javaProject) {
-      this.javaProject = javaProject;
+    public RemoteServiceValidationVisitor(CompilationUnit compilationUnit) {
+      this.compilationUnit = compilationUnit;
+      this.javaProject = compilationUnit.getJavaElement().getJavaProject();
     }
 
     @Override
@@ -62,11 +67,10 @@ public class RemoteServiceValidator {
       TypeDeclaration dependentType = null;
 
       String dependentTypeQualifiedName;
+      boolean isSync = RemoteServiceUtilities.isSynchronousInterface(typeBinding);
 
-      if (RemoteServiceUtilities.isSynchronousInterface(typeBinding)) {
+      if (isSync) {
         dependentTypeQualifiedName = RemoteServiceUtilities.computeAsyncTypeName(typeQualifiedName);
-        dependentType = JavaASTUtils.findTypeDeclaration(javaProject,
-            dependentTypeQualifiedName);
         validator = synchronousInterfaceValidator;
       } else {
         validator = asynchronousInterfaceValidator;
@@ -75,14 +79,23 @@ public class RemoteServiceValidator {
           // Not an async interface...
           return true;
         }
-
-        dependentType = JavaASTUtils.findTypeDeclaration(javaProject,
-            dependentTypeQualifiedName);
       }
 
       // Add the type dependency (even if the type doesn't yet resolve)
       dependentTypes.add(dependentTypeQualifiedName);
 
+      // If the partner was consistent with this interface as it now stands,
+      // there is no need to find and parse it
+      String digest = recordDigest(changedType, typeQualifiedName, isSync);
+      if (digest != null
+          && digest.equals(pairingIndex.findDigest(javaProject,
+              dependentTypeQualifiedName, !isSync))) {
+        return true;
+      }
+
+      dependentType = JavaASTUtils.findTypeDeclaration(javaProject,
+          dependentTypeQualifiedName);
+
       ITypeBinding dependentTypeBinding = null;
       if (dependentType != null) {
         dependentTypeBinding = dependentType.resolveBinding();
@@ -92,18 +105,43 @@ public class RemoteServiceValidator {
 
       return true;
     }
+
+    /**
+     * Computes the changed interface's pairing digest and records it in the
+     * index, unless the interface has errors.
+     * 
+     * @return the digest, or <code>null</code> if it can't be relied on
+     */
+    private String recordDigest(TypeDeclaration changedType,
+        String typeQualifiedName, boolean isSync) {
+      String digest = null;
+      ITypeBinding typeBinding = null;
+      if (!JavaASTUtils.hasErrors(changedType, compilationUnit.getProblems())) {
+        typeBinding = changedType.resolveBinding();
+        digest = isSync ? RemoteServicePairingIndex.computeSyncDigest(typeBinding)
+            : RemoteServicePairingIndex.computeAsyncDigest(typeBinding);
+      }
+
+      ICompilationUnit cu = (ICompilationUnit) compilationUnit.getJavaElement();
+      pairingIndex.put(cu, typeBinding, typeQualifiedName, isSync, digest);
+      return digest;
+    }
   }
 
   public ValidationResult validate(ASTNode ast) {
-    // TODO: Just pass in a CompilationUnit
-    assert (ast.getNodeType() == ASTNode.COMPILATION_UNIT);
-    CompilationUnit compilationUnit = (CompilationUnit) ast;
-    IJavaProject javaProject = compilationUnit.getJavaElement().getJavaProject();
-
-    RemoteServiceValidationVisitor remoteServiceValidationVisitor = new RemoteServiceValidationVisitor(
-        javaProject);
-    ast.accept(remoteServiceValidationVisitor);
-    return new ValidationResult(remoteServiceValidationVisitor.problems,
-        remoteServiceValidationVisitor.dependentTypes);
+    long start = Instrumentation.start();
+    try {
+      // TODO: Just pass in a CompilationUnit
+      assert (ast.getNodeType() == ASTNode.COMPILATION_UNIT);
+      CompilationUnit compilationUnit = (CompilationUnit) ast;
+
+      RemoteServiceValidationVisitor remoteServiceValidationVisitor = new RemoteServiceValidationVisitor(
+          compilationUnit);
+      ast.accept(remoteServiceValidationVisitor);
+      return new ValidationResult(remoteServiceValidationVisitor.problems,
+          remoteServiceValidationVisitor.dependentTypes);
+    } finally {
+      Instrumentation.stop("gwt.validate.rpc", start);
+    }
   }
 }
\ No newline at end of file